@@ -9,6 +9,10 @@ module notebookapplication {
     requires org.kordamp.ikonli.javafx;
     requires eu.hansolo.tilesfx;
     requires java.desktop;
+    requires java.management;
+    requires jdk.management;
+    requires java.net.http;
+    requires jdk.httpserver;
 
     exports notebookapplication.gui;
     opens notebookapplication.gui to javafx.fxml;
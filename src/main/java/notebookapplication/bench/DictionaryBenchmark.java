@@ -0,0 +1,169 @@
+package notebookapplication.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import notebookapplication.model.SpellDictionary;
+
+/**
+ * A benchmark of the spell-check dictionary, measuring the time to load a word list,
+ *   the memory footprint of the automaton, and the latencies of the lookups and the
+ *   suggestions, see {@link SpellDictionary}.
+ * The word list is either a file of one word per line, or synthetic words built from
+ *   syllables and common suffixes, so that they share prefixes and suffixes like a real
+ *   language. The result is printed as JSON.
+ * Usage:
+ * <ul>
+ *     <li>{@code file <word list> [runs]} benchmarks a word list file</li>
+ *     <li>{@code synthetic <words> [runs] [seed]} benchmarks synthetic words</li>
+ * </ul>
+ */
+public final class DictionaryBenchmark {
+    private static final String[] SYLLABLES = {"ba", "con", "de", "for", "ga", "in", "ka",
+        "li", "mo", "ne", "pro", "ra", "se", "ta", "un", "ver", "wi", "zo", "ex", "tra"};
+    private static final String[] SUFFIXES = {"", "s", "ed", "ing", "er", "ers", "ly",
+        "ness", "tion", "able"};
+
+    /** The number of misspelled words whose suggestions are timed. */
+    private static final int SUGGESTIONS = 1000;
+
+    private DictionaryBenchmark() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Runs the benchmark on a word list file or on synthetic words.
+     *
+     * @param args  the source of the words and its arguments
+     * @throws IOException if reading the word list fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            exitWithUsage();
+        }
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        List<String> words = switch (args[0]) {
+            case "file" -> Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8);
+            case "synthetic" -> syntheticWords(Integer.parseInt(args[1]),
+                    new Random(args.length > 3 ? Long.parseLong(args[3]) : 42));
+            default -> {
+                exitWithUsage();
+                yield List.of();
+            }
+        };
+        System.out.println(run(words, runs, new Random(7)));
+    }
+
+    /**
+     * Builds synthetic words of two to four syllables followed by a suffix.
+     *
+     * @param count the number of words, possibly with repetitions
+     * @param random    the source of randomness
+     * @return  the words
+     */
+    public static List<String> syntheticWords(int count, Random random) {
+        List<String> words = new ArrayList<>(count);
+        StringBuilder word = new StringBuilder();
+        while (words.size() < count) {
+            word.setLength(0);
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            String stem = word.toString();
+            for (int i = 0; i < SUFFIXES.length && words.size() < count; i++) {
+                if (i == 0 || random.nextInt(3) == 0) {
+                    words.add(stem + SUFFIXES[i]);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Builds the dictionary of the words several times, then times the lookups of all the
+     *      words and the suggestions of misspelled words.
+     *
+     * @param words the words of the dictionary
+     * @param runs  the number of times the dictionary is built
+     * @param random    the source of randomness of the misspellings
+     * @return  the result as a JSON object
+     */
+    public static String run(List<String> words, int runs, Random random) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        LatencyHistogram loads = new LatencyHistogram();
+        SpellDictionary dictionary = null;
+        long retainedBytes = 0;
+        for (int i = 0; i < Math.max(runs, 1); i++) {
+            dictionary = null;
+            System.gc();
+            long heapBefore = memory.getHeapMemoryUsage().getUsed();
+            long start = System.nanoTime();
+            dictionary = SpellDictionary.of(words);
+            loads.record(System.nanoTime() - start);
+            System.gc();
+            retainedBytes = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        }
+
+        long start = System.nanoTime();
+        int found = 0;
+        for (String word : words) {
+            if (dictionary.contains(word)) {
+                found++;
+            }
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        LatencyHistogram suggestions = new LatencyHistogram();
+        for (int i = 0; i < SUGGESTIONS && !words.isEmpty(); i++) {
+            String misspelled = misspell(words.get(random.nextInt(words.size())), random);
+            long suggestStart = System.nanoTime();
+            dictionary.suggest(misspelled, 2, 5);
+            suggestions.record(System.nanoTime() - suggestStart);
+        }
+
+        return new StringBuilder("{")
+                .append(STR."\"javaVersion\":\"\{System.getProperty("java.version")}\",")
+                .append(STR."\"inputWords\":\{words.size()},\"words\":\{dictionary.size()},")
+                .append(STR."\"states\":\{dictionary.stateCount()},")
+                .append(STR."\"transitions\":\{dictionary.transitionCount()},")
+                .append(STR."\"automatonBytes\":\{dictionary.memoryBytes()},")
+                .append(STR."\"retainedHeapBytes\":\{retainedBytes},")
+                .append(STR."\"load\":\{loads.toJson()},")
+                .append(STR."\"lookupNanosPerWord\":")
+                .append(words.isEmpty() ? 0 : lookupNanos / words.size())
+                .append(STR.",\"found\":\{found},\"suggest\":\{suggestions.toJson()}}")
+                .toString();
+    }
+
+    // swaps, replaces or deletes one char of a word
+    private static String misspell(String word, Random random) {
+        StringBuilder misspelled = new StringBuilder(word.strip());
+        if (misspelled.length() < 2) {
+            return misspelled.append('x').toString();
+        }
+        int position = random.nextInt(misspelled.length() - 1);
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                char character = misspelled.charAt(position);
+                misspelled.setCharAt(position, misspelled.charAt(position + 1));
+                misspelled.setCharAt(position + 1, character);
+            }
+            case 1 -> misspelled.setCharAt(position, (char) ('a' + random.nextInt(26)));
+            default -> misspelled.deleteCharAt(position);
+        }
+        return misspelled.toString();
+    }
+
+    // prints the usage and exits
+    private static void exitWithUsage() {
+        System.err.println("Usage: DictionaryBenchmark file <word list> [runs]");
+        System.err.println("       DictionaryBenchmark synthetic <words> [runs] [seed]");
+        System.exit(2);
+    }
+}
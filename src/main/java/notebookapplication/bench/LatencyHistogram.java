@@ -0,0 +1,97 @@
+package notebookapplication.bench;
+
+/**
+ * A histogram of latencies in nanoseconds with a bounded relative error, so that
+ *   millions of operations are recorded without keeping every sample.
+ * The values below 128 have their own bucket, and every larger power of two is split
+ *   into 128 buckets, so a percentile is at most 1/128 above the recorded value.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The count of every bucket, large enough for every positive long. */
+    private final long[] counts = new long[SUB_BUCKETS * (64 - SUB_BUCKET_BITS)];
+
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency in nanoseconds, negative values being recorded as 0
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[bucketOf(nanos)]++;
+        count++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Gets the latency below or at which the given ratio of the recorded latencies are.
+     *
+     * @param ratio the ratio between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return  the upper bound of the bucket containing the percentile, at most the
+     *      maximal latency, or 0 if nothing is recorded
+     */
+    public long percentile(double ratio) {
+        long rank = Math.max(1, (long) Math.ceil(ratio * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, highestValueOf(bucket));
+            }
+        }
+        return max;
+    }
+
+    // getter for the number of recorded latencies
+    public long getCount() {
+        return count;
+    }
+
+    // getter for the maximal recorded latency
+    public long getMax() {
+        return max;
+    }
+
+    // getter for the mean of the recorded latencies, 0 if nothing is recorded
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Writes the count and the main percentiles as a JSON object.
+     *
+     * @return  the JSON object
+     */
+    public String toJson() {
+        return STR."{\"count\":\{count},\"meanNanos\":\{Math.round(getMean())},"
+                + STR."\"p50Nanos\":\{percentile(0.5)},\"p99Nanos\":\{percentile(0.99)},"
+                + STR."\"p999Nanos\":\{percentile(0.999)},\"maxNanos\":\{max}}";
+    }
+
+    // gets the bucket of a non-negative value
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    // gets the largest value falling into a bucket
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,201 @@
+package notebookapplication.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import notebookapplication.model.NameIndex;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+
+/**
+ * A benchmark of the name index of the quick switcher, measuring the time to index a
+ *   notebook with very many pages and the latencies of the searches typed by a user,
+ *   whose target is under a millisecond per keystroke on a million names, see
+ *   {@link NameIndex}.
+ * The page names are built from common words and numbers, so that many names share
+ *   their words like in a real notebook, and written as note files of a thousand pages
+ *   in a temporary directory, loaded like real ones. Every query is searched as it is
+ *   typed, one prefix per keystroke, and is either the start of a name, a word of a name,
+ *   two words in another order, a subsequence of a name, or a typo. The result is
+ *   printed as JSON.
+ * Usage: {@code NameIndexBenchmark <names> [queries] [seed]}
+ */
+public final class NameIndexBenchmark {
+    private static final String[] WORDS = {"meeting", "notes", "project", "review", "draft",
+        "plan", "design", "budget", "release", "summary", "lecture", "chapter", "journal",
+        "recipe", "travel", "reading", "physics", "algebra", "weekly", "ideas", "todo",
+        "research", "interview", "report", "roadmap", "retrospective", "backlog", "spec"};
+
+    /** The number of pages of every group. */
+    private static final int PAGES_PER_GROUP = 1000;
+
+    /** The number of matches shown by the quick switcher. */
+    private static final int LIMIT = 20;
+
+    /** The target latency of a search, in nanoseconds. */
+    private static final long TARGET_NANOS = 1_000_000;
+
+    private NameIndexBenchmark() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Runs the benchmark on a synthetic notebook.
+     *
+     * @param args  the number of names, and optionally the number of queries and the seed
+     * @throws IOException if writing or reading the note files fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: NameIndexBenchmark <names> [queries] [seed]");
+            System.exit(2);
+        }
+        int names = Integer.parseInt(args[0]);
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 42);
+        Path directory = Files.createTempDirectory("name-index-benchmark");
+        try {
+            List<Path> files = writeNotebook(directory, names, random);
+            System.out.println(run(NoteFacade.load(files), queries, random));
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Writes a notebook of empty pages with synthetic names as note files of a thousand
+     *      pages, one per group.
+     *
+     * @param directory the directory receiving the note files
+     * @param names the number of names, groups and pages together
+     * @param random    the source of randomness
+     * @return  the note files written, in the order of the groups
+     * @throws IOException if writing fails
+     */
+    public static List<Path> writeNotebook(Path directory, int names, Random random)
+            throws IOException {
+        List<Path> files = new ArrayList<>();
+        int count = 0;
+        while (count < names) {
+            Path file = directory.resolve(STR."group-\{files.size()}.txt");
+            count++;
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < PAGES_PER_GROUP && count < names; i++, count++) {
+                    writer.append(STR."[page=\"\{syntheticName(random)}\"][/page]");
+                }
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Indexes a notebook, then times the searches of the queries typed one keystroke at
+     *      a time.
+     *
+     * @param noteFacade    the notebook to be indexed
+     * @param queries   the number of typed queries
+     * @param random    the source of randomness of the queries
+     * @return  the result as a JSON object
+     */
+    public static String run(NoteFacade noteFacade, int queries, Random random) {
+        List<String> names = new ArrayList<>();
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            for (NotePage notePage : noteGroup.getNotePages()) {
+                names.add(notePage.getPageName());
+            }
+        }
+
+        long start = System.nanoTime();
+        NameIndex index = new NameIndex(noteFacade);
+        long indexNanos = System.nanoTime() - start;
+
+        // warms up the search with as many queries before it is timed
+        type(index, names, queries, random, new LatencyHistogram());
+        LatencyHistogram searches = new LatencyHistogram();
+        long overTarget = type(index, names, queries, random, searches);
+
+        return new StringBuilder("{")
+                .append(STR."\"javaVersion\":\"\{System.getProperty("java.version")}\",")
+                .append(STR."\"names\":\{index.size()},\"indexNanos\":\{indexNanos},")
+                .append(STR."\"queries\":\{queries},\"search\":\{searches.toJson()},")
+                .append(STR."\"searchesOverTarget\":\{overTarget},")
+                .append(STR."\"p99UnderTarget\":\{searches.percentile(0.99) < TARGET_NANOS}}")
+                .toString();
+    }
+
+    /**
+     * Private auxiliary method to search random queries, one prefix per keystroke.
+     *
+     * @param index the name index
+     * @param names the names the queries are built from
+     * @param queries   the number of typed queries
+     * @param random    the source of randomness of the queries
+     * @param searches  the histogram of the latencies of the searches
+     * @return  the number of searches slower than the target
+     */
+    private static long type(NameIndex index, List<String> names, int queries, Random random,
+                             LatencyHistogram searches) {
+        long overTarget = 0;
+        for (int i = 0; i < queries && !names.isEmpty(); i++) {
+            String query = query(names.get(random.nextInt(names.size())), random);
+            for (int end = 1; end <= query.length(); end++) {
+                String typed = query.substring(0, end);
+                long searchStart = System.nanoTime();
+                index.search(typed, LIMIT);
+                long searchNanos = System.nanoTime() - searchStart;
+                searches.record(searchNanos);
+                if (searchNanos > TARGET_NANOS) {
+                    overTarget++;
+                }
+            }
+        }
+        return overTarget;
+    }
+
+    // builds a name of two to four words, sometimes numbered
+    private static String syntheticName(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (name.isEmpty()) {
+                name.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                name.append(' ').append(word);
+            }
+        }
+        if (random.nextBoolean()) {
+            name.append(' ').append(random.nextInt(10_000));
+        }
+        return name.toString();
+    }
+
+    // builds a query a user could type to find a name
+    private static String query(String name, Random random) {
+        String[] words = name.split(" ");
+        return switch (random.nextInt(5)) {
+            case 0 -> name.substring(0, Math.min(name.length(), 3 + random.nextInt(8)));
+            case 1 -> words[random.nextInt(words.length)];
+            case 2 -> words.length > 1 ? STR."\{words[1]} \{words[0]}" : words[0];
+            case 3 -> {
+                StringBuilder subsequence = new StringBuilder();
+                for (String word : words) {
+                    subsequence.append(word, 0, Math.min(word.length(), 2));
+                }
+                yield subsequence.toString();
+            }
+            default -> words[0].substring(0, Math.min(words[0].length(), 4)) + "qz";
+        };
+    }
+}
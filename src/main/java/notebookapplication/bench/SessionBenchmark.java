@@ -0,0 +1,265 @@
+package notebookapplication.bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+
+/**
+ * A macro-benchmark replaying whole editing sessions against the model, to compare how
+ *   builds behave over hours of editing rather than in microbenchmarks.
+ * A session is a trace of {@link TraceOp}, generated by {@link TraceGenerator} or recorded
+ *   by {@link TraceRecorder}. The replay reports as JSON the latency percentiles of every
+ *   kind of operation, the bytes allocated and the allocation rate of the replaying
+ *   thread, and the pauses of every garbage collector.
+ * Usage:
+ * <ul>
+ *     <li>{@code notebook <dir> <groups> <pages> <mean page chars> [seed]} writes a
+ *         synthetic notebook</li>
+ *     <li>{@code trace <notebook dir> <trace file> <operations> [seed]} generates a
+ *         session for the notebook</li>
+ *     <li>{@code replay <notebook dir> <trace file> [label] [result file]} replays the
+ *         session on the notebook and prints or writes the result</li>
+ * </ul>
+ */
+public final class SessionBenchmark {
+    private SessionBenchmark() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Runs one of the commands of the benchmark.
+     *
+     * @param args  the command and its arguments
+     * @throws IOException if reading or writing a file fails
+     */
+    public static void main(String[] args) throws IOException {
+        String command = args.length == 0 ? "" : args[0];
+        switch (command) {
+            case "notebook" -> {
+                requireArguments(args, 5);
+                List<Path> files = TraceGenerator.writeNotebook(Path.of(args[1]),
+                        Integer.parseInt(args[2]), Long.parseLong(args[3]),
+                        Integer.parseInt(args[4]), new Random(seed(args, 5)));
+                System.out.println(STR."Wrote \{files.size()} note files to \{args[1]}");
+            }
+            case "trace" -> {
+                requireArguments(args, 4);
+                Stream<TraceOp> trace = TraceGenerator.generate(loadNotebook(Path.of(args[1])),
+                        Integer.parseInt(args[3]), new Random(seed(args, 4)));
+                long written = TraceGenerator.writeTrace(Path.of(args[2]), trace);
+                System.out.println(STR."Wrote \{written} operations to \{args[2]}");
+            }
+            case "replay" -> {
+                requireArguments(args, 3);
+                NoteFacade noteFacade = loadNotebook(Path.of(args[1]));
+                String result;
+                try (Stream<TraceOp> trace = TraceGenerator.readTrace(Path.of(args[2]))) {
+                    result = replay(noteFacade, trace, args.length > 3 ? args[3] : "replay");
+                }
+                if (args.length > 4) {
+                    Files.writeString(Path.of(args[4]), result, StandardCharsets.UTF_8);
+                } else {
+                    System.out.println(result);
+                }
+            }
+            default -> exitWithUsage();
+        }
+    }
+
+    /**
+     * Loads the notebook written in a directory, taking its note files in name order.
+     *
+     * @param directory the directory of the notebook
+     * @return  the loaded notebook
+     * @throws IOException if reading fails
+     */
+    public static NoteFacade loadNotebook(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> noteFiles = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(".txt")).toList());
+            // group-10 comes after group-9
+            noteFiles.sort((first, second) -> {
+                String firstName = first.getFileName().toString();
+                String secondName = second.getFileName().toString();
+                return firstName.length() != secondName.length()
+                        ? Integer.compare(firstName.length(), secondName.length())
+                        : firstName.compareTo(secondName);
+            });
+            return NoteFacade.load(noteFiles);
+        }
+    }
+
+    /**
+     * Replays a trace on a notebook, timing every operation.
+     * The operations are consumed one at a time, so a trace read from a file is never
+     *   held in memory; the time and allocations of reading it are measured too.
+     *
+     * @param noteFacade    the notebook, as it was when the trace was generated or recorded
+     * @param trace the operations to be replayed
+     * @param label the label of the result, e.g. the build being measured
+     * @return  the result as a JSON object
+     * @throws IllegalArgumentException if an operation does not fit the notebook
+     */
+    public static String replay(NoteFacade noteFacade, Stream<TraceOp> trace, String label) {
+        Map<TraceOp.Kind, LatencyHistogram> latencies = new EnumMap<>(TraceOp.Kind.class);
+        Map<String, LatencyHistogram> pauses = new LinkedHashMap<>();
+        NotificationListener gcListener = (notification, handback) ->
+                recordPause(notification, pauses);
+        List<NotificationEmitter> emitters = new ArrayList<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(gcListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+        long operations = 0;
+        for (TraceOp op : (Iterable<TraceOp>) trace::iterator) {
+            operations++;
+            long opStart = System.nanoTime();
+            op.applyTo(noteFacade);
+            long opNanos = System.nanoTime() - opStart;
+            latencies.computeIfAbsent(op.kind(), kind -> new LatencyHistogram()).record(opNanos);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                // already removed, nothing to do
+            }
+        }
+        return toJson(label, noteFacade, operations, elapsedNanos, allocated, latencies,
+                pauses);
+    }
+
+    /**
+     * Private auxiliary method to record the duration of a garbage collection.
+     *
+     * @param notification  the notification sent by a garbage collector
+     * @param pauses    the histograms of the durations by collector and cause
+     */
+    private static void recordPause(Notification notification,
+                                    Map<String, LatencyHistogram> pauses) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                .equals(notification.getType())) {
+            return;
+        }
+        var info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        synchronized (pauses) {
+            pauses.computeIfAbsent(info.getGcName(), name -> new LatencyHistogram())
+                    .record(info.getGcInfo().getDuration() * 1_000_000);
+        }
+    }
+
+    /**
+     * Private auxiliary method to write the result of a replay as JSON.
+     *
+     * @return  the JSON object of the result
+     */
+    private static String toJson(String label, NoteFacade noteFacade, long operations,
+                                 long elapsedNanos, long allocated,
+                                 Map<TraceOp.Kind, LatencyHistogram> latencies,
+                                 Map<String, LatencyHistogram> pauses) {
+        long pages = 0;
+        long chars = 0;
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            pages += noteGroup.getNotePages().size();
+            for (var notePage : noteGroup.getNotePages()) {
+                chars += notePage.getContentLength();
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{")
+                .append(STR."\"label\":\{quote(label)},")
+                .append(STR."\"javaVersion\":\{quote(System.getProperty("java.version"))},")
+                .append(STR."\"groups\":\{noteFacade.getNoteGroups().size()},")
+                .append(STR."\"pages\":\{pages},\"chars\":\{chars},")
+                .append(STR."\"operations\":\{operations},")
+                .append(STR."\"elapsedNanos\":\{elapsedNanos},")
+                .append(STR."\"allocatedBytes\":\{allocated},")
+                .append(STR."\"allocationBytesPerSecond\":")
+                .append(elapsedNanos == 0 ? 0 : Math.round(allocated * 1e9 / elapsedNanos))
+                .append(",\"latencies\":{");
+        String separator = "";
+        for (var entry : latencies.entrySet()) {
+            json.append(separator).append(quote(entry.getKey().name().toLowerCase(Locale.ROOT)))
+                    .append(':').append(entry.getValue().toJson());
+            separator = ",";
+        }
+        json.append("},\"gcPauses\":{");
+        separator = "";
+        synchronized (pauses) {
+            for (var entry : pauses.entrySet()) {
+                json.append(separator).append(quote(entry.getKey())).append(':')
+                        .append(entry.getValue().toJson());
+                separator = ",";
+            }
+        }
+        return json.append("}}").toString();
+    }
+
+    // quotes a string as a JSON string
+    private static String quote(String string) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+            if (character == '"' || character == '\\') {
+                quoted.append('\\').append(character);
+            } else if (character < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) character));
+            } else {
+                quoted.append(character);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // gets the optional seed argument, 42 by default
+    private static long seed(String[] args, int index) {
+        return args.length > index ? Long.parseLong(args[index]) : 42;
+    }
+
+    // exits with the usage if a command has too few arguments
+    private static void requireArguments(String[] args, int count) {
+        if (args.length < count) {
+            exitWithUsage();
+        }
+    }
+
+    // prints the usage and exits
+    private static void exitWithUsage() {
+        System.err.println("Usage: SessionBenchmark notebook <dir> <groups> <pages> "
+                + "<mean page chars> [seed]");
+        System.err.println("       SessionBenchmark trace <notebook dir> <trace file> "
+                + "<operations> [seed]");
+        System.err.println("       SessionBenchmark replay <notebook dir> <trace file> "
+                + "[label] [result file]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,289 @@
+package notebookapplication.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import notebookapplication.model.Colors;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import notebookapplication.model.Symbols;
+import notebookapplication.model.TextEditing;
+
+/**
+ * Generates synthetic notebooks and editing sessions for {@link SessionBenchmark}.
+ * The notebooks are written as note files, so they are loaded like real ones, and can
+ *   be as large as the disk allows since every file is written as a stream.
+ * A session mostly types and deletes single chars at a moving caret, with occasional
+ *   pastes, replacements, formatting, symbols and page switches, creations, deletions
+ *   and moves, like a user taking notes.
+ */
+public final class TraceGenerator {
+    private static final String[] WORDS = {"the", "note", "page", "group", "meeting", "idea",
+        "todo", "review", "draft", "plan", "design", "budget", "release", "and", "of", "to",
+        "with", "for", "performance", "latency", "memory", "notebook", "summary", "question"};
+
+    /** The cumulative weights of the session actions, out of 1000. */
+    private static final int[] ACTION_WEIGHTS = {700, 800, 820, 850, 900, 920, 970, 980, 985,
+        1000};
+
+    private TraceGenerator() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Writes a synthetic notebook as note files, one per group, in a directory.
+     *
+     * @param directory the directory receiving the note files, created if missing
+     * @param groups    the number of groups
+     * @param pages the total number of pages, spread over the groups
+     * @param meanPageChars the mean number of chars of a page
+     * @param random    the source of randomness, seeded for reproducible notebooks
+     * @return  the note files written, in the order of the groups
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if {@code groups < 1} or {@code pages < 0}
+     */
+    public static List<Path> writeNotebook(Path directory, int groups, long pages,
+                                           int meanPageChars, Random random) throws IOException {
+        if (groups < 1 || pages < 0) {
+            throw new IllegalArgumentException("There must be a group and no negative pages");
+        }
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>(groups);
+        StringBuilder content = new StringBuilder();
+        for (int group = 0; group < groups; group++) {
+            Path file = directory.resolve(STR."group-\{group}.txt");
+            long groupPages = pages / groups + (group < pages % groups ? 1 : 0);
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (long page = 0; page < groupPages; page++) {
+                    content.setLength(0);
+                    appendText(content, random.nextInt(2 * meanPageChars + 1), random);
+                    writer.append(STR."[page=\"Page \{page}\"]").append(content).append("[/page]");
+                }
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Generates an editing session lazily, by applying every generated operation to the
+     *      notebook as it is consumed, so that every operation is valid for the notebook
+     *      it produced and the session is never held in memory.
+     * The notebook must be loaded again from the same files before replaying the trace,
+     *   and must not be edited otherwise while the stream is consumed.
+     *
+     * @param noteFacade    the notebook to be edited, with at least one group
+     * @param operations    the number of operations to be generated
+     * @param random    the source of randomness, seeded for reproducible traces
+     * @return  the sequential stream of the generated operations, in order
+     */
+    public static Stream<TraceOp> generate(NoteFacade noteFacade, int operations,
+                                           Random random) {
+        return StreamSupport.stream(Spliterators.spliterator(
+                new Session(noteFacade, operations, random), operations,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Writes a trace, one operation per line, consuming the operations one at a time.
+     *
+     * @param file  the trace file to be written
+     * @param trace the operations of the trace
+     * @return  the number of operations written
+     * @throws IOException if writing fails
+     */
+    public static long writeTrace(Path file, Stream<TraceOp> trace) throws IOException {
+        long written = 0;
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (TraceOp op : (Iterable<TraceOp>) trace::iterator) {
+                writer.append(op.toLine()).append('\n');
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTrace} or recorded by {@link TraceRecorder}
+     *      lazily, one line at a time.
+     * The stream must be closed to close the file, e.g. with a try-with-resources.
+     *
+     * @param file  the trace file to be read
+     * @return  the stream of the operations of the trace, in order, which throws
+     *      {@link java.io.UncheckedIOException} if reading fails and
+     *      {@link IllegalArgumentException} if a line is malformed
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<TraceOp> readTrace(Path file) throws IOException {
+        return Files.lines(file, StandardCharsets.UTF_8)
+                .filter(line -> !line.isEmpty()).map(TraceOp::parse);
+    }
+
+    /**
+     * A generated editing session, producing and applying the operations one at a time.
+     */
+    private static final class Session implements Iterator<TraceOp> {
+        private final NoteFacade noteFacade;
+        private final int operations;
+        private final Random random;
+
+        /** The operations generated but not consumed yet, at most two at a time. */
+        private final Deque<TraceOp> pending = new ArrayDeque<>(2);
+
+        /** The number of operations generated. */
+        private int generated;
+
+        // the caret of the user, on a page of a group, -1 to switch page
+        private int group;
+        private int page = -1;
+        private int caret;
+
+        /** The buffer of the pasted text. */
+        private final StringBuilder text = new StringBuilder();
+
+        // constructs the session of a notebook
+        private Session(NoteFacade noteFacade, int operations, Random random) {
+            this.noteFacade = noteFacade;
+            this.operations = operations;
+            this.random = random;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty() || generated < operations;
+        }
+
+        @Override
+        public TraceOp next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Session has no more operations");
+            }
+            while (pending.isEmpty()) {
+                generateNext();
+            }
+            return pending.removeFirst();
+        }
+
+        /**
+         * Private auxiliary method to generate the next action of the user, which is
+         *      either nothing, e.g. moving the caret, or one or two operations.
+         */
+        private void generateNext() {
+            NoteGroup noteGroup = noteFacade.getNoteGroups().get(group);
+            if (page < 0 || page >= noteGroup.getNotePages().size()) {
+                // switch to a random page of a random group, creating one if it is empty
+                group = random.nextInt(noteFacade.getNoteGroups().size());
+                noteGroup = noteFacade.getNoteGroups().get(group);
+                if (noteGroup.getNotePages().isEmpty()) {
+                    apply(new TraceOp(TraceOp.Kind.NEW_PAGE, group, 0, 0, 0,
+                            STR."New page \{generated}"));
+                    if (generated == operations) {
+                        return;
+                    }
+                }
+                page = random.nextInt(noteGroup.getNotePages().size());
+                apply(new TraceOp(TraceOp.Kind.SWITCH_PAGE, group, page, 0, 0, null));
+                caret = random.nextInt(noteGroup.getNotePages().get(page).getContentLength() + 1);
+                return;
+            }
+
+            NotePage notePage = noteGroup.getNotePages().get(page);
+            int length = notePage.getContentLength();
+            caret = Math.min(caret, length);
+            int action = random.nextInt(1000);
+            TraceOp op;
+            if (action < ACTION_WEIGHTS[0]) {
+                // typing
+                char typed = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+                op = new TraceOp(TraceOp.Kind.INSERT, group, page, caret, caret,
+                        String.valueOf(random.nextInt(60) == 0 ? '\n' : typed));
+                caret++;
+            } else if (action < ACTION_WEIGHTS[1]) {
+                // backspace, or moving the caret at the start of the page
+                if (caret == 0) {
+                    caret = random.nextInt(length + 1);
+                    return;
+                }
+                op = new TraceOp(TraceOp.Kind.DELETE, group, page, caret - 1, caret, null);
+                caret--;
+            } else if (action < ACTION_WEIGHTS[2]) {
+                // paste
+                text.setLength(0);
+                appendText(text, 50 + random.nextInt(450), random);
+                op = new TraceOp(TraceOp.Kind.INSERT, group, page, caret, caret, text.toString());
+                caret += text.length();
+            } else if (action < ACTION_WEIGHTS[3]) {
+                // replace a selection
+                int end = Math.min(length, caret + 1 + random.nextInt(40));
+                if (end <= caret) {
+                    return;
+                }
+                op = new TraceOp(TraceOp.Kind.REPLACE, group, page, caret, end,
+                        WORDS[random.nextInt(WORDS.length)]);
+            } else if (action < ACTION_WEIGHTS[4]) {
+                // format the selection after the caret
+                int end = Math.min(length, caret + 1 + random.nextInt(20));
+                if (end <= caret) {
+                    return;
+                }
+                String selected = notePage.getContentView().subSequence(caret, end).toString();
+                op = new TraceOp(TraceOp.Kind.FORMAT, group, page, caret, end,
+                        random.nextBoolean() ? TextEditing.setBold(selected)
+                                : TextEditing.setColor(Colors.values()[random.nextInt(
+                                        Colors.values().length)], selected));
+            } else if (action < ACTION_WEIGHTS[5]) {
+                int lines = (int) notePage.getContentView().chars().filter(c -> c == '\n').count();
+                op = new TraceOp(TraceOp.Kind.SYMBOL, group, page, random.nextInt(lines + 1), 0,
+                        Symbols.values()[random.nextInt(Symbols.values().length)].name());
+            } else if (action < ACTION_WEIGHTS[6]) {
+                page = -1; // switch page on the next action
+                return;
+            } else if (action < ACTION_WEIGHTS[7]) {
+                op = new TraceOp(TraceOp.Kind.NEW_PAGE, group, 0, 0, 0,
+                        STR."New page \{generated}");
+                page = noteGroup.getNotePages().size();
+                caret = 0;
+            } else if (action < ACTION_WEIGHTS[8]) {
+                op = new TraceOp(TraceOp.Kind.DELETE_PAGE, group, page, 0, 0, null);
+                page = -1;
+            } else {
+                int newPosition = random.nextInt(noteGroup.getNotePages().size());
+                op = new TraceOp(TraceOp.Kind.MOVE_PAGE, group, page, newPosition, 0, null);
+                page = newPosition;
+            }
+            apply(op);
+        }
+
+        // applies a generated operation and queues it to be consumed
+        private void apply(TraceOp op) {
+            op.applyTo(noteFacade);
+            pending.addLast(op);
+            generated++;
+        }
+    }
+
+    // appends random words and lines up to the given number of chars
+    private static void appendText(StringBuilder builder, int chars, Random random) {
+        int end = builder.length() + chars;
+        while (builder.length() < end) {
+            builder.append(WORDS[random.nextInt(WORDS.length)])
+                    .append(random.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        builder.setLength(end);
+    }
+}
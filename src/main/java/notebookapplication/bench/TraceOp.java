@@ -0,0 +1,136 @@
+package notebookapplication.bench;
+
+import java.util.Locale;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import notebookapplication.model.Symbols;
+
+/**
+ * One operation of an editing session, addressed by the indexes of its group and page.
+ * A trace is stored as one operation per line with tab-separated fields, so traces can
+ *   be diffed, filtered and generated by other tools:
+ *   {@code kind group page start end text}, where the text escapes the backslash,
+ *   tab, carriage return and new line.
+ *
+ * @param kind  the kind of the operation
+ * @param group the index of the note group
+ * @param page  the index of the page, or its current index for {@code MOVE_PAGE}
+ * @param start the start position, the line of {@code SYMBOL}, or the new index of
+ *              {@code MOVE_PAGE}
+ * @param end   the end position of the edited range
+ * @param text  the inserted text, the formatted text of {@code FORMAT}, the symbol name of
+ *              {@code SYMBOL}, or the page name of {@code NEW_PAGE}
+ */
+public record TraceOp(Kind kind, int group, int page, int start, int end, String text) {
+    /**
+     * The kinds of operation, each reported with its own latency distribution.
+     */
+    public enum Kind {
+        INSERT, DELETE, REPLACE, FORMAT, SYMBOL, NEW_PAGE, DELETE_PAGE, MOVE_PAGE, SWITCH_PAGE
+    }
+
+    /**
+     * Constructs a TraceOp, an absent text being stored as an empty one.
+     */
+    public TraceOp {
+        if (kind == null) {
+            throw new NullPointerException("Kind of the operation cannot be null");
+        }
+        text = text == null ? "" : text;
+    }
+
+    /**
+     * Applies this operation to a notebook through the public API of the model.
+     *
+     * @param noteFacade    the notebook to be edited
+     * @throws IllegalArgumentException if the operation does not fit the notebook
+     * @throws IndexOutOfBoundsException if the group or page does not exist
+     */
+    public void applyTo(NoteFacade noteFacade) {
+        NoteGroup noteGroup = noteFacade.getNoteGroups().get(group);
+        switch (kind) {
+            case NEW_PAGE -> noteGroup.addPage(new NotePage(text, ""));
+            case DELETE_PAGE -> noteGroup.deletePage(page);
+            case MOVE_PAGE -> noteGroup.changePagesOrder(page, start);
+            case SWITCH_PAGE -> noteFacade.parkInactivePages(noteGroup.getNotePages().get(page));
+            default -> applyTo(noteGroup.getNotePages().get(page));
+        }
+    }
+
+    /**
+     * Private auxiliary method to apply a content operation to a page.
+     *
+     * @param notePage  the page to be edited
+     */
+    private void applyTo(NotePage notePage) {
+        switch (kind) {
+            case INSERT -> notePage.insertContent(start, text);
+            case DELETE -> notePage.deleteContent(start, end);
+            case REPLACE -> notePage.replaceContent(start, end, text);
+            case FORMAT -> notePage.formatting(start, end, () -> text);
+            case SYMBOL -> notePage.insertSymbol(start, Symbols.valueOf(text));
+            default -> throw new IllegalArgumentException(STR."\{kind} is not a content edit");
+        }
+    }
+
+    /**
+     * Writes this operation as one line of a trace, without the line separator.
+     *
+     * @return  the line of this operation
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder(text.length() + 32)
+                .append(kind.name().toLowerCase(Locale.ROOT)).append('\t').append(group)
+                .append('\t').append(page).append('\t').append(start).append('\t').append(end)
+                .append('\t');
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            switch (character) {
+                case '\\' -> line.append("\\\\");
+                case '\t' -> line.append("\\t");
+                case '\r' -> line.append("\\r");
+                case '\n' -> line.append("\\n");
+                default -> line.append(character);
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Parses one line of a trace written by {@link #toLine()}.
+     *
+     * @param line  the line to be parsed
+     * @return  the operation of the line
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    public static TraceOp parse(String line) {
+        String[] fields = line.split("\t", 6);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException(STR."Malformed trace line: \{line}");
+        }
+
+        StringBuilder text = new StringBuilder(fields[5].length());
+        for (int i = 0; i < fields[5].length(); i++) {
+            char character = fields[5].charAt(i);
+            if (character == '\\' && i + 1 < fields[5].length()) {
+                char escaped = fields[5].charAt(++i);
+                character = switch (escaped) {
+                    case 't' -> '\t';
+                    case 'r' -> '\r';
+                    case 'n' -> '\n';
+                    default -> escaped;
+                };
+            }
+            text.append(character);
+        }
+
+        try {
+            return new TraceOp(Kind.valueOf(fields[0].toUpperCase(Locale.ROOT)),
+                    Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), text.toString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(STR."Malformed trace line: \{line}", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package notebookapplication.bench;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import notebookapplication.model.ContentDelta;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+
+/**
+ * Records the editing session of a notebook as a trace, e.g. while a user works in the
+ *   application, so the session can be replayed by {@link SessionBenchmark}.
+ * The content edits are taken from the {@code "delta"} property changes of the pages,
+ *   labelled with the property fired just before them: a change that only inserts or
+ *   only deletes is recorded as such, a formatting as a formatting, and any other edit,
+ *   e.g. a batch of edits, as a replacement of the changed range. The page creations,
+ *   deletions and moves are taken from the property changes of the groups.
+ *   Renaming is not recorded.
+ * The recorder must start before the first edit, with the notebook as it was loaded.
+ */
+public class TraceRecorder implements PropertyChangeListener {
+    /** The recorded notebook. */
+    private final NoteFacade noteFacade;
+
+    /** The recorded operations, in order. */
+    private final List<TraceOp> trace = new ArrayList<>();
+
+    /** The property fired by a page just before its next delta, null if none. */
+    private String lastPageProperty;
+
+    /**
+     * Constructs a TraceRecorder and starts listening to every group and page.
+     *
+     * @param noteFacade    the notebook to be recorded
+     */
+    public TraceRecorder(NoteFacade noteFacade) {
+        this.noteFacade = noteFacade;
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            noteGroup.addPropertyChangeListener(this);
+            noteGroup.getNotePages().forEach(notePage -> notePage.addPropertyChangeListener(this));
+        }
+    }
+
+    /**
+     * Records the operation of a property change of a group or a page.
+     *
+     * @param evt   the property change event
+     */
+    @Override
+    public synchronized void propertyChange(PropertyChangeEvent evt) {
+        if (evt.getSource() instanceof NotePage notePage) {
+            if (evt.getNewValue() instanceof ContentDelta delta) {
+                recordEdit(notePage, delta);
+                lastPageProperty = null;
+            } else {
+                lastPageProperty = evt.getPropertyName();
+            }
+        } else if (evt.getSource() instanceof NoteGroup noteGroup
+                && evt.getOldValue() instanceof List<?> oldPages
+                && evt.getNewValue() instanceof List<?> newPages) {
+            recordPageChange(noteGroup, evt.getPropertyName(), oldPages, newPages);
+        }
+    }
+
+    /**
+     * Stops recording and gets the recorded operations.
+     *
+     * @return  the recorded operations, in order
+     */
+    public synchronized List<TraceOp> stop() {
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            noteGroup.removePropertyChangeListener(this);
+            noteGroup.getNotePages().forEach(
+                    notePage -> notePage.removePropertyChangeListener(this));
+        }
+        return List.copyOf(trace);
+    }
+
+    /**
+     * Private auxiliary method to record a content edit of a page.
+     *
+     * @param notePage  the edited page
+     * @param delta the changed range of the content
+     */
+    private void recordEdit(NotePage notePage, ContentDelta delta) {
+        int group = -1;
+        int page = -1;
+        for (int i = 0; i < noteFacade.getNoteGroups().size() && page < 0; i++) {
+            page = noteFacade.getNoteGroups().get(i).getNotePages().indexOf(notePage);
+            group = i;
+        }
+        if (page < 0) {
+            return; // the page is not part of the notebook anymore
+        }
+
+        int start = delta.startPosition();
+        int end = delta.oldEndPosition();
+        String inserted = notePage.getContentView()
+                .subSequence(start, delta.newEndPosition()).toString();
+        TraceOp.Kind kind;
+        if (start == end) {
+            kind = TraceOp.Kind.INSERT;
+        } else if (inserted.isEmpty()) {
+            kind = TraceOp.Kind.DELETE;
+        } else if ("format".equals(lastPageProperty) && start < end) {
+            kind = TraceOp.Kind.FORMAT;
+        } else {
+            kind = TraceOp.Kind.REPLACE;
+        }
+        trace.add(new TraceOp(kind, group, page, start, end, inserted));
+    }
+
+    /**
+     * Private auxiliary method to record the creation, deletion or move of a page.
+     *
+     * @param noteGroup the group whose pages changed
+     * @param propertyName  the name of the fired property
+     * @param oldPages  the pages before the change
+     * @param newPages  the pages after the change
+     */
+    private void recordPageChange(NoteGroup noteGroup, String propertyName,
+                                  List<?> oldPages, List<?> newPages) {
+        int group = noteFacade.getNoteGroups().indexOf(noteGroup);
+        int first = 0;
+        while (first < Math.min(oldPages.size(), newPages.size())
+                && oldPages.get(first) == newPages.get(first)) {
+            first++;
+        }
+
+        switch (propertyName) {
+            case "newPage" -> {
+                NotePage notePage = (NotePage) newPages.getLast();
+                notePage.addPropertyChangeListener(this);
+                trace.add(new TraceOp(TraceOp.Kind.NEW_PAGE, group, 0, 0, 0,
+                        notePage.getPageName()));
+                if (notePage.getContentLength() > 0) {
+                    trace.add(new TraceOp(TraceOp.Kind.INSERT, group, newPages.size() - 1,
+                            0, 0, notePage.getContent()));
+                }
+            }
+            case "deletePage" -> {
+                ((NotePage) oldPages.get(first)).removePropertyChangeListener(this);
+                trace.add(new TraceOp(TraceOp.Kind.DELETE_PAGE, group, first, 0, 0, null));
+            }
+            case "changeOrder" -> {
+                if (first == newPages.size()) {
+                    return; // moved to its own position
+                }
+                int last = newPages.size() - 1;
+                while (last > first && oldPages.get(last) == newPages.get(last)) {
+                    last--;
+                }
+                boolean movedDown = oldPages.get(first) == newPages.get(last);
+                trace.add(new TraceOp(TraceOp.Kind.MOVE_PAGE, group,
+                        movedDown ? first : last, movedDown ? last : first, 0, null));
+            }
+            default -> {
+                // other properties of the group do not change its pages
+            }
+        }
+    }
+}
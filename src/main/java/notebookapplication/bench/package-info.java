@@ -0,0 +1 @@
+package notebookapplication.bench;
\ No newline at end of file
@@ -1,23 +1,142 @@
 package notebookapplication.gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import notebookapplication.scheduler.Lane;
+import notebookapplication.scheduler.WorkScheduler;
+import notebookapplication.startup.LazyNotebookLoader;
+import notebookapplication.startup.SessionSnapshot;
+import notebookapplication.startup.StartupTimeline;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 public class HelloApplication extends Application {
+    private static final Path APPLICATION_DIRECTORY =
+            Path.of(System.getProperty("user.home"), ".notebookapplication");
+    private static final Path SESSION_FILE = APPLICATION_DIRECTORY.resolve("session.bin");
+    private static final Path TIMELINE_FILE =
+            APPLICATION_DIRECTORY.resolve("startup-timeline.jsonl");
+
+    private final StartupTimeline timeline = new StartupTimeline();
+    private final WorkScheduler scheduler = new WorkScheduler();
+    private HelloController controller;
+
     @Override
-    public void start(Stage stage) throws IOException {
-        FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("hello-view.fxml"));
-        Scene scene = new Scene(fxmlLoader.load());
+    public void start(Stage stage) {
+        // shows the window at once, the view and the notebook are loaded in the background
+        Label placeholder = new Label("Loading...");
+        Scene scene = new Scene(new StackPane(placeholder), 320, 240);
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                timeline.mark(StartupTimeline.FIRST_PAINT);
+                scene.removePostLayoutPulseListener(this);
+            }
+        });
         stage.setTitle("Hello!");
         stage.setScene(scene);
         stage.show();
+
+        List<Path> files = getParameters().getRaw().stream().map(Path::of).toList();
+        LazyNotebookLoader loader = new LazyNotebookLoader(files, scheduler, Platform::runLater);
+        scheduler.submit(Lane.INTERACTIVE, () -> {
+            try {
+                FXMLLoader fxmlLoader =
+                        new FXMLLoader(HelloApplication.class.getResource("hello-view.fxml"));
+                Parent root = fxmlLoader.load();
+                SessionSnapshot session = loadSession();
+                NoteGroup noteGroup = loader.loadFirst(session);
+                Platform.runLater(() -> {
+                    controller = fxmlLoader.getController();
+                    scene.setRoot(root);
+                    restorePage(loader.getFirstFile(), noteGroup, session);
+                    timeline.mark(StartupTimeline.EDITABLE);
+                    loader.loadRest().whenComplete((noteFacade, failure) -> {
+                        if (failure != null) {
+                            System.err.println(
+                                    STR."Notebook cannot be loaded: \{failure.getMessage()}");
+                            return;
+                        }
+                        controller.setNoteFacade(noteFacade);
+                        timeline.mark(StartupTimeline.NOTEBOOK_LOADED);
+                        scheduler.submit(Lane.BULK, this::saveTimeline);
+                    });
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).exceptionally(e -> {
+            Platform.runLater(() -> placeholder.setText("The notebook cannot be loaded"));
+            return null;
+        });
+    }
+
+    @Override
+    public void stop() {
+        SessionSnapshot session = controller == null ? null : controller.sessionSnapshot();
+        if (session != null) {
+            try {
+                Files.createDirectories(APPLICATION_DIRECTORY);
+                session.save(SESSION_FILE);
+            } catch (IOException e) {
+                System.err.println(STR."Session cannot be saved: \{e.getMessage()}");
+            }
+        }
+        scheduler.close();
+    }
+
+    // shows the page open in the last session, or the first page of the group loaded first
+    private void restorePage(Path groupFile, NoteGroup noteGroup, SessionSnapshot session) {
+        if (noteGroup == null) {
+            return;
+        }
+        boolean sameGroup = session != null && groupFile.toAbsolutePath().normalize()
+                .equals(session.groupFile().toAbsolutePath().normalize());
+        NotePage notePage = sameGroup ? session.findPage(noteGroup) : null;
+        if (notePage != null) {
+            controller.showPage(groupFile, noteGroup, notePage,
+                    session.caretPositionIn(notePage), session.scrollTop());
+        } else if (!noteGroup.getNotePages().isEmpty()) {
+            controller.showPage(groupFile, noteGroup, noteGroup.getNotePages().getFirst(), 0, 0);
+        }
+    }
+
+    // loads the snapshot of the last session, null if there is none or it is invalid
+    private static SessionSnapshot loadSession() {
+        if (!Files.exists(SESSION_FILE)) {
+            return null;
+        }
+        try {
+            return SessionSnapshot.load(SESSION_FILE);
+        } catch (IOException e) {
+            return null; // starts as if there were no last session
+        }
+    }
+
+    // appends the startup timeline to its history, to compare the releases
+    private void saveTimeline() {
+        String release = HelloApplication.class.getPackage().getImplementationVersion();
+        try {
+            Files.createDirectories(APPLICATION_DIRECTORY);
+            timeline.appendTo(TIMELINE_FILE, release == null ? "dev" : release);
+        } catch (IOException e) {
+            System.err.println(STR."Startup timeline cannot be saved: \{e.getMessage()}");
+        }
     }
 
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+}
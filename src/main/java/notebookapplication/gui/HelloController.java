@@ -1,14 +1,72 @@
 package notebookapplication.gui;
 
+import java.nio.file.Path;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import notebookapplication.startup.SessionSnapshot;
 
 public class HelloController {
     @FXML
     private Label welcomeText;
 
+    // the open page, with the file of its group and its positions
+    private Path groupFile;
+    private NoteGroup noteGroup;
+    private NotePage notePage;
+    private int caretPosition;
+    private double scrollTop;
+
+    // the notebook once every group is loaded, null before
+    private NoteFacade noteFacade;
+
     @FXML
     protected void onHelloButtonClick() {
         welcomeText.setText("Welcome to JavaFX Application!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Shows a page, e.g. the page restored from the last session.
+     *
+     * @param groupFile the note file of the group of the page
+     * @param noteGroup the group of the page
+     * @param notePage  the page to be shown
+     * @param caretPosition the position of the caret in the page
+     * @param scrollTop the vertical scroll position of the page
+     */
+    public void showPage(Path groupFile, NoteGroup noteGroup, NotePage notePage,
+                         int caretPosition, double scrollTop) {
+        this.groupFile = groupFile;
+        this.noteGroup = noteGroup;
+        this.notePage = notePage;
+        this.caretPosition = caretPosition;
+        this.scrollTop = scrollTop;
+        welcomeText.setText(notePage.getPageName());
+    }
+
+    /**
+     * Gets the snapshot of the open page, to be restored by the next start.
+     *
+     * @return  the snapshot of the open page, or null if no page of the notebook is open
+     */
+    public SessionSnapshot sessionSnapshot() {
+        if (notePage == null || !noteGroup.getNotePages().contains(notePage)) {
+            return null;
+        }
+        return new SessionSnapshot(groupFile, notePage.getPageName(),
+                noteGroup.getNotePages().indexOf(notePage),
+                Math.min(caretPosition, notePage.getContentLength()), scrollTop);
+    }
+
+    // setter for the notebook, once every group is loaded in the background
+    public void setNoteFacade(NoteFacade noteFacade) {
+        this.noteFacade = noteFacade;
+    }
+
+    // getter for the notebook, null until every group is loaded
+    public NoteFacade getNoteFacade() {
+        return noteFacade;
+    }
+}
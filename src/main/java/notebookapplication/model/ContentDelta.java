@@ -0,0 +1,68 @@
+package notebookapplication.model;
+
+/**
+ * Represents the range of the content of a {@link NotePage} changed by one edit.
+ * It is the new value of the {@code "delta"} property change fired by a NotePage
+ *   after every content edit, so that observers such as indexes can update
+ *   incrementally instead of rescanning the whole content.
+ * The inserted text itself is not copied, it can be read from
+ *   {@link NotePage#getContentView()} between {@code startPosition} and
+ *   {@link #newEndPosition()}.
+ *
+ * @param startPosition the start position of the changed range
+ * @param removedText   the text removed from the range, empty for insertions
+ * @param insertedLength    the length of the text inserted to the range
+ */
+public record ContentDelta(int startPosition, String removedText, int insertedLength) {
+    /**
+     * Gets the end position of the changed range in the content before the edit.
+     *
+     * @return  the old end position of the range
+     */
+    public int oldEndPosition() {
+        return startPosition + removedText.length();
+    }
+
+    /**
+     * Gets the end position of the changed range in the content after the edit.
+     *
+     * @return  the new end position of the range
+     */
+    public int newEndPosition() {
+        return startPosition + insertedLength;
+    }
+
+    /**
+     * Gets the whole lines touched by this edit, e.g. for the indexes of the markup that
+     *      never spans two lines to scan only them again.
+     *
+     * @param content   the content after the edit
+     * @return  the range of the touched lines, before and after the edit
+     */
+    TouchedLines touchedLines(CharSequence content) {
+        int lineStart = startPosition;
+        while (lineStart > 0 && content.charAt(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        int lineEnd = newEndPosition();
+        while (lineEnd < content.length() && content.charAt(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        return new TouchedLines(lineStart, lineEnd - insertedLength + removedText.length(),
+                lineEnd);
+    }
+
+    /**
+     * Represents the whole lines touched by an edit, without their final line break.
+     *
+     * @param startPosition the start position of the first touched line
+     * @param oldEndPosition    the end position of the last touched line before the edit
+     * @param newEndPosition    the end position of the last touched line after the edit
+     */
+    record TouchedLines(int startPosition, int oldEndPosition, int newEndPosition) {
+        // gets the change of length of the touched lines, i.e. the shift of the text after
+        int shift() {
+            return newEndPosition - oldEndPosition;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package notebookapplication.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Package-private utility class that computes the line-level difference between two texts,
+ *   used by {@link NotebookMerge} to apply only the changed lines of an imported page.
+ * The common prefix and suffix lines are skipped first, and the remaining lines are
+ *   compared with the greedy algorithm of Myers, which takes {@code O((N + M) * D)} time
+ *   for {@code D} changed lines. Lines are compared by hash before their chars, and are
+ *   never copied. If more than {@link #MAX_EDIT_DISTANCE} lines differ, the remaining
+ *   range is reported as a single change instead.
+ */
+final class LineDiff {
+    /** The maximal number of inserted and deleted lines searched by Myers' algorithm. */
+    static final int MAX_EDIT_DISTANCE = 1024;
+
+    private LineDiff() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Computes the changed ranges of lines turning a text into another one.
+     *
+     * @param oldLines  the lines of the old text
+     * @param newLines  the lines of the new text
+     * @return  the changed ranges in increasing order, separated by at least one
+     *      unchanged line, empty if both texts are equal
+     */
+    static List<Hunk> diff(Lines oldLines, Lines newLines) {
+        int oldEnd = oldLines.count();
+        int newEnd = newLines.count();
+        int start = 0;
+        while (start < oldEnd && start < newEnd && oldLines.lineEquals(start, newLines, start)) {
+            start++;
+        }
+        while (oldEnd > start && newEnd > start
+                && oldLines.lineEquals(oldEnd - 1, newLines, newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (start == oldEnd && start == newEnd) {
+            return List.of();
+        }
+        if (start == oldEnd || start == newEnd) {
+            return List.of(new Hunk(start, oldEnd, start, newEnd));
+        }
+        return myers(oldLines, newLines, start, oldEnd, newEnd);
+    }
+
+    /**
+     * Private auxiliary method to run Myers' algorithm on the lines between the common
+     *      prefix and suffix, keeping the furthest reaching paths of every edit distance
+     *      to trace the shortest edit script back.
+     *
+     * @param oldLines  the lines of the old text
+     * @param newLines  the lines of the new text
+     * @param start the length of the common prefix
+     * @param oldEnd    the end of the lines to be compared in the old text
+     * @param newEnd    the end of the lines to be compared in the new text
+     * @return  the changed ranges in increasing order
+     */
+    private static List<Hunk> myers(Lines oldLines, Lines newLines,
+                                    int start, int oldEnd, int newEnd) {
+        int n = oldEnd - start;
+        int m = newEnd - start;
+        int maxDistance = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = maxDistance + 1;
+        int[] furthest = new int[2 * maxDistance + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= maxDistance; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && furthest[offset + k - 1] < furthest[offset + k + 1])
+                        ? furthest[offset + k + 1] : furthest[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m
+                        && oldLines.lineEquals(start + x, newLines, start + y)) {
+                    x++;
+                    y++;
+                }
+                furthest[offset + k] = x;
+                if (x >= n && y >= m) {
+                    trace.add(Arrays.copyOfRange(furthest, offset - d, offset + d + 1));
+                    return backtrack(trace, start, n, m);
+                }
+            }
+            trace.add(Arrays.copyOfRange(furthest, offset - d, offset + d + 1));
+        }
+        return List.of(new Hunk(start, oldEnd, start, newEnd));
+    }
+
+    /**
+     * Private auxiliary method to trace the shortest edit script back from the end, and
+     *      to join its adjacent insertions and deletions into ranges.
+     *
+     * @param trace the furthest reaching x of every diagonal, for every edit distance
+     * @param start the length of the common prefix, added to every line
+     * @param n the number of old lines compared
+     * @param m the number of new lines compared
+     * @return  the changed ranges in increasing order
+     */
+    private static List<Hunk> backtrack(List<int[]> trace, int start, int n, int m) {
+        List<Hunk> hunks = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int previousK = k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1])
+                    ? k + 1 : k - 1;
+            int previousX = previous[previousK + d - 1];
+            int previousY = previousX - previousK;
+
+            // one line inserted when moving down, or deleted when moving right
+            int oldLine = start + previousX;
+            int newLine = start + previousY;
+            int oldCount = previousK == k + 1 ? 0 : 1;
+            Hunk last = hunks.isEmpty() ? null : hunks.getLast();
+            if (last != null && last.oldStart() == oldLine + oldCount
+                    && last.newStart() == newLine + 1 - oldCount) {
+                hunks.set(hunks.size() - 1,
+                        new Hunk(oldLine, last.oldEnd(), newLine, last.newEnd()));
+            } else {
+                hunks.add(new Hunk(oldLine, oldLine + oldCount, newLine, newLine + 1 - oldCount));
+            }
+            x = previousX;
+            y = previousY;
+        }
+        return hunks.reversed();
+    }
+
+    /**
+     * Converts changed ranges of lines into the edits turning the old text into the new one.
+     * Only the new text of the changed lines is copied.
+     *
+     * @param oldLines  the lines of the old text
+     * @param newLines  the lines of the new text
+     * @param hunks the changed ranges, see {@code diff}
+     * @return  the edits of the old text, in increasing order
+     */
+    static List<TextEdit> edits(Lines oldLines, Lines newLines, List<Hunk> hunks) {
+        List<TextEdit> edits = new ArrayList<>(hunks.size());
+        for (Hunk hunk : hunks) {
+            edits.add(new TextEdit(oldLines.start(hunk.oldStart()), oldLines.start(hunk.oldEnd()),
+                    newLines.text(hunk.newStart(), hunk.newEnd())));
+        }
+        return edits;
+    }
+
+    /**
+     * Represents a changed range of lines, replacing the old lines
+     *   {@code oldStart, ..., oldEnd - 1} with the new lines {@code newStart, ..., newEnd - 1}.
+     *
+     * @param oldStart  the first old line replaced
+     * @param oldEnd    the end of the old lines replaced
+     * @param newStart  the first new line inserted
+     * @param newEnd    the end of the new lines inserted
+     */
+    record Hunk(int oldStart, int oldEnd, int newStart, int newEnd) {
+        // getter for the change of the number of lines made by this range
+        int lineDelta() {
+            return (newEnd - newStart) - (oldEnd - oldStart);
+        }
+    }
+
+    /**
+     * The lines of a text, each one including its line feed, with their hashes.
+     * The text is read in place and must not change while the lines are used.
+     */
+    static final class Lines {
+        private final CharSequence text;
+
+        /** The start of every line, followed by the length of the text. */
+        private final int[] starts;
+
+        /** The hash of every line. */
+        private final int[] hashes;
+
+        /** The number of lines. */
+        private final int count;
+
+        /**
+         * Constructs the Lines of a text, reading it once.
+         *
+         * @param text  the text to be split, e.g. the content view of a page
+         */
+        Lines(CharSequence text) {
+            this.text = text;
+            int[] lineStarts = new int[16];
+            int[] lineHashes = new int[16];
+            int lines = 0;
+            int hash = 0;
+            int lineStart = 0;
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char character = text.charAt(i);
+                hash = 31 * hash + character;
+                if (character == '\n' || i == length - 1) {
+                    if (lines + 1 >= lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+                        lineHashes = Arrays.copyOf(lineHashes, lineHashes.length * 2);
+                    }
+                    lineStarts[lines] = lineStart;
+                    lineHashes[lines] = hash;
+                    lines++;
+                    lineStart = i + 1;
+                    hash = 0;
+                }
+            }
+            lineStarts[lines] = length;
+            this.starts = lineStarts;
+            this.hashes = lineHashes;
+            this.count = lines;
+        }
+
+        // getter for the number of lines
+        int count() {
+            return count;
+        }
+
+        // getter for the start of a line, or the length of the text for the line count
+        int start(int line) {
+            return starts[line];
+        }
+
+        // gets the text of a range of lines
+        String text(int fromLine, int toLine) {
+            return text.subSequence(starts[fromLine], starts[toLine]).toString();
+        }
+
+        /**
+         * Checks if a line of this text is equal to a line of another text.
+         *
+         * @param line  the line of this text
+         * @param other the other text
+         * @param otherLine the line of the other text
+         * @return  true if both lines have the same chars, false otherwise
+         */
+        boolean lineEquals(int line, Lines other, int otherLine) {
+            int length = starts[line + 1] - starts[line];
+            if (hashes[line] != other.hashes[otherLine]
+                    || length != other.starts[otherLine + 1] - other.starts[otherLine]) {
+                return false;
+            }
+            int from = starts[line];
+            int otherFrom = other.starts[otherLine];
+            for (int i = 0; i < length; i++) {
+                if (text.charAt(from + i) != other.text.charAt(otherFrom + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,666 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the graph of the wiki-style links between the note pages of a notebook, i.e. the
+ *   links {@code [[Page name]]} written in the content of a page, so that the pages linking
+ *   to a page are found without reading every page.
+ * The links of every page are kept as sorted ranges with their target names, which are
+ *   updated from the {@code "delta"} property changes of the page: only the lines touched
+ *   by an edit are scanned again, and the links after them are shifted. The backlinks are
+ *   indexed by target name, and updated from the same changes and from the
+ *   {@code "pageName"}, {@code "newPage"} and {@code "deletePage"} property changes, so a
+ *   backlink query or a rename reads only the links involved. The groups added to or
+ *   removed from the notebook, e.g. by a merge, are followed from its {@code "newGroup"}
+ *   and {@code "changeGroups"} property changes.
+ * A page changed without a delta, e.g. by {@link NotePage#setContent(String)}, is scanned
+ *   again by {@link #refresh()}, or when its own links are queried.
+ * The graph can be saved next to the notebook and loaded again without scanning the pages
+ *   whose name and content are unchanged, see {@link #load(Path, NoteFacade)}.
+ */
+public class LinkGraph implements PropertyChangeListener {
+    private static final int SNAPSHOT_MAGIC = 0x4c494e4b;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    /** The notebook whose links are kept. */
+    private final NoteFacade noteFacade;
+
+    /** The links of every page of the notebook. */
+    private final Map<NotePage, PageLinks> pages = new IdentityHashMap<>();
+
+    /** The pages of every name, as there may be several pages with the same name. */
+    private final Map<String, List<NotePage>> pagesByName = new HashMap<>();
+
+    /** The number of links of every linking page, by target name. */
+    private final Map<String, Map<NotePage, Integer>> backlinks = new HashMap<>();
+
+    /** The page whose links are being renamed by {@link #renamePage}, null otherwise. */
+    private NotePage renamingPage;
+    private String renamedFrom;
+    private String renamedTo;
+
+    /** The number of pages whose whole content was scanned. */
+    private long scannedPages;
+
+    /**
+     * Constructs a LinkGraph of every page of a notebook, scanning their content, and starts
+     *      listening to their changes.
+     *
+     * @param noteFacade    the notebook whose links are kept
+     * @throws NullPointerException if {@code noteFacade == null}
+     */
+    public LinkGraph(NoteFacade noteFacade) {
+        this(noteFacade, Map.of());
+    }
+
+    /**
+     * Private constructor of a LinkGraph reusing the links of a snapshot for the pages
+     *      matching it.
+     *
+     * @param noteFacade    the notebook whose links are kept
+     * @param snapshot  the saved groups by name, each one the list of its saved pages
+     * @throws NullPointerException if {@code noteFacade == null}
+     */
+    private LinkGraph(NoteFacade noteFacade, Map<String, Deque<List<SavedPage>>> snapshot) {
+        if (noteFacade == null) {
+            throw new NullPointerException("NoteFacade to be linked cannot be null");
+        }
+        this.noteFacade = noteFacade;
+
+        noteFacade.addWeakPropertyChangeListener("newGroup", this);
+        noteFacade.addWeakPropertyChangeListener("changeGroups", this);
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            noteGroup.addWeakPropertyChangeListener("newPage", this);
+            noteGroup.addWeakPropertyChangeListener("deletePage", this);
+            Deque<List<SavedPage>> savedGroups = snapshot.get(noteGroup.getGroupName());
+            List<SavedPage> savedPages = savedGroups == null || savedGroups.isEmpty()
+                    ? List.of() : savedGroups.poll();
+
+            List<NotePage> notePages = noteGroup.getNotePages();
+            for (int i = 0; i < notePages.size(); i++) {
+                NotePage notePage = notePages.get(i);
+                PageLinks links = i < savedPages.size()
+                        ? savedPages.get(i).restore(notePage) : null;
+                add(notePage, links != null ? links : scanAll(notePage));
+            }
+        }
+    }
+
+    /**
+     * Loads a LinkGraph of a notebook from a snapshot saved by {@link #save}.
+     * The links of a page are taken from the snapshot if the page has the same name, the
+     *   same position in a group of the same name, and the same length and content hash as
+     *   when saved, see {@link NotePage#contentHash()}, and if every saved link is still
+     *   found at its position; every other page is scanned.
+     *
+     * @param path  the file to load the snapshot from
+     * @param noteFacade    the notebook whose links are kept
+     * @return  the graph of the notebook
+     * @throws IOException if reading the file fails or the snapshot is invalid
+     * @throws NullPointerException if {@code noteFacade == null}
+     */
+    public static LinkGraph load(Path path, NoteFacade noteFacade) throws IOException {
+        Map<String, Deque<List<SavedPage>>> snapshot = new HashMap<>();
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Input is not a link graph snapshot");
+            }
+            for (int groupCount = input.readInt(); groupCount > 0; groupCount--) {
+                String groupName = input.readUTF();
+                int pageCount = input.readInt();
+                List<SavedPage> savedPages = new ArrayList<>(Math.max(pageCount, 0));
+                for (int i = 0; i < pageCount; i++) {
+                    savedPages.add(SavedPage.read(input));
+                }
+                snapshot.computeIfAbsent(groupName, key -> new ArrayDeque<>()).add(savedPages);
+            }
+        }
+        return new LinkGraph(noteFacade, snapshot);
+    }
+
+    /**
+     * Saves a snapshot of the links of every page, so that the graph is loaded again by
+     *      {@link #load} without scanning the unchanged pages.
+     *
+     * @param path  the file to save the snapshot to
+     * @throws IOException if writing the file fails
+     */
+    public void save(Path path) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(SNAPSHOT_VERSION);
+            output.writeInt(noteFacade.getNoteGroups().size());
+            for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+                output.writeUTF(noteGroup.getGroupName());
+                output.writeInt(noteGroup.getNotePages().size());
+                for (NotePage notePage : noteGroup.getNotePages()) {
+                    PageLinks links = upToDate(notePage);
+                    output.writeUTF(notePage.getPageName());
+                    output.writeInt(notePage.getContentLength());
+                    output.writeInt(notePage.contentHash());
+                    output.writeInt(links.size());
+                    for (int i = 0; i < links.size(); i++) {
+                        output.writeInt(links.start(i));
+                        output.writeUTF(links.value(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops listening to the changes of the notebook, groups and pages.
+     */
+    public void close() {
+        noteFacade.removePropertyChangeListener("newGroup", this);
+        noteFacade.removePropertyChangeListener("changeGroups", this);
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            noteGroup.removePropertyChangeListener("newPage", this);
+            noteGroup.removePropertyChangeListener("deletePage", this);
+        }
+        for (NotePage notePage : pages.keySet()) {
+            notePage.removePropertyChangeListener("pageName", this);
+            notePage.removePropertyChangeListener("delta", this);
+        }
+    }
+
+    /**
+     * Gets the links written in a page.
+     *
+     * @param notePage  the page containing the links
+     * @return  the links of the page, in order
+     * @throws IllegalArgumentException if the page is not in the notebook
+     */
+    public List<Link> links(NotePage notePage) {
+        PageLinks links = upToDate(notePage);
+        List<Link> result = new ArrayList<>(links.size());
+        for (int i = 0; i < links.size(); i++) {
+            result.add(new Link(links.start(i), links.end(i), links.value(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the pages a page links to, leaving out the links to no page.
+     *
+     * @param notePage  the page containing the links
+     * @return  the distinct pages named by the links of the page, in order
+     * @throws IllegalArgumentException if the page is not in the notebook
+     */
+    public List<NotePage> linkedPages(NotePage notePage) {
+        PageLinks links = upToDate(notePage);
+        Set<NotePage> result = new LinkedHashSet<>();
+        for (int i = 0; i < links.size(); i++) {
+            result.addAll(pagesByName.getOrDefault(links.value(i), List.of()));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Gets the pages linking to a page, i.e. the pages containing a link to its name.
+     *
+     * @param notePage  the linked page
+     * @return  the pages linking to the page, in the order they first linked to it
+     */
+    public List<NotePage> backlinks(NotePage notePage) {
+        return new ArrayList<>(
+                backlinks.getOrDefault(notePage.getPageName(), Map.of()).keySet());
+    }
+
+    /**
+     * Renames a page and rewrites the links to its old name, so they still lead to it.
+     * Only the pages linking to the old name are edited, each one with a single
+     *   {@link NotePage#applyEdits} call. If several pages share the old name, the links
+     *   are ambiguous and left unchanged.
+     *
+     * @param notePage  the page to be renamed
+     * @param pageName  the new name of the page
+     * @return  the number of links rewritten
+     * @throws IllegalArgumentException if the page is not in the notebook, or if links
+     *      have to be rewritten and {@code pageName} cannot be the name of a link
+     * @throws NullPointerException if {@code pageName == null}
+     */
+    public int renamePage(NotePage notePage, String pageName) {
+        if (pageName == null) {
+            throw new NullPointerException("Page name cannot be null");
+        }
+        if (!pages.containsKey(notePage)) {
+            throw new IllegalArgumentException("Note page is not in the notebook");
+        }
+        String oldName = notePage.getPageName();
+        Map<NotePage, Integer> linking = backlinks.get(oldName);
+        if (pageName.equals(oldName) || linking == null
+                || pagesByName.get(oldName).size() > 1) {
+            notePage.setPageName(pageName);
+            return 0;
+        }
+        if (!Markup.isLinkName(pageName)) {
+            throw new IllegalArgumentException(
+                    STR."Page name \"\{pageName}\" cannot be the name of a link");
+        }
+
+        int rewritten = 0;
+        String newLink = STR."[[\{pageName}]]";
+        for (NotePage linkingPage : new ArrayList<>(linking.keySet())) {
+            PageLinks links = upToDate(linkingPage);
+            List<TextEdit> edits = new ArrayList<>();
+            for (int i = 0; i < links.size(); i++) {
+                if (links.value(i).equals(oldName)) {
+                    edits.add(new TextEdit(links.start(i), links.end(i), newLink));
+                }
+            }
+            renamingPage = linkingPage;
+            renamedFrom = oldName;
+            renamedTo = pageName;
+            try {
+                linkingPage.applyEdits(edits);
+            } finally {
+                renamingPage = null;
+            }
+            rewritten += edits.size();
+        }
+
+        // the rewritten links moved from the old name to the new one
+        Map<NotePage, Integer> moved = backlinks.remove(oldName);
+        if (moved != null) {
+            moved.forEach((linkingPage, count) -> countLinks(pageName, linkingPage, count));
+        }
+        notePage.setPageName(pageName);
+        return rewritten;
+    }
+
+    /**
+     * Scans again every page changed without a delta since its links were last updated,
+     *      e.g. by {@link NotePage#setContent(String)}.
+     * Only the versions of the pages are compared, the other pages are not read.
+     */
+    public void refresh() {
+        for (NotePage notePage : new ArrayList<>(pages.keySet())) {
+            upToDate(notePage);
+        }
+    }
+
+    /**
+     * Updates the graph with an edited, renamed, added or deleted page, or with the
+     *      groups added to or removed from the notebook.
+     *
+     * @param evt   the property change event fired by the notebook, a group or a page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        switch (evt.getPropertyName()) {
+            case "newGroup", "changeGroups" -> updateGroups((List<?>) evt.getOldValue(),
+                    (List<?>) evt.getNewValue());
+            case "delta" -> {
+                if (evt.getSource() instanceof NotePage notePage
+                        && evt.getNewValue() instanceof ContentDelta delta) {
+                    update(notePage, delta);
+                }
+            }
+            case "pageName" -> {
+                NotePage notePage = (NotePage) evt.getSource();
+                PageLinks links = pages.get(notePage);
+                if (links == null) {
+                    return;
+                }
+                removeName((String) evt.getOldValue(), notePage);
+                pagesByName.computeIfAbsent((String) evt.getNewValue(),
+                        key -> new ArrayList<>()).add(notePage);
+                // the page counts the rename as a change of version after this event
+                if (links.version == notePage.getVersion()) {
+                    links.version++;
+                }
+            }
+            case "newPage" -> {
+                NoteGroup noteGroup = (NoteGroup) evt.getSource();
+                NotePage notePage = noteGroup.getNotePages().getLast();
+                if (!pages.containsKey(notePage)) {
+                    add(notePage, scanAll(notePage));
+                }
+            }
+            case "deletePage" -> {
+                List<?> oldPages = (List<?>) evt.getOldValue();
+                List<?> newPages = (List<?>) evt.getNewValue();
+                int position = 0;
+                while (position < newPages.size()
+                        && oldPages.get(position) == newPages.get(position)) {
+                    position++;
+                }
+                remove((NotePage) oldPages.get(position));
+            }
+            default -> {
+                // the other properties do not change any link
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to start tracking the groups added to the notebook with
+     *      their pages, and to stop tracking the groups removed from it.
+     *
+     * @param oldGroups the groups before the change
+     * @param newGroups the groups after the change
+     */
+    private void updateGroups(List<?> oldGroups, List<?> newGroups) {
+        Set<Object> before = Collections.newSetFromMap(new IdentityHashMap<>());
+        before.addAll(oldGroups);
+        Set<Object> after = Collections.newSetFromMap(new IdentityHashMap<>());
+        after.addAll(newGroups);
+
+        for (Object oldGroup : oldGroups) {
+            if (!after.contains(oldGroup) && oldGroup instanceof NoteGroup noteGroup) {
+                noteGroup.removePropertyChangeListener("newPage", this);
+                noteGroup.removePropertyChangeListener("deletePage", this);
+                noteGroup.getNotePages().forEach(this::remove);
+            }
+        }
+        for (Object newGroup : newGroups) {
+            if (!before.contains(newGroup) && newGroup instanceof NoteGroup noteGroup) {
+                noteGroup.addWeakPropertyChangeListener("newPage", this);
+                noteGroup.addWeakPropertyChangeListener("deletePage", this);
+                for (NotePage notePage : noteGroup.getNotePages()) {
+                    if (!pages.containsKey(notePage)) {
+                        add(notePage, scanAll(notePage));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to update the links of a page from an edit, scanning the
+     *      touched lines again, as a link never spans two lines.
+     *
+     * @param notePage  the edited page
+     * @param delta the change of the content
+     */
+    private void update(NotePage notePage, ContentDelta delta) {
+        PageLinks links = pages.get(notePage);
+        if (links == null) {
+            return;
+        }
+        if (links.version != notePage.getVersion() - 1) {
+            replaceLinks(notePage, scanAll(notePage)); // changed without a delta before
+            return;
+        }
+        if (notePage == renamingPage) {
+            links.retarget(renamedFrom, renamedTo);
+            links.version = notePage.getVersion();
+            return;
+        }
+
+        CharSequence content = notePage.getContentView();
+        ContentDelta.TouchedLines lines = delta.touchedLines(content);
+        PageLinks scanned = new PageLinks(notePage.getVersion());
+        scan(content, lines.startPosition(), lines.newEndPosition(), scanned);
+        int first = links.firstEndingAfter(lines.startPosition());
+        int end = links.endStartingBefore(first, lines.oldEndPosition());
+        for (int i = first; i < end; i++) {
+            countLinks(links.value(i), notePage, -1);
+        }
+        for (int i = 0; i < scanned.size(); i++) {
+            countLinks(scanned.value(i), notePage, 1);
+        }
+        links.replace(lines, scanned);
+        links.version = notePage.getVersion();
+    }
+
+    /**
+     * Private auxiliary method to get the links of a page, scanning it again if it was
+     *      changed without a delta.
+     *
+     * @param notePage  the page containing the links
+     * @return  the links of the page, up to date with its content
+     * @throws IllegalArgumentException if the page is not in the notebook
+     */
+    private PageLinks upToDate(NotePage notePage) {
+        PageLinks links = pages.get(notePage);
+        if (links == null) {
+            throw new IllegalArgumentException("Note page is not in the notebook");
+        }
+        if (links.version != notePage.getVersion()) {
+            links = scanAll(notePage);
+            replaceLinks(notePage, links);
+        }
+        return links;
+    }
+
+    /**
+     * Private auxiliary method to start tracking a page with its links.
+     *
+     * @param notePage  the page to be tracked
+     * @param links the links of the page
+     */
+    private void add(NotePage notePage, PageLinks links) {
+        pages.put(notePage, links);
+        pagesByName.computeIfAbsent(notePage.getPageName(), key -> new ArrayList<>())
+                .add(notePage);
+        for (int i = 0; i < links.size(); i++) {
+            countLinks(links.value(i), notePage, 1);
+        }
+        notePage.addWeakPropertyChangeListener("pageName", this);
+        notePage.addWeakPropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Private auxiliary method to stop tracking a deleted page and its links.
+     *
+     * @param notePage  the deleted page
+     */
+    private void remove(NotePage notePage) {
+        PageLinks links = pages.remove(notePage);
+        if (links == null) {
+            return;
+        }
+        notePage.removePropertyChangeListener("pageName", this);
+        notePage.removePropertyChangeListener("delta", this);
+        removeName(notePage.getPageName(), notePage);
+        for (int i = 0; i < links.size(); i++) {
+            countLinks(links.value(i), notePage, -1);
+        }
+    }
+
+    /**
+     * Private auxiliary method to replace all the links of a page.
+     *
+     * @param notePage  the page containing the links
+     * @param links the new links of the page
+     */
+    private void replaceLinks(NotePage notePage, PageLinks links) {
+        PageLinks oldLinks = pages.put(notePage, links);
+        for (int i = 0; i < oldLinks.size(); i++) {
+            countLinks(oldLinks.value(i), notePage, -1);
+        }
+        for (int i = 0; i < links.size(); i++) {
+            countLinks(links.value(i), notePage, 1);
+        }
+    }
+
+    // removes a page from the pages of a name
+    private void removeName(String pageName, NotePage notePage) {
+        List<NotePage> namedPages = pagesByName.get(pageName);
+        if (namedPages != null) {
+            namedPages.remove(notePage);
+            if (namedPages.isEmpty()) {
+                pagesByName.remove(pageName);
+            }
+        }
+    }
+
+    // adds to the number of links from a page to a name, dropping the zero counts
+    private void countLinks(String target, NotePage notePage, int amount) {
+        Map<NotePage, Integer> linking = backlinks.computeIfAbsent(target,
+                key -> new LinkedHashMap<>());
+        linking.merge(notePage, amount, (count, added) -> count + added == 0
+                ? null : count + added);
+        if (linking.isEmpty()) {
+            backlinks.remove(target);
+        }
+    }
+
+    /**
+     * Private auxiliary method to scan the whole content of a page.
+     *
+     * @param notePage  the page to be scanned
+     * @return  the links of the page
+     */
+    private PageLinks scanAll(NotePage notePage) {
+        scannedPages++;
+        PageLinks links = new PageLinks(notePage.getVersion());
+        scan(notePage.getContentView(), 0, notePage.getContentLength(), links);
+        return links;
+    }
+
+    /**
+     * Private auxiliary method to find the links inside a range of text.
+     *
+     * @param text  the text containing the links
+     * @param startPosition the start position of the range
+     * @param endPosition   the end position of the range
+     * @param links the links found, appended in order
+     */
+    private static void scan(CharSequence text, int startPosition, int endPosition,
+                             PageLinks links) {
+        int position = startPosition;
+        while (position < endPosition - 1) {
+            int length = text.charAt(position) == '[' ? Markup.linkLengthAt(text, position) : 0;
+            if (length > 0 && position + length <= endPosition) {
+                links.add(position, position + length,
+                        text.subSequence(position + 2, position + length - 2).toString());
+                position += length;
+            } else {
+                position++;
+            }
+        }
+    }
+
+    // getter for the number of pages whose whole content was scanned
+    public long getScannedPages() {
+        return scannedPages;
+    }
+
+    /**
+     * Represents a link written in a page.
+     *
+     * @param startPosition the start position of the link, at its opening brackets
+     * @param endPosition   the end position of the link, after its closing brackets
+     * @param pageName  the name of the linked page
+     */
+    public record Link(int startPosition, int endPosition, String pageName) {
+    }
+
+    /**
+     * The links of a page as read from a snapshot, i.e. the start positions of the links
+     *   and their target names, with the name, length and content hash of the page when
+     *   saved.
+     *
+     * @param pageName  the name of the page
+     * @param contentLength the length of the content of the page
+     * @param contentHash   the hash of the content of the page
+     * @param starts    the start positions of the links
+     * @param targets   the target names of the links
+     */
+    private record SavedPage(String pageName, int contentLength, int contentHash,
+                             int[] starts, String[] targets) {
+        // reads the saved links of one page
+        private static SavedPage read(DataInputStream input) throws IOException {
+            String pageName = input.readUTF();
+            int contentLength = input.readInt();
+            int contentHash = input.readInt();
+            int size = input.readInt();
+            if (size < 0 || contentLength < 0) {
+                throw new IOException("Link graph snapshot is corrupted");
+            }
+            int[] starts = new int[size];
+            String[] targets = new String[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = input.readInt();
+                targets[i] = input.readUTF();
+            }
+            return new SavedPage(pageName, contentLength, contentHash, starts, targets);
+        }
+
+        /**
+         * Restores the links of a page if it matches the saved one, checking its content
+         *      hash and the text of every saved link.
+         *
+         * @param notePage  the page whose links are restored
+         * @return  the links of the page, or null if it has to be scanned
+         */
+        private PageLinks restore(NotePage notePage) {
+            if (!pageName.equals(notePage.getPageName())
+                    || contentLength != notePage.getContentLength()
+                    || contentHash != notePage.contentHash()) {
+                return null;
+            }
+            CharSequence content = notePage.getContentView();
+            PageLinks links = new PageLinks(notePage.getVersion());
+            for (int i = 0; i < starts.length; i++) {
+                int end = starts[i] + targets[i].length() + 4;
+                if ((i > 0 && starts[i] < links.end(i - 1))
+                        || Markup.linkLengthAt(content, starts[i]) != end - starts[i]
+                        || !Markup.startsWith(content, starts[i] + 2, targets[i])) {
+                    return null;
+                }
+                links.add(starts[i], end, targets[i]);
+            }
+            return links;
+        }
+    }
+
+    /**
+     * The sorted links of a page with their target names, as of a version of the page.
+     */
+    private static final class PageLinks extends SortedRanges<String> {
+        /**
+         * Constructs empty PageLinks.
+         *
+         * @param version   the version of the page
+         */
+        private PageLinks(long version) {
+            super(version, 4);
+        }
+
+        /**
+         * Renames the target of the links to a name, shifting every link by the change of
+         *      length of the links before it.
+         *
+         * @param oldName   the old target name
+         * @param newName   the new target name
+         */
+        private void retarget(String oldName, String newName) {
+            int shift = 0;
+            for (int i = 0; i < size(); i++) {
+                int start = start(i) + shift;
+                String target = value(i);
+                if (target.equals(oldName)) {
+                    shift += newName.length() - oldName.length();
+                    target = newName;
+                }
+                set(i, start, end(i) + shift, target);
+            }
+        }
+    }
+}
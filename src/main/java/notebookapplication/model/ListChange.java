@@ -0,0 +1,15 @@
+package notebookapplication.model;
+
+import java.util.List;
+
+/**
+ * Represents a visible change of a {@link ReplicatedList} caused by a remote operation,
+ *   i.e. a run of consecutive elements inserted or deleted.
+ *
+ * @param inserted  true if the elements are inserted, false if they are deleted
+ * @param index the visible index of the first element inserted or deleted
+ * @param values    the values of the elements inserted or deleted
+ * @param <T>   the type of the elements of the list
+ */
+public record ListChange<T>(boolean inserted, int index, List<T> values) {
+}
@@ -0,0 +1,47 @@
+package notebookapplication.model;
+
+import java.util.List;
+
+/**
+ * An operation on a {@link ReplicatedList}, exchanged between the replicas.
+ * An operation covers a run of consecutive elements, so that inserting or deleting
+ *   a word is one operation instead of one per character.
+ *
+ * @param <T>   the type of the elements of the list
+ */
+public sealed interface ListOp<T> {
+    // getter for the unique id of this operation
+    OpId id();
+
+    /**
+     * Inserts a run of elements right after their parent element.
+     * The k-th element of the run gets the id {@code (id.counter() + k, id.replica())},
+     *   and is inserted right after the element before it.
+     *
+     * @param id    the id of the operation, which is also the id of the first new element
+     * @param parent    the id of the element after which the run is inserted,
+     *                  null to insert it at the start of the list
+     * @param values    the values of the new elements, not empty
+     * @param <T>   the type of the elements of the list
+     */
+    record Insert<T>(OpId id, OpId parent, List<T> values) implements ListOp<T> {
+        /**
+         * Constructs an Insert, copying the values.
+         */
+        public Insert {
+            values = List.copyOf(values);
+        }
+    }
+
+    /**
+     * Deletes a run of elements with consecutive ids created by the same replica, which
+     *      are only marked as tombstones until every replica has seen the deletion.
+     *
+     * @param id    the id of the operation
+     * @param target    the id of the first element to be deleted
+     * @param count the number of elements to be deleted, with consecutive counters
+     * @param <T>   the type of the elements of the list
+     */
+    record Delete<T>(OpId id, OpId target, int count) implements ListOp<T> {
+    }
+}
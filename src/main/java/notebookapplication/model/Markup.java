@@ -0,0 +1,213 @@
+package notebookapplication.model;
+
+/**
+ * Package-private utility class that recognises the custom tags inside the text
+ *   of the notebook, i.e. the style tags {@code [style="..."]...[/style]} created by
+ *   {@link TextEditing} and the page tags {@code [page="..."]...[/page]} of the
+ *   notebook file, and the wiki-style page links {@code [[Page name]]} tracked by
+ *   {@link LinkGraph}.
+ * Used by the indexes of the model to skip the markup without regular expressions.
+ */
+final class Markup {
+    private static final String[] OPENING_TAGS = {"[style=\"", "[page=\""};
+    private static final String[] CLOSING_TAGS = {"[/style]", "[/page]"};
+
+    /** The maximal length of the page name of a link, so a stray bracket is cheap to skip. */
+    static final int MAX_LINK_NAME_LENGTH = 256;
+
+    private Markup() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Gets the length of the custom tag starting at the given position of the text.
+     * The attribute of an opening tag contains no quotation mark and no line break, so a
+     *   tag never spans two lines and the lines touched by an edit can be scanned alone.
+     *
+     * @param text  the text to be checked
+     * @param position  the position where the tag is expected to start
+     * @return  the length of the tag at {@code position}, or 0 if there is no tag
+     */
+    static int tagLengthAt(CharSequence text, int position) {
+        if (position >= text.length() || text.charAt(position) != '[') {
+            return 0;
+        }
+
+        for (String closingTag : CLOSING_TAGS) {
+            if (startsWith(text, position, closingTag)) {
+                return closingTag.length();
+            }
+        }
+
+        for (String openingTag : OPENING_TAGS) {
+            if (startsWith(text, position, openingTag)) {
+                // no other quotation mark and no line break are allowed inside the attribute
+                int end = position + openingTag.length();
+                while (end < text.length() && text.charAt(end) != '"'
+                        && text.charAt(end) != '\n') {
+                    end++;
+                }
+                if (end + 1 < text.length() && text.charAt(end) == '"'
+                        && text.charAt(end + 1) == ']') {
+                    return end + 2 - position;
+                }
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the total length of the custom tags found between the given positions of the
+     *      text, scanning it from left to right and skipping every tag found.
+     *
+     * @param text  the text to be scanned
+     * @param startPosition the start position of the range to be scanned
+     * @param endPosition   the end position of the range to be scanned
+     * @return  the number of chars taken by the tags starting inside the range
+     */
+    static int tagsLength(CharSequence text, int startPosition, int endPosition) {
+        int length = 0;
+        int position = startPosition;
+        while (position < endPosition) {
+            int tagLength = tagLengthAt(text, position);
+            length += tagLength;
+            position += Math.max(tagLength, 1);
+        }
+        return length;
+    }
+
+    /**
+     * Gets the length of the page link, i.e. {@code [[Page name]]}, starting at the given
+     *      position of the text.
+     * The page name of a link is not empty, and contains no bracket and no line break.
+     *
+     * @param text  the text to be checked
+     * @param position  the position where the link is expected to start
+     * @return  the length of the link at {@code position}, or 0 if there is no link
+     */
+    static int linkLengthAt(CharSequence text, int position) {
+        if (!startsWith(text, position, "[[")) {
+            return 0;
+        }
+
+        int end = position + 2;
+        int maxEnd = Math.min(text.length(), end + MAX_LINK_NAME_LENGTH);
+        while (end < maxEnd && isLinkNameChar(text.charAt(end))) {
+            end++;
+        }
+        if (end == position + 2 || !startsWith(text, end, "]]")) {
+            return 0;
+        }
+        return end + 2 - position;
+    }
+
+    /**
+     * Checks if a page name can be the target of a link.
+     *
+     * @param pageName  the page name to be checked
+     * @return  true if {@code [[pageName]]} is a link to the page, false otherwise
+     */
+    static boolean isLinkName(String pageName) {
+        if (pageName.isEmpty() || pageName.length() > MAX_LINK_NAME_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < pageName.length(); i++) {
+            if (!isLinkNameChar(pageName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // checks if a char is allowed inside the page name of a link
+    private static boolean isLinkNameChar(char character) {
+        return character != '[' && character != ']' && character != '\n';
+    }
+
+    /**
+     * Gets the length of the beginning of an opening tag, i.e. {@code [style="} or
+     *      {@code [page="}, at the given position of the text.
+     * The beginning is found even if the rest of the tag is missing.
+     *
+     * @param text  the text to be checked
+     * @param position  the position where the opening tag is expected to start
+     * @return  the length of the beginning of the opening tag, or 0 if there is none
+     */
+    static int openingPrefixLengthAt(CharSequence text, int position) {
+        for (String openingTag : OPENING_TAGS) {
+            if (startsWith(text, position, openingTag)) {
+                return openingTag.length();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Calls the action for every word between the given positions of the text,
+     *      skipping the custom tags and the prefixes of {@link Symbols}.
+     * A word is a maximal run of letters and digits.
+     *
+     * @param text  the text to be scanned
+     * @param startPosition the start position of the range to be scanned
+     * @param endPosition   the end position of the range to be scanned
+     * @param action    the action to be called with the range of every word
+     */
+    static void forEachWord(CharSequence text, int startPosition, int endPosition,
+                            WordAction action) {
+        int position = startPosition;
+        while (position < endPosition) {
+            char character = text.charAt(position);
+            if (Character.isLetterOrDigit(character)) {
+                int wordStart = position;
+                while (position < endPosition
+                        && Character.isLetterOrDigit(text.charAt(position))) {
+                    position++;
+                }
+                action.accept(wordStart, position);
+                continue;
+            }
+
+            int skipped = tagLengthAt(text, position);
+            if (skipped == 0 && !Character.isWhitespace(character)) {
+                Symbols symbolEnum = Symbols.prefixAt(text, position);
+                skipped = symbolEnum == null ? 0 : symbolEnum.prefix().length();
+            }
+            position += Math.max(skipped, 1);
+        }
+    }
+
+    /**
+     * A functional interface for the action called by {@code forEachWord}.
+     */
+    @FunctionalInterface
+    interface WordAction {
+        /**
+         * Performs the action on one word.
+         *
+         * @param startPosition the start position of the word
+         * @param endPosition   the end position of the word
+         */
+        void accept(int startPosition, int endPosition);
+    }
+
+    /**
+     * Checks if the text contains the given string at the given position.
+     *
+     * @param text  the text to be checked
+     * @param position  the position where {@code string} is expected to start
+     * @param string    the string to be found
+     * @return  true if {@code string} starts at {@code position}, false otherwise
+     */
+    static boolean startsWith(CharSequence text, int position, String string) {
+        if (position < 0 || position + string.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (text.charAt(position + i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package notebookapplication.model;
+
+/**
+ * Represents the estimated memory retained by a note page, a note group or the whole
+ *   notebook, split by what it is used for, e.g. to be shown in a status bar or to find
+ *   the pages over-allocating their content buffer.
+ * The style bytes are part of the content bytes, while the slack, listener and off-heap
+ *   bytes come on top of them.
+ *
+ * @param contentBytes  the bytes on the Java heap used by the names and the content, or
+ *      by the char-offset index of the parked content
+ * @param slackBytes    the bytes allocated but unused by the content buffers, which can be
+ *      freed by {@code trimToSize}
+ * @param styleBytes    the bytes of the content taken by the custom tags
+ * @param listenerBytes the bytes used by the registrations of the property change listeners
+ * @param offHeapBytes  the bytes off the Java heap used by the parked content
+ */
+public record MemoryUsage(long contentBytes, long slackBytes, long styleBytes,
+                          long listenerBytes, long offHeapBytes) {
+    /** The usage of nothing stored. */
+    public static final MemoryUsage NONE = new MemoryUsage(0, 0, 0, 0, 0);
+
+    /**
+     * Adds two memory usages together.
+     *
+     * @param other the usage to be added
+     * @return  the sum of this usage and {@code other}
+     */
+    public MemoryUsage plus(MemoryUsage other) {
+        return new MemoryUsage(contentBytes + other.contentBytes,
+                slackBytes + other.slackBytes, styleBytes + other.styleBytes,
+                listenerBytes + other.listenerBytes, offHeapBytes + other.offHeapBytes);
+    }
+
+    // getter for the estimated number of bytes retained on the Java heap
+    public long heapBytes() {
+        return contentBytes + slackBytes + listenerBytes;
+    }
+}
@@ -0,0 +1,16 @@
+package notebookapplication.model;
+
+/**
+ * Represents what an import merge changed in the local notebook, see
+ *   {@link NoteFacade#mergeImport(NoteFacade)}.
+ *
+ * @param pagesAdded    the number of imported pages added
+ * @param pagesDeleted  the number of local pages deleted
+ * @param pagesRenamed  the number of local pages renamed, matched by their content
+ * @param pagesChanged  the number of local pages whose content was edited
+ * @param conflicts the number of changes of the imported notebook not applied, because
+ *      the local notebook changed the same lines or pages since the base revision
+ */
+public record MergeReport(int pagesAdded, int pagesDeleted, int pagesRenamed,
+                          int pagesChanged, int conflicts) {
+}
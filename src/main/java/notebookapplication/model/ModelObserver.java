@@ -1,31 +1,72 @@
 package notebookapplication.model;
 
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 
 /**
  * Abstract class that provides support for property change listeners.
  * This class is part of the Observer design pattern implementation.
+ * The listeners can listen to all properties or to a single property name, such as
+ *   {@code "insert"}, {@code "delete"}, {@code "format"} or {@code "newPage"}, and can be
+ *   held weakly, see {@link PropertyChangeDispatcher}.
  */
 public abstract class ModelObserver {
     /** Support for managing property change listeners. */
-    protected PropertyChangeSupport support;
+    protected PropertyChangeDispatcher support;
 
     /**
-     * Adds a property change listener to the listener list.
+     * Adds a property change listener of all properties to the listener list.
      *
      * @param listener  the PropertyChangeListener to be added
      */
     public void addPropertyChangeListener(PropertyChangeListener listener) {
-        support.addPropertyChangeListener(listener);
+        support.addPropertyChangeListener(null, listener);
     }
 
     /**
-     * Removes a property change listener from the listener list.
+     * Adds a property change listener of a single property to the listener list.
+     *
+     * @param propertyName  the name of the property to be listened to
+     * @param listener  the PropertyChangeListener to be added
+     */
+    public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        support.addPropertyChangeListener(propertyName, listener);
+    }
+
+    /**
+     * Adds a property change listener held weakly to the listener list, which is removed
+     *      automatically once it has been garbage collected, e.g. with its editor view.
+     * The caller must keep a strong reference to the listener while it is needed.
+     *
+     * @param propertyName  the name of the property to be listened to, null for all
+     * @param listener  the PropertyChangeListener to be added
+     */
+    public void addWeakPropertyChangeListener(String propertyName,
+                                              PropertyChangeListener listener) {
+        support.addWeakPropertyChangeListener(propertyName, listener);
+    }
+
+    // getter for the estimated bytes retained by the registrations of the listeners
+    public long listenerBytes() {
+        return support.retainedBytes();
+    }
+
+    /**
+     * Removes a property change listener of all properties from the listener list.
      *
      * @param listener  the PropertyChangeListener to be removed
      */
     public void removePropertyChangeListener(PropertyChangeListener listener) {
-        support.removePropertyChangeListener(listener);
+        support.removePropertyChangeListener(null, listener);
+    }
+
+    /**
+     * Removes a property change listener of a single property from the listener list.
+     *
+     * @param propertyName  the name of the property listened to, null for all
+     * @param listener  the PropertyChangeListener to be removed
+     */
+    public void removePropertyChangeListener(String propertyName,
+                                             PropertyChangeListener listener) {
+        support.removePropertyChangeListener(propertyName, listener);
     }
 }
@@ -0,0 +1,977 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the names of the note groups and note pages of a notebook, so the quick
+ *   switcher can find a page by a part of its name on every keystroke.
+ * Every lower-cased name is indexed by its trigrams, its chars, and the first one to three
+ *   chars of the name and of its words. The ids of the names of every key are sorted from
+ *   the shortest name, so a search reads the ids of the rarest key of the query and stops
+ *   as soon as the remaining names cannot rank higher, in five tiers: the names starting
+ *   with the query, the names with a word starting with it, the other names containing it,
+ *   the names containing all its words, and the names containing its chars in the same
+ *   order, e.g. {@code "ntpg"} for {@code "Note page"}.
+ * The index is updated from the {@code "newGroup"}, {@code "changeGroups"},
+ *   {@code "groupName"}, {@code "newPage"}, {@code "deletePage"} and {@code "pageName"}
+ *   property changes. The notebook, groups and pages only hold the index weakly, so an
+ *   index dropped with the quick switcher stops listening.
+ */
+public class NameIndex implements PropertyChangeListener {
+    /** The score of the names starting with the query. */
+    public static final int PREFIX_SCORE = 1_200;
+
+    /** The score of the names with a word starting with the query. */
+    public static final int WORD_START_SCORE = 1_100;
+
+    /** The score of the other names containing the query. */
+    public static final int SUBSTRING_SCORE = 1_000;
+
+    /**
+     * The score of the names containing every word of the query in any order, where the
+     *   words shorter than three chars start a word, above any subsequence match.
+     */
+    public static final int TERMS_SCORE = 900;
+
+    /** The bonus of a char of a subsequence match at the start of a word. */
+    private static final int WORD_START_BONUS = 10;
+
+    /** The bonus of a char of a subsequence match right after the previous one. */
+    private static final int CONSECUTIVE_BONUS = 5;
+
+    /** The number of subsequence matches per requested match after which a search stops. */
+    private static final int SUBSEQUENCE_MATCHES_PER_RESULT = 16;
+
+    /**
+     * The maximal number of names read by a search for the matches of the words of a query
+     *   or of its chars, so a search takes under a millisecond on a million names.
+     */
+    private static final int MAX_FUZZY_CANDIDATES = 4_096;
+
+    /** The char marking a key of the name starts, not used in names. */
+    private static final char NAME_START = '\uFFFE'; // noncharacter U+FFFE
+
+    /** The char marking a key of the word starts or of a single char, not used in names. */
+    private static final char WORD_START = '\uFFFF'; // noncharacter U+FFFF
+
+    /** The bit marking a key of the names starting with three chars, above the chars. */
+    private static final long NAME_START_TRIGRAM = 1L << 48;
+
+    /** The bit marking a key of the words starting with three chars, above the chars. */
+    private static final long WORD_START_TRIGRAM = 2L << 48;
+
+    /** The minimal number of removed names before the index is compacted. */
+    private static final int MIN_COMPACTED = 1_024;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The indexed notebook. */
+    private final NoteFacade noteFacade;
+
+    /** The ids of the indexed groups and pages. */
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+
+    /** The ids of the names containing a key, by key. */
+    private PostingsTable postings = new PostingsTable();
+
+    /** The names by id, null once removed. */
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /** The lower-cased names by id. */
+    private String[] lowerCaseNames = new String[INITIAL_CAPACITY];
+
+    /** The lengths of the names by id, kept once removed to order the postings. */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /** The chars contained by the names by id, see {@link #charMask}. */
+    private long[] charMasks = new long[INITIAL_CAPACITY];
+
+    /** The trigrams contained by the names by id, see {@link #trigramMask}. */
+    private long[] trigramMasks = new long[INITIAL_CAPACITY];
+
+    /** The groups by id, i.e. the named group or the group of the named page. */
+    private NoteGroup[] noteGroups = new NoteGroup[INITIAL_CAPACITY];
+
+    /** The pages by id, null for the names of groups. */
+    private NotePage[] notePages = new NotePage[INITIAL_CAPACITY];
+
+    /** The number of ids given, including the removed names. */
+    private int idCount;
+
+    /** The number of removed names whose ids are not reused yet. */
+    private int removedCount;
+
+    /**
+     * Constructs a NameIndex of every group and page of a notebook and starts listening
+     *      to their changes.
+     *
+     * @param noteFacade    the notebook to be indexed
+     * @throws NullPointerException if {@code noteFacade == null}
+     */
+    public NameIndex(NoteFacade noteFacade) {
+        if (noteFacade == null) {
+            throw new NullPointerException("NoteFacade to be indexed cannot be null");
+        }
+        this.noteFacade = noteFacade;
+
+        noteFacade.addWeakPropertyChangeListener("newGroup", this);
+        noteFacade.addWeakPropertyChangeListener("changeGroups", this);
+        List<Entry> entries = new ArrayList<>();
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            listen(noteGroup, entries);
+        }
+        addAll(entries);
+    }
+
+    /**
+     * Stops listening to the changes of the notebook, groups and pages.
+     */
+    public void close() {
+        noteFacade.removePropertyChangeListener("newGroup", this);
+        noteFacade.removePropertyChangeListener("changeGroups", this);
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            noteGroup.removePropertyChangeListener("groupName", this);
+            noteGroup.removePropertyChangeListener("newPage", this);
+            noteGroup.removePropertyChangeListener("deletePage", this);
+        }
+        for (int id = 0; id < idCount; id++) {
+            if (notePages[id] != null) {
+                notePages[id].removePropertyChangeListener("pageName", this);
+            }
+        }
+    }
+
+    /**
+     * Updates the index with a renamed, added or deleted group or page.
+     *
+     * @param evt   the property change event fired by the notebook, a group or a page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        switch (evt.getPropertyName()) {
+            case "newGroup", "changeGroups" -> updateGroups((List<?>) evt.getOldValue(),
+                    (List<?>) evt.getNewValue());
+            case "groupName", "pageName" -> rename(evt.getSource(), (String) evt.getNewValue());
+            case "newPage" -> {
+                NoteGroup noteGroup = (NoteGroup) evt.getSource();
+                NotePage notePage = noteGroup.getNotePages().getLast();
+                add(notePage.getPageName(), noteGroup, notePage);
+                notePage.addWeakPropertyChangeListener("pageName", this);
+            }
+            case "deletePage" -> {
+                List<?> oldPages = (List<?>) evt.getOldValue();
+                List<?> newPages = (List<?>) evt.getNewValue();
+                int position = 0;
+                while (position < newPages.size()
+                        && oldPages.get(position) == newPages.get(position)) {
+                    position++;
+                }
+                NotePage notePage = (NotePage) oldPages.get(position);
+                notePage.removePropertyChangeListener("pageName", this);
+                remove(notePage);
+            }
+            default -> {
+                // the other properties do not change any name
+            }
+        }
+    }
+
+    /**
+     * Finds the best fuzzy matches of a query among the names of the groups and pages,
+     *      ignoring the case.
+     * The names starting with the query rank first, then the names with a word starting
+     *   with it, then the other names containing it, then the names containing all its
+     *   words in any order, each tier from the shortest name. The names containing the
+     *   chars of the query in the same order rank last, by the number of chars starting
+     *   a word or following the previous one. As there can be very many names with the
+     *   words or the chars of the query, only the shortest few thousand are compared.
+     *
+     * @param query the text typed by the user
+     * @param limit the maximal number of matches to be returned
+     * @return  at most {@code limit} matches, from the best
+     */
+    public List<Match> search(String query, int limit) {
+        String lowerCaseQuery = toLowerCase(query.strip());
+        if (lowerCaseQuery.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        String[] terms = lowerCaseQuery.indexOf(' ') >= 0 ? lowerCaseQuery.split(" +") : null;
+        TopMatches topMatches = new TopMatches(limit);
+        Postings rarestTrigram = rarestTrigramPostings(lowerCaseQuery);
+        if (lowerCaseQuery.length() < 3 || rarestTrigram != null) {
+            // no name is in the tier if no name or word starts like the query
+            Postings nameStarts = postings.get(startKey(NAME_START, lowerCaseQuery));
+            Postings wordStarts = postings.get(startKey(WORD_START, lowerCaseQuery));
+            searchTier(topMatches, nameStarts == null ? null : rarer(rarestTrigram, nameStarts),
+                    PREFIX_SCORE, lowerCaseQuery, terms, Integer.MAX_VALUE);
+            searchTier(topMatches, wordStarts == null ? null : rarer(rarestTrigram, wordStarts),
+                    WORD_START_SCORE, lowerCaseQuery, terms, Integer.MAX_VALUE);
+            searchTier(topMatches, rarestTrigram != null
+                    ? rarestTrigram : rarestCharPostings(lowerCaseQuery), SUBSTRING_SCORE,
+                    lowerCaseQuery, terms, Integer.MAX_VALUE);
+        }
+        if (!topMatches.isFull() && terms != null) {
+            searchTier(topMatches, rarestTermPostings(terms), TERMS_SCORE, lowerCaseQuery, terms,
+                    MAX_FUZZY_CANDIDATES);
+        }
+        if (!topMatches.isFull() && lowerCaseQuery.length() > 1) {
+            searchSubsequences(topMatches, rarestCharPostings(lowerCaseQuery), lowerCaseQuery,
+                    terms);
+        }
+
+        int[] bestIds = topMatches.sortedIds();
+        List<Match> matches = new ArrayList<>(bestIds.length);
+        for (int id : bestIds) {
+            matches.add(new Match(names[id], noteGroups[id], notePages[id],
+                    score(names[id], lowerCaseNames[id], lowerCaseQuery, terms)));
+        }
+        return matches;
+    }
+
+    // getter for the number of indexed names, of the groups and the pages
+    public int size() {
+        return idCount - removedCount;
+    }
+
+    /**
+     * Private auxiliary method to offer the names of one tier containing the query to the
+     *      best matches, from the shortest name, until no remaining name can rank higher.
+     *
+     * @param topMatches    the best matches found so far
+     * @param candidates    the ids of the names that may be in the tier, null if none
+     * @param tierScore the score of the tier
+     * @param maxCandidates the maximal number of names read, from the shortest
+     * @param lowerCaseQuery    the lower-cased query
+     * @param terms the words of the query, null if it has only one
+     */
+    private void searchTier(TopMatches topMatches, Postings candidates, int tierScore,
+                            String lowerCaseQuery, String[] terms, int maxCandidates) {
+        if (candidates == null) {
+            return;
+        }
+        // a name of the tier contains every trigram of the query, or of its words
+        long queryMask = 0;
+        for (String term : tierScore == TERMS_SCORE ? terms : new String[] {lowerCaseQuery}) {
+            queryMask |= trigramMask(term);
+        }
+        int end = Math.min(candidates.size, maxCandidates);
+        for (int i = 0; i < end; i++) {
+            int id = candidates.ids[i];
+            if (topMatches.isFull() && rank(tierScore, lengths[id]) <= topMatches.lowestRank()) {
+                return; // the next names are as long or longer
+            }
+            if (names[id] != null && (trigramMasks[id] & queryMask) == queryMask
+                    && score(names[id], lowerCaseNames[id], lowerCaseQuery, terms) == tierScore) {
+                topMatches.offer(rank(tierScore, lengths[id]), id);
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to offer the names containing the chars of the query in the
+     *      same order, but not the query itself, to the best matches.
+     * The names without every char of the query are skipped by their char mask, and the
+     *   search reads a bounded number of names from the shortest, so it takes a bounded
+     *   time even if very many names contain the chars of the query in another order.
+     *
+     * @param topMatches    the best matches found so far
+     * @param candidates    the ids of the names containing a char of the query, null if none
+     * @param lowerCaseQuery    the lower-cased query
+     * @param terms the words of the query, null if it has only one
+     */
+    private void searchSubsequences(TopMatches topMatches, Postings candidates,
+                                    String lowerCaseQuery, String[] terms) {
+        if (candidates == null) {
+            return;
+        }
+        long queryMask = charMask(lowerCaseQuery);
+        int maxScore = Math.min(lowerCaseQuery.length() * WORD_START_BONUS, TERMS_SCORE - 1);
+        int maxMatches = topMatches.capacity() * SUBSEQUENCE_MATCHES_PER_RESULT;
+        int end = Math.min(candidates.size, MAX_FUZZY_CANDIDATES);
+        int matchCount = 0;
+        for (int i = 0; i < end && matchCount < maxMatches; i++) {
+            int id = candidates.ids[i];
+            if (topMatches.isFull() && rank(maxScore, lengths[id]) <= topMatches.lowestRank()) {
+                return; // the next names are as long or longer
+            }
+            if (names[id] == null || (charMasks[id] & queryMask) != queryMask) {
+                continue;
+            }
+            int score = score(names[id], lowerCaseNames[id], lowerCaseQuery, terms);
+            // the names of the higher tiers have already been offered
+            if (score != Integer.MIN_VALUE && score < TERMS_SCORE) {
+                topMatches.offer(rank(score, lengths[id]), id);
+                matchCount++;
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to get the ids of the names containing the rarest trigram
+     *      of a query, which contain every name containing the query.
+     *
+     * @param lowerCaseQuery    the lower-cased query
+     * @return  the postings of the rarest trigram, or null if the query is shorter than
+     *          three chars or no name contains it
+     */
+    private Postings rarestTrigramPostings(String lowerCaseQuery) {
+        Postings rarest = null;
+        for (int i = 0; i + 3 <= lowerCaseQuery.length(); i++) {
+            Postings candidates = postings.get(key(lowerCaseQuery.charAt(i),
+                    lowerCaseQuery.charAt(i + 1), lowerCaseQuery.charAt(i + 2)));
+            if (candidates == null) {
+                return null;
+            }
+            rarest = rarer(rarest, candidates);
+        }
+        return rarest;
+    }
+
+    /**
+     * Private auxiliary method to get the ids of the names containing the rarest char of
+     *      a query, which contain every name containing its chars in the same order.
+     *
+     * @param lowerCaseQuery    the lower-cased query
+     * @return  the postings of the rarest char, or null if no name contains all its chars
+     */
+    private Postings rarestCharPostings(String lowerCaseQuery) {
+        Postings rarest = null;
+        for (int i = 0; i < lowerCaseQuery.length(); i++) {
+            Postings candidates = postings.get(
+                    key(lowerCaseQuery.charAt(i), WORD_START, WORD_START));
+            if (candidates == null) {
+                return null;
+            }
+            rarest = rarer(rarest, candidates);
+        }
+        return rarest;
+    }
+
+    /**
+     * Private auxiliary method to get the ids of the names containing the rarest trigram
+     *      or word start of the words of a query, which contain every name containing
+     *      all these words.
+     *
+     * @param terms the words of the query
+     * @return  the rarest postings, or null if no name contains all the words
+     */
+    private Postings rarestTermPostings(String[] terms) {
+        Postings rarest = null;
+        for (String term : terms) {
+            Postings candidates = term.length() < 3
+                    ? postings.get(startKey(WORD_START, term)) : rarestTrigramPostings(term);
+            if (candidates == null) {
+                return null;
+            }
+            rarest = rarer(rarest, candidates);
+        }
+        return rarest;
+    }
+
+    // gets the shorter postings, where null stands for not looked up
+    private static Postings rarer(Postings first, Postings second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first.size <= second.size ? first : second;
+    }
+
+    /**
+     * Private auxiliary method to index the names of many groups and pages, from the
+     *      shortest name, so their ids are appended to the postings in order.
+     *
+     * @param entries   the names with their group and page
+     */
+    private void addAll(List<Entry> entries) {
+        entries.sort(Comparator.comparingInt(entry -> entry.name().length()));
+        for (Entry entry : entries) {
+            add(entry.name(), entry.noteGroup(), entry.notePage());
+        }
+    }
+
+    /**
+     * Private auxiliary method to start listening to a group and its pages.
+     *
+     * @param noteGroup the group to be indexed
+     * @param entries   the names of the group and its pages, appended to be indexed
+     */
+    private void listen(NoteGroup noteGroup, List<Entry> entries) {
+        entries.add(new Entry(noteGroup.getGroupName(), noteGroup, null));
+        noteGroup.addWeakPropertyChangeListener("groupName", this);
+        noteGroup.addWeakPropertyChangeListener("newPage", this);
+        noteGroup.addWeakPropertyChangeListener("deletePage", this);
+        for (NotePage notePage : noteGroup.getNotePages()) {
+            entries.add(new Entry(notePage.getPageName(), noteGroup, notePage));
+            notePage.addWeakPropertyChangeListener("pageName", this);
+        }
+    }
+
+    /**
+     * Private auxiliary method to index the groups added to the notebook, and to remove
+     *      the names of the groups removed from it with their pages.
+     *
+     * @param oldGroups the groups before the change
+     * @param newGroups the groups after the change
+     */
+    private void updateGroups(List<?> oldGroups, List<?> newGroups) {
+        Set<Object> before = Collections.newSetFromMap(new IdentityHashMap<>());
+        before.addAll(oldGroups);
+        Set<Object> after = Collections.newSetFromMap(new IdentityHashMap<>());
+        after.addAll(newGroups);
+
+        for (Object oldGroup : oldGroups) {
+            if (!after.contains(oldGroup)) {
+                removeGroup((NoteGroup) oldGroup);
+            }
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Object newGroup : newGroups) {
+            if (!before.contains(newGroup)) {
+                listen((NoteGroup) newGroup, entries);
+            }
+        }
+        addAll(entries);
+    }
+
+    /**
+     * Private auxiliary method to stop listening to a removed group and its indexed pages,
+     *      and to remove their names.
+     *
+     * @param noteGroup the group removed from the notebook
+     */
+    private void removeGroup(NoteGroup noteGroup) {
+        noteGroup.removePropertyChangeListener("groupName", this);
+        noteGroup.removePropertyChangeListener("newPage", this);
+        noteGroup.removePropertyChangeListener("deletePage", this);
+        List<NotePage> removedPages = new ArrayList<>();
+        for (int id = 0; id < idCount; id++) {
+            if (noteGroups[id] == noteGroup && notePages[id] != null) {
+                removedPages.add(notePages[id]);
+            }
+        }
+        for (NotePage notePage : removedPages) {
+            notePage.removePropertyChangeListener("pageName", this);
+            remove(notePage);
+        }
+        remove(noteGroup);
+    }
+
+    /**
+     * Private auxiliary method to index the name of a group or a page.
+     *
+     * @param name  the name to be indexed, null for an empty name
+     * @param noteGroup the named group or the group of the named page
+     * @param notePage  the named page, null for the name of a group
+     */
+    private void add(String name, NoteGroup noteGroup, NotePage notePage) {
+        if (idCount == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            lowerCaseNames = Arrays.copyOf(lowerCaseNames, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            charMasks = Arrays.copyOf(charMasks, capacity);
+            trigramMasks = Arrays.copyOf(trigramMasks, capacity);
+            noteGroups = Arrays.copyOf(noteGroups, capacity);
+            notePages = Arrays.copyOf(notePages, capacity);
+        }
+
+        int id = idCount++;
+        name = name == null ? "" : name;
+        String lowerCaseName = toLowerCase(name);
+        names[id] = name;
+        lowerCaseNames[id] = lowerCaseName;
+        lengths[id] = name.length();
+        charMasks[id] = charMask(lowerCaseName);
+        trigramMasks[id] = trigramMask(lowerCaseName);
+        noteGroups[id] = noteGroup;
+        notePages[id] = notePage;
+        ids.put(notePage != null ? notePage : noteGroup, id);
+
+        for (int i = 0; i < lowerCaseName.length(); i++) {
+            char first = lowerCaseName.charAt(i);
+            if (lowerCaseName.lastIndexOf(first, i - 1) < 0) {
+                addPosting(key(first, WORD_START, WORD_START), id);
+            }
+            if (isWordStart(name, i)) {
+                addStartPostings(i == 0 ? NAME_START : WORD_START, lowerCaseName, i, id);
+            }
+            if (i + 3 <= lowerCaseName.length()) {
+                addPosting(key(first, lowerCaseName.charAt(i + 1), lowerCaseName.charAt(i + 2)),
+                        id);
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to index a name by the first one to three chars of a word.
+     * The first word is indexed as a name start and as a word start, since it is both.
+     *
+     * @param marker    the marker of the keys, {@link #NAME_START} or {@link #WORD_START}
+     * @param lowerCaseName the lower-cased name
+     * @param index the start of the word
+     * @param id    the id of the name
+     */
+    private void addStartPostings(char marker, String lowerCaseName, int index, int id) {
+        char first = lowerCaseName.charAt(index);
+        addPosting(key(marker, first, marker), id);
+        if (index + 1 < lowerCaseName.length()) {
+            addPosting(key(marker, first, lowerCaseName.charAt(index + 1)), id);
+        }
+        if (index + 2 < lowerCaseName.length()) {
+            addPosting(startKey(marker, lowerCaseName, index), id);
+        }
+        if (marker == NAME_START) {
+            addStartPostings(WORD_START, lowerCaseName, index, id);
+        }
+    }
+
+    // adds an id to the postings of a key, once per name
+    private void addPosting(long key, int id) {
+        postings.getOrAdd(key).add(id, lengths);
+    }
+
+    /**
+     * Private auxiliary method to remove the name of a group or a page from the index.
+     * The postings of a removed name are only dropped when the index is compacted, once
+     *   the removed names are as many as the other ones.
+     *
+     * @param owner the group or page whose name is removed
+     */
+    private void remove(Object owner) {
+        Integer id = ids.remove(owner);
+        if (id == null) {
+            return;
+        }
+        names[id] = null;
+        lowerCaseNames[id] = null;
+        noteGroups[id] = null;
+        notePages[id] = null;
+        removedCount++;
+        if (removedCount >= MIN_COMPACTED && removedCount * 2 >= idCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Private auxiliary method to index the new name of a group or a page.
+     *
+     * @param owner the renamed group or page
+     * @param name  the new name
+     */
+    private void rename(Object owner, String name) {
+        Integer id = ids.get(owner);
+        if (id == null) {
+            return;
+        }
+        NoteGroup noteGroup = noteGroups[id];
+        NotePage notePage = notePages[id];
+        remove(owner);
+        add(name, noteGroup, notePage);
+    }
+
+    /**
+     * Private auxiliary method to index the remaining names again with consecutive ids.
+     */
+    private void compact() {
+        List<Entry> entries = new ArrayList<>(size());
+        for (int id = 0; id < idCount; id++) {
+            if (names[id] != null) {
+                entries.add(new Entry(names[id], noteGroups[id], notePages[id]));
+            }
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(entries.size()) * 2);
+        names = new String[capacity];
+        lowerCaseNames = new String[capacity];
+        lengths = new int[capacity];
+        charMasks = new long[capacity];
+        trigramMasks = new long[capacity];
+        noteGroups = new NoteGroup[capacity];
+        notePages = new NotePage[capacity];
+        postings = new PostingsTable();
+        ids.clear();
+        idCount = 0;
+        removedCount = 0;
+        addAll(entries);
+    }
+
+    /**
+     * Private auxiliary method to score a name against a query.
+     *
+     * @param name  the name
+     * @param lowerCaseName the lower-cased name
+     * @param lowerCaseQuery    the lower-cased query
+     * @param terms the words of the query, null if it has only one
+     * @return  the score of the tier of a name containing the query or its words, the
+     *          score of a subsequence match below {@link #TERMS_SCORE}, or
+     *          {@code Integer.MIN_VALUE} if the name does not contain the chars of the
+     *          query in the same order
+     */
+    private static int score(String name, String lowerCaseName, String lowerCaseQuery,
+                             String[] terms) {
+        int index = lowerCaseName.indexOf(lowerCaseQuery);
+        if (index == 0) {
+            return PREFIX_SCORE;
+        }
+        if (index > 0) {
+            for (; index >= 0; index = lowerCaseName.indexOf(lowerCaseQuery, index + 1)) {
+                if (isWordStart(name, index)) {
+                    return WORD_START_SCORE;
+                }
+            }
+            return SUBSTRING_SCORE;
+        }
+        if (terms != null && containsTerms(name, lowerCaseName, terms)) {
+            return TERMS_SCORE;
+        }
+        return subsequenceScore(name, lowerCaseName, lowerCaseQuery);
+    }
+
+    /**
+     * Private auxiliary method to check if a name contains every word of a query in any
+     *      order, where the words shorter than three chars start a word of the name.
+     *
+     * @param name  the name
+     * @param lowerCaseName the lower-cased name
+     * @param terms the words of the query
+     * @return  true if the name contains every word of the query
+     */
+    private static boolean containsTerms(String name, String lowerCaseName, String[] terms) {
+        for (String term : terms) {
+            int index = lowerCaseName.indexOf(term);
+            while (term.length() < 3 && index >= 0 && !isWordStart(name, index)) {
+                index = lowerCaseName.indexOf(term, index + 1);
+            }
+            if (index < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Private auxiliary method to score a name containing the chars of a query in the same
+     *      order, by the number of chars starting a word or following the previous one.
+     *
+     * @param name  the name
+     * @param lowerCaseName the lower-cased name
+     * @param lowerCaseQuery    the lower-cased query
+     * @return  the score of the subsequence match, or {@code Integer.MIN_VALUE} if the name
+     *          does not contain the chars of the query in the same order
+     */
+    private static int subsequenceScore(String name, String lowerCaseName,
+                                        String lowerCaseQuery) {
+        int score = 0;
+        int position = 0;
+        int previous = -2;
+        for (int i = 0; i < lowerCaseQuery.length(); i++) {
+            int found = lowerCaseName.indexOf(lowerCaseQuery.charAt(i), position);
+            if (found < 0) {
+                return Integer.MIN_VALUE;
+            }
+            if (isWordStart(name, found)) {
+                score += WORD_START_BONUS;
+            } else if (found == previous + 1) {
+                score += CONSECUTIVE_BONUS;
+            }
+            previous = found;
+            position = found + 1;
+        }
+        return Math.min(score, TERMS_SCORE - 1);
+    }
+
+    // gets the rank of a match, where the shorter names rank first among equal scores
+    private static long rank(int score, int length) {
+        return (long) score << 32 | (Integer.MAX_VALUE - length);
+    }
+
+    // checks if a char of a name starts a word, e.g. after a space or in camel case
+    private static boolean isWordStart(String name, int index) {
+        if (index == 0) {
+            return true;
+        }
+        char previous = name.charAt(index - 1);
+        return !Character.isLetterOrDigit(previous)
+                || Character.isLowerCase(previous) && Character.isUpperCase(name.charAt(index));
+    }
+
+    // lower-cases a text char by char, so every char keeps its offset
+    private static String toLowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // gets the key of the names or words starting with the first one to three chars of a text
+    private static long startKey(char marker, String lowerCaseText) {
+        if (lowerCaseText.length() >= 3) {
+            return startKey(marker, lowerCaseText, 0);
+        }
+        return key(marker, lowerCaseText.charAt(0),
+                lowerCaseText.length() > 1 ? lowerCaseText.charAt(1) : marker);
+    }
+
+    // gets the key of the names or words starting with the three chars at an index of a text
+    private static long startKey(char marker, String lowerCaseText, int index) {
+        return key(lowerCaseText.charAt(index), lowerCaseText.charAt(index + 1),
+                lowerCaseText.charAt(index + 2))
+                | (marker == NAME_START ? NAME_START_TRIGRAM : WORD_START_TRIGRAM);
+    }
+
+    // gets a bit set of the chars of a lower-cased text, with one bit per letter or digit
+    private static long charMask(String lowerCaseText) {
+        long mask = 0;
+        for (int i = 0; i < lowerCaseText.length(); i++) {
+            char character = lowerCaseText.charAt(i);
+            if (character >= 'a' && character <= 'z') {
+                mask |= 1L << (character - 'a');
+            } else if (character >= '0' && character <= '9') {
+                mask |= 1L << (26 + character - '0');
+            } else {
+                mask |= 1L << (36 + character % 28);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Private auxiliary method to get a bit set of the trigrams of a lower-cased text,
+     *      with one bit per trigram hash, so that most names without a trigram of a query
+     *      are skipped without being read.
+     *
+     * @param lowerCaseText the lower-cased text
+     * @return  the bit set of the trigrams, 0 if the text is shorter than three chars
+     */
+    private static long trigramMask(String lowerCaseText) {
+        long mask = 0;
+        for (int i = 0; i + 3 <= lowerCaseText.length(); i++) {
+            long key = key(lowerCaseText.charAt(i), lowerCaseText.charAt(i + 1),
+                    lowerCaseText.charAt(i + 2));
+            mask |= 1L << ((key * 0x9e3779b97f4a7c15L) >>> 58);
+        }
+        return mask;
+    }
+
+    // packs three chars into a key of the index
+    private static long key(char first, char second, char third) {
+        return (long) first << 32 | (long) second << 16 | third;
+    }
+
+    /**
+     * A match of a query, on the name of a group or of a page.
+     *
+     * @param name  the matching name
+     * @param noteGroup the named group or the group of the named page
+     * @param notePage  the named page, null if the name of the group matches
+     * @param score the score of the match, higher is better
+     */
+    public record Match(String name, NoteGroup noteGroup, NotePage notePage, int score) {
+    }
+
+    /**
+     * A name to be indexed with its group and page.
+     *
+     * @param name  the name
+     * @param noteGroup the named group or the group of the named page
+     * @param notePage  the named page, null for the name of a group
+     */
+    private record Entry(String name, NoteGroup noteGroup, NotePage notePage) {
+    }
+
+    /**
+     * The ids of the names containing a key, sorted by the length of the name, then by id.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        // inserts an id at its place, unless it is already there
+        private void add(int id, int[] lengths) {
+            int low = 0;
+            int high = size;
+            if (size > 0 && compare(ids[size - 1], id, lengths) < 0) {
+                low = size; // appending, as while the index is built
+            }
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(ids[middle], id, lengths);
+                if (comparison == 0) {
+                    return;
+                }
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, low, ids, low + 1, size - low);
+            ids[low] = id;
+            size++;
+        }
+
+        private static int compare(int first, int second, int[] lengths) {
+            int comparison = Integer.compare(lengths[first], lengths[second]);
+            return comparison != 0 ? comparison : Integer.compare(first, second);
+        }
+    }
+
+    /**
+     * The postings by key, as an open-addressing hash table without boxing the keys.
+     */
+    private static final class PostingsTable {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Postings[] values = new Postings[INITIAL_CAPACITY];
+        private int size;
+
+        // gets the postings of a key, or null if no name contains it
+        private Postings get(long key) {
+            for (int slot = slot(key, keys.length); values[slot] != null;
+                    slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        // gets the postings of a key, added empty if no name contains it yet
+        private Postings getOrAdd(long key) {
+            int slot = slot(key, keys.length);
+            for (; values[slot] != null; slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                return getOrAdd(key);
+            }
+            keys[slot] = key;
+            size++;
+            return values[slot] = new Postings();
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = slot(oldKeys[i], keys.length);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long key, int capacity) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & (capacity - 1);
+        }
+    }
+
+    /**
+     * The best matches found so far, as a bounded min-heap of ranks and ids.
+     * A match only replaces a lower rank, so the first ids offered win among equal ranks.
+     */
+    private static final class TopMatches {
+        private final long[] ranks;
+        private final int[] ids;
+        private int size;
+
+        private TopMatches(int limit) {
+            ranks = new long[limit];
+            ids = new int[limit];
+        }
+
+        private int capacity() {
+            return ranks.length;
+        }
+
+        private boolean isFull() {
+            return size == ranks.length;
+        }
+
+        private long lowestRank() {
+            return ranks[0];
+        }
+
+        // keeps a match if it ranks higher than the lowest kept one, or if there is room
+        private void offer(long rank, int id) {
+            if (size < ranks.length) {
+                ranks[size] = rank;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (rank > ranks[0]) {
+                ranks[0] = rank;
+                ids[0] = id;
+                siftDown(0);
+            }
+        }
+
+        // gets the ids of the kept matches, from the highest rank, then from the lowest id
+        private int[] sortedIds() {
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -ranks[i])
+                    .thenComparingInt(i -> ids[i]));
+            return Arrays.stream(order).mapToInt(i -> ids[i]).toArray();
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (ranks[parent] <= ranks[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int lowest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (ranks[child] < ranks[lowest]) {
+                        lowest = child;
+                    }
+                }
+                if (lowest == index) {
+                    return;
+                }
+                swap(lowest, index);
+                index = lowest;
+            }
+        }
+
+        private void swap(int first, int second) {
+            long rank = ranks[first];
+            ranks[first] = ranks[second];
+            ranks[second] = rank;
+            int id = ids[first];
+            ids[first] = ids[second];
+            ids[second] = id;
+        }
+    }
+}
@@ -1,11 +1,173 @@
 package notebookapplication.model;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 public class NoteFacade extends ModelObserver {
     private List<NoteGroup> noteGroups;
 
-    NoteFacade() {
+    /**
+     * Constructs an empty NoteFacade, e.g. to be filled by a notebook loaded in the
+     *      background.
+     */
+    public NoteFacade() {
+        noteGroups = new ArrayList<>();
+        support = new PropertyChangeDispatcher(this);  // initialise the observer
         //...
     }
+
+    /**
+     * Adds a note group to the notebook at the specified position.
+     *
+     * @param position  the position of the new NoteGroup
+     * @param noteGroup the NoteGroup to be added
+     * @pre {@code noteGroup != null && position \in {0, ..., noteGroups.size()}}
+     * @throws NullPointerException if {@code noteGroup == null}
+     * @throws IllegalArgumentException if the position is out of bounds
+     */
+    public void addGroup(int position, NoteGroup noteGroup) {
+        if (noteGroup == null) {
+            throw new NullPointerException("NoteGroup to be added cannot be null");
+        }
+        if (position < 0 || position > noteGroups.size()) {
+            throw new IllegalArgumentException("Position is out of bounds");
+        }
+
+        var oldNoteGroups = new ArrayList<>(this.noteGroups);
+        noteGroups.add(position, noteGroup);
+        support.firePropertyChange("newGroup", oldNoteGroups, noteGroups);
+    }
+
+    /**
+     * Replaces the note groups of the notebook in place, e.g. after a merge, so that the
+     *      indexes of the notebook can add the new groups and drop the removed ones.
+     *
+     * @param newGroups the new note groups, in order
+     * @pre {@code newGroups != null}
+     * @throws NullPointerException if {@code newGroups == null}
+     */
+    public void replaceGroups(List<NoteGroup> newGroups) {
+        if (newGroups == null) {
+            throw new NullPointerException("New note groups cannot be null");
+        }
+
+        var oldNoteGroups = new ArrayList<>(this.noteGroups);
+        noteGroups.clear();
+        noteGroups.addAll(newGroups);
+        support.firePropertyChange("changeGroups", oldNoteGroups, noteGroups);
+    }
+
+    /**
+     * Parks every note page of the notebook except the one being edited, moving
+     *      their content off the Java heap, see {@link NotePage#park()}.
+     *
+     * @param activePage    the page being edited, which stays on-heap, can be null
+     */
+    public void parkInactivePages(NotePage activePage) {
+        noteGroups.forEach(noteGroup -> noteGroup.parkPagesExcept(activePage));
+    }
+
+    /**
+     * Gets the memory used by the content of the whole notebook.
+     *
+     * @return  the sum of the storage usages of all the note groups
+     */
+    public StorageUsage storageUsage() {
+        StorageUsage usage = StorageUsage.NONE;
+        for (NoteGroup noteGroup : noteGroups) {
+            usage = usage.plus(noteGroup.storageUsage());
+        }
+        return usage;
+    }
+
+    /**
+     * Gets the estimated memory retained by the whole notebook, see {@link MemoryUsage}.
+     *
+     * @return  the sum of the memory usages of all the note groups, plus the listeners
+     *      of the notebook
+     */
+    public MemoryUsage memoryUsage() {
+        MemoryUsage usage = new MemoryUsage(0, 0, 0, listenerBytes(), 0);
+        for (NoteGroup noteGroup : noteGroups) {
+            usage = usage.plus(noteGroup.memoryUsage());
+        }
+        return usage;
+    }
+
+    /**
+     * Shrinks the content buffers of all the note pages in the notebook to their length,
+     *      see {@link NotePage#trimToSize()}.
+     *
+     * @return  the number of heap bytes freed
+     */
+    public long trimToSize() {
+        long freedBytes = 0;
+        for (NoteGroup noteGroup : noteGroups) {
+            freedBytes += noteGroup.trimToSize();
+        }
+        return freedBytes;
+    }
+
+    /**
+     * Merges an imported notebook into this one in place, instead of replacing it, so only
+     *      the changed groups and pages are touched and fire events.
+     * The pages are matched by name, or else by content. An unchanged page is detected
+     *   without copying it, and a changed page only receives the edits of its changed
+     *   lines. Afterwards this notebook has the same groups, pages and contents as the
+     *   imported one, in the same order.
+     *
+     * @param imported  the imported notebook, which is only read
+     * @return  the report of the changes made
+     * @throws NullPointerException if {@code imported == null}
+     */
+    public MergeReport mergeImport(NoteFacade imported) {
+        if (imported == null) {
+            throw new NullPointerException("Imported notebook cannot be null");
+        }
+        return NotebookMerge.merge(this, null, imported);
+    }
+
+    /**
+     * Merges an imported notebook into this one in place, applying only the changes the
+     *      imported notebook made since a common base revision, see
+     *      {@link #mergeImport(NoteFacade)}.
+     * The local changes are kept, and an imported change to the same lines, or to a page
+     *   deleted or added on the other side, is a conflict and is not applied.
+     *
+     * @param base  the revision both notebooks started from, e.g. the last imported file
+     * @param imported  the imported notebook, which is only read
+     * @return  the report of the changes made and of the conflicts
+     * @throws NullPointerException if {@code base == null || imported == null}
+     */
+    public MergeReport mergeImport(NoteFacade base, NoteFacade imported) {
+        if (base == null || imported == null) {
+            throw new NullPointerException("Base and imported notebooks cannot be null");
+        }
+        return NotebookMerge.merge(this, base, imported);
+    }
+
+    /**
+     * Loads a notebook from note files, where every file is one note group named after
+     *      the file without its extension, see {@link NoteGroup#load(Path)}.
+     *
+     * @param files the note files to be loaded
+     * @return  the loaded notebook
+     * @throws IOException if a file cannot be read
+     * @throws IllegalArgumentException if a file does not follow the page tag pattern,
+     *      with the offset of the first error in the file
+     */
+    public static NoteFacade load(List<Path> files) throws IOException {
+        NoteFacade noteFacade = new NoteFacade();
+        for (Path file : files) {
+            noteFacade.noteGroups.add(NoteGroup.load(file));
+        }
+        return noteFacade;
+    }
+
+    // getter of the noteGroups list, changed through addGroup and replaceGroups once indexed
+    public List<NoteGroup> getNoteGroups() {
+        return noteGroups;
+    }
 }
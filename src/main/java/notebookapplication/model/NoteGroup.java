@@ -1,11 +1,13 @@
 package notebookapplication.model;
 
-import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Represents a group of note pages in the notebook application.
@@ -30,7 +32,7 @@ public class NoteGroup extends ModelObserver {
     NoteGroup(String groupName) {
         this.groupName = groupName;
         notePages = new ArrayList<>();
-        support = new PropertyChangeSupport(this);  // initialise the observer
+        support = new PropertyChangeDispatcher(this);  // initialise the observer
     }
 
     /**
@@ -50,7 +52,7 @@ public class NoteGroup extends ModelObserver {
     NoteGroup(String groupName, final Scanner scanner) {
         this.groupName = groupName;
         notePages = new ArrayList<>();
-        support = new PropertyChangeSupport(this);
+        support = new PropertyChangeDispatcher(this);
 
         if (scanner == null) {
             throw new NullPointerException("Scanner cannot be null");
@@ -60,28 +62,42 @@ public class NoteGroup extends ModelObserver {
             throw new IllegalArgumentException("Empty note should not use this constructor");
         }
 
-        // reads the entire input from the scanner
-        String input = scanner.useDelimiter("\\A").next();
-
-        // match the custom page tags
-        Matcher matcher = Pattern.compile("(?s)\\[page=\"([^\"]*)\"](.*?)\\[/page]")
-                .matcher(input);
-
-        int lastMatchEnd = 0;
-        while (matcher.find()) {
-            // check if no rubbish info between two page tags
-            if (matcher.start() != lastMatchEnd) {
-                throw new IllegalArgumentException("Input does not follow the required pattern");
-            }
+        // reads the entire input from the scanner, and parses its pages in parallel if large
+        notePages.addAll(PageParser.parse(scanner.useDelimiter("\\A").next()));
+    }
 
-            notePages.add(new NotePage(matcher.group(1), matcher.group(2)));
-            lastMatchEnd = matcher.end();
+    /**
+     * Creates a NoteGroup with the note pages parsed from the content of a note file,
+     *      following the custom page tag, see {@link #NoteGroup(String, Scanner)}.
+     * The pages of a large input are parsed in parallel, see {@link PageParser}.
+     *
+     * @param groupName the name of the note group
+     * @param input the content of the note file, blank for a group without pages
+     * @return  the note group
+     * @throws IllegalArgumentException if there is rubbish info that makes not the entire
+     *      input to be matched with the page tag pattern, with the offset of the rubbish
+     */
+    static NoteGroup parse(String groupName, String input) {
+        NoteGroup noteGroup = new NoteGroup(groupName);
+        if (!input.isBlank()) {
+            noteGroup.notePages.addAll(PageParser.parse(input));
         }
+        return noteGroup;
+    }
 
-        // Check if the entire input was matched, i.e. no rubbish info at the start or the end
-        if (lastMatchEnd != input.length()) {
-            throw new IllegalArgumentException("Input does not follow the required pattern");
-        }
+    /**
+     * Loads a NoteGroup from a note file, named after the file without its extension,
+     *      see {@link #parse(String, String)}.
+     *
+     * @param file  the note file to be loaded
+     * @return  the note group
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file does not follow the page tag pattern,
+     *      with the offset of the first error in the file
+     */
+    public static NoteGroup load(Path file) throws IOException {
+        String groupName = file.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        return parse(groupName, Files.readString(file, StandardCharsets.UTF_8));
     }
 
     /**
@@ -96,7 +112,7 @@ public class NoteGroup extends ModelObserver {
             throw new NullPointerException("NotePage to be added cannot be null");
         }
 
-        var oldNotePages = this.notePages;
+        var oldNotePages = new ArrayList<>(this.notePages);
         notePages.add(notePage);
         support.firePropertyChange("newPage", oldNotePages, notePages);
     }
@@ -113,7 +129,7 @@ public class NoteGroup extends ModelObserver {
             throw new IllegalArgumentException("Position is out of bounds");
         }
 
-        var oldNotePages = this.notePages;
+        var oldNotePages = new ArrayList<>(this.notePages);
         notePages.remove(position);
         support.firePropertyChange("deletePage", oldNotePages, notePages);
     }
@@ -132,12 +148,97 @@ public class NoteGroup extends ModelObserver {
             throw new IllegalArgumentException("Position is out of bounds");
         }
 
-        var oldNotePages = this.notePages;
+        var oldNotePages = new ArrayList<>(this.notePages);
         NotePage toBeMoved = notePages.remove(currentPosition); // Get the NotePage to be moved
         notePages.add(newPosition, toBeMoved);
         support.firePropertyChange("changeOrder", oldNotePages, notePages);
     }
 
+    /**
+     * Parks every note page of this group except the one being edited, moving
+     *      their content off the Java heap, see {@link NotePage#park()}.
+     *
+     * @param activePage    the page being edited, which stays on-heap, can be null
+     */
+    public void parkPagesExcept(NotePage activePage) {
+        for (NotePage notePage : notePages) {
+            if (notePage != activePage) {
+                notePage.park();
+            }
+        }
+    }
+
+    /**
+     * Gets the memory used by the content of all the note pages in this group.
+     *
+     * @return  the sum of the storage usages of the pages
+     */
+    public StorageUsage storageUsage() {
+        StorageUsage usage = StorageUsage.NONE;
+        for (NotePage notePage : notePages) {
+            usage = usage.plus(notePage.storageUsage());
+        }
+        return usage;
+    }
+
+    /**
+     * Gets the estimated memory retained by this group, see {@link MemoryUsage}.
+     * Cheap enough to be polled, as the pages keep the count of their custom tags up to
+     *   date by scanning only the lines touched by every edit, see
+     *   {@link NotePage#memoryUsage()}.
+     *
+     * @return  the sum of the memory usages of the pages, plus the group name and the
+     *      listeners of this group
+     */
+    public MemoryUsage memoryUsage() {
+        long nameBytes = groupName == null ? 0 : groupName.length() * 2L;
+        MemoryUsage usage = new MemoryUsage(nameBytes, 0, 0, listenerBytes(), 0);
+        for (NotePage notePage : notePages) {
+            usage = usage.plus(notePage.memoryUsage());
+        }
+        return usage;
+    }
+
+    /**
+     * Shrinks the content buffers of all the note pages in this group to their length,
+     *      see {@link NotePage#trimToSize()}.
+     *
+     * @return  the number of heap bytes freed
+     */
+    public long trimToSize() {
+        long freedBytes = 0;
+        for (NotePage notePage : notePages) {
+            freedBytes += notePage.trimToSize();
+        }
+        return freedBytes;
+    }
+
+    /**
+     * Saves the note pages of this group to a note file, encoded as UTF-8 and following
+     *      the custom page tag read by {@link #NoteGroup(String, Scanner)}.
+     * Parked pages are written from their off-heap content without moving it on-heap.
+     *
+     * @param file  the note file to be written
+     * @param normalizeStyles   true to normalise the style tags of every page before
+     *                          writing it, see {@link NotePage#normalizeStyles()}
+     * @return  the number of UTF-8 bytes saved by the normalisation
+     * @throws IOException if writing the file fails
+     */
+    public long save(Path file, boolean normalizeStyles) throws IOException {
+        long bytesSaved = 0;
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (NotePage notePage : notePages) {
+                if (normalizeStyles) {
+                    bytesSaved += notePage.normalizeStyles();
+                }
+                writer.append(STR."[page=\"\{notePage.getPageName()}\"]")
+                        .append(notePage.getContentView())
+                        .append("[/page]");
+            }
+        }
+        return bytesSaved;
+    }
+
     // getter of the group name
     public String getGroupName() {
         return groupName;
@@ -1,6 +1,16 @@
 package notebookapplication.model;
 
-import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.regex.Pattern;
 
 /**
@@ -9,24 +19,47 @@ import java.util.regex.Pattern;
  *   such as inserting characters or pasting strings into the note page, deleting
  *   one character or strings selected, and also the string replacement.
  * Calls {@code support.firePropertyChange} to notify observers about the changes.
+ * Every content edit is also followed by a {@code "delta"} property change carrying
+ *   a {@link ContentDelta} of the changed range.
  */
 public class NotePage extends ModelObserver {
+    /** The number of characters copied at once by the streaming insertion. */
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
     /** The name of this note page to be shown in the gui. */
     private String pageName;
 
-    /** The text content of the whole note page. */
+    /** The text content of the whole note page, null while the page is parked. */
     private StringBuilder content;
 
+    /** The off-heap copy of the content while the page is parked, null otherwise. */
+    private OffHeapText parkedContent;
+
+    /** The version of this page, incremented by every change of its name or content. */
+    private long version;
+
+    /** The number of chars of the content taken by the custom tags, see {@code memoryUsage}. */
+    private int markupLength;
+
+    /** The version of the page {@code markupLength} was counted at, -1 if never counted. */
+    private long markupVersion = -1;
+
+    /** The hash of the content, see {@code contentHash}. */
+    private int contentHash;
+
+    /** The version of the page {@code contentHash} was computed at, -1 if never computed. */
+    private long contentHashVersion = -1;
+
     /**
      * Constructs a NotePage with the specified name and content.
      *
      * @param pageName  the name of the page
      * @param content   the initial content of the page
      */
-    NotePage(String pageName, String content) {
+    public NotePage(String pageName, String content) {
         this.pageName = pageName;
         this.content = new StringBuilder(content);
-        support = new PropertyChangeSupport(this);  // initialise the observer
+        support = new PropertyChangeDispatcher(this);  // initialise the observer
     }
 
     /**
@@ -41,16 +74,101 @@ public class NotePage extends ModelObserver {
      *      string bounds
      */
     public void insertContent(int caretPosition, String content) {
+        unpark();
         if (caretPosition < 0 || caretPosition > this.content.length()) {
             throw new IllegalArgumentException(
                     STR."Caret position \{caretPosition} is out of bounds");
         }
 
-        String oldContent = getContent();
+        String oldContent = contentFor("insert");
         this.content.insert(caretPosition, content);
 
         // notify the observer with Property Name "insert"
-        support.firePropertyChange("insert", oldContent, getContent());
+        support.firePropertyChange("insert", oldContent, contentFor("insert"));
+        fireDelta(new ContentDelta(caretPosition, "", content.length()));
+    }
+
+    /**
+     * Inserts the content read from a Reader at the specified caret position.
+     * Handles the case of pasting a huge clipboard or file, where the pasted content
+     *   is copied chunk by chunk into the page without being materialised as one String.
+     * Instead of the {@code "insert"} property change with the whole old and new content,
+     *   only one {@code "delta"} property change is fired when the insertion is done.
+     *
+     * @param caretPosition the position where user chose to insert the content
+     * @param reader    the reader providing the content to be inserted
+     * @param progress  the callback receiving the number of characters inserted after
+     *                  every chunk, which can return false to cancel the insertion
+     * @return  the number of characters inserted
+     * @pre {@code caretPosition \in {0, ..., content.length()}} && {@code reader != null}
+     *      && {@code progress != null}
+     * @throws NullPointerException if {@code reader == null || progress == null}
+     * @throws IllegalArgumentException if caretPosition is not inside the {@code content}
+     *      string bounds
+     * @throws IOException if reading fails, in which case the content is not modified
+     * @throws CancellationException if {@code progress} cancels the insertion,
+     *      in which case the content is not modified
+     */
+    public long insertContent(int caretPosition, Reader reader, StreamProgress progress)
+            throws IOException {
+        if (reader == null || progress == null) {
+            throw new NullPointerException("Reader and progress cannot be null");
+        }
+        unpark();
+        if (caretPosition < 0 || caretPosition > this.content.length()) {
+            throw new IllegalArgumentException(
+                    STR."Caret position \{caretPosition} is out of bounds");
+        }
+
+        // move the text after the caret out of the way, so every chunk is appended
+        String tail = content.substring(caretPosition);
+        content.setLength(caretPosition);
+
+        char[] buffer = new char[STREAM_CHUNK_SIZE];
+        long inserted = 0;
+        boolean done = false;
+        try {
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                content.append(buffer, 0, read);
+                inserted += read;
+                if (!progress.onProgress(inserted)) {
+                    throw new CancellationException("Insertion is cancelled");
+                }
+            }
+            done = true;
+        } finally {
+            if (!done) {
+                content.setLength(caretPosition); // roll back the chunks inserted
+            }
+            content.append(tail);
+        }
+
+        if (inserted > 0) {
+            fireDelta(new ContentDelta(caretPosition, "", (int) inserted));
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the content read from a byte channel at the specified caret position.
+     * The bytes are decoded with the given charset while they are streamed,
+     *   see {@link #insertContent(int, Reader, StreamProgress)}.
+     *
+     * @param caretPosition the position where user chose to insert the content
+     * @param channel   the channel providing the encoded content to be inserted
+     * @param charset   the charset of the content
+     * @param progress  the callback receiving the number of characters inserted
+     * @return  the number of characters inserted
+     * @throws NullPointerException if any of {@code channel}, {@code charset} and
+     *      {@code progress} is null
+     * @throws IOException if reading or decoding fails
+     */
+    public long insertContent(int caretPosition,
+                              ReadableByteChannel channel,
+                              Charset charset,
+                              StreamProgress progress) throws IOException {
+        return insertContent(caretPosition, Channels.newReader(channel, charset), progress);
     }
 
     /**
@@ -65,6 +183,7 @@ public class NotePage extends ModelObserver {
      * @throws IllegalArgumentException if precondition is violated
      */
     public void deleteContent(int startPosition, int endPosition) {
+        unpark();
         if (startPosition < 0
                 || startPosition >= endPosition
                 || endPosition > this.content.length()) {
@@ -72,11 +191,13 @@ public class NotePage extends ModelObserver {
                     "Position indexes for deletion is out of bounds");
         }
 
-        String oldContent = getContent();
+        String oldContent = contentFor("delete");
+        String removedText = this.content.substring(startPosition, endPosition);
         this.content.delete(startPosition, endPosition);
 
         // notify the observer with Property Name "delete"
-        support.firePropertyChange("delete", oldContent, this.content.toString());
+        support.firePropertyChange("delete", oldContent, contentFor("delete"));
+        fireDelta(new ContentDelta(startPosition, removedText, 0));
     }
 
     /**
@@ -92,6 +213,7 @@ public class NotePage extends ModelObserver {
      * @throws IllegalArgumentException if precondition is violated
      */
     public void replaceContent(int startPosition, int endPosition, String newContent) {
+        unpark();
         if (startPosition < 0
                 || startPosition >= endPosition
                 || endPosition > this.content.length()) {
@@ -99,9 +221,77 @@ public class NotePage extends ModelObserver {
                     "Position indexes for deletion is out of bounds");
         }
 
-        String oldContent = getContent();
+        String oldContent = contentFor("replace");
+        String removedText = content.substring(startPosition, endPosition);
         content.replace(startPosition, endPosition, newContent);
-        support.firePropertyChange("replace", oldContent, getContent());
+        support.firePropertyChange("replace", oldContent, contentFor("replace"));
+        fireDelta(new ContentDelta(startPosition, removedText, newContent.length()));
+    }
+
+    /**
+     * Applies a batch of non-overlapping edits to the content in one pass.
+     * Handles the case of scripts, macros or multi-cursor editing that perform
+     *   many edits on the same page at once.
+     * All positions of the edits refer to the content before the batch is applied,
+     *   the offsets are rebased internally while the new content is built.
+     * Insertions at the same position are applied in the order of {@code edits}, before
+     *   a replacement or deletion starting at that position.
+     *
+     * @param edits the list of edits to be applied
+     * @pre {@code edits != null} && every edit ends inside the {@code content} bounds
+     *      && no two edits overlap
+     * @throws NullPointerException if {@code edits == null}
+     * @throws IllegalArgumentException if any edit is out of bounds or two edits overlap
+     * @post every edit is applied and the observer is notified once
+     */
+    public void applyEdits(List<TextEdit> edits) {
+        if (edits == null) {
+            throw new NullPointerException("Edits to be applied cannot be null");
+        }
+        if (edits.isEmpty()) {
+            return;
+        }
+        unpark();
+
+        // stable sort, so insertions at the same position keep their order, and they come
+        // before a non-empty edit starting there whatever the order of the input
+        List<TextEdit> sorted = new ArrayList<>(edits);
+        sorted.sort(Comparator.comparingInt(TextEdit::startPosition)
+                .thenComparing(edit -> edit.endPosition() > edit.startPosition()));
+
+        int newLength = content.length();
+        int lastEnd = 0;
+        for (TextEdit edit : sorted) {
+            if (edit.startPosition() < lastEnd) {
+                throw new IllegalArgumentException(
+                        STR."Edit at \{edit.startPosition()} overlaps the previous edit");
+            }
+            if (edit.endPosition() > content.length()) {
+                throw new IllegalArgumentException(
+                        STR."Edit end \{edit.endPosition()} is out of bounds");
+            }
+            newLength += edit.lengthDelta();
+            lastEnd = edit.endPosition();
+        }
+
+        StringBuilder result = new StringBuilder(newLength);
+        int copied = 0;
+        for (TextEdit edit : sorted) {
+            result.append(content, copied, edit.startPosition()).append(edit.newContent());
+            copied = edit.endPosition();
+        }
+        result.append(content, copied, content.length());
+
+        int changedStart = sorted.getFirst().startPosition();
+        ContentDelta delta = new ContentDelta(changedStart,
+                content.substring(changedStart, lastEnd),
+                lastEnd - changedStart + result.length() - content.length());
+        String oldContent = contentFor("edits");
+        content = result;
+
+        // notify the observer with Property Name "edits"
+        support.firePropertyChange("edits", oldContent, contentFor("edits"));
+        fireDelta(delta);
     }
 
     /**
@@ -118,19 +308,110 @@ public class NotePage extends ModelObserver {
      *      while the other lines are not modified
      */
     public void insertSymbol(int lineNum, Symbols symbolEnum) {
-        String oldContent = getContent();
-        String[] lines = content.toString().split("\n");
-
-        if (lineNum < 0 || lineNum >= lines.length) {
+        unpark();
+        int lineStart;
+        try {
+            lineStart = lineStarts(lineNum, lineNum)[0];
+        } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException(
                     STR."Line number \{lineNum} is out of bounds");
         }
 
-        lines[lineNum] = STR."\{symbolEnum.symbol}  \{lines[lineNum]}";
-        content = new StringBuilder(String.join("\n", lines));
+        String oldContent = contentFor("symbol");
+        content.insert(lineStart, symbolEnum.prefix());
 
         // notify the observer with Property Name "symbol"
-        support.firePropertyChange("symbol", oldContent, getContent());
+        support.firePropertyChange("symbol", oldContent, contentFor("symbol"));
+        fireDelta(new ContentDelta(lineStart, "", symbolEnum.prefix().length()));
+    }
+
+    /**
+     * Toggles a symbol in front of every line inside a range of lines.
+     * Handles the case where user selects several lines and presses the button of
+     *   bullet points or checkboxes, etc.
+     * If every line in the range already starts with the prefix of {@code symbolEnum},
+     *   the prefixes are removed. Otherwise, lines starting with the prefix of another
+     *   symbol get it swapped for {@code symbolEnum}, and the other lines get it inserted.
+     * The whole range is rewritten in a single pass and the observer is notified once.
+     *
+     * @param startLine the first line of the range
+     * @param endLine   the last line of the range, inclusive
+     * @param symbolEnum    the enum containing the symbol to be toggled
+     * @pre {@code 0 <= startLine <= endLine < lineCount}
+     * @throws IllegalArgumentException if the precondition is violated
+     * @post every line in the range either starts with {@code symbolEnum.prefix()},
+     *      or has no symbol prefix when they all had it before,
+     *      while the other lines are not modified
+     */
+    public void toggleSymbols(int startLine, int endLine, Symbols symbolEnum) {
+        unpark();
+        int[] lineStarts = lineStarts(startLine, endLine);
+
+        // toggling removes the symbol only when every line in the range already has it
+        boolean allPresent = true;
+        for (int lineStart : lineStarts) {
+            if (Symbols.prefixAt(content, lineStart) != symbolEnum) {
+                allPresent = false;
+                break;
+            }
+        }
+
+        String prefix = allPresent ? "" : symbolEnum.prefix();
+        StringBuilder result = new StringBuilder(
+                content.length() + lineStarts.length * prefix.length());
+        int copied = 0;
+        for (int lineStart : lineStarts) {
+            result.append(content, copied, lineStart).append(prefix);
+
+            // skip the symbol already present, so that it is either removed or swapped
+            Symbols present = Symbols.prefixAt(content, lineStart);
+            copied = present == null ? lineStart : lineStart + present.prefix().length();
+        }
+        result.append(content, copied, content.length());
+
+        ContentDelta delta = new ContentDelta(lineStarts[0],
+                content.substring(lineStarts[0], copied),
+                copied - lineStarts[0] + result.length() - content.length());
+        String oldContent = contentFor("symbol");
+        content = result;
+
+        // notify the observer with Property Name "symbol"
+        support.firePropertyChange("symbol", oldContent, contentFor("symbol"));
+        fireDelta(delta);
+    }
+
+    /**
+     * Private auxiliary method to help {@code toggleSymbols} function to find the
+     *      start positions of the lines in a range with one scan of the content.
+     *
+     * @param startLine the first line of the range
+     * @param endLine   the last line of the range, inclusive
+     * @return  the start positions of the lines from {@code startLine} to {@code endLine}
+     * @throws IllegalArgumentException if the range is out of bounds of the lines
+     */
+    private int[] lineStarts(int startLine, int endLine) {
+        if (startLine < 0 || startLine > endLine) {
+            throw new IllegalArgumentException(
+                    STR."Line range \{startLine} to \{endLine} is out of bounds");
+        }
+
+        int[] lineStarts = new int[endLine - startLine + 1];
+        int line = 0;
+        int position = 0;
+        while (line <= endLine) {
+            if (line >= startLine) {
+                lineStarts[line - startLine] = position;
+            }
+
+            int lineEnd = content.indexOf("\n", position);
+            if (lineEnd < 0 && line < endLine) {
+                throw new IllegalArgumentException(
+                        STR."Line range \{startLine} to \{endLine} is out of bounds");
+            }
+            position = lineEnd + 1;
+            line++;
+        }
+        return lineStarts;
     }
 
     /**
@@ -164,6 +445,7 @@ public class NotePage extends ModelObserver {
     public void formatting(int startPosition,
                            int endPosition,
                            StringSupplier stringSupplier) {
+        unpark();
         if (startPosition < 0
                 || startPosition >= endPosition
                 || endPosition > this.content.length()) {
@@ -177,11 +459,107 @@ public class NotePage extends ModelObserver {
             throw new IllegalArgumentException("Unsupported formatting String");
         }
 
-        String oldContent = getContent();
+        String oldContent = contentFor("format");
+        String removedText = content.substring(startPosition, endPosition);
         content.replace(startPosition, endPosition, formattedString);
 
         // notify the observer with Property Name "format"
-        support.firePropertyChange("format", oldContent, getContent());
+        support.firePropertyChange("format", oldContent, contentFor("format"));
+        fireDelta(new ContentDelta(startPosition, removedText, formattedString.length()));
+    }
+
+    /**
+     * Surrounds a range of the content with the custom style tag of a style, in place.
+     * Unlike {@code formatting}, neither the content nor the selected text is copied and
+     *   no styled string has to be validated: only the two tags are inserted, the closing
+     *   tag first, so the observer is notified with two insertion deltas.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * NotePage notePage = new NotePage("pageName", "Some default content");
+     * notePage.applyStyle(5, 12, Style.BOLD);
+     * System.out.println(notePage.getContent());
+     * // should prints "Some [style="-fx-font-weight: bold;"]default[/style] content"
+     * }</pre>
+     *
+     * @param startPosition the start position of the content to be styled
+     * @param endPosition   the end position of the content to be styled
+     * @param style the style to be applied, see {@link Style}
+     * @pre {@code startPosition, endPosition \in {0, ..., this.content.length()}} &&
+     *      {@code startPosition < endPosition} && {@code style != null}
+     * @throws NullPointerException if {@code style == null}
+     * @throws IllegalArgumentException if the positions are out of bounds
+     * @post the selected content is surrounded with the custom style tag,
+     *      but the content itself is not modified
+     */
+    public void applyStyle(int startPosition, int endPosition, Style style) {
+        if (style == null) {
+            throw new NullPointerException("Style to be applied cannot be null");
+        }
+        unpark();
+        if (startPosition < 0
+                || startPosition >= endPosition
+                || endPosition > this.content.length()) {
+            throw new IllegalArgumentException(
+                    "Position indexes for formatting are out of bounds");
+        }
+
+        String oldContent = contentFor("format");
+        content.insert(endPosition, Style.CLOSING_TAG);
+        fireDelta(new ContentDelta(endPosition, "", Style.CLOSING_TAG.length()));
+        content.insert(startPosition, style.openingTag());
+        fireDelta(new ContentDelta(startPosition, "", style.openingTag().length()));
+
+        // notify the observer with Property Name "format"
+        support.firePropertyChange("format", oldContent, contentFor("format"));
+    }
+
+    /**
+     * Normalises the style tags of the content, so that formatting the same text
+     *      repeatedly does not keep nesting new tags around it.
+     * The redundant and overridden declarations, the empty tags and the tags nested
+     *   without any other content are removed or merged, while every char keeps the
+     *   same style, see {@link StyleNormalizer}. The content is left unchanged if its
+     *   style tags are not balanced.
+     * A parked page without any style tag is not moved back on-heap.
+     *
+     * @return  the number of UTF-8 bytes saved, 0 if nothing could be normalised
+     * @post if the content changes, the observer is notified with Property Name "format"
+     */
+    public long normalizeStyles() {
+        if (indexOf("[style=\"", 0) < 0) {
+            return 0;
+        }
+        unpark();
+
+        String oldContent = getContent();
+        String newContent = StyleNormalizer.normalize(content);
+        if (newContent.equals(oldContent)) {
+            return 0;
+        }
+
+        // only the range between the common prefix and suffix has changed
+        int start = 0;
+        int maxLength = Math.min(oldContent.length(), newContent.length());
+        while (start < maxLength && oldContent.charAt(start) == newContent.charAt(start)) {
+            start++;
+        }
+        int oldEnd = oldContent.length();
+        int newEnd = newContent.length();
+        while (oldEnd > start && newEnd > start
+                && oldContent.charAt(oldEnd - 1) == newContent.charAt(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        String removedText = oldContent.substring(start, oldEnd);
+        String insertedText = newContent.substring(start, newEnd);
+        content.replace(start, oldEnd, insertedText);
+
+        // notify the observer with Property Name "format"
+        support.firePropertyChange("format", oldContent, newContent);
+        fireDelta(new ContentDelta(start, removedText, insertedText.length()));
+        return removedText.getBytes(StandardCharsets.UTF_8).length
+                - insertedText.getBytes(StandardCharsets.UTF_8).length;
     }
 
     /**
@@ -203,14 +581,247 @@ public class NotePage extends ModelObserver {
         return pattern.matcher(formattedString).matches();
     }
 
+    /**
+     * Private auxiliary method to get a copy of the content for the observers of
+     *      a property, so that no copy is made for the properties nobody listens to.
+     *
+     * @param propertyName  the name of the property to be fired
+     * @return  the content, or null if the property has no listener
+     */
+    private String contentFor(String propertyName) {
+        return support.hasListeners(propertyName) ? getContent() : null;
+    }
+
+    /**
+     * Private auxiliary method to notify the observer with Property Name "delta"
+     *      about the range changed by the last content edit.
+     * Every content edit ends with this method, so it also increments the version.
+     *
+     * @param delta the changed range of the content
+     */
+    private void fireDelta(ContentDelta delta) {
+        version++;
+        if (markupVersion == version - 1) {
+            updateMarkup(delta);
+        }
+        support.firePropertyChange("delta", null, delta);
+    }
+
+    /**
+     * Private auxiliary method to update the number of chars taken by the custom tags
+     *      after an edit, counting the tags of the touched lines only, as a tag never
+     *      spans two lines, see {@link Markup#tagLengthAt}.
+     *
+     * @param delta the changed range of the content
+     */
+    private void updateMarkup(ContentDelta delta) {
+        CharSequence view = getContentView();
+        ContentDelta.TouchedLines lines = delta.touchedLines(view);
+        String oldLines = view.subSequence(lines.startPosition(), delta.startPosition())
+                + delta.removedText()
+                + view.subSequence(delta.newEndPosition(), lines.newEndPosition());
+        markupLength += Markup.tagsLength(view, lines.startPosition(), lines.newEndPosition())
+                - Markup.tagsLength(oldLines, 0, oldLines.length());
+        markupVersion = version;
+    }
+
+    /**
+     * Moves the content of this page off the Java heap, encoded as UTF-8.
+     * Used for the pages that are not being edited, to halve the memory of mostly
+     *   ASCII notes and to relieve the garbage collector. The content can still be read
+     *   and searched in place, and is moved back on-heap by the next edit.
+     *
+     * @post {@code isParked()}
+     */
+    public void park() {
+        if (parkedContent == null) {
+            parkedContent = new OffHeapText(content);
+            content = null;
+        }
+    }
+
+    /**
+     * Private auxiliary method to move the content back on-heap before an edit.
+     *
+     * @post {@code !isParked()}
+     */
+    private void unpark() {
+        if (parkedContent != null) {
+            content = parkedContent.view().toStringBuilder();
+            parkedContent = null; // the off-heap memory is freed by the garbage collector
+        }
+    }
+
+    // checks if the content of this page is currently stored off-heap
+    public boolean isParked() {
+        return parkedContent != null;
+    }
+
+    /**
+     * Gets the memory used by the content of this page.
+     * The heap bytes of an on-heap page are estimated from the capacity of the
+     *   content buffer as UTF-16, while a parked page only uses the heap for its
+     *   char-offset index.
+     *
+     * @return  the heap and off-heap bytes used by the content
+     */
+    public StorageUsage storageUsage() {
+        if (parkedContent != null) {
+            return new StorageUsage(parkedContent.indexBytes(), parkedContent.offHeapBytes());
+        }
+        return new StorageUsage(content.capacity() * 2L, 0);
+    }
+
+    /**
+     * Gets the estimated memory retained by this page, see {@link MemoryUsage}.
+     * The content buffer of an on-heap page is counted as UTF-16, split into the chars
+     *   used and the unused capacity, while a parked page only uses the heap for its
+     *   char-offset index. The custom tags are counted once, then only the lines touched
+     *   by every edit are counted again, so polling the usage while the page is edited
+     *   does not scan its whole content.
+     *
+     * @return  the memory used by the name, the content and the listeners of this page
+     */
+    public MemoryUsage memoryUsage() {
+        if (markupVersion != version) {
+            markupLength = countMarkup();
+            markupVersion = version;
+        }
+
+        long nameBytes = pageName == null ? 0 : pageName.length() * 2L;
+        if (parkedContent != null) {
+            // the custom tags are ASCII, so they take one byte each as UTF-8
+            return new MemoryUsage(nameBytes + parkedContent.indexBytes(), 0, markupLength,
+                    listenerBytes(), parkedContent.offHeapBytes());
+        }
+        return new MemoryUsage(nameBytes + content.length() * 2L,
+                (content.capacity() - content.length()) * 2L, markupLength * 2L,
+                listenerBytes(), 0);
+    }
+
+    /**
+     * Private auxiliary method to count the chars of the content taken by the custom tags,
+     *      reading a parked content in place.
+     *
+     * @return  the total length of the custom tags in the content
+     */
+    private int countMarkup() {
+        CharSequence view = getContentView();
+        int length = 0;
+        int position = indexOf("[", 0);
+        while (position >= 0) {
+            int tagLength = Markup.tagLengthAt(view, position);
+            length += tagLength;
+            position = indexOf("[", position + Math.max(tagLength, 1));
+        }
+        return length;
+    }
+
+    /**
+     * Gets the hash of the content, computed like {@link String#hashCode()} but without
+     *      copying the content, and only once per version of the page.
+     * Used to match the pages with the same content, e.g. by {@link NoteFacade#mergeImport}.
+     *
+     * @return  the hash of the content
+     */
+    public int contentHash() {
+        if (contentHashVersion != version) {
+            CharSequence view = getContentView();
+            int hash = 0;
+            for (int i = 0; i < view.length(); i++) {
+                hash = 31 * hash + view.charAt(i);
+            }
+            contentHash = hash;
+            contentHashVersion = version;
+        }
+        return contentHash;
+    }
+
+    /**
+     * Checks if this page has the same content as another page, without copying them.
+     *
+     * @param other the page to be compared with
+     * @return  true if both contents have the same chars, false otherwise
+     */
+    public boolean hasSameContent(NotePage other) {
+        return getContentLength() == other.getContentLength()
+                && contentHash() == other.contentHash()
+                && CharSequence.compare(getContentView(), other.getContentView()) == 0;
+    }
+
+    /**
+     * Shrinks the content buffer to the length of the content, e.g. after a large deletion
+     *      or once the page is not being edited anymore.
+     * The content is unchanged, so the observers are not notified. A parked page has no
+     *   unused capacity.
+     *
+     * @return  the number of heap bytes freed
+     * @post {@code memoryUsage().slackBytes() == 0}
+     */
+    public long trimToSize() {
+        if (parkedContent != null || content.capacity() == content.length()) {
+            return 0;
+        }
+        long freedBytes = (content.capacity() - content.length()) * 2L;
+        content.trimToSize();
+        return freedBytes;
+    }
+
+    /**
+     * Finds the first occurrence of a string inside the content.
+     * The content of a parked page is searched in place without moving it on-heap.
+     *
+     * @param string    the string to be found
+     * @param fromIndex the position to start the search from
+     * @return  the position of the first occurrence at or after {@code fromIndex},
+     *      or -1 if there is no such occurrence
+     */
+    public int indexOf(String string, int fromIndex) {
+        if (parkedContent != null) {
+            return parkedContent.view().indexOf(string, fromIndex);
+        }
+        return content.indexOf(string, fromIndex);
+    }
+
     // getter for string content of this.content
     public String getContent() {
+        if (parkedContent != null) {
+            return parkedContent.view().toString();
+        }
         return this.content.toString();
     }
 
+    /**
+     * Gets a read-only view of the content without copying it.
+     * The view should only be used until the next edit of this page,
+     *   e.g. by observers reading the range of a {@link ContentDelta}.
+     * Every call returns a new view, so the views of a parked page can be read by
+     *   different threads at once.
+     *
+     * @return  the read-only view of the content
+     */
+    public CharSequence getContentView() {
+        if (parkedContent != null) {
+            return parkedContent.view();
+        }
+        return CharBuffer.wrap(content);
+    }
+
+    // getter for the length of the content, without copying it
+    public int getContentLength() {
+        return parkedContent != null ? parkedContent.length() : content.length();
+    }
+
     // setter for this.content
     public void setContent(String content) {
+        parkedContent = null;
         this.content = new StringBuilder(content);
+        version++;
+    }
+
+    // getter for the version of this page, e.g. to tell if a copy of it is outdated
+    public long getVersion() {
+        return version;
     }
 
     // getter for the page name
@@ -229,5 +840,9 @@ public class NotePage extends ModelObserver {
         support.firePropertyChange("pageName", this.pageName, pageName);
 
         this.pageName = pageName;
+        version++;
+        if (markupVersion == version - 1) {
+            markupVersion = version; // the content is unchanged
+        }
     }
 }
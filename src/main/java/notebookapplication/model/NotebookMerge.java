@@ -0,0 +1,377 @@
+package notebookapplication.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Package-private class that merges an imported notebook into the local one in place,
+ *   used by {@link NoteFacade#mergeImport(NoteFacade, NoteFacade)}.
+ * The groups are matched by name, and the pages by name within their group, or else by
+ *   content, so a renamed page is only renamed. An unchanged page is detected by its
+ *   cached content hash without copying it, and a changed page only receives the edits
+ *   of the changed lines, see {@link LineDiff}. So re-importing a slightly changed
+ *   notebook only fires the events of the pages that actually changed.
+ * Without a base revision, the local notebook ends up equal to the imported one. With a
+ *   base revision, only the changes of the imported notebook since the base are applied,
+ *   and a change to the lines or pages also changed locally is a conflict, kept local.
+ */
+final class NotebookMerge {
+    /** The common base revision, null for a two-way merge. */
+    private final NoteFacade base;
+
+    private int pagesAdded;
+    private int pagesDeleted;
+    private int pagesRenamed;
+    private int pagesChanged;
+    private int conflicts;
+
+    /**
+     * Private constructor, a merge is run by {@code merge}.
+     *
+     * @param base  the common base revision, null for a two-way merge
+     */
+    private NotebookMerge(NoteFacade base) {
+        this.base = base;
+    }
+
+    /**
+     * Merges an imported notebook into the local one.
+     *
+     * @param local the notebook to be updated in place
+     * @param base  the revision both notebooks started from, null for a two-way merge
+     * @param imported  the imported notebook, which is only read
+     * @return  the report of the changes made
+     */
+    static MergeReport merge(NoteFacade local, NoteFacade base, NoteFacade imported) {
+        NotebookMerge merge = new NotebookMerge(base);
+        merge.mergeGroups(local, imported.getNoteGroups());
+        return new MergeReport(merge.pagesAdded, merge.pagesDeleted, merge.pagesRenamed,
+                merge.pagesChanged, merge.conflicts);
+    }
+
+    /**
+     * Private auxiliary method to merge the groups matched by name, and to add or remove
+     *      the groups that are not matched.
+     *
+     * @param local the local notebook, whose groups are updated in place
+     * @param importedGroups    the groups of the imported notebook
+     */
+    private void mergeGroups(NoteFacade local, List<NoteGroup> importedGroups) {
+        List<NoteGroup> localGroups = local.getNoteGroups();
+        Map<String, ArrayDeque<NoteGroup>> importedByName =
+                byKey(importedGroups, NoteGroup::getGroupName);
+        Map<NoteGroup, NoteGroup> matches = new IdentityHashMap<>();
+        List<NoteGroup> keptGroups = new ArrayList<>();
+        for (NoteGroup localGroup : localGroups) {
+            NoteGroup importedGroup = poll(importedByName, localGroup.getGroupName());
+            NoteGroup baseGroup = baseGroup(localGroup.getGroupName());
+            if (importedGroup == null && base == null) {
+                pagesDeleted += localGroup.getNotePages().size();
+                continue; // the whole group is removed below
+            }
+            mergePages(localGroup, baseGroup, importedGroup);
+            if (importedGroup != null) {
+                matches.put(importedGroup, localGroup);
+            }
+            // a group deleted by the import is kept if it still has local changes
+            if (importedGroup != null || (base != null
+                    && (baseGroup == null || !localGroup.getNotePages().isEmpty()))) {
+                keptGroups.add(localGroup);
+            }
+        }
+
+        for (NoteGroup importedGroup : importedGroups) {
+            if (!matches.containsKey(importedGroup)) {
+                NoteGroup baseGroup = baseGroup(importedGroup.getGroupName());
+                NoteGroup localGroup = new NoteGroup(importedGroup.getGroupName());
+                mergePages(localGroup, baseGroup, importedGroup);
+                matches.put(importedGroup, localGroup);
+                // a group deleted locally is only added back with changed pages
+                if (baseGroup == null || !localGroup.getNotePages().isEmpty()) {
+                    keptGroups.add(localGroup);
+                }
+            }
+        }
+
+        if (base == null) {
+            keptGroups = importedGroups.stream().map(matches::get).toList();
+        }
+        if (!keptGroups.equals(localGroups)) {
+            local.replaceGroups(new ArrayList<>(keptGroups));
+        }
+    }
+
+    /**
+     * Private auxiliary method to merge the pages of a group, matched by name or else by
+     *      content, and to add or delete the pages that are not matched.
+     *
+     * @param localGroup    the local group, updated in place
+     * @param baseGroup the group in the base revision, null if none
+     * @param importedGroup the imported group, null if the import has no such group
+     */
+    private void mergePages(NoteGroup localGroup, NoteGroup baseGroup, NoteGroup importedGroup) {
+        List<NotePage> importedPages =
+                importedGroup == null ? List.of() : importedGroup.getNotePages();
+        Map<String, ArrayDeque<NotePage>> importedByName =
+                byKey(importedPages, NotePage::getPageName);
+        Map<String, NotePage> baseByName = new HashMap<>();
+        if (baseGroup != null) {
+            baseGroup.getNotePages()
+                    .forEach(notePage -> baseByName.putIfAbsent(notePage.getPageName(), notePage));
+        }
+
+        Map<NotePage, NotePage> matches = new IdentityHashMap<>();
+        List<NotePage> unmatchedLocal = new ArrayList<>();
+        Set<NotePage> renamedLocal = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (NotePage localPage : localGroup.getNotePages()) {
+            NotePage importedPage = poll(importedByName, localPage.getPageName());
+            if (importedPage != null) {
+                matches.put(importedPage, localPage);
+                mergeContent(localPage, baseByName.get(localPage.getPageName()), importedPage);
+            } else {
+                unmatchedLocal.add(localPage);
+            }
+        }
+
+        Map<Integer, ArrayDeque<NotePage>> unmatchedByHash =
+                byKey(unmatchedLocal, NotePage::contentHash);
+        for (NotePage importedPage : importedPages) {
+            if (matches.containsKey(importedPage)) {
+                continue;
+            }
+            NotePage localPage = pollRenamed(unmatchedByHash, baseByName, importedPage);
+            if (localPage != null) {
+                matches.put(importedPage, localPage);
+                renamedLocal.add(localPage);
+                // the local name wins if only the local page was renamed
+                if (base == null || !baseByName.containsKey(importedPage.getPageName())) {
+                    localPage.setPageName(importedPage.getPageName());
+                    pagesRenamed++;
+                }
+                continue;
+            }
+
+            NotePage basePage = base == null ? null : baseByName.get(importedPage.getPageName());
+            if (basePage != null) {
+                // deleted locally, a conflict if it was changed by the import
+                if (!basePage.hasSameContent(importedPage)) {
+                    conflicts++;
+                }
+                continue;
+            }
+            NotePage newPage = new NotePage(importedPage.getPageName(), importedPage.getContent());
+            localGroup.addPage(newPage);
+            matches.put(importedPage, newPage);
+            pagesAdded++;
+        }
+
+        for (NotePage localPage : unmatchedLocal) {
+            if (renamedLocal.contains(localPage)) {
+                continue;
+            }
+            NotePage basePage = base == null ? null : baseByName.get(localPage.getPageName());
+            if (base != null && basePage == null) {
+                continue; // added locally
+            }
+            if (basePage != null && !basePage.hasSameContent(localPage)) {
+                conflicts++; // deleted by the import, but changed locally
+                continue;
+            }
+            localGroup.deletePage(positionOf(localGroup.getNotePages(), localPage, 0));
+            pagesDeleted++;
+        }
+
+        if (base == null) {
+            List<NotePage> localPages = localGroup.getNotePages();
+            for (int i = 0; i < importedPages.size(); i++) {
+                NotePage expected = matches.get(importedPages.get(i));
+                if (localPages.get(i) != expected) {
+                    localGroup.changePagesOrder(positionOf(localPages, expected, i + 1), i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to merge the content of two matched pages.
+     *
+     * @param localPage the local page, edited in place
+     * @param basePage  the page in the base revision, null if none
+     * @param importedPage  the imported page
+     */
+    private void mergeContent(NotePage localPage, NotePage basePage, NotePage importedPage) {
+        if (localPage.hasSameContent(importedPage)) {
+            return;
+        }
+        if (base != null) {
+            if (basePage == null) {
+                conflicts++; // added on both sides with different contents
+                return;
+            }
+            if (basePage.hasSameContent(importedPage)) {
+                return; // only changed locally
+            }
+            if (!basePage.hasSameContent(localPage)) {
+                mergeThreeWay(localPage, basePage, importedPage);
+                return;
+            }
+        }
+
+        LineDiff.Lines localLines = new LineDiff.Lines(localPage.getContentView());
+        LineDiff.Lines importedLines = new LineDiff.Lines(importedPage.getContentView());
+        localPage.applyEdits(LineDiff.edits(localLines, importedLines,
+                LineDiff.diff(localLines, importedLines)));
+        pagesChanged++;
+    }
+
+    /**
+     * Private auxiliary method to apply the changed lines of the imported page since the
+     *      base revision to the local page, except those overlapping the local changes.
+     *
+     * @param localPage the local page, edited in place
+     * @param basePage  the page in the base revision
+     * @param importedPage  the imported page
+     */
+    private void mergeThreeWay(NotePage localPage, NotePage basePage, NotePage importedPage) {
+        LineDiff.Lines baseLines = new LineDiff.Lines(basePage.getContentView());
+        LineDiff.Lines localLines = new LineDiff.Lines(localPage.getContentView());
+        LineDiff.Lines importedLines = new LineDiff.Lines(importedPage.getContentView());
+        List<LineDiff.Hunk> localHunks = LineDiff.diff(baseLines, localLines);
+
+        List<TextEdit> edits = new ArrayList<>();
+        int next = 0;
+        int lineDelta = 0;
+        for (LineDiff.Hunk hunk : LineDiff.diff(baseLines, importedLines)) {
+            while (next < localHunks.size() && localHunks.get(next).oldEnd() <= hunk.oldStart()
+                    && !overlaps(localHunks.get(next), hunk)) {
+                lineDelta += localHunks.get(next).lineDelta();
+                next++;
+            }
+
+            boolean conflict = false;
+            boolean applied = false;
+            for (int i = next; i < localHunks.size() && overlaps(localHunks.get(i), hunk); i++) {
+                if (sameChange(localHunks.get(i), localLines, hunk, importedLines)) {
+                    applied = true;
+                } else {
+                    conflict = true;
+                }
+            }
+            if (conflict) {
+                conflicts++;
+            } else if (!applied) {
+                edits.add(new TextEdit(localLines.start(hunk.oldStart() + lineDelta),
+                        localLines.start(hunk.oldEnd() + lineDelta),
+                        importedLines.text(hunk.newStart(), hunk.newEnd())));
+            }
+        }
+
+        if (!edits.isEmpty()) {
+            localPage.applyEdits(edits);
+            pagesChanged++;
+        }
+    }
+
+    /**
+     * Private auxiliary method to check if two changes of the same base lines overlap,
+     *      where an insertion touching the other change also overlaps it.
+     *
+     * @param first the first change
+     * @param second    the second change
+     * @return  true if the changes cannot both be applied, false otherwise
+     */
+    private static boolean overlaps(LineDiff.Hunk first, LineDiff.Hunk second) {
+        int start = Math.max(first.oldStart(), second.oldStart());
+        int end = Math.min(first.oldEnd(), second.oldEnd());
+        return start < end || (start == end && (first.oldStart() == first.oldEnd()
+                || second.oldStart() == second.oldEnd()));
+    }
+
+    // checks if two changes replace the same base lines with the same lines
+    private static boolean sameChange(LineDiff.Hunk first, LineDiff.Lines firstLines,
+                                      LineDiff.Hunk second, LineDiff.Lines secondLines) {
+        if (first.oldStart() != second.oldStart() || first.oldEnd() != second.oldEnd()
+                || first.newEnd() - first.newStart() != second.newEnd() - second.newStart()) {
+            return false;
+        }
+        for (int i = 0; i < first.newEnd() - first.newStart(); i++) {
+            if (!firstLines.lineEquals(first.newStart() + i, secondLines, second.newStart() + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // gets the first group of the base revision with the given name, null if none
+    private NoteGroup baseGroup(String groupName) {
+        if (base == null) {
+            return null;
+        }
+        for (NoteGroup noteGroup : base.getNoteGroups()) {
+            if (Objects.equals(noteGroup.getGroupName(), groupName)) {
+                return noteGroup;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Private auxiliary method to find the unmatched local page an imported page was
+     *      renamed from or to, i.e. with the same content. With a base revision, only one
+     *      of both names can be in the base, otherwise the pages are not a renamed page.
+     *
+     * @param byHash    the unmatched local pages by content hash, the page found is removed
+     * @param baseByName    the pages of the base group by name
+     * @param importedPage  the imported page not matched by name
+     * @return  the local page matching the imported page, null if none
+     */
+    private NotePage pollRenamed(Map<Integer, ArrayDeque<NotePage>> byHash,
+                                 Map<String, NotePage> baseByName, NotePage importedPage) {
+        ArrayDeque<NotePage> candidates = byHash.get(importedPage.contentHash());
+        if (candidates != null) {
+            boolean importedInBase = baseByName.containsKey(importedPage.getPageName());
+            for (NotePage candidate : candidates) {
+                if ((base == null
+                        || baseByName.containsKey(candidate.getPageName()) != importedInBase)
+                        && candidate.hasSameContent(importedPage)) {
+                    candidates.remove(candidate);
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    // gets the position of a page compared by identity, searching from a position
+    private static int positionOf(List<NotePage> notePages, NotePage notePage, int from) {
+        for (int i = from; i < notePages.size(); i++) {
+            if (notePages.get(i) == notePage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // groups items by key, keeping the order of the items with the same key
+    private static <K, T> Map<K, ArrayDeque<T>> byKey(List<T> items, Function<T, K> key) {
+        Map<K, ArrayDeque<T>> map = new HashMap<>();
+        for (T item : items) {
+            map.computeIfAbsent(key.apply(item), k -> new ArrayDeque<>()).add(item);
+        }
+        return map;
+    }
+
+    // gets and removes the first item with the given name, null if none
+    private static <T> T poll(Map<String, ArrayDeque<T>> byKey, String name) {
+        ArrayDeque<T> items = byKey.get(name);
+        return items == null ? null : items.poll();
+    }
+}
@@ -0,0 +1,378 @@
+package notebookapplication.model;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * Package-private read-only text stored off the Java heap in a {@link MemorySegment},
+ *   encoded as UTF-8, used by {@link NotePage} to keep the content of the pages
+ *   that are not being edited.
+ * Lone surrogates are encoded as three bytes like any other BMP character,
+ *   so every char of the original text is kept exactly.
+ * A char-offset index records the byte offset of every {@code INDEX_STRIDE}-th char,
+ *   so a char is found without decoding the text from the start.
+ * The segment is allocated in an automatic arena, so its memory is freed by the garbage
+ *   collector once the text and all its views are unreachable, e.g. after the page is
+ *   unparked, deleted or dropped.
+ * The cursor making sequential reads cheap is not thread-safe, so every reader should
+ *   take its own {@link #view()}, which shares the segment but has its own cursor.
+ */
+final class OffHeapText implements CharSequence {
+    /** The number of chars between two entries of the char-offset index. */
+    private static final int INDEX_STRIDE = 1024;
+
+    /** The number of bytes copied at once between the heap and the segment. */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    /** The UTF-8 bytes of the text. */
+    private final MemorySegment segment;
+
+    /** The number of chars of the text. */
+    private final int length;
+
+    /** The number of bytes of the encoded text. */
+    private final long byteLength;
+
+    /**
+     * The char position of every index entry, which is {@code k * INDEX_STRIDE},
+     *   or one more if that char is the second half of a surrogate pair.
+     */
+    private final int[] indexChars;
+
+    /** The byte offset of every index entry. */
+    private final long[] indexBytes;
+
+    /** The char position of the last char read, to make sequential reads cheap. */
+    private int cursorChar;
+
+    /** The byte offset of the last char read. */
+    private long cursorByte;
+
+    /**
+     * Constructs an OffHeapText by encoding the given text into a new segment.
+     *
+     * @param text  the text to be stored off-heap
+     */
+    OffHeapText(CharSequence text) {
+        length = text.length();
+        indexChars = new int[length / INDEX_STRIDE + 1];
+        indexBytes = new long[indexChars.length];
+
+        long encodedLength = 0;
+        for (int i = 0; i < length; i++) {
+            char character = text.charAt(i);
+            if (isPair(text, i)) {
+                encodedLength += 4;
+                i++;
+            } else {
+                encodedLength += character < 0x80 ? 1 : character < 0x800 ? 2 : 3;
+            }
+        }
+        byteLength = encodedLength;
+
+        segment = Arena.ofAuto().allocate(Math.max(1, byteLength));
+
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int filled = 0;
+        long written = 0;
+        int nextIndex = 0;
+        for (int i = 0; i < length; i++) {
+            if (filled > CHUNK_SIZE - 4) {
+                MemorySegment.copy(chunk, 0, segment, ValueLayout.JAVA_BYTE, written, filled);
+                written += filled;
+                filled = 0;
+            }
+            if (i >= nextIndex * INDEX_STRIDE) {
+                indexChars[nextIndex] = i;
+                indexBytes[nextIndex] = written + filled;
+                nextIndex++;
+            }
+
+            int encoded = encode(text, i, chunk, filled);
+            if (encoded - filled == 4) {
+                i++; // the second half of the surrogate pair is encoded as well
+            }
+            filled = encoded;
+        }
+        MemorySegment.copy(chunk, 0, segment, ValueLayout.JAVA_BYTE, written, filled);
+
+        // entries not recorded, beyond the end or skipped by a last pair, point to the end
+        for (; nextIndex < indexChars.length; nextIndex++) {
+            indexChars[nextIndex] = length;
+            indexBytes[nextIndex] = byteLength;
+        }
+    }
+
+    /**
+     * Private constructor of a view sharing the segment and the index of another text,
+     *      with its own cursor at the start of the text.
+     *
+     * @param text  the text to be viewed
+     */
+    private OffHeapText(OffHeapText text) {
+        segment = text.segment;
+        length = text.length;
+        byteLength = text.byteLength;
+        indexChars = text.indexChars;
+        indexBytes = text.indexBytes;
+    }
+
+    /**
+     * Creates a view of this text with its own cursor, to be read by a single thread.
+     *
+     * @return  the new view, sharing the off-heap memory of this text
+     */
+    OffHeapText view() {
+        return new OffHeapText(this);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(STR."Index \{index} is out of bounds");
+        }
+        seek(index);
+
+        int lead = segment.get(ValueLayout.JAVA_BYTE, cursorByte) & 0xFF;
+        if (lead < 0x80) {
+            return (char) lead;
+        } else if (lead < 0xE0) {
+            return (char) ((lead & 0x1F) << 6 | continuation(cursorByte + 1));
+        } else if (lead < 0xF0) {
+            return (char) ((lead & 0x0F) << 12 | continuation(cursorByte + 1) << 6
+                    | continuation(cursorByte + 2));
+        }
+
+        int codePoint = (lead & 0x07) << 18 | continuation(cursorByte + 1) << 12
+                | continuation(cursorByte + 2) << 6 | continuation(cursorByte + 3);
+        return index == cursorChar
+                ? Character.highSurrogate(codePoint) : Character.lowSurrogate(codePoint);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException(
+                    STR."Range \{start} to \{end} is out of bounds");
+        }
+        return decode(start, end).toString();
+    }
+
+    @Override
+    public String toString() {
+        return decode(0, length).toString();
+    }
+
+    /**
+     * Decodes the whole text into a new StringBuilder, used to move it back on-heap.
+     *
+     * @return  the StringBuilder containing the text
+     */
+    StringBuilder toStringBuilder() {
+        return decode(0, length);
+    }
+
+    /**
+     * Finds the first occurrence of a string inside the text, without decoding it.
+     * The string is encoded the same way as the text, and its bytes are searched
+     *   directly in the segment.
+     *
+     * @param string    the string to be found
+     * @param fromIndex the char position to start the search from
+     * @return  the char position of the first occurrence at or after {@code fromIndex},
+     *      or -1 if there is no such occurrence
+     */
+    int indexOf(String string, int fromIndex) {
+        fromIndex = Math.max(0, fromIndex);
+        if (string.isEmpty()) {
+            return Math.min(fromIndex, length);
+        }
+        if (fromIndex >= length) {
+            return -1;
+        }
+
+        byte[] needle = new byte[string.length() * 3];
+        int needleLength = 0;
+        for (int i = 0; i < string.length(); i++) {
+            int encoded = encode(string, i, needle, needleLength);
+            if (encoded - needleLength == 4) {
+                i++;
+            }
+            needleLength = encoded;
+        }
+        needle = Arrays.copyOf(needle, needleLength);
+
+        seek(fromIndex);
+        int charPosition = cursorChar;
+        long bytePosition = cursorByte;
+        long lastStart = byteLength - needle.length;
+        while (bytePosition <= lastStart) {
+            int lead = segment.get(ValueLayout.JAVA_BYTE, bytePosition) & 0xFF;
+            if (charPosition >= fromIndex && matches(bytePosition, needle)) {
+                return charPosition;
+            }
+            charPosition += lead >= 0xF0 ? 2 : 1;
+            bytePosition += lead < 0x80 ? 1 : lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : 4;
+        }
+        return -1;
+    }
+
+    // getter for the number of bytes used off-heap
+    long offHeapBytes() {
+        return segment.byteSize();
+    }
+
+    // getter for the number of bytes used on-heap by the char-offset index
+    long indexBytes() {
+        return (long) indexChars.length * Integer.BYTES + (long) indexBytes.length * Long.BYTES;
+    }
+
+    /**
+     * Private auxiliary method to move the cursor to the sequence containing a char,
+     *      starting from the cursor itself if it is in the same block of the index.
+     *
+     * @param index the char position to be found
+     */
+    private void seek(int index) {
+        int block = index / INDEX_STRIDE;
+        if (indexChars[block] > index) {
+            block--; // the entry of the block was moved after a surrogate pair
+        }
+        if (cursorChar > index || cursorChar < indexChars[block]) {
+            cursorChar = indexChars[block];
+            cursorByte = indexBytes[block];
+        }
+
+        while (true) {
+            int lead = segment.get(ValueLayout.JAVA_BYTE, cursorByte) & 0xFF;
+            int chars = lead >= 0xF0 ? 2 : 1;
+            if (index < cursorChar + chars) {
+                return;
+            }
+            cursorChar += chars;
+            cursorByte += lead < 0x80 ? 1 : lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : 4;
+        }
+    }
+
+    /**
+     * Private auxiliary method to decode a range of chars into a StringBuilder,
+     *      copying the bytes chunk by chunk out of the segment.
+     *
+     * @param start the start position of the range
+     * @param end   the end position of the range
+     * @return  the StringBuilder containing the decoded range
+     */
+    private StringBuilder decode(int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        if (start == end) {
+            return builder;
+        }
+
+        seek(start);
+        long position = cursorByte;
+        boolean skipHighSurrogate = start != cursorChar;
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int chunkLength = 0;
+        int offset = 0;
+        while (builder.length() < end - start) {
+            if (offset + 4 > chunkLength) {
+                // keep an incomplete sequence at the end of the chunk for the next one
+                position += offset;
+                chunkLength = (int) Math.min(CHUNK_SIZE, byteLength - position);
+                MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position,
+                        chunk, 0, chunkLength);
+                offset = 0;
+            }
+
+            int lead = chunk[offset] & 0xFF;
+            if (lead < 0x80) {
+                builder.append((char) lead);
+                offset++;
+            } else if (lead < 0xE0) {
+                builder.append((char) ((lead & 0x1F) << 6 | chunk[offset + 1] & 0x3F));
+                offset += 2;
+            } else if (lead < 0xF0) {
+                builder.append((char) ((lead & 0x0F) << 12 | (chunk[offset + 1] & 0x3F) << 6
+                        | chunk[offset + 2] & 0x3F));
+                offset += 3;
+            } else {
+                int codePoint = (lead & 0x07) << 18 | (chunk[offset + 1] & 0x3F) << 12
+                        | (chunk[offset + 2] & 0x3F) << 6 | chunk[offset + 3] & 0x3F;
+                if (!skipHighSurrogate) {
+                    builder.append(Character.highSurrogate(codePoint));
+                }
+                if (builder.length() < end - start) {
+                    builder.append(Character.lowSurrogate(codePoint));
+                }
+                offset += 4;
+            }
+            skipHighSurrogate = false;
+        }
+        return builder;
+    }
+
+    /**
+     * Private auxiliary method to check if the segment contains the given bytes.
+     *
+     * @param position  the byte offset where the bytes are expected to start
+     * @param bytes the bytes to be found
+     * @return  true if the bytes are found at {@code position}, false otherwise
+     */
+    private boolean matches(long position, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, position + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // reads the payload bits of a continuation byte
+    private int continuation(long position) {
+        return segment.get(ValueLayout.JAVA_BYTE, position) & 0x3F;
+    }
+
+    /**
+     * Private auxiliary method to encode the char at a position of the text,
+     *      together with the next char if they form a surrogate pair.
+     *
+     * @param text  the text to be encoded
+     * @param i the position of the char to be encoded
+     * @param bytes the array receiving the encoded bytes
+     * @param offset    the position of the array where the bytes are written
+     * @return  the position of the array after the written bytes
+     */
+    private static int encode(CharSequence text, int i, byte[] bytes, int offset) {
+        char character = text.charAt(i);
+        if (isPair(text, i)) {
+            int codePoint = Character.toCodePoint(character, text.charAt(i + 1));
+            bytes[offset++] = (byte) (0xF0 | codePoint >> 18);
+            bytes[offset++] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+            bytes[offset++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+            bytes[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (character < 0x80) {
+            bytes[offset++] = (byte) character;
+        } else if (character < 0x800) {
+            bytes[offset++] = (byte) (0xC0 | character >> 6);
+            bytes[offset++] = (byte) (0x80 | (character & 0x3F));
+        } else {
+            bytes[offset++] = (byte) (0xE0 | character >> 12);
+            bytes[offset++] = (byte) (0x80 | (character >> 6 & 0x3F));
+            bytes[offset++] = (byte) (0x80 | (character & 0x3F));
+        }
+        return offset;
+    }
+
+    // checks if the chars at i and i + 1 form a surrogate pair
+    private static boolean isPair(CharSequence text, int i) {
+        return Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(i + 1));
+    }
+}
@@ -0,0 +1,27 @@
+package notebookapplication.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A batch of operations on one replicated document, sent by one replica.
+ * Besides the operations, it carries the version vector of the sender, i.e. the highest
+ *   counter it has seen from every replica, which tells the receivers when a tombstone
+ *   has been seen everywhere and can be collected.
+ *
+ * @param docId the id of the replicated document the operations belong to
+ * @param replica   the id of the replica that sent the batch
+ * @param ops   the operations, in the order the sender applied them
+ * @param seen  the version vector of the sender
+ * @param <T>   the type of the elements of the document
+ */
+public record OpBatch<T>(String docId, int replica, List<ListOp<T>> ops,
+                         Map<Integer, Long> seen) {
+    /**
+     * Constructs an OpBatch, copying the operations and the version vector.
+     */
+    public OpBatch {
+        ops = List.copyOf(ops);
+        seen = Map.copyOf(seen);
+    }
+}
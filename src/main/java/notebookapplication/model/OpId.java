@@ -0,0 +1,18 @@
+package notebookapplication.model;
+
+/**
+ * Represents the unique id of an operation on a {@link ReplicatedList}, made of the
+ *   Lamport clock of the replica that created it and the id of that replica.
+ * Ids are totally ordered, first by counter and then by replica, which is what
+ *   makes the concurrent operations of different replicas merge deterministically.
+ *
+ * @param counter   the Lamport clock value of the operation
+ * @param replica   the id of the replica that created the operation
+ */
+public record OpId(long counter, int replica) implements Comparable<OpId> {
+    @Override
+    public int compareTo(OpId other) {
+        int byCounter = Long.compare(counter, other.counter);
+        return byCounter != 0 ? byCounter : Integer.compare(replica, other.replica);
+    }
+}
@@ -0,0 +1,187 @@
+package notebookapplication.model;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Package-private utility class that parses the note pages of a note group from its
+ *   input, following the custom page tag {@code [page="page name"]content[/page]}, used by
+ *   {@link NoteGroup}.
+ * A page starts right where the previous one ended, its name is followed by {@code "]},
+ *   and its content ends at the first {@code [/page]}. Anything else, e.g. rubbish between
+ *   two pages, is an error reported with its offset.
+ * A large input is cut into chunks right after a {@code [/page]}, and the chunks are
+ *   parsed in parallel with fork/join. As such a cut is only a guess, e.g. a page name may
+ *   contain {@code [/page]}, the chunks are joined in order, and a chunk that does not
+ *   start where the previous one ended is parsed again from there. So the pages, their
+ *   order and the offset of the first error are the same as parsing the input in one pass.
+ */
+final class PageParser {
+    private static final String OPENING_TAG = "[page=\"";
+    private static final String CLOSING_TAG = "[/page]";
+
+    /** The minimal length of a chunk parsed in parallel. */
+    private static final int MIN_CHUNK_LENGTH = 1 << 16;
+
+    /** The number of chunks per thread of the pool, so busy threads can be helped. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private PageParser() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Parses the note pages of an input, in parallel if it is large.
+     *
+     * @param input the input following the custom page tag, possibly empty
+     * @return  the note pages, in the order of the input
+     * @throws IllegalArgumentException if the input does not follow the page tag pattern,
+     *      with the offset of the first char that does not
+     */
+    static List<NotePage> parse(String input) {
+        int chunkCount = Math.min(input.length() / MIN_CHUNK_LENGTH,
+                ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        if (chunkCount < 2) {
+            return parseRange(input, 0, input.length()).pagesOrThrow();
+        }
+
+        int[] starts = chunkStarts(input, chunkCount);
+        Chunk[] chunks = new Chunk[starts.length - 1];
+        ForkJoinPool.commonPool().invoke(new ParseTask(input, starts, chunks, 0, chunks.length));
+
+        List<NotePage> notePages = new ArrayList<>();
+        int position = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            Chunk chunk = position == starts[i]
+                    ? chunks[i] : parseRange(input, position, starts[i + 1]);
+            notePages.addAll(chunk.pagesOrThrow());
+            position = chunk.end();
+        }
+        return notePages;
+    }
+
+    /**
+     * Private auxiliary method to guess where the chunks start, i.e. right after the first
+     *      {@code [/page]} following an even cut of the input.
+     *
+     * @param input the input
+     * @param chunkCount    the number of even cuts
+     * @return  the increasing starts of the chunks, followed by the length of the input
+     */
+    private static int[] chunkStarts(String input, int chunkCount) {
+        int[] starts = new int[chunkCount + 1];
+        int count = 1;
+        for (int i = 1; i < chunkCount; i++) {
+            int cut = Math.max((int) ((long) input.length() * i / chunkCount),
+                    starts[count - 1] + 1);
+            int closingTag = input.indexOf(CLOSING_TAG, cut);
+            if (closingTag < 0 || closingTag + CLOSING_TAG.length() >= input.length()) {
+                break;
+            }
+            starts[count++] = closingTag + CLOSING_TAG.length();
+        }
+        starts[count++] = input.length();
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Private auxiliary method to parse the pages starting in a range of the input, in
+     *      one pass. The last page may end after the range.
+     *
+     * @param input the input
+     * @param from  the start of the first page
+     * @param bound the offset before which the pages start
+     * @return  the pages, the end of the last page, and the offset of the error if any
+     */
+    private static Chunk parseRange(String input, int from, int bound) {
+        List<NotePage> notePages = new ArrayList<>();
+        int position = from;
+        while (position < bound) {
+            if (!input.startsWith(OPENING_TAG, position)) {
+                return new Chunk(notePages, position, position);
+            }
+            // the name misses its "] at the end of the input, or where its " is not followed
+            int nameEnd = input.indexOf('"', position + OPENING_TAG.length());
+            if (nameEnd < 0) {
+                return new Chunk(notePages, position, input.length());
+            }
+            if (!input.startsWith("]", nameEnd + 1)) {
+                return new Chunk(notePages, position, nameEnd + 1);
+            }
+            int closingTag = input.indexOf(CLOSING_TAG, nameEnd + 2);
+            if (closingTag < 0) {
+                return new Chunk(notePages, position, input.length()); // unclosed page
+            }
+
+            notePages.add(new NotePage(input.substring(position + OPENING_TAG.length(), nameEnd),
+                    input.substring(nameEnd + 2, closingTag)));
+            position = closingTag + CLOSING_TAG.length();
+        }
+        return new Chunk(notePages, position, -1);
+    }
+
+    /**
+     * The result of parsing a range of the input.
+     *
+     * @param notePages the pages parsed before the error if any
+     * @param end   the end of the last page, i.e. the start of the page with the error
+     * @param errorOffset   the offset of the error, -1 if none
+     */
+    private record Chunk(List<NotePage> notePages, int end, int errorOffset) {
+        // gets the pages, unless the range has an error
+        private List<NotePage> pagesOrThrow() {
+            if (errorOffset >= 0) {
+                throw new IllegalArgumentException(
+                        STR."Input does not follow the required pattern at offset \{errorOffset}");
+            }
+            return notePages;
+        }
+    }
+
+    /**
+     * The fork/join task parsing a range of chunks, split in halves down to single chunks.
+     */
+    private static final class ParseTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // the task is never serialized, it only runs in the pool
+        private final transient String input;
+        private final transient int[] starts;
+        private final transient Chunk[] chunks;
+        private final transient int first;
+        private final transient int end;
+
+        /**
+         * Constructs a ParseTask.
+         *
+         * @param input the input
+         * @param starts    the starts of the chunks, followed by the length of the input
+         * @param chunks    the results of the chunks, filled by the task
+         * @param first the index of the first chunk to be parsed
+         * @param end   the index after the last chunk to be parsed
+         */
+        private ParseTask(String input, int[] starts, Chunk[] chunks, int first, int end) {
+            this.input = input;
+            this.starts = starts;
+            this.chunks = chunks;
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - first == 1) {
+                chunks[first] = parseRange(input, starts[first], starts[first + 1]);
+                return;
+            }
+            int middle = (first + end) >>> 1;
+            invokeAll(new ParseTask(input, starts, chunks, first, middle),
+                    new ParseTask(input, starts, chunks, middle, end));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the one-line plain-text previews of note pages, e.g. for the rows of a page list.
+ * A preview is the beginning of the visible text of a page, without the custom tags and
+ *   the {@link Symbols} prefixes, where every run of whitespace is a single space.
+ * Computing a preview only reads the beginning of the content in place, and a preview
+ *   stays cached until an edit touches the part of the content it was read from, as told
+ *   by the {@code "delta"} property changes of the page. A page changed without a delta,
+ *   e.g. by {@link NotePage#setContent(String)}, is detected by its version.
+ * At most {@code maxEntries} previews are kept, the least recently used being evicted.
+ */
+public class PreviewCache implements PropertyChangeListener {
+    /** The number of chars after a position read to recognise a tag or a symbol prefix. */
+    private static final int LOOKAHEAD = Math.max(Symbols.CHECK_BOX.prefix().length(),
+            "[/style]".length());
+
+    /** The maximal number of visible chars of a preview. */
+    private final int previewLength;
+
+    /** The maximal number of previews kept. */
+    private final int maxEntries;
+
+    /** The cached previews in access order, the least recently used first. */
+    private final LinkedHashMap<NotePage, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    /**
+     * Constructs an empty PreviewCache.
+     *
+     * @param previewLength the maximal number of visible chars of a preview
+     * @param maxEntries    the maximal number of previews kept
+     * @pre {@code previewLength > 0} && {@code maxEntries > 0}
+     * @throws IllegalArgumentException if {@code previewLength <= 0 || maxEntries <= 0}
+     */
+    public PreviewCache(int previewLength, int maxEntries) {
+        if (previewLength <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Preview length and entries must be positive");
+        }
+        this.previewLength = previewLength;
+        this.maxEntries = maxEntries;
+        // NotePage does not override equals, so the pages are compared by identity
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the preview of a page, from the cache if it is still valid.
+     *
+     * @param notePage  the page to be previewed
+     * @return  at most {@code previewLength} visible chars from the start of the page
+     * @throws NullPointerException if {@code notePage == null}
+     */
+    public String preview(NotePage notePage) {
+        Entry entry = entries.get(notePage);
+        if (entry != null && entry.version == notePage.getVersion()) {
+            hits++;
+            return entry.preview;
+        }
+
+        misses++;
+        if (entry == null) {
+            notePage.addWeakPropertyChangeListener("delta", this);
+        }
+        StringBuilder preview = new StringBuilder(previewLength);
+        int rawEnd = readPreview(notePage.getContentView(), preview);
+        entries.put(notePage, new Entry(preview.toString(), rawEnd, notePage.getVersion()));
+        evictEldest();
+        return preview.toString();
+    }
+
+    /**
+     * Removes the preview of a page, e.g. when the page is deleted.
+     *
+     * @param notePage  the page whose preview is removed
+     */
+    public void remove(NotePage notePage) {
+        if (entries.remove(notePage) != null) {
+            notePage.removePropertyChangeListener("delta", this);
+        }
+    }
+
+    /**
+     * Removes every preview.
+     */
+    public void clear() {
+        entries.keySet().forEach(notePage ->
+                notePage.removePropertyChangeListener("delta", this));
+        entries.clear();
+    }
+
+    /**
+     * Invalidates the preview of a page if an edit touches the part of the content it was
+     *      read from, otherwise keeps it valid for the new version of the page.
+     *
+     * @param evt   the property change event fired by a cached page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!"delta".equals(evt.getPropertyName())
+                || !(evt.getSource() instanceof NotePage notePage)
+                || !(evt.getNewValue() instanceof ContentDelta delta)) {
+            return;
+        }
+        Entry entry = entries.get(notePage);
+        if (entry == null || entry.version != notePage.getVersion() - 1) {
+            return; // already outdated, recomputed by the next preview
+        }
+
+        if (delta.startPosition() <= entry.rawEnd) {
+            entry.version = -1;
+            invalidations++;
+        } else {
+            entry.version = notePage.getVersion();
+        }
+    }
+
+    /**
+     * Private auxiliary method to read the preview from the beginning of the content.
+     *
+     * @param content   the content of the page
+     * @param preview   the builder receiving the visible chars
+     * @return  the position after the last char of the content the preview depends on
+     */
+    private int readPreview(CharSequence content, StringBuilder preview) {
+        int position = 0;
+        int readEnd = 0;
+        boolean pendingSpace = false;
+        while (position < content.length() && preview.length() < previewLength) {
+            readEnd = Math.max(readEnd, position + LOOKAHEAD);
+            int prefixLength = Markup.openingPrefixLengthAt(content, position);
+            if (prefixLength > 0) {
+                // whether the opening tag is valid depends on the chars up to its quote
+                int quote = position + prefixLength;
+                while (quote < content.length() && content.charAt(quote) != '"') {
+                    quote++;
+                }
+                readEnd = Math.max(readEnd, quote + 2);
+            }
+
+            int skipped = Markup.tagLengthAt(content, position);
+            if (skipped == 0) {
+                Symbols symbolEnum = Symbols.prefixAt(content, position);
+                skipped = symbolEnum == null ? 0 : symbolEnum.prefix().length();
+            }
+            if (skipped > 0) {
+                position += skipped;
+                continue;
+            }
+
+            char character = content.charAt(position++);
+            if (Character.isWhitespace(character)) {
+                pendingSpace = !preview.isEmpty();
+            } else {
+                if (pendingSpace && preview.length() < previewLength - 1) {
+                    preview.append(' ');
+                } else if (pendingSpace) {
+                    break;
+                }
+                pendingSpace = false;
+                preview.append(character);
+            }
+        }
+        return Math.max(readEnd, position);
+    }
+
+    /**
+     * Private auxiliary method to evict the least recently used previews above the
+     *      maximal number of entries, and to stop listening to their pages.
+     */
+    private void evictEldest() {
+        Iterator<Map.Entry<NotePage, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            NotePage notePage = iterator.next().getKey();
+            iterator.remove();
+            notePage.removePropertyChangeListener("delta", this);
+            evictions++;
+        }
+    }
+
+    // getter for the number of previews served from the cache
+    public long getHits() {
+        return hits;
+    }
+
+    // getter for the number of previews computed
+    public long getMisses() {
+        return misses;
+    }
+
+    // getter for the number of previews invalidated by an edit
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    // getter for the number of previews evicted
+    public long getEvictions() {
+        return evictions;
+    }
+
+    // getter for the ratio of the previews served from the cache, 0 before any preview
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    // getter for the number of previews kept
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A cached preview.
+     */
+    private static final class Entry {
+        private final String preview;
+
+        /** The position after the last char of the content the preview depends on. */
+        private final int rawEnd;
+
+        /** The version of the page the preview is valid for, -1 once invalidated. */
+        private long version;
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param preview   the preview
+         * @param rawEnd    the position after the last char the preview depends on
+         * @param version   the version of the page
+         */
+        private Entry(String preview, int rawEnd, long version) {
+            this.preview = preview;
+            this.rawEnd = rawEnd;
+            this.version = version;
+        }
+    }
+}
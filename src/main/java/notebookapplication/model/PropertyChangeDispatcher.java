@@ -0,0 +1,295 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dispatches the property changes of a model object to its listeners, used by
+ *   {@link ModelObserver} instead of {@link java.beans.PropertyChangeSupport}.
+ * The listeners are indexed by property name, so firing a property only calls the
+ *   listeners of that property and the listeners of all properties. Every index is a
+ *   copy-on-write array, so firing takes no lock, and nothing is allocated when
+ *   a property has no listener.
+ * Listeners can be held weakly, e.g. by editor views that implement the listener
+ *   themselves: such a listener is removed automatically once it has been garbage
+ *   collected, so a closed view neither leaks nor keeps receiving events.
+ * Like {@code PropertyChangeSupport}, no event is fired if the old and new values are
+ *   equal and non-null, and the listeners of all properties are called first.
+ */
+public final class PropertyChangeDispatcher {
+    private static final Registration[] NO_REGISTRATIONS = {};
+
+    /** The estimated bytes of a registration and its slot in an index. */
+    private static final long REGISTRATION_BYTES = 28;
+
+    /** The estimated bytes of the weak reference of a weak registration. */
+    private static final long WEAK_REFERENCE_BYTES = 48;
+
+    /** The estimated bytes of the header of an index array. */
+    private static final long ARRAY_HEADER_BYTES = 16;
+
+    /** The estimated bytes of the entry of a property in the index by property name. */
+    private static final long MAP_ENTRY_BYTES = 36;
+
+    /** The source of the fired events. */
+    private final Object source;
+
+    /** The listeners of all properties. */
+    private volatile Registration[] allListeners = NO_REGISTRATIONS;
+
+    /** The listeners of single properties by property name, replaced on every change. */
+    private volatile Map<String, Registration[]> namedListeners = Map.of();
+
+    /** The queue receiving the weak references cleared by the garbage collector. */
+    private final ReferenceQueue<PropertyChangeListener> clearedListeners =
+            new ReferenceQueue<>();
+
+    /**
+     * Constructs a PropertyChangeDispatcher without listeners.
+     *
+     * @param source    the model object firing the events
+     * @throws NullPointerException if {@code source == null}
+     */
+    public PropertyChangeDispatcher(Object source) {
+        if (source == null) {
+            throw new NullPointerException("Source of the events cannot be null");
+        }
+        this.source = source;
+    }
+
+    /**
+     * Adds a listener held strongly.
+     *
+     * @param propertyName  the name of the property listened to, null for all properties
+     * @param listener  the listener to be added, ignored if null
+     */
+    public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
+        if (listener != null) {
+            add(propertyName, new Registration(listener, null));
+        }
+    }
+
+    /**
+     * Adds a listener held weakly, which is removed once it has been garbage collected.
+     * The caller must keep a strong reference to the listener for as long as it should
+     *   receive events, so a lambda only referenced here stops listening at any time.
+     *
+     * @param propertyName  the name of the property listened to, null for all properties
+     * @param listener  the listener to be added, ignored if null
+     */
+    public void addWeakPropertyChangeListener(String propertyName,
+                                              PropertyChangeListener listener) {
+        if (listener != null) {
+            addWeakReference(propertyName, listener);
+        }
+    }
+
+    /**
+     * Adds a listener held weakly, and gets the reference holding it, so that the tests
+     *      can clear and enqueue it as the garbage collector would.
+     *
+     * @param propertyName  the name of the property listened to, null for all properties
+     * @param listener  the listener to be added
+     * @return  the weak reference registered with the queue of the cleared references
+     */
+    Reference<PropertyChangeListener> addWeakReference(String propertyName,
+                                                       PropertyChangeListener listener) {
+        Reference<PropertyChangeListener> reference =
+                new WeakReference<>(listener, clearedListeners);
+        add(propertyName, new Registration(null, reference));
+        return reference;
+    }
+
+    /**
+     * Removes the first registration of a listener, held strongly or weakly.
+     *
+     * @param propertyName  the name of the property it listens to, null for all properties
+     * @param listener  the listener to be removed
+     */
+    public synchronized void removePropertyChangeListener(String propertyName,
+                                                          PropertyChangeListener listener) {
+        Registration[] registrations = registrationsOf(propertyName);
+        for (int i = 0; i < registrations.length; i++) {
+            if (registrations[i].listener() == listener) {
+                Registration[] updated = new Registration[registrations.length - 1];
+                System.arraycopy(registrations, 0, updated, 0, i);
+                System.arraycopy(registrations, i + 1, updated, i, updated.length - i);
+                replace(propertyName, updated);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fires a property change to the listeners of the property and of all properties,
+     *      unless the old and new values are equal and non-null.
+     *
+     * @param propertyName  the name of the changed property
+     * @param oldValue  the old value of the property
+     * @param newValue  the new value of the property
+     */
+    public void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+        if (oldValue != null && newValue != null && oldValue.equals(newValue)) {
+            return;
+        }
+        if (clearedListeners.poll() != null) {
+            purge();
+        }
+
+        Registration[] all = allListeners;
+        Registration[] named = propertyName == null
+                ? NO_REGISTRATIONS : namedListeners.getOrDefault(propertyName, NO_REGISTRATIONS);
+        if (all.length == 0 && named.length == 0) {
+            return;
+        }
+
+        PropertyChangeEvent event =
+                new PropertyChangeEvent(source, propertyName, oldValue, newValue);
+        dispatch(all, event);
+        dispatch(named, event);
+    }
+
+    /**
+     * Checks if firing a property would call any listener, e.g. to skip building
+     *      expensive old and new values.
+     *
+     * @param propertyName  the name of the property
+     * @return  true if there is a listener of the property or of all properties
+     */
+    public boolean hasListeners(String propertyName) {
+        return allListeners.length > 0
+                || namedListeners.getOrDefault(propertyName, NO_REGISTRATIONS).length > 0;
+    }
+
+    /**
+     * Estimates the bytes retained by the registrations of the listeners, i.e. the
+     *      indexes and the weak references, but not the listeners themselves.
+     *
+     * @return  the estimated number of bytes, 0 if there is no listener
+     */
+    public long retainedBytes() {
+        long bytes = registrationBytes(allListeners);
+        for (Registration[] registrations : namedListeners.values()) {
+            bytes += MAP_ENTRY_BYTES + registrationBytes(registrations);
+        }
+        return bytes;
+    }
+
+    // gets the estimated bytes of an index, 0 for the shared empty one
+    private static long registrationBytes(Registration[] registrations) {
+        if (registrations.length == 0) {
+            return 0;
+        }
+        long bytes = ARRAY_HEADER_BYTES;
+        for (Registration registration : registrations) {
+            bytes += registration.strong() != null
+                    ? REGISTRATION_BYTES : REGISTRATION_BYTES + WEAK_REFERENCE_BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Private auxiliary method to call the listeners not collected yet.
+     *
+     * @param registrations the registrations of the listeners
+     * @param event the event to be dispatched
+     */
+    private static void dispatch(Registration[] registrations, PropertyChangeEvent event) {
+        for (Registration registration : registrations) {
+            PropertyChangeListener listener = registration.listener();
+            if (listener != null) {
+                listener.propertyChange(event);
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to append a registration to the index of a property.
+     *
+     * @param propertyName  the name of the property, null for all properties
+     * @param registration  the registration to be added
+     */
+    private synchronized void add(String propertyName, Registration registration) {
+        if (clearedListeners.poll() != null) {
+            purge();
+        }
+        Registration[] registrations = registrationsOf(propertyName);
+        Registration[] updated = Arrays.copyOf(registrations, registrations.length + 1);
+        updated[registrations.length] = registration;
+        replace(propertyName, updated);
+    }
+
+    /**
+     * Private auxiliary method to remove the registrations of every collected listener.
+     */
+    private synchronized void purge() {
+        while (clearedListeners.poll() != null) {
+            // drain the queue, all the cleared registrations are removed below
+        }
+
+        allListeners = withoutCollected(allListeners);
+        Map<String, Registration[]> updated = new HashMap<>();
+        namedListeners.forEach((propertyName, registrations) -> {
+            Registration[] kept = withoutCollected(registrations);
+            if (kept.length > 0) {
+                updated.put(propertyName, kept);
+            }
+        });
+        namedListeners = updated;
+    }
+
+    // gets the registrations whose listener has not been collected
+    private static Registration[] withoutCollected(Registration[] registrations) {
+        return Arrays.stream(registrations)
+                .filter(registration -> registration.listener() != null)
+                .toArray(Registration[]::new);
+    }
+
+    // gets the registrations of a property, null for all properties
+    private Registration[] registrationsOf(String propertyName) {
+        return propertyName == null
+                ? allListeners : namedListeners.getOrDefault(propertyName, NO_REGISTRATIONS);
+    }
+
+    /**
+     * Private auxiliary method to publish the new registrations of a property,
+     *      copying the index of the named properties.
+     *
+     * @param propertyName  the name of the property, null for all properties
+     * @param registrations the new registrations of the property
+     */
+    private void replace(String propertyName, Registration[] registrations) {
+        if (propertyName == null) {
+            allListeners = registrations;
+            return;
+        }
+
+        Map<String, Registration[]> updated = new HashMap<>(namedListeners);
+        if (registrations.length == 0) {
+            updated.remove(propertyName);
+        } else {
+            updated.put(propertyName, registrations);
+        }
+        namedListeners = updated;
+    }
+
+    /**
+     * A registered listener, held either strongly or weakly.
+     *
+     * @param strong    the listener held strongly, null if held weakly
+     * @param weak  the reference to the listener held weakly, null if held strongly
+     */
+    private record Registration(PropertyChangeListener strong,
+                                Reference<PropertyChangeListener> weak) {
+        // gets the listener, or null if it has been collected
+        PropertyChangeListener listener() {
+            return strong != null ? strong : weak.get();
+        }
+    }
+}
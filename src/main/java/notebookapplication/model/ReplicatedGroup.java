@@ -0,0 +1,341 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replicates a {@link NoteGroup} between several sessions editing it concurrently.
+ * The page order is a {@link ReplicatedList} of {@link PageEntry}, and the content of every
+ *   page is a replicated list of characters, so concurrent edits of different sessions
+ *   merge deterministically instead of the last writer winning.
+ * Local changes are collected from the property changes of the group and its pages,
+ *   taken as batches by {@link #drainOutbox()}, and the batches of the other replicas are
+ *   applied by {@link #receive(OpBatch)}. Moving a page is replicated as deleting and
+ *   re-inserting its entry; if two sessions move the same page concurrently, the entry
+ *   inserted last is kept. Renaming a page is not replicated.
+ * Every replica must be constructed from the same initial content of the group, and the
+ *   remote batches must be received on the thread editing the group and its pages,
+ *   e.g. the JavaFX thread, so the local and remote edits do not interleave.
+ */
+public class ReplicatedGroup implements PropertyChangeListener {
+    /** The document id of the page order, the pages use their own key as document id. */
+    public static final String ORDER_DOC_ID = "";
+
+    /** The id of this replicated group, shared by all replicas. */
+    private final String groupId;
+
+    /** The replicated note group. */
+    private final NoteGroup noteGroup;
+
+    /** The id of this replica. */
+    private final int replica;
+
+    /** The ids of all the replicas. */
+    private final List<Integer> replicas;
+
+    /** The replicated page order. */
+    private final ReplicatedList<PageEntry> pageOrder;
+
+    /** The replicated pages by their key. */
+    private final Map<String, ReplicatedPage> pages = new HashMap<>();
+
+    /** The entries of the pages of the group. */
+    private final Map<NotePage, PageEntry> entries = new IdentityHashMap<>();
+
+    /** The keys of the deleted pages no longer replicated, whose batches are ignored. */
+    private final Set<String> droppedKeys = new HashSet<>();
+
+    /** The counter used to create unique keys for the pages created locally. */
+    private long nextKey;
+
+    /** True while remote changes are applied, so they are not replicated back. */
+    private volatile boolean applyingRemote;
+
+    /**
+     * Constructs a ReplicatedGroup and starts listening to the changes of the group.
+     *
+     * @param groupId   the id of this replicated group, shared by all replicas
+     * @param noteGroup the group to be replicated
+     * @param replica   the id of this replica, which must be positive
+     * @param replicas  the ids of all the replicas sharing the group, including this one
+     */
+    public ReplicatedGroup(String groupId, NoteGroup noteGroup,
+                           int replica, Collection<Integer> replicas) {
+        this.groupId = groupId;
+        this.noteGroup = noteGroup;
+        this.replica = replica;
+        this.replicas = List.copyOf(replicas);
+
+        List<PageEntry> initial = new ArrayList<>();
+        List<NotePage> notePages = noteGroup.getNotePages();
+        for (int i = 0; i < notePages.size(); i++) {
+            PageEntry entry = new PageEntry(STR."initial:\{i}",
+                    notePages.get(i).getPageName(), notePages.get(i).getContent());
+            initial.add(entry);
+            attach(entry, notePages.get(i));
+        }
+        pageOrder = new ReplicatedList<>(replica, replicas, initial);
+        noteGroup.addPropertyChangeListener(this);
+    }
+
+    /**
+     * Turns a local change of the page order into operations on the replicated list.
+     *
+     * @param evt   the property change event fired by the group
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        String propertyName = evt.getPropertyName();
+        if (applyingRemote || !("newPage".equals(propertyName)
+                || "deletePage".equals(propertyName) || "changeOrder".equals(propertyName))) {
+            return;
+        }
+
+        synchronized (this) {
+            List<PageEntry> target = new ArrayList<>();
+            for (NotePage notePage : noteGroup.getNotePages()) {
+                PageEntry entry = entries.get(notePage);
+                if (entry == null) {
+                    entry = new PageEntry(STR."\{replica}:\{nextKey++}",
+                            notePage.getPageName(), notePage.getContent());
+                    attach(entry, notePage);
+                }
+                target.add(entry);
+            }
+            reorder(target);
+        }
+    }
+
+    /**
+     * Applies a batch of remote operations to the page order or to one of the pages.
+     * Pages created by other replicas are created locally, and the group is edited
+     *   through its usual methods so that its observers are notified. The batches of the
+     *   pages no longer replicated, see {@link #collectGarbage()}, are ignored.
+     *
+     * @param batch the batch received from another replica
+     * @throws IllegalArgumentException if the batch belongs to an unknown page
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void receive(OpBatch<?> batch) {
+        if (!ORDER_DOC_ID.equals(batch.docId())) {
+            ReplicatedPage page = pages.get(batch.docId());
+            if (page != null) {
+                page.receive((OpBatch<Character>) batch);
+            } else if (!droppedKeys.contains(batch.docId())) {
+                throw new IllegalArgumentException(
+                        STR."Batch of unknown page \{batch.docId()} received");
+            }
+            return;
+        }
+
+        pageOrder.apply((OpBatch<PageEntry>) batch);
+        List<NotePage> target = new ArrayList<>();
+        for (PageEntry entry : visibleEntries()) {
+            ReplicatedPage page = pages.get(entry.key());
+            if (page == null) {
+                page = attach(entry, new NotePage(entry.pageName(), entry.initialContent()));
+            }
+            target.add(page.getNotePage());
+        }
+
+        applyingRemote = true;
+        try {
+            applyOrder(target);
+        } finally {
+            applyingRemote = false;
+        }
+    }
+
+    /**
+     * Takes the local operations of the page order and of every page not sent yet.
+     *
+     * @return  the batches to be sent to the other replicas, the page order first
+     */
+    public synchronized List<OpBatch<?>> drainOutbox() {
+        List<OpBatch<?>> batches = new ArrayList<>();
+        OpBatch<PageEntry> orderBatch = pageOrder.drain(ORDER_DOC_ID);
+        if (orderBatch != null) {
+            batches.add(orderBatch);
+        }
+        for (ReplicatedPage page : pages.values()) {
+            OpBatch<Character> pageBatch = page.drain();
+            if (pageBatch != null) {
+                batches.add(pageBatch);
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * Removes the tombstones of the page order and of every page that have been seen
+     *      by every replica, so the memory used stays bounded.
+     * A deleted page stops being replicated once the deletion of its entry has been seen
+     *   by every replica, so no replica can move it back into the group anymore.
+     *
+     * @return  the number of tombstones removed
+     */
+    public synchronized int collectGarbage() {
+        int removed = pageOrder.collectGarbage();
+        if (removed > 0) {
+            Set<String> keptKeys = new HashSet<>();
+            pageOrder.toListWithTombstones().forEach(entry -> keptKeys.add(entry.key()));
+            pages.values().removeIf(page -> {
+                if (keptKeys.contains(page.getDocId())) {
+                    return false;
+                }
+                page.detach();
+                entries.remove(page.getNotePage());
+                droppedKeys.add(page.getDocId());
+                return true;
+            });
+        }
+        for (ReplicatedPage page : pages.values()) {
+            removed += page.collectGarbage();
+        }
+        return removed;
+    }
+
+    // getter for the id of this replicated group
+    public String getGroupId() {
+        return groupId;
+    }
+
+    // getter for the replicated note group
+    public NoteGroup getNoteGroup() {
+        return noteGroup;
+    }
+
+    /**
+     * Private auxiliary method to start replicating a page with the given entry.
+     * The pages of a deleted entry stay attached until the deletion is collected, since
+     *   operations on their content can still be received from the other replicas.
+     *
+     * @param entry the entry of the page in the page order
+     * @param notePage  the page to be replicated, with the initial content of the entry
+     * @return  the replicated page
+     */
+    private ReplicatedPage attach(PageEntry entry, NotePage notePage) {
+        // every replica creates the same initial characters for the same entry
+        List<Character> initial = new ArrayList<>(entry.initialContent().length());
+        for (int i = 0; i < entry.initialContent().length(); i++) {
+            initial.add(entry.initialContent().charAt(i));
+        }
+
+        ReplicatedPage page = new ReplicatedPage(entry.key(), notePage,
+                new ReplicatedList<>(replica, replicas, initial), this);
+        pages.put(entry.key(), page);
+        entries.put(notePage, entry);
+        return page;
+    }
+
+    /**
+     * Private auxiliary method to get the visible entries of the page order,
+     *      keeping only the entry inserted last when a page was moved concurrently.
+     *
+     * @return  the entries in order, without duplicated keys
+     */
+    private List<PageEntry> visibleEntries() {
+        List<PageEntry> entries = pageOrder.toList();
+        Set<String> keptKeys = new HashSet<>();
+        List<PageEntry> result = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (keptKeys.add(entries.get(i).key())) {
+                result.add(entries.get(i));
+            }
+        }
+        return result.reversed();
+    }
+
+    /**
+     * Private auxiliary method to edit the replicated page order into the target order,
+     *      deleting the missing entries and moving the misplaced ones.
+     *
+     * @param target    the target order of the entries
+     */
+    private void reorder(List<PageEntry> target) {
+        Set<String> targetKeys = new HashSet<>();
+        target.forEach(entry -> targetKeys.add(entry.key()));
+
+        List<PageEntry> current = pageOrder.toList();
+        Set<String> placedKeys = new HashSet<>();
+        for (int i = current.size() - 1; i >= 0; i--) {
+            // delete the entries not in the target and the duplicates of moved pages
+            String key = current.get(i).key();
+            if (!targetKeys.contains(key) || !placedKeys.add(key)) {
+                pageOrder.delete(i, 1);
+            }
+        }
+
+        for (int i = 0; i < target.size(); i++) {
+            String key = target.get(i).key();
+            if (i < pageOrder.size() && pageOrder.get(i).key().equals(key)) {
+                continue;
+            }
+
+            for (int j = i + 1; j < pageOrder.size(); j++) {
+                if (pageOrder.get(j).key().equals(key)) {
+                    pageOrder.delete(j, 1);
+                    break;
+                }
+            }
+            pageOrder.insert(i, List.of(target.get(i)));
+        }
+    }
+
+    /**
+     * Private auxiliary method to edit the note group into the target order through its
+     *      usual methods, deleting, adding and moving pages.
+     *
+     * @param target    the target order of the pages
+     */
+    private void applyOrder(List<NotePage> target) {
+        Set<NotePage> targetPages = Collections.newSetFromMap(new IdentityHashMap<>());
+        targetPages.addAll(target);
+
+        List<NotePage> notePages = noteGroup.getNotePages();
+        for (int i = notePages.size() - 1; i >= 0; i--) {
+            if (!targetPages.contains(notePages.get(i))) {
+                noteGroup.deletePage(i);
+            }
+        }
+
+        for (int i = 0; i < target.size(); i++) {
+            NotePage notePage = target.get(i);
+            if (i < notePages.size() && notePages.get(i) == notePage) {
+                continue;
+            }
+
+            int current = -1;
+            for (int j = i + 1; j < notePages.size(); j++) {
+                if (notePages.get(j) == notePage) {
+                    current = j;
+                    break;
+                }
+            }
+            if (current < 0) {
+                noteGroup.addPage(notePage);
+                current = notePages.size() - 1;
+            }
+            noteGroup.changePagesOrder(current, i);
+        }
+    }
+
+    /**
+     * An entry of the replicated page order.
+     *
+     * @param key   the unique key of the page, also the document id of its content
+     * @param pageName  the name of the page when it was created
+     * @param initialContent    the content of the page when it was created
+     */
+    public record PageEntry(String key, String pageName, String initialContent) {
+    }
+}
@@ -0,0 +1,580 @@
+package notebookapplication.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A conflict-free replicated list (a replicated growable array), which lets several
+ *   replicas edit the same sequence concurrently and converge to the same content
+ *   once they have received the same operations, whatever the order of arrival.
+ * Every element has a unique {@link OpId} and is inserted right after its parent
+ *   element; concurrent inserts after the same parent are ordered by descending id.
+ * The elements are stored in a linked list of runs, i.e. elements with consecutive ids
+ *   created by the same replica, so a typed word takes one node instead of one per
+ *   character; a run is split when an element is inserted or deleted inside it.
+ * Deleted elements stay as tombstones until the version vectors of all replicas
+ *   show that the deletion has been seen everywhere, then their values are collected by
+ *   {@link #collectGarbage()}. Their ids and positions are kept, in runs that take one
+ *   node each, since they still order the concurrent inserts the same way everywhere.
+ * The operations of a replica must be delivered to the others in the order they were
+ *   created; operations arriving before the element they refer to are kept pending,
+ *   together with the later operations of the same replica.
+ *
+ * @param <T>   the type of the elements
+ */
+public class ReplicatedList<T> {
+    /** The id of the pseudo replica that created the initial elements. */
+    public static final int INITIAL_REPLICA = 0;
+
+    /** The id of this replica. */
+    private final int replica;
+
+    /** The ids of all the other replicas. */
+    private final Set<Integer> peers;
+
+    /** The sentinel before the first run, which contains no element. */
+    private final Node<T> head = new Node<>(null, new ArrayList<>());
+
+    /** The runs by the replica and the counter of their first element, with the tombstones. */
+    private final Map<Integer, TreeMap<Long, Node<T>>> runsByReplica = new HashMap<>();
+
+    /** The highest counter seen from every replica, i.e. the version vector. */
+    private final Map<Integer, Long> seen = new HashMap<>();
+
+    /** The last known version vector of every other replica. */
+    private final Map<Integer, Map<Integer, Long>> peerSeen = new HashMap<>();
+
+    /** The local operations not sent yet. */
+    private final List<ListOp<T>> outbox = new ArrayList<>();
+
+    /** The remote operations waiting for the element they refer to, in order of arrival. */
+    private List<ListOp<T>> pending = new ArrayList<>();
+
+    /** The Lamport clock of this replica. */
+    private long clock;
+
+    /** The number of elements that are not deleted. */
+    private int visibleSize;
+
+    /** The number of tombstones. */
+    private int tombstones;
+
+    /** True if the version vector changed since the last batch was drained. */
+    private boolean seenChanged;
+
+    /**
+     * The cursor caching the number of visible elements before a run,
+     *   so that sequential operations do not count from the start every time.
+     */
+    private Node<T> cursorNode = head;
+    private int cursorVisible;
+
+    /**
+     * Constructs a ReplicatedList with the given initial elements.
+     * Every replica must be constructed with the same initial elements, which are given
+     *   deterministic ids as if they were inserted by {@link #INITIAL_REPLICA}.
+     *
+     * @param replica   the id of this replica
+     * @param replicas  the ids of all the replicas sharing the list, including this one
+     * @param initial   the initial elements of the list
+     * @pre {@code replica > 0} && {@code replicas.contains(replica)}
+     * @throws IllegalArgumentException if the precondition is violated
+     */
+    public ReplicatedList(int replica, Collection<Integer> replicas, List<? extends T> initial) {
+        if (replica <= INITIAL_REPLICA || !replicas.contains(replica)) {
+            throw new IllegalArgumentException(STR."Replica id \{replica} is invalid");
+        }
+        this.replica = replica;
+        this.peers = new LinkedHashSet<>(replicas);
+        peers.remove(replica);
+
+        if (!initial.isEmpty()) {
+            Node<T> node = new Node<>(new OpId(1, INITIAL_REPLICA), new ArrayList<>(initial));
+            linkAfter(head, node);
+            register(node);
+        }
+        clock = initial.size();
+        visibleSize = initial.size();
+        seen.put(INITIAL_REPLICA, clock);
+        for (int peer : peers) {
+            peerSeen.put(peer, new HashMap<>(seen));
+        }
+    }
+
+    /**
+     * Inserts elements at the specified visible index, as one local operation.
+     *
+     * @param index the visible index where the elements are inserted
+     * @param values    the elements to be inserted
+     * @pre {@code index \in {0, ..., size()}}
+     * @throws IllegalArgumentException if the precondition is violated
+     */
+    public void insert(int index, List<? extends T> values) {
+        if (index < 0 || index > visibleSize) {
+            throw new IllegalArgumentException(STR."Index \{index} is out of bounds");
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+
+        OpId parent = null;
+        if (index > 0) {
+            moveToVisible(index - 1);
+            parent = cursorNode.elementId(index - 1 - cursorVisible);
+        }
+        ListOp.Insert<T> op = new ListOp.Insert<>(
+                new OpId(clock + 1, replica), parent, List.copyOf(values));
+        integrate(op, null);
+        outbox.add(op);
+    }
+
+    /**
+     * Deletes elements starting from the specified visible index, as one local operation
+     *      per run of elements.
+     *
+     * @param index the visible index of the first element to be deleted
+     * @param count the number of elements to be deleted
+     * @pre {@code 0 <= index} && {@code index + count <= size()}
+     * @throws IllegalArgumentException if the precondition is violated
+     */
+    public void delete(int index, int count) {
+        if (index < 0 || count < 0 || index + count > visibleSize) {
+            throw new IllegalArgumentException(
+                    STR."Range \{index} to \{index + count} is out of bounds");
+        }
+
+        while (count > 0) {
+            moveToVisible(index);
+            int offset = index - cursorVisible;
+            int length = Math.min(count, cursorNode.length - offset);
+            ListOp.Delete<T> op = new ListOp.Delete<>(
+                    new OpId(++clock, replica), cursorNode.elementId(offset), length);
+            integrate(op, null);
+            outbox.add(op);
+            count -= length;
+        }
+    }
+
+    /**
+     * Applies a batch of operations received from another replica.
+     *
+     * @param batch the batch to be applied
+     * @return  the visible changes caused by the batch, in the order they happened
+     */
+    public List<ListChange<T>> apply(OpBatch<T> batch) {
+        List<ListChange<T>> changes = new ArrayList<>();
+        peerSeen.computeIfAbsent(batch.replica(), peer -> new HashMap<>())
+                .putAll(batch.seen());
+        pending.addAll(batch.ops());
+
+        // integrate the operations until no more of them can be integrated, keeping the
+        // operations of a replica in order once one of them has to wait
+        boolean progress = true;
+        while (progress) {
+            List<ListOp<T>> waiting = new ArrayList<>();
+            Set<Integer> blockedReplicas = new HashSet<>();
+            for (ListOp<T> op : pending) {
+                if (blockedReplicas.contains(op.id().replica()) || !integrate(op, changes)) {
+                    blockedReplicas.add(op.id().replica());
+                    waiting.add(op);
+                }
+            }
+            progress = waiting.size() < pending.size() && !waiting.isEmpty();
+            pending = waiting;
+        }
+        return changes;
+    }
+
+    /**
+     * Takes the local operations not sent yet as a batch to be sent to the other replicas.
+     * A batch without operations is still returned when the version vector changed,
+     *   so the others learn what this replica has seen.
+     *
+     * @param docId the id of the replicated document
+     * @return  the batch to be sent, or null if there is nothing new to send
+     */
+    public OpBatch<T> drain(String docId) {
+        if (outbox.isEmpty() && !seenChanged) {
+            return null;
+        }
+
+        OpBatch<T> batch = new OpBatch<>(docId, replica, outbox, seen);
+        outbox.clear();
+        seenChanged = false;
+        return batch;
+    }
+
+    /**
+     * Collects the values of the tombstones whose deletion has been seen by every replica,
+     *      and merges the runs of collected tombstones brought together.
+     * No replica can refer to such an element anymore, since operations only refer
+     *   to elements that are visible to their creator.
+     *
+     * @return  the number of tombstones collected
+     */
+    public int collectGarbage() {
+        if (tombstones == 0) {
+            return 0;
+        }
+
+        int collected = 0;
+        Node<T> node = head.next;
+        while (node != null) {
+            Node<T> next = node.next;
+            if (node.values != null && node.deletedBy != null
+                    && seenByAllPeers(node.deletedBy)) {
+                node.values = null;
+                collected += node.length;
+            }
+            if (canMerge(node.prev, node)) {
+                node.prev.length += node.length;
+                if (node.values != null) {
+                    node.prev.values.addAll(node.values);
+                }
+                unlink(node);
+            }
+            node = next;
+        }
+        tombstones -= collected;
+        cursorNode = head;
+        cursorVisible = 0;
+        return collected;
+    }
+
+    // getter for the number of visible elements
+    public int size() {
+        return visibleSize;
+    }
+
+    // getter for the visible element at the given index
+    public T get(int index) {
+        moveToVisible(index);
+        return cursorNode.values.get(index - cursorVisible);
+    }
+
+    /**
+     * Gets all the visible elements.
+     *
+     * @return  a new list of the visible elements in order
+     */
+    public List<T> toList() {
+        List<T> values = new ArrayList<>(visibleSize);
+        for (Node<T> node = head.next; node != null; node = node.next) {
+            if (node.deletedBy == null) {
+                values.addAll(node.values);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets all the elements, including the tombstones not collected yet.
+     *
+     * @return  a new list of the elements in order
+     */
+    public List<T> toListWithTombstones() {
+        List<T> values = new ArrayList<>(visibleSize + tombstones);
+        for (Node<T> node = head.next; node != null; node = node.next) {
+            if (node.values != null) {
+                values.addAll(node.values);
+            }
+        }
+        return values;
+    }
+
+    // getter for the number of tombstones not collected yet
+    public int tombstoneCount() {
+        return tombstones;
+    }
+
+    // getter for the number of runs storing the elements, including the tombstones
+    public int runCount() {
+        int runs = 0;
+        for (Node<T> node = head.next; node != null; node = node.next) {
+            runs++;
+        }
+        return runs;
+    }
+
+    // getter for the number of remote operations waiting for their element
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Private auxiliary method to integrate an operation into the list.
+     * The operations of a replica are integrated in order, so an operation whose counter
+     *   is already in the version vector has been integrated before.
+     *
+     * @param op    the operation to be integrated
+     * @param changes   the list collecting the visible changes, null for local operations
+     * @return  true if the operation is integrated or can be dropped,
+     *      false if it must wait for the elements it refers to
+     */
+    private boolean integrate(ListOp<T> op, List<ListChange<T>> changes) {
+        if (seen.getOrDefault(op.id().replica(), 0L) >= op.id().counter()) {
+            return true; // already integrated
+        }
+
+        switch (op) {
+            case ListOp.Insert<T> insert -> {
+                Node<T> anchor = head;
+                if (insert.parent() != null) {
+                    anchor = find(insert.parent());
+                    if (anchor == null) {
+                        return false;
+                    }
+                    int offset = (int) (insert.parent().counter() - anchor.id.counter());
+                    if (offset + 1 < anchor.length) {
+                        split(anchor, offset + 1);
+                    }
+                }
+
+                // concurrent inserts after the same parent are ordered by descending id
+                while (anchor.next != null && anchor.next.id.compareTo(insert.id()) > 0) {
+                    anchor = anchor.next;
+                }
+
+                int visibleIndex = visibleBefore(anchor) + visibleLength(anchor);
+                Node<T> node = new Node<>(insert.id(), new ArrayList<>(insert.values()));
+                if (canMerge(anchor, node)) {
+                    anchor.values.addAll(node.values);
+                    anchor.length += node.length;
+                } else {
+                    linkAfter(anchor, node);
+                    register(node);
+                }
+                visibleSize += insert.values().size();
+                if (changes != null) {
+                    changes.add(new ListChange<>(true, visibleIndex, insert.values()));
+                }
+                return observe(new OpId(insert.id().counter() + insert.values().size() - 1,
+                        insert.id().replica()));
+            }
+            case ListOp.Delete<T> delete -> {
+                OpId target = delete.target();
+                long end = target.counter() + delete.count();
+                if (seen.getOrDefault(target.replica(), 0L) < end - 1) {
+                    return false; // some of the elements are not integrated yet
+                }
+
+                long counter = target.counter();
+                while (counter < end) {
+                    Node<T> node = find(new OpId(counter, target.replica()));
+                    if (counter > node.id.counter()) {
+                        node = split(node, (int) (counter - node.id.counter()));
+                    }
+                    if (end - node.id.counter() < node.length) {
+                        split(node, (int) (end - node.id.counter()));
+                    }
+                    if (node.deletedBy == null) {
+                        int visibleIndex = visibleBefore(node);
+                        node.deletedBy = delete.id();
+                        visibleSize -= node.length;
+                        tombstones += node.length;
+                        if (changes != null) {
+                            changes.add(new ListChange<>(false, visibleIndex,
+                                    List.copyOf(node.values)));
+                        }
+                    }
+                    counter = node.id.counter() + node.length;
+                }
+                return observe(delete.id());
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to update the Lamport clock and the version vector
+     *      with the id of the last element of an integrated operation.
+     *
+     * @param id    the id of the last element of the operation
+     * @return  always true
+     */
+    private boolean observe(OpId id) {
+        clock = Math.max(clock, id.counter());
+        seen.merge(id.replica(), id.counter(), Math::max);
+        seenChanged = true;
+        return true;
+    }
+
+    // checks if the operation with the given id has been seen by every other replica
+    private boolean seenByAllPeers(OpId id) {
+        for (int peer : peers) {
+            if (peerSeen.get(peer).getOrDefault(id.replica(), 0L) < id.counter()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Private auxiliary method to find the run containing an element.
+     *
+     * @param id    the id of the element
+     * @return  the run containing the element, or null if it is unknown
+     */
+    private Node<T> find(OpId id) {
+        TreeMap<Long, Node<T>> runs = runsByReplica.get(id.replica());
+        Map.Entry<Long, Node<T>> entry = runs == null ? null : runs.floorEntry(id.counter());
+        if (entry == null || id.counter() >= entry.getKey() + entry.getValue().length) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Private auxiliary method to split a run in two.
+     * The cursor stays valid, since the number of elements before the first part
+     *   does not change.
+     *
+     * @param node  the run to be split
+     * @param offset    the offset of the first element of the second part
+     * @return  the second part, linked right after the first one
+     */
+    private Node<T> split(Node<T> node, int offset) {
+        Node<T> second = new Node<>(node.elementId(offset), null);
+        second.length = node.length - offset;
+        if (node.values != null) {
+            List<T> tail = node.values.subList(offset, node.length);
+            second.values = new ArrayList<>(tail);
+            tail.clear();
+        }
+        node.length = offset;
+        second.deletedBy = node.deletedBy;
+        linkAfter(node, second);
+        register(second);
+        return second;
+    }
+
+    // checks if a run continues the one before it, both visible, deleted together or collected
+    private boolean canMerge(Node<T> previous, Node<T> node) {
+        if (previous == head || previous.id.replica() != node.id.replica()
+                || previous.id.counter() + previous.length != node.id.counter()) {
+            return false;
+        }
+        return previous.values == null ? node.values == null
+                : node.values != null && Objects.equals(previous.deletedBy, node.deletedBy);
+    }
+
+    // links a run right after another one
+    private void linkAfter(Node<T> previous, Node<T> node) {
+        node.prev = previous;
+        node.next = previous.next;
+        if (previous.next != null) {
+            previous.next.prev = node;
+        }
+        previous.next = node;
+    }
+
+    // unlinks a run and removes it from the index, the cursor must not be on it
+    private void unlink(Node<T> node) {
+        node.prev.next = node.next;
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        runsByReplica.get(node.id.replica()).remove(node.id.counter());
+    }
+
+    // adds a run to the index
+    private void register(Node<T> node) {
+        runsByReplica.computeIfAbsent(node.id.replica(), key -> new TreeMap<>())
+                .put(node.id.counter(), node);
+    }
+
+    // gets the number of visible elements of a run
+    private static int visibleLength(Node<?> node) {
+        return node.deletedBy == null ? node.length : 0;
+    }
+
+    /**
+     * Private auxiliary method to count the visible elements before a run,
+     *      walking both ways from the cursor since edits are mostly sequential,
+     *      and moving the cursor there.
+     *
+     * @param node  the run, which must be linked
+     * @return  the number of visible elements before the run
+     */
+    private int visibleBefore(Node<T> node) {
+        Node<T> forward = cursorNode;
+        int forwardVisible = cursorVisible;
+        Node<T> backward = cursorNode;
+        int backwardVisible = cursorVisible;
+        while (forward != node && backward != node) {
+            if (forward != null) {
+                forwardVisible += visibleLength(forward);
+                forward = forward.next;
+            }
+            if (backward != null) {
+                backward = backward.prev;
+                backwardVisible -= backward == null ? 0 : visibleLength(backward);
+            }
+        }
+
+        cursorNode = node;
+        cursorVisible = forward == node ? forwardVisible : backwardVisible;
+        return cursorVisible;
+    }
+
+    /**
+     * Private auxiliary method to move the cursor to the run containing a visible element.
+     *
+     * @param index the visible index of the element
+     */
+    private void moveToVisible(int index) {
+        if (index < 0 || index >= visibleSize) {
+            throw new IndexOutOfBoundsException(STR."Index \{index} is out of bounds");
+        }
+
+        while (cursorVisible > index) {
+            cursorNode = cursorNode.prev;
+            cursorVisible -= visibleLength(cursorNode);
+        }
+        while (cursorVisible + visibleLength(cursorNode) <= index) {
+            cursorVisible += visibleLength(cursorNode);
+            cursorNode = cursorNode.next;
+        }
+    }
+
+    /**
+     * A run of elements with consecutive ids created by the same replica, which becomes
+     *      a run of tombstones when deleted.
+     *
+     * @param <T>   the type of the values
+     */
+    private static final class Node<T> {
+        /** The id of the first element, the k-th element has the counter plus k. */
+        private final OpId id;
+
+        /** The values of the elements, null once the tombstones are collected. */
+        private List<T> values;
+
+        /** The number of elements of this run. */
+        private int length;
+
+        /** The id of the operation that deleted these elements, null if visible. */
+        private OpId deletedBy;
+
+        private Node<T> prev;
+        private Node<T> next;
+
+        private Node(OpId id, List<T> values) {
+            this.id = id;
+            this.values = values;
+            length = values == null ? 0 : values.size();
+        }
+
+        // getter for the id of the element at the given offset
+        private OpId elementId(int offset) {
+            return new OpId(id.counter() + offset, id.replica());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Package-private binding between the content of a {@link NotePage} and a
+ *   {@link ReplicatedList} of its characters, owned by a {@link ReplicatedGroup}.
+ * Local edits are turned into operations from the {@code "delta"} property changes
+ *   of the page, and remote operations are applied back to the page as edits.
+ * Edits done through {@link NotePage#setContent} are not replicated.
+ */
+class ReplicatedPage implements PropertyChangeListener {
+    /** The id of the replicated document, i.e. the key of the page in its group. */
+    private final String docId;
+
+    /** The page whose content is replicated. */
+    private final NotePage notePage;
+
+    /** The replicated characters of the content. */
+    private final ReplicatedList<Character> text;
+
+    /** The lock shared with the owning group, guarding the replicated state. */
+    private final Object lock;
+
+    /** True while remote changes are applied, so they are not replicated back. */
+    private volatile boolean applyingRemote;
+
+    /**
+     * Constructs a ReplicatedPage and starts listening to the edits of the page.
+     *
+     * @param docId the id of the replicated document
+     * @param notePage  the page whose content is replicated
+     * @param text  the replicated list, containing the current content of the page
+     * @param lock  the lock shared with the owning group
+     */
+    ReplicatedPage(String docId, NotePage notePage, ReplicatedList<Character> text, Object lock) {
+        this.docId = docId;
+        this.notePage = notePage;
+        this.text = text;
+        this.lock = lock;
+        notePage.addPropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Turns a local edit of the page into operations on the replicated list.
+     *
+     * @param evt   the property change event fired by the page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (applyingRemote
+                || !"delta".equals(evt.getPropertyName())
+                || !(evt.getNewValue() instanceof ContentDelta delta)) {
+            return;
+        }
+
+        synchronized (lock) {
+            text.delete(delta.startPosition(), delta.removedText().length());
+
+            CharSequence content = notePage.getContentView();
+            List<Character> inserted = new ArrayList<>(delta.insertedLength());
+            for (int i = delta.startPosition(); i < delta.newEndPosition(); i++) {
+                inserted.add(content.charAt(i));
+            }
+            text.insert(delta.startPosition(), inserted);
+        }
+    }
+
+    /**
+     * Applies a batch of remote operations, and the changes they cause to the page.
+     * The lock is held until the page is edited, so that no local operation is drained
+     *   or collected in between. Consecutive runs of insertions or deletions are merged,
+     *   so the page is edited once per run of characters.
+     * Must be called on the thread editing the page, e.g. the JavaFX thread, since the
+     *   local edits are not replicated while the remote ones are applied.
+     *
+     * @param batch the batch received from another replica
+     */
+    void receive(OpBatch<Character> batch) {
+        synchronized (lock) {
+            List<ListChange<Character>> changes = text.apply(batch);
+            applyingRemote = true;
+            try {
+                int i = 0;
+                while (i < changes.size()) {
+                    ListChange<Character> first = changes.get(i);
+                    StringBuilder run = new StringBuilder();
+                    first.values().forEach(run::append);
+                    int j = i + 1;
+                    while (j < changes.size() && changes.get(j).inserted() == first.inserted()
+                            && changes.get(j).index()
+                                    == first.index() + (first.inserted() ? run.length() : 0)) {
+                        changes.get(j++).values().forEach(run::append);
+                    }
+
+                    if (first.inserted()) {
+                        notePage.insertContent(first.index(), run.toString());
+                    } else {
+                        notePage.deleteContent(first.index(), first.index() + run.length());
+                    }
+                    i = j;
+                }
+            } finally {
+                applyingRemote = false;
+            }
+        }
+    }
+
+    // takes the local operations not sent yet as a batch
+    OpBatch<Character> drain() {
+        synchronized (lock) {
+            return text.drain(docId);
+        }
+    }
+
+    // removes the tombstones seen by every replica
+    int collectGarbage() {
+        synchronized (lock) {
+            return text.collectGarbage();
+        }
+    }
+
+    /**
+     * Stops listening to the edits of the page, which is no longer replicated.
+     */
+    void detach() {
+        notePage.removePropertyChangeListener("delta", this);
+    }
+
+    // getter for the id of the replicated document
+    String getDocId() {
+        return docId;
+    }
+
+    // getter for the replicated page
+    NotePage getNotePage() {
+        return notePage;
+    }
+}
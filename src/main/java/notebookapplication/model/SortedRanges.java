@@ -0,0 +1,162 @@
+package notebookapplication.model;
+
+import java.util.Arrays;
+
+/**
+ * Package-private list of disjoint ranges of the content of a page, sorted by position,
+ *   each one with an optional value, e.g. the misspelled words of {@link SpellChecker} or
+ *   the links of {@link LinkGraph}.
+ * The ranges of the lines touched by an edit are replaced with the ranges scanned again
+ *   and the ranges after them are shifted, see {@link ContentDelta#touchedLines}. The list
+ *   also remembers the version of the page it is up to date with.
+ *
+ * @param <T>   the type of the values of the ranges
+ */
+class SortedRanges<T> {
+    private int[] starts;
+    private int[] ends;
+    private Object[] values;
+    private int size;
+
+    /** The version of the page the ranges are up to date with. */
+    long version;
+
+    /**
+     * Constructs empty SortedRanges.
+     *
+     * @param version   the version of the page
+     * @param capacity  the initial capacity
+     */
+    SortedRanges(long version, int capacity) {
+        this.version = version;
+        starts = new int[capacity];
+        ends = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    // getter for the number of ranges
+    int size() {
+        return size;
+    }
+
+    // getter for the start position of a range
+    int start(int index) {
+        return starts[index];
+    }
+
+    // getter for the end position of a range
+    int end(int index) {
+        return ends[index];
+    }
+
+    // getter for the value of a range
+    @SuppressWarnings("unchecked")
+    T value(int index) {
+        return (T) values[index];
+    }
+
+    /**
+     * Appends a range after the last one.
+     *
+     * @param startPosition the start position of the range
+     * @param endPosition   the end position of the range
+     * @param value the value of the range, or null
+     */
+    void add(int startPosition, int endPosition, T value) {
+        if (size == starts.length) {
+            grow(size + 1);
+        }
+        set(size++, startPosition, endPosition, value);
+    }
+
+    /**
+     * Replaces a range, keeping the ranges sorted.
+     *
+     * @param index the index of the range
+     * @param startPosition the new start position of the range
+     * @param endPosition   the new end position of the range
+     * @param value the new value of the range, or null
+     */
+    void set(int index, int startPosition, int endPosition, T value) {
+        starts[index] = startPosition;
+        ends[index] = endPosition;
+        values[index] = value;
+    }
+
+    /**
+     * Replaces the ranges of the lines touched by an edit with the ranges scanned again,
+     *      and shifts the ranges after them by the change of length.
+     *
+     * @param lines the lines touched by the edit
+     * @param scanned   the ranges inside the touched lines after the edit
+     */
+    void replace(ContentDelta.TouchedLines lines, SortedRanges<T> scanned) {
+        int first = firstEndingAfter(lines.startPosition());
+        int end = endStartingBefore(first, lines.oldEndPosition());
+        int newSize = size - (end - first) + scanned.size;
+        if (newSize > starts.length) {
+            grow(newSize);
+        }
+
+        int tail = size - end;
+        System.arraycopy(starts, end, starts, first + scanned.size, tail);
+        System.arraycopy(ends, end, ends, first + scanned.size, tail);
+        System.arraycopy(values, end, values, first + scanned.size, tail);
+        for (int i = first + scanned.size; i < newSize; i++) {
+            starts[i] += lines.shift();
+            ends[i] += lines.shift();
+        }
+        System.arraycopy(scanned.starts, 0, starts, first, scanned.size);
+        System.arraycopy(scanned.ends, 0, ends, first, scanned.size);
+        System.arraycopy(scanned.values, 0, values, first, scanned.size);
+        if (newSize < size) {
+            Arrays.fill(values, newSize, size, null);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Gets the index of the first range ending after a position, by binary search.
+     *
+     * @param position  the position
+     * @return  the index of the first range with {@code end(index) > position}, or the size
+     */
+    int firstEndingAfter(int position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] <= position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the index after the last range starting before a position, searching forward
+     *      from a range, e.g. to find the ranges overlapping a few lines.
+     *
+     * @param first the index to search from
+     * @param position  the position
+     * @return  the index of the first range at or after {@code first} with
+     *      {@code start(index) >= position}, or the size
+     */
+    int endStartingBefore(int first, int position) {
+        int end = first;
+        while (end < size && starts[end] < position) {
+            end++;
+        }
+        return end;
+    }
+
+    // grows the arrays to hold at least the given number of ranges
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, starts.length * 2);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,206 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Checks the spelling of the watched note pages against a {@link SpellDictionary}, e.g. to
+ *   underline the misspelled words of the visible part of a page.
+ * The misspelled words of every page are kept as sorted ranges, which are updated from the
+ *   {@code "delta"} property changes of the page: only the lines touched by an edit are
+ *   checked again, and the ranges after them are shifted. A page changed without a delta,
+ *   e.g. by {@link NotePage#setContent(String)}, is detected by its version and checked
+ *   again as a whole.
+ * The custom style tags, page tags and {@link Symbols} prefixes are skipped, and so are the
+ *   single letters and the words containing digits.
+ */
+public class SpellChecker implements PropertyChangeListener {
+    /** The maximal number of edits between a misspelled word and its suggestions. */
+    public static final int MAX_SUGGESTION_DISTANCE = 2;
+
+    /** The dictionary of the correct words. */
+    private final SpellDictionary dictionary;
+
+    /** The misspelled words of every watched page. */
+    private final Map<NotePage, Misspellings> pages = new WeakHashMap<>();
+
+    /**
+     * Constructs a SpellChecker watching no page.
+     *
+     * @param dictionary    the dictionary of the correct words
+     * @throws NullPointerException if {@code dictionary == null}
+     */
+    public SpellChecker(SpellDictionary dictionary) {
+        if (dictionary == null) {
+            throw new NullPointerException("Dictionary cannot be null");
+        }
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Starts watching a note page, checking its whole content once.
+     * The page only holds this checker weakly, like {@link WordCompletion}.
+     *
+     * @param notePage  the page to be watched
+     */
+    public void watch(NotePage notePage) {
+        pages.put(notePage, checkAll(notePage));
+        notePage.addWeakPropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Stops watching a note page, e.g. when it is deleted.
+     *
+     * @param notePage  the page to be no longer watched
+     */
+    public void unwatch(NotePage notePage) {
+        notePage.removePropertyChangeListener("delta", this);
+        pages.remove(notePage);
+    }
+
+    /**
+     * Gets the misspelled words of a watched page overlapping a range, e.g. the visible
+     *      part of the page.
+     *
+     * @param notePage  the watched page
+     * @param startPosition the start position of the range
+     * @param endPosition   the end position of the range
+     * @return  the misspelled words overlapping the range, in order
+     * @throws IllegalArgumentException if the page is not watched
+     */
+    public List<Misspelling> misspellings(NotePage notePage, int startPosition, int endPosition) {
+        Misspellings misspellings = pages.get(notePage);
+        if (misspellings == null) {
+            throw new IllegalArgumentException("Note page is not watched");
+        }
+        if (misspellings.version != notePage.getVersion()) {
+            misspellings = checkAll(notePage);
+            pages.put(notePage, misspellings);
+        }
+        return misspellings.overlapping(startPosition, endPosition);
+    }
+
+    /**
+     * Gets the corrections of a misspelled word.
+     *
+     * @param word  the misspelled word
+     * @param limit the maximal number of corrections
+     * @return  at most {@code limit} lower-cased words, from the closest
+     */
+    public List<String> suggest(String word, int limit) {
+        return dictionary.suggest(word, MAX_SUGGESTION_DISTANCE, limit);
+    }
+
+    /**
+     * Checks the lines touched by an edit of a watched page again, and shifts the
+     *      misspelled words after them.
+     *
+     * @param evt   the property change event fired by a watched page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!"delta".equals(evt.getPropertyName())
+                || !(evt.getSource() instanceof NotePage notePage)
+                || !(evt.getNewValue() instanceof ContentDelta delta)) {
+            return;
+        }
+        Misspellings misspellings = pages.get(notePage);
+        if (misspellings == null) {
+            return;
+        }
+        if (misspellings.version != notePage.getVersion() - 1) {
+            pages.put(notePage, checkAll(notePage)); // changed without a delta before
+            return;
+        }
+
+        CharSequence content = notePage.getContentView();
+        ContentDelta.TouchedLines lines = delta.touchedLines(content);
+        Misspellings checked = new Misspellings(notePage.getVersion());
+        check(content, lines.startPosition(), lines.newEndPosition(), checked);
+        misspellings.replace(lines, checked);
+        misspellings.version = notePage.getVersion();
+    }
+
+    /**
+     * Private auxiliary method to check the whole content of a page.
+     *
+     * @param notePage  the page to be checked
+     * @return  the misspelled words of the page
+     */
+    private Misspellings checkAll(NotePage notePage) {
+        Misspellings misspellings = new Misspellings(notePage.getVersion());
+        check(notePage.getContentView(), 0, notePage.getContentLength(), misspellings);
+        return misspellings;
+    }
+
+    /**
+     * Private auxiliary method to check the words inside a range of text.
+     *
+     * @param text  the text containing the words
+     * @param startPosition the start position of the range
+     * @param endPosition   the end position of the range
+     * @param misspellings  the misspelled words found, appended in order
+     */
+    private void check(CharSequence text, int startPosition, int endPosition,
+                       Misspellings misspellings) {
+        Markup.forEachWord(text, startPosition, endPosition, (wordStart, wordEnd) -> {
+            if (wordEnd - wordStart > 1 && !hasDigit(text, wordStart, wordEnd)
+                    && !dictionary.contains(text, wordStart, wordEnd)) {
+                misspellings.add(wordStart, wordEnd, null);
+            }
+        });
+    }
+
+    // checks if a range of text contains a digit
+    private static boolean hasDigit(CharSequence text, int startPosition, int endPosition) {
+        for (int i = startPosition; i < endPosition; i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Represents a misspelled word of a page.
+     *
+     * @param startPosition the start position of the word
+     * @param endPosition   the end position of the word
+     */
+    public record Misspelling(int startPosition, int endPosition) {
+    }
+
+    /**
+     * The sorted ranges of the misspelled words of a page, as of a version of the page.
+     */
+    private static final class Misspellings extends SortedRanges<Void> {
+        /**
+         * Constructs empty Misspellings.
+         *
+         * @param version   the version of the page
+         */
+        private Misspellings(long version) {
+            super(version, 8);
+        }
+
+        /**
+         * Gets the ranges overlapping a range.
+         *
+         * @param startPosition the start position of the range
+         * @param endPosition   the end position of the range
+         * @return  the overlapping ranges, in order
+         */
+        private List<Misspelling> overlapping(int startPosition, int endPosition) {
+            List<Misspelling> misspellings = new ArrayList<>();
+            for (int i = firstEndingAfter(startPosition); i < size() && start(i) < endPosition;
+                 i++) {
+                misspellings.add(new Misspelling(start(i), end(i)));
+            }
+            return misspellings;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package notebookapplication.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable dictionary of lower-cased words for spell checking, stored as a minimal
+ *   deterministic acyclic automaton (DAWG), where the words sharing a suffix share its
+ *   states as well as the words sharing a prefix.
+ * The automaton is built from the sorted words in one pass with the incremental algorithm
+ *   of Daciuk et al., then flattened into arrays: the transitions of every state are
+ *   consecutive and sorted by label, so a lookup is one binary search per char and
+ *   allocates nothing.
+ * Suggestions are the words within a small edit distance, counting an insertion,
+ *   a deletion, a substitution or a transposition of two adjacent chars as one edit.
+ *   They are found by walking the automaton with one row of the distance matrix per
+ *   depth, skipping the branches that are already too far from the word.
+ */
+public final class SpellDictionary {
+    /** The state the automaton starts from. */
+    private static final int ROOT = 0;
+
+    /** The index of the first transition of every state, followed by the transition count. */
+    private final int[] firstTransitions;
+
+    /** The label of every transition. */
+    private final char[] labels;
+
+    /** The state every transition goes to. */
+    private final int[] targets;
+
+    /** The states ending a word. */
+    private final BitSet finalStates;
+
+    /** The number of words. */
+    private final int size;
+
+    /**
+     * Private constructor, a dictionary is built by {@code of} or {@code load}.
+     *
+     * @param firstTransitions  the index of the first transition of every state
+     * @param labels    the label of every transition
+     * @param targets   the target of every transition
+     * @param finalStates   the states ending a word
+     * @param size  the number of words
+     */
+    private SpellDictionary(int[] firstTransitions, char[] labels, int[] targets,
+                            BitSet finalStates, int size) {
+        this.firstTransitions = firstTransitions;
+        this.labels = labels;
+        this.targets = targets;
+        this.finalStates = finalStates;
+        this.size = size;
+    }
+
+    /**
+     * Builds a dictionary from words, which are lower-cased and may be unsorted or repeated.
+     *
+     * @param words the words of the dictionary, the blank ones being ignored
+     * @return  the dictionary of the words
+     * @throws NullPointerException if {@code words == null}
+     */
+    public static SpellDictionary of(Collection<String> words) {
+        List<String> sorted = new ArrayList<>(words.size());
+        for (String word : words) {
+            String trimmed = word.strip();
+            if (!trimmed.isEmpty()) {
+                sorted.add(trimmed.toLowerCase(Locale.ROOT));
+            }
+        }
+        sorted.sort(Comparator.naturalOrder());
+
+        Builder builder = new Builder();
+        String previous = null;
+        for (String word : sorted) {
+            if (!word.equals(previous)) {
+                builder.add(word);
+                previous = word;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Loads a dictionary from a word list encoded as UTF-8, one word per line.
+     * The lines starting with {@code #} are comments.
+     *
+     * @param file  the word list to be read
+     * @return  the dictionary of the words
+     * @throws IOException if reading the file fails
+     */
+    public static SpellDictionary load(Path file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("#")) {
+                    words.add(line);
+                }
+            }
+        }
+        return of(words);
+    }
+
+    /**
+     * Checks if a range of a text is a word of the dictionary, ignoring the case,
+     *      without copying it.
+     *
+     * @param text  the text containing the word
+     * @param startPosition the start position of the word
+     * @param endPosition   the end position of the word
+     * @return  true if the word is in the dictionary, false otherwise
+     */
+    public boolean contains(CharSequence text, int startPosition, int endPosition) {
+        int state = ROOT;
+        for (int i = startPosition; i < endPosition && state >= 0; i++) {
+            state = transition(state, Character.toLowerCase(text.charAt(i)));
+        }
+        return state >= 0 && finalStates.get(state);
+    }
+
+    /**
+     * Checks if a word is in the dictionary, ignoring the case.
+     *
+     * @param word  the word to be checked
+     * @return  true if the word is in the dictionary, false otherwise
+     */
+    public boolean contains(CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    /**
+     * Gets the words closest to a misspelled word, e.g. to be offered as corrections.
+     *
+     * @param word  the misspelled word, ignoring the case
+     * @param maxDistance   the maximal number of edits from the word
+     * @param limit the maximal number of suggestions
+     * @return  at most {@code limit} lower-cased words other than {@code word}, from the
+     *      closest, and in alphabetical order for the same distance
+     * @pre {@code maxDistance >= 0} && {@code limit >= 0}
+     * @throws IllegalArgumentException if {@code maxDistance < 0 || limit < 0}
+     */
+    public List<String> suggest(String word, int maxDistance, int limit) {
+        if (maxDistance < 0 || limit < 0) {
+            throw new IllegalArgumentException("Distance and limit cannot be negative");
+        }
+
+        String target = word.toLowerCase(Locale.ROOT);
+        int maxDepth = target.length() + maxDistance;
+        int[][] rows = new int[maxDepth + 1][target.length() + 1];
+        for (int j = 0; j <= target.length(); j++) {
+            rows[0][j] = j;
+        }
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            byDistance.add(new ArrayList<>());
+        }
+        collect(ROOT, target, new char[maxDepth], 0, rows, maxDistance, byDistance);
+
+        // the words are found in alphabetical order
+        List<String> suggestions = new ArrayList<>();
+        for (int distance = 1; distance <= maxDistance && suggestions.size() < limit; distance++) {
+            List<String> words = byDistance.get(distance);
+            int count = Math.min(words.size(), limit - suggestions.size());
+            suggestions.addAll(words.subList(0, count));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Private auxiliary method to walk the automaton in depth-first order, computing the
+     *      row of the distance matrix of every prefix, and to collect the words within the
+     *      maximal distance.
+     *
+     * @param state the state of the current prefix
+     * @param target    the lower-cased misspelled word
+     * @param prefix    the chars of the current prefix
+     * @param depth the length of the current prefix
+     * @param rows  the row of the distance matrix of every length of the prefix
+     * @param maxDistance   the maximal distance
+     * @param byDistance    the words found, by distance
+     */
+    private void collect(int state, String target, char[] prefix, int depth, int[][] rows,
+                         int maxDistance, List<List<String>> byDistance) {
+        int distance = rows[depth][target.length()];
+        if (finalStates.get(state) && distance <= maxDistance) {
+            byDistance.get(distance).add(new String(prefix, 0, depth));
+        }
+        if (depth == prefix.length) {
+            return;
+        }
+
+        for (int t = firstTransitions[state]; t < firstTransitions[state + 1]; t++) {
+            char label = labels[t];
+            int[] previous = rows[depth];
+            int[] row = rows[depth + 1];
+            row[0] = depth + 1;
+            int minimum = row[0];
+            for (int j = 1; j <= target.length(); j++) {
+                int cost = target.charAt(j - 1) == label ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1),
+                        previous[j - 1] + cost);
+                if (depth > 0 && j > 1 && target.charAt(j - 1) == prefix[depth - 1]
+                        && target.charAt(j - 2) == label) {
+                    value = Math.min(value, rows[depth - 1][j - 2] + 1); // transposition
+                }
+                row[j] = value;
+                minimum = Math.min(minimum, value);
+            }
+            if (minimum <= maxDistance) {
+                prefix[depth] = label;
+                collect(targets[t], target, prefix, depth + 1, rows, maxDistance, byDistance);
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to follow the transition of a state labelled with a char.
+     *
+     * @param state the state to start from
+     * @param label the label of the transition
+     * @return  the target of the transition, or -1 if there is none
+     */
+    private int transition(int state, char label) {
+        int low = firstTransitions[state];
+        int high = firstTransitions[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < label) {
+                low = middle + 1;
+            } else if (labels[middle] > label) {
+                high = middle - 1;
+            } else {
+                return targets[middle];
+            }
+        }
+        return -1;
+    }
+
+    // getter for the number of words
+    public int size() {
+        return size;
+    }
+
+    // getter for the number of states of the automaton
+    public int stateCount() {
+        return firstTransitions.length - 1;
+    }
+
+    // getter for the number of transitions of the automaton
+    public int transitionCount() {
+        return labels.length;
+    }
+
+    /**
+     * Gets the memory used by the automaton, e.g. to compare it with a plain set of words.
+     *
+     * @return  the number of bytes of the arrays of the automaton
+     */
+    public long memoryBytes() {
+        return (long) firstTransitions.length * Integer.BYTES
+                + (long) labels.length * Character.BYTES
+                + (long) targets.length * Integer.BYTES
+                + finalStates.size() / Byte.SIZE;
+    }
+
+    /**
+     * Builds the minimal automaton from words added in sorted order: the states of the
+     *   previous word that the next word does not share are replaced by an equivalent
+     *   state already registered, if any, so every state is unique once the words are added.
+     */
+    private static final class Builder {
+        /** The registered states, by their signature. */
+        private final Map<Node, Node> register = new HashMap<>();
+
+        /** The states of the last word added, not registered yet, from the root. */
+        private final List<Node> path = new ArrayList<>(List.of(new Node()));
+
+        private String previous = "";
+        private int size;
+
+        /**
+         * Adds a word greater than the previous one.
+         *
+         * @param word  the word to be added
+         */
+        private void add(String word) {
+            int common = 0;
+            while (common < word.length() && common < previous.length()
+                    && word.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            minimize(common);
+
+            Node node = path.getLast();
+            for (int i = common; i < word.length(); i++) {
+                Node child = new Node();
+                node.add(word.charAt(i), child);
+                path.add(child);
+                node = child;
+            }
+            node.isFinal = true;
+            previous = word;
+            size++;
+        }
+
+        /**
+         * Registers the states of the last word deeper than a depth, replacing every one
+         *      by an equivalent state already registered.
+         *
+         * @param depth the depth of the deepest state kept unregistered
+         */
+        private void minimize(int depth) {
+            for (int i = path.size() - 1; i > depth; i--) {
+                Node child = path.get(i);
+                Node registered = register.putIfAbsent(child, child);
+                if (registered != null) {
+                    Node parent = path.get(i - 1);
+                    parent.targets[parent.count - 1] = registered;
+                }
+                path.removeLast();
+            }
+        }
+
+        /**
+         * Registers the remaining states and flattens the automaton into arrays, numbering
+         *      the states in breadth-first order from the root.
+         *
+         * @return  the dictionary
+         */
+        private SpellDictionary build() {
+            minimize(0);
+            Node root = path.getFirst();
+
+            Map<Node, Integer> ids = new IdentityHashMap<>();
+            List<Node> states = new ArrayList<>();
+            ids.put(root, 0);
+            states.add(root);
+            int transitionCount = 0;
+            for (int i = 0; i < states.size(); i++) {
+                Node node = states.get(i);
+                transitionCount += node.count;
+                for (int t = 0; t < node.count; t++) {
+                    if (ids.putIfAbsent(node.targets[t], states.size()) == null) {
+                        states.add(node.targets[t]);
+                    }
+                }
+            }
+
+            int[] firstTransitions = new int[states.size() + 1];
+            char[] labels = new char[transitionCount];
+            int[] targets = new int[transitionCount];
+            BitSet finalStates = new BitSet(states.size());
+            int transition = 0;
+            for (int i = 0; i < states.size(); i++) {
+                Node node = states.get(i);
+                firstTransitions[i] = transition;
+                finalStates.set(i, node.isFinal);
+                for (int t = 0; t < node.count; t++) {
+                    labels[transition] = node.labels[t];
+                    targets[transition] = ids.get(node.targets[t]);
+                    transition++;
+                }
+            }
+            firstTransitions[states.size()] = transition;
+            return new SpellDictionary(firstTransitions, labels, targets, finalStates, size);
+        }
+    }
+
+    /**
+     * A state of the automaton being built. Two states are equal if they are both final or
+     *   not, and have the same transitions to the same registered states.
+     */
+    private static final class Node {
+        private boolean isFinal;
+        private char[] labels = new char[2];
+        private Node[] targets = new Node[2];
+        private int count;
+
+        // appends a transition, with a label greater than the previous ones
+        private void add(char label, Node target) {
+            if (count == labels.length) {
+                labels = Arrays.copyOf(labels, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+            }
+            labels[count] = label;
+            targets[count] = target;
+            count++;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Node node) || isFinal != node.isFinal || count != node.count) {
+                return false;
+            }
+            for (int t = 0; t < count; t++) {
+                if (labels[t] != node.labels[t] || targets[t] != node.targets[t]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = isFinal ? 1 : 0;
+            for (int t = 0; t < count; t++) {
+                hash = 31 * (31 * hash + labels[t]) + System.identityHashCode(targets[t]);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package notebookapplication.model;
+
+/**
+ * Represents the memory used to store the content of the notebook, split into
+ *   the bytes on the Java heap and the bytes stored off-heap by parked pages.
+ *
+ * @param heapBytes the estimated number of bytes on the Java heap
+ * @param offHeapBytes  the number of bytes off the Java heap
+ */
+public record StorageUsage(long heapBytes, long offHeapBytes) {
+    /** The usage of an empty storage. */
+    public static final StorageUsage NONE = new StorageUsage(0, 0);
+
+    /**
+     * Adds two storage usages together.
+     *
+     * @param other the usage to be added
+     * @return  the sum of this usage and {@code other}
+     */
+    public StorageUsage plus(StorageUsage other) {
+        return new StorageUsage(heapBytes + other.heapBytes, offHeapBytes + other.offHeapBytes);
+    }
+}
@@ -0,0 +1,25 @@
+package notebookapplication.model;
+
+/**
+ * A functional interface that receives the progress of a streaming operation,
+ *      such as {@link NotePage#insertContent(int, java.io.Reader, StreamProgress)},
+ *      and decides whether the operation should go on.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * StreamProgress progress = charsDone -> {
+ *     progressBar.setProgress(charsDone / (double) expectedChars);
+ *     return !cancelButton.isPressed();
+ * };
+ * }</pre>
+ */
+@FunctionalInterface
+public interface StreamProgress {
+    /**
+     * Reports the progress of the operation.
+     *
+     * @param charsDone the number of characters processed so far
+     * @return  true if the operation should continue, false to cancel it
+     */
+    boolean onProgress(long charsDone);
+}
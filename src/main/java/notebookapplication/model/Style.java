@@ -0,0 +1,84 @@
+package notebookapplication.model;
+
+/**
+ * Represents one of the styles supported by the custom style tag
+ *   {@code [style="..."]...[/style]}, i.e. a colour, a font, underline, bold or italic.
+ * Used by {@link TextEditing} to build styled strings, and by
+ *   {@link NotePage#applyStyle(int, int, Style)} to style a range of a page in place.
+ * The tags are built once per style, so applying a style allocates nothing.
+ */
+public final class Style {
+    /** The closing tag shared by every style. */
+    public static final String CLOSING_TAG = "[/style]";
+
+    /** The underline style. */
+    public static final Style UNDERLINED = new Style("-fx-underline: true;");
+
+    /** The bold style. */
+    public static final Style BOLD = new Style("-fx-font-weight: bold;");
+
+    /** The italic style. */
+    public static final Style ITALIC = new Style("-fx-font-style: italic;");
+
+    private static final Style[] COLORS = new Style[Colors.values().length];
+    private static final Style[] FONTS = new Style[Fonts.values().length];
+
+    static {
+        for (Colors colorEnum : Colors.values()) {
+            COLORS[colorEnum.ordinal()] = new Style(STR."-fx-fill: \{colorEnum.color};");
+        }
+        for (Fonts fontEnum : Fonts.values()) {
+            FONTS[fontEnum.ordinal()] = new Style(STR."-fx-font-family: \{fontEnum.font};");
+        }
+    }
+
+    /** The opening tag of this style, e.g. {@code [style="-fx-font-weight: bold;"]}. */
+    private final String openingTag;
+
+    /**
+     * Private constructor, the supported styles are the constants and the results of
+     *      {@code color} and {@code font}.
+     *
+     * @param declaration   the CSS declaration of the style, without quotation marks
+     */
+    private Style(String declaration) {
+        openingTag = STR."[style=\"\{declaration}\"]";
+    }
+
+    /**
+     * Gets the style of a colour.
+     *
+     * @param colorEnum the colour to be applied
+     * @return  the style setting the colour
+     * @throws NullPointerException if {@code colorEnum == null}
+     */
+    public static Style color(Colors colorEnum) {
+        return COLORS[colorEnum.ordinal()];
+    }
+
+    /**
+     * Gets the style of a font.
+     *
+     * @param fontEnum  the font to be applied
+     * @return  the style setting the font
+     * @throws NullPointerException if {@code fontEnum == null}
+     */
+    public static Style font(Fonts fontEnum) {
+        return FONTS[fontEnum.ordinal()];
+    }
+
+    // getter for the opening tag of this style
+    public String openingTag() {
+        return openingTag;
+    }
+
+    /**
+     * Surrounds a text with the tags of this style.
+     *
+     * @param selectedText  the text to be styled
+     * @return  the styled text
+     */
+    public String apply(String selectedText) {
+        return STR."\{openingTag}\{selectedText}\{CLOSING_TAG}";
+    }
+}
@@ -0,0 +1,262 @@
+package notebookapplication.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Package-private utility class that rewrites the style tags of a text into an equivalent
+ *   but smaller form, used by {@link NotePage#normalizeStyles()}.
+ * The style tags nest like CSS, i.e. the text inside a tag takes the declarations of
+ *   every enclosing tag, and the declarations of the inner tags override the outer ones.
+ *   The rewriting keeps the style of every char while it:
+ * <ul>
+ *     <li>removes the declarations overridden later in the same tag</li>
+ *     <li>removes the declarations already inherited from an enclosing tag</li>
+ *     <li>removes the empty tags and unwraps the tags without any declaration left</li>
+ *     <li>merges a tag containing only another tag into a single tag</li>
+ *     <li>merges adjacent tags with the same declarations</li>
+ * </ul>
+ * The text is parsed and rewritten in one pass. If its style tags are not balanced,
+ *   it is left unchanged.
+ */
+final class StyleNormalizer {
+    private static final String OPENING_TAG = "[style=\"";
+    private static final String CLOSING_TAG = "[/style]";
+
+    private StyleNormalizer() {
+        // utility class, not to be instantiated
+    }
+
+    /**
+     * Rewrites the style tags of a text into an equivalent but smaller form.
+     *
+     * @param text  the text to be normalised
+     * @return  the normalised text, or the same text if its style tags are not balanced
+     */
+    static String normalize(CharSequence text) {
+        List<Object> nodes = parse(text);
+        if (nodes == null) {
+            return text.toString();
+        }
+
+        StringBuilder builder = new StringBuilder(text.length());
+        write(normalize(nodes, Map.of()), builder);
+        return builder.toString();
+    }
+
+    /**
+     * Private auxiliary method to parse a text into a tree of strings and style elements.
+     *
+     * @param text  the text to be parsed
+     * @return  the top-level nodes, or null if the style tags are not balanced
+     */
+    private static List<Object> parse(CharSequence text) {
+        List<List<Object>> stack = new ArrayList<>();
+        List<StyleElement> openElements = new ArrayList<>();
+        stack.add(new ArrayList<>());
+
+        int textStart = 0;
+        int position = 0;
+        while (position < text.length()) {
+            int tagLength = Markup.tagLengthAt(text, position);
+            boolean opening = tagLength > 0 && Markup.startsWith(text, position, OPENING_TAG);
+            boolean closing = tagLength > 0 && Markup.startsWith(text, position, CLOSING_TAG);
+            if (!opening && !closing) {
+                position += Math.max(tagLength, 1);
+                continue;
+            }
+
+            if (textStart < position) {
+                stack.getLast().add(text.subSequence(textStart, position).toString());
+            }
+            if (opening) {
+                String css = text.subSequence(position + OPENING_TAG.length(),
+                        position + tagLength - 2).toString();
+                StyleElement element = StyleElement.parse(css);
+                stack.getLast().add(element);
+                stack.add(element.children);
+                openElements.add(element);
+            } else {
+                if (openElements.isEmpty()) {
+                    return null;
+                }
+                openElements.removeLast();
+                stack.removeLast();
+            }
+            position += tagLength;
+            textStart = position;
+        }
+
+        if (!openElements.isEmpty()) {
+            return null;
+        }
+        if (textStart < text.length()) {
+            stack.getLast().add(text.subSequence(textStart, text.length()).toString());
+        }
+        return stack.getFirst();
+    }
+
+    /**
+     * Private auxiliary method to normalise a list of nodes, bottom-up.
+     *
+     * @param nodes the nodes to be normalised
+     * @param inherited the declarations inherited from the enclosing elements
+     * @return  the normalised nodes
+     */
+    private static List<Object> normalize(List<Object> nodes, Map<String, String> inherited) {
+        List<Object> result = new ArrayList<>(nodes.size());
+        for (Object node : nodes) {
+            if (!(node instanceof StyleElement element)) {
+                append(result, node);
+                continue;
+            }
+
+            StyleElement normalized = element.without(inherited);
+            Map<String, String> effective = new LinkedHashMap<>(inherited);
+            effective.putAll(normalized.declarations);
+            List<Object> children = normalize(element.children, effective);
+            if (children.isEmpty()) {
+                continue;
+            }
+            if (normalized.declarations.isEmpty()) {
+                children.forEach(child -> append(result, child));
+                continue;
+            }
+
+            if (children.size() == 1 && children.getFirst() instanceof StyleElement only) {
+                // the only child already lost the declarations equal to this element
+                normalized = normalized.mergedWith(only);
+                children = only.children;
+            }
+            normalized.children.addAll(children);
+            append(result, normalized);
+        }
+        return result;
+    }
+
+    /**
+     * Private auxiliary method to append a normalised node to a list, merging it with
+     *      the last node if both are strings or elements with the same declarations.
+     *
+     * @param nodes the list of normalised nodes
+     * @param node  the node to be appended
+     */
+    private static void append(List<Object> nodes, Object node) {
+        Object last = nodes.isEmpty() ? null : nodes.getLast();
+        if (last instanceof String lastString && node instanceof String string) {
+            nodes.set(nodes.size() - 1, lastString + string);
+        } else if (last instanceof StyleElement lastElement && node instanceof StyleElement element
+                && lastElement.declarations.equals(element.declarations)) {
+            // the children at the seam may be mergeable as well
+            element.children.forEach(child -> append(lastElement.children, child));
+        } else {
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * Private auxiliary method to write the normalised nodes back as text.
+     *
+     * @param nodes the nodes to be written
+     * @param builder   the builder receiving the text
+     */
+    private static void write(List<Object> nodes, StringBuilder builder) {
+        for (Object node : nodes) {
+            if (node instanceof StyleElement element) {
+                builder.append(OPENING_TAG).append(element.css()).append("\"]");
+                write(element.children, builder);
+                builder.append(CLOSING_TAG);
+            } else {
+                builder.append((String) node);
+            }
+        }
+    }
+
+    /**
+     * A style tag with its declarations and the nodes it contains.
+     */
+    private static final class StyleElement {
+        /** The declarations by property, in the order they first appear. */
+        private final Map<String, String> declarations;
+
+        /** The strings and elements contained, in order. */
+        private final List<Object> children = new ArrayList<>();
+
+        /** The original style attribute, kept while the declarations are unchanged. */
+        private final String source;
+
+        /**
+         * Constructs a StyleElement without children.
+         *
+         * @param declarations  the declarations by property
+         * @param source    the original style attribute, null if it has to be rebuilt
+         */
+        private StyleElement(Map<String, String> declarations, String source) {
+            this.declarations = declarations;
+            this.source = source;
+        }
+
+        /**
+         * Parses the style attribute of a tag, such as {@code -fx-fill: red;}.
+         * A declaration overridden later in the same attribute is removed.
+         *
+         * @param css   the style attribute
+         * @return  the element without children
+         */
+        private static StyleElement parse(String css) {
+            Map<String, String> declarations = new LinkedHashMap<>();
+            boolean overridden = false;
+            for (String declaration : css.split(";")) {
+                if (declaration.isBlank()) {
+                    continue;
+                }
+                int colon = declaration.indexOf(':');
+                String property = (colon < 0 ? declaration : declaration.substring(0, colon))
+                        .trim();
+                String value = colon < 0 ? "" : declaration.substring(colon + 1).trim();
+                overridden |= declarations.put(property, value) != null;
+            }
+            return new StyleElement(declarations, overridden ? null : css);
+        }
+
+        /**
+         * Creates a copy of this element without children and without the declarations
+         *      that have the same value in the inherited ones.
+         *
+         * @param inherited the declarations inherited from the enclosing elements
+         * @return  the copy of this element
+         */
+        private StyleElement without(Map<String, String> inherited) {
+            Map<String, String> kept = new LinkedHashMap<>(declarations);
+            kept.entrySet().removeIf(
+                    entry -> entry.getValue().equals(inherited.get(entry.getKey())));
+            return new StyleElement(kept, kept.size() == declarations.size() ? source : null);
+        }
+
+        /**
+         * Creates an element without children with the declarations of this element,
+         *      overridden by the declarations of the given inner element.
+         *
+         * @param inner the only element contained by this element
+         * @return  the merged element
+         */
+        private StyleElement mergedWith(StyleElement inner) {
+            Map<String, String> merged = new LinkedHashMap<>(declarations);
+            merged.putAll(inner.declarations);
+            return new StyleElement(merged, null);
+        }
+
+        // gets the style attribute, rebuilt from the declarations if they changed
+        private String css() {
+            if (source != null) {
+                return source;
+            }
+            StringBuilder css = new StringBuilder();
+            declarations.forEach((property, value) -> css.append(css.isEmpty() ? "" : " ")
+                    .append(value.isEmpty() ? property : STR."\{property}: \{value}").append(';'));
+            return css.toString();
+        }
+    }
+}
@@ -20,4 +20,32 @@ public enum Symbols {
     Symbols(String symbol) {
         this.symbol = symbol;
     }
+
+    /**
+     * Gets the prefix that is put in front of a line when this symbol is inserted,
+     *   i.e. the symbol followed by two spaces.
+     *
+     * @return  the line prefix of this symbol
+     */
+    public String prefix() {
+        return STR."\{symbol}  ";
+    }
+
+    /**
+     * Finds the symbol whose prefix starts at the given position of the text.
+     *
+     * @param text  the text to be checked
+     * @param position  the position where the prefix is expected to start,
+     *                  normally the start of a line
+     * @return  the symbol whose prefix is found at {@code position},
+     *      or null if there is no such symbol
+     */
+    static Symbols prefixAt(CharSequence text, int position) {
+        for (Symbols symbolEnum : values()) {
+            if (Markup.startsWith(text, position, symbolEnum.prefix())) {
+                return symbolEnum;
+            }
+        }
+        return null;
+    }
 }
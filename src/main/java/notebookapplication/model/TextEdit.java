@@ -0,0 +1,62 @@
+package notebookapplication.model;
+
+/**
+ * Represents one range edit on the content of a {@link NotePage}.
+ * The positions always refer to the content before any edit of the same batch
+ *   is applied, so that callers do not need to rebase the offsets themselves.
+ * An insertion has {@code startPosition == endPosition}, and a deletion has
+ *   an empty {@code newContent}.
+ *
+ * @param startPosition the start position of the content to be replaced
+ * @param endPosition   the end position of the content to be replaced
+ * @param newContent    the new content to be put in the range
+ */
+public record TextEdit(int startPosition, int endPosition, String newContent) {
+    /**
+     * Constructs a TextEdit, checking that the range and the content are valid.
+     *
+     * @pre {@code 0 <= startPosition <= endPosition} && {@code newContent != null}
+     * @throws IllegalArgumentException if the range is invalid
+     * @throws NullPointerException if {@code newContent == null}
+     */
+    public TextEdit {
+        if (startPosition < 0 || startPosition > endPosition) {
+            throw new IllegalArgumentException(
+                    STR."Edit range \{startPosition} to \{endPosition} is invalid");
+        }
+        if (newContent == null) {
+            throw new NullPointerException("New content of an edit cannot be null");
+        }
+    }
+
+    /**
+     * Creates an edit that inserts content at the specified caret position.
+     *
+     * @param caretPosition the position where the content will be inserted
+     * @param content   the content to be inserted
+     * @return  the insertion edit
+     */
+    public static TextEdit insert(int caretPosition, String content) {
+        return new TextEdit(caretPosition, caretPosition, content);
+    }
+
+    /**
+     * Creates an edit that deletes content between the specified positions.
+     *
+     * @param startPosition the start position of the content to be deleted
+     * @param endPosition   the end position of the content to be deleted
+     * @return  the deletion edit
+     */
+    public static TextEdit delete(int startPosition, int endPosition) {
+        return new TextEdit(startPosition, endPosition, "");
+    }
+
+    /**
+     * Gets the change of content length caused by this edit.
+     *
+     * @return  the number of characters added, negative if characters are removed
+     */
+    public int lengthDelta() {
+        return newContent.length() - (endPosition - startPosition);
+    }
+}
@@ -5,7 +5,9 @@ package notebookapplication.model;
  * Provides methods to apply various styles to text such as
  *   colour, font, underline, bold, and italic.
  * Implemented by adding custom style tag to surround the text,
- *   such as {@code [style="..."]...[/style]}.
+ *   such as {@code [style="..."]...[/style]}, see {@link Style}.
+ * To style a range of a {@link NotePage} without copying it, use
+ *   {@link NotePage#applyStyle(int, int, Style)} instead.
  */
 public class TextEditing {
     /**
@@ -16,7 +18,7 @@ public class TextEditing {
      * @return  the styled text with the specified colour
      */
     public static String setColor(Colors colorEnum, String selectedText) {
-        return STR."[style=\"-fx-fill: \{colorEnum.color};\"]\{selectedText}[/style]";
+        return Style.color(colorEnum).apply(selectedText);
     }
 
     /**
@@ -27,7 +29,7 @@ public class TextEditing {
      * @return  the styled text with the specified font
      */
     public static String setFont(Fonts fontEnum, String selectedText) {
-        return STR."[style=\"-fx-font-family: \{fontEnum.font};\"]\{selectedText}[/style]";
+        return Style.font(fontEnum).apply(selectedText);
     }
 
     /**
@@ -37,7 +39,7 @@ public class TextEditing {
      * @return  the styled text with underline
      */
     public static String setUnderlined(String selectedText) {
-        return STR."[style=\"-fx-underline: true;\"]\{selectedText}[/style]";
+        return Style.UNDERLINED.apply(selectedText);
     }
 
     /**
@@ -47,7 +49,7 @@ public class TextEditing {
      * @return  the styled text with bold font weight
      */
     public static String setBold(String selectedText) {
-        return STR."[style=\"-fx-font-weight: bold;\"]\{selectedText}[/style]";
+        return Style.BOLD.apply(selectedText);
     }
 
     /**
@@ -57,6 +59,6 @@ public class TextEditing {
      * @return  the styled text with italic font style
      */
     public static String setItalic(String selectedText) {
-        return STR."[style=\"-fx-font-style: italic;\"\{selectedText}[/style]]";
+        return Style.ITALIC.apply(selectedText);
     }
 }
@@ -0,0 +1,535 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+
+/**
+ * Maps the raw offsets of the content of a {@link NotePage}, which contains the custom
+ *   style and page tags, to the visible offsets of the text shown to the user, and back.
+ * The tags are kept in a gap buffer sorted by position: the tags before the gap store
+ *   their start and the hidden length before them, the tags after the gap store their
+ *   distance to the end of the content and the hidden length from them to the end. So an
+ *   edit only moves the gap to the edited position and rescans the few tags around it,
+ *   without shifting the tags after it, and every mapping is a binary search.
+ * The index is updated from the {@code "delta"} property changes of the page, and is
+ *   rebuilt if the page changed without them, e.g. by {@code setContent}. The page only
+ *   holds the index weakly, so an index dropped with its editor view stops listening.
+ * The tags are recognised like a left-to-right scan skipping every tag found, so an
+ *   incomplete tag is visible text, see {@link Markup#tagLengthAt}.
+ */
+public class VisibleOffsetIndex implements PropertyChangeListener {
+    /** The maximal number of chars before an edit that can belong to a changed tag. */
+    private static final int MAX_FIXED_TAG_LENGTH = 8;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The indexed page. */
+    private final NotePage notePage;
+
+    /** The version of the page the index is up to date with. */
+    private long version;
+
+    /** The length of the raw content. */
+    private int rawLength;
+
+    /** The total length of the tags. */
+    private int hiddenLength;
+
+    /** The start of the tags before the gap, the distance to the end after it. */
+    private int[] positions = new int[INITIAL_CAPACITY];
+
+    /** The length of the tags. */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /**
+     * The hidden length before the tags before the gap, and the hidden length from the
+     *   tags after the gap to the end, including themselves.
+     */
+    private int[] hidden = new int[INITIAL_CAPACITY];
+
+    /** The physical index of the first tag of the gap. */
+    private int gapStart;
+
+    /** The physical index of the first tag after the gap. */
+    private int gapEnd = INITIAL_CAPACITY;
+
+    /**
+     * The sorted positions of the incomplete opening tags, e.g. {@code [style="} without
+     *   its end, which can become a tag by an edit after them.
+     */
+    private int[] openingCandidates = new int[0];
+
+    /**
+     * Constructs a VisibleOffsetIndex of a page and starts listening to its edits.
+     *
+     * @param notePage  the page to be indexed
+     * @throws NullPointerException if {@code notePage == null}
+     */
+    public VisibleOffsetIndex(NotePage notePage) {
+        if (notePage == null) {
+            throw new NullPointerException("NotePage to be indexed cannot be null");
+        }
+        this.notePage = notePage;
+        rebuild();
+        notePage.addWeakPropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Stops listening to the edits of the page.
+     */
+    public void close() {
+        notePage.removePropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Updates the tags around the range changed by an edit of the page.
+     *
+     * @param evt   the property change event fired by the page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!(evt.getNewValue() instanceof ContentDelta delta)) {
+            return;
+        }
+        if (notePage.getVersion() != version + 1) {
+            rebuild(); // the page changed without a delta in between
+        } else {
+            update(delta);
+        }
+    }
+
+    /**
+     * Maps a raw offset of the content to a visible offset.
+     * An offset inside a tag is mapped to the visible offset where the tag is.
+     *
+     * @param rawOffset the raw offset
+     * @return  the visible offset
+     * @pre {@code rawOffset \in {0, ..., notePage.getContentLength()}}
+     * @throws IndexOutOfBoundsException if the precondition is violated
+     */
+    public int toVisible(int rawOffset) {
+        ensureCurrent();
+        if (rawOffset < 0 || rawOffset > rawLength) {
+            throw new IndexOutOfBoundsException(STR."Raw offset \{rawOffset} is out of bounds");
+        }
+
+        int tag = lastTagStartingAtOrBefore(rawOffset);
+        if (tag < 0) {
+            return rawOffset;
+        }
+        int start = tagStart(tag);
+        return rawOffset < start + tagLength(tag)
+                ? start - hiddenBefore(tag) : rawOffset - hiddenBefore(tag) - tagLength(tag);
+    }
+
+    /**
+     * Maps a visible offset to the raw offset of the visible char there, i.e. after
+     *      the tags before that char, such as the start of a selection.
+     *
+     * @param visibleOffset the visible offset
+     * @return  the raw offset of the visible char, or the raw length at the end
+     * @pre {@code visibleOffset \in {0, ..., getVisibleLength()}}
+     * @throws IndexOutOfBoundsException if the precondition is violated
+     */
+    public int toRaw(int visibleOffset) {
+        return toRaw(visibleOffset, true);
+    }
+
+    /**
+     * Maps a visible offset to the raw offset after the visible char before it, i.e.
+     *      before the tags after that char, such as the end of a selection.
+     *
+     * @param visibleOffset the visible offset
+     * @return  the raw offset after the previous visible char, or 0 at the start
+     * @pre {@code visibleOffset \in {0, ..., getVisibleLength()}}
+     * @throws IndexOutOfBoundsException if the precondition is violated
+     */
+    public int toRawEnd(int visibleOffset) {
+        return toRaw(visibleOffset, false);
+    }
+
+    // getter for the length of the visible text
+    public int getVisibleLength() {
+        ensureCurrent();
+        return rawLength - hiddenLength;
+    }
+
+    // getter for the number of tags of the content
+    public int getTagCount() {
+        ensureCurrent();
+        return tagCount();
+    }
+
+    /**
+     * Gets a read-only view of the visible text, i.e. the content without the tags.
+     * Every char is found through the index, and the view should only be used
+     *   until the next edit of the page.
+     *
+     * @return  the view of the visible text
+     */
+    public CharSequence getVisibleText() {
+        ensureCurrent();
+        return new VisibleText(0, rawLength - hiddenLength);
+    }
+
+    /**
+     * Private auxiliary method to map a visible offset to a raw offset.
+     *
+     * @param visibleOffset the visible offset
+     * @param afterTags true to skip the tags at the visible offset, false to stop before
+     * @return  the raw offset
+     */
+    private int toRaw(int visibleOffset, boolean afterTags) {
+        ensureCurrent();
+        if (visibleOffset < 0 || visibleOffset > rawLength - hiddenLength) {
+            throw new IndexOutOfBoundsException(
+                    STR."Visible offset \{visibleOffset} is out of bounds");
+        }
+
+        // the visible offset of the tags never decreases, find the last one before
+        int low = 0;
+        int high = tagCount() - 1;
+        int tag = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int tagVisibleOffset = tagStart(middle) - hiddenBefore(middle);
+            if (tagVisibleOffset < visibleOffset
+                    || afterTags && tagVisibleOffset == visibleOffset) {
+                tag = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return tag < 0 ? visibleOffset : visibleOffset + hiddenBefore(tag) + tagLength(tag);
+    }
+
+    /**
+     * Private auxiliary method to rescan the tags around an edit of the page.
+     * The rescan starts early enough to find the tags the edit can complete or break,
+     *   and stops as soon as the scan is back in step with the tags after the edit.
+     *
+     * @param delta the changed range of the content
+     */
+    private void update(ContentDelta delta) {
+        CharSequence text = notePage.getContentView();
+        int editStart = delta.startPosition();
+        int removedEnd = delta.oldEndPosition();
+        int lengthChange = delta.insertedLength() - delta.removedText().length();
+
+        // an incomplete opening tag still reading up to the edit may be completed by it
+        int windowStart = Math.max(0, editStart - MAX_FIXED_TAG_LENGTH);
+        int candidate = lastCandidateBefore(windowStart);
+        if (candidate >= 0 && !containsQuote(text,
+                candidate + Markup.openingPrefixLengthAt(text, candidate), editStart - 1)) {
+            windowStart = candidate;
+        }
+
+        // the rescan has to go past the end of every tag it removes
+        int scanEnd = removedEnd;
+        moveGapTo(firstTagStartingAtOrAfter(windowStart));
+        if (gapStart > 0 && positions[gapStart - 1] + lengths[gapStart - 1] > windowStart) {
+            gapStart--; // the tag contains the start of the window
+            windowStart = positions[gapStart];
+            scanEnd = Math.max(scanEnd, windowStart + lengths[gapStart]);
+        }
+        while (gapEnd < positions.length && rawLength - positions[gapEnd] < removedEnd) {
+            scanEnd = Math.max(scanEnd, rawLength - positions[gapEnd] + lengths[gapEnd]);
+            gapEnd++;
+        }
+        rawLength += lengthChange;
+        scanEnd += lengthChange;
+        int scanStart = windowStart;
+
+        int[] shiftedCandidates = Arrays.stream(openingCandidates)
+                .filter(position -> position < scanStart || position >= removedEnd)
+                .map(position -> position < scanStart ? position : position + lengthChange)
+                .toArray();
+        int[] foundCandidates = new int[4];
+        int foundCount = 0;
+
+        int position = scanStart;
+        while (true) {
+            // drop the tags after the edit that a rescanned tag runs into
+            while (gapEnd < positions.length && rawLength - positions[gapEnd] < position) {
+                scanEnd = Math.max(scanEnd, rawLength - positions[gapEnd] + lengths[gapEnd]);
+                gapEnd++;
+            }
+            if (position >= scanEnd || position >= rawLength) {
+                break;
+            }
+
+            int tagLength = Markup.tagLengthAt(text, position);
+            if (tagLength > 0) {
+                appendBeforeGap(position, tagLength);
+                position += tagLength;
+                continue;
+            }
+            if (Markup.openingPrefixLengthAt(text, position) > 0) {
+                if (foundCount == foundCandidates.length) {
+                    foundCandidates = Arrays.copyOf(foundCandidates, foundCount * 2);
+                }
+                foundCandidates[foundCount++] = position;
+            }
+            position++;
+        }
+
+        int scannedEnd = position;
+        int[] keptBefore = Arrays.stream(shiftedCandidates)
+                .filter(candidatePosition -> candidatePosition < scanStart).toArray();
+        int[] keptAfter = Arrays.stream(shiftedCandidates)
+                .filter(candidatePosition -> candidatePosition >= scannedEnd).toArray();
+        openingCandidates = new int[keptBefore.length + foundCount + keptAfter.length];
+        System.arraycopy(keptBefore, 0, openingCandidates, 0, keptBefore.length);
+        System.arraycopy(foundCandidates, 0, openingCandidates, keptBefore.length, foundCount);
+        System.arraycopy(keptAfter, 0, openingCandidates, keptBefore.length + foundCount,
+                keptAfter.length);
+
+        updateHiddenLength();
+        version = notePage.getVersion();
+    }
+
+    /**
+     * Private auxiliary method to rebuild the whole index by scanning the content.
+     */
+    private void rebuild() {
+        CharSequence text = notePage.getContentView();
+        rawLength = text.length();
+        gapStart = 0;
+        gapEnd = positions.length;
+
+        int[] candidates = new int[0];
+        int position = 0;
+        while (position < rawLength) {
+            int tagLength = Markup.tagLengthAt(text, position);
+            if (tagLength > 0) {
+                appendBeforeGap(position, tagLength);
+                position += tagLength;
+                continue;
+            }
+            if (Markup.openingPrefixLengthAt(text, position) > 0) {
+                candidates = Arrays.copyOf(candidates, candidates.length + 1);
+                candidates[candidates.length - 1] = position;
+            }
+            position++;
+        }
+        openingCandidates = candidates;
+
+        updateHiddenLength();
+        version = notePage.getVersion();
+    }
+
+    // rebuilds the index if the page changed without the index noticing
+    private void ensureCurrent() {
+        if (notePage.getVersion() != version) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Private auxiliary method to move the gap, so that the given number of tags
+     *      are before it.
+     *
+     * @param tag   the number of tags to be before the gap
+     */
+    private void moveGapTo(int tag) {
+        while (gapStart > tag) {
+            gapStart--;
+            gapEnd--;
+            int start = positions[gapStart];
+            int length = lengths[gapStart];
+            positions[gapEnd] = rawLength - start;
+            lengths[gapEnd] = length;
+            hidden[gapEnd] = length + (gapEnd + 1 < positions.length ? hidden[gapEnd + 1] : 0);
+        }
+        while (gapStart < tag) {
+            int start = rawLength - positions[gapEnd];
+            int length = lengths[gapEnd];
+            hidden[gapStart] = hiddenBeforeGap();
+            positions[gapStart] = start;
+            lengths[gapStart] = length;
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    /**
+     * Private auxiliary method to add a tag at the end of the tags before the gap,
+     *      growing the arrays if the gap is empty.
+     *
+     * @param start the raw start of the tag
+     * @param length    the length of the tag
+     */
+    private void appendBeforeGap(int start, int length) {
+        if (gapStart == gapEnd) {
+            int afterCount = positions.length - gapEnd;
+            int capacity = positions.length * 2;
+            positions = grow(positions, capacity, afterCount);
+            lengths = grow(lengths, capacity, afterCount);
+            hidden = grow(hidden, capacity, afterCount);
+            gapEnd = capacity - afterCount;
+        }
+        hidden[gapStart] = hiddenBeforeGap();
+        positions[gapStart] = start;
+        lengths[gapStart] = length;
+        gapStart++;
+    }
+
+    // copies an array into a larger one, keeping the tags after the gap at the end
+    private int[] grow(int[] array, int capacity, int afterCount) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - afterCount, grown, capacity - afterCount,
+                afterCount);
+        return grown;
+    }
+
+    // gets the hidden length of the tags before the gap
+    private int hiddenBeforeGap() {
+        return gapStart == 0 ? 0 : hidden[gapStart - 1] + lengths[gapStart - 1];
+    }
+
+    // recomputes the total hidden length from both sides of the gap
+    private void updateHiddenLength() {
+        hiddenLength = hiddenBeforeGap() + (gapEnd < positions.length ? hidden[gapEnd] : 0);
+    }
+
+    // getter for the number of tags
+    private int tagCount() {
+        return gapStart + positions.length - gapEnd;
+    }
+
+    // gets the physical index of the i-th tag
+    private int physical(int tag) {
+        return tag < gapStart ? tag : tag + gapEnd - gapStart;
+    }
+
+    // gets the raw start of the i-th tag
+    private int tagStart(int tag) {
+        return tag < gapStart ? positions[tag] : rawLength - positions[physical(tag)];
+    }
+
+    // gets the length of the i-th tag
+    private int tagLength(int tag) {
+        return lengths[physical(tag)];
+    }
+
+    // gets the hidden length before the i-th tag
+    private int hiddenBefore(int tag) {
+        return tag < gapStart ? hidden[tag] : hiddenLength - hidden[physical(tag)];
+    }
+
+    // finds the index of the last tag starting at or before a raw offset, -1 if none
+    private int lastTagStartingAtOrBefore(int rawOffset) {
+        return firstTagStartingAtOrAfter(rawOffset + 1) - 1;
+    }
+
+    // finds the index of the first tag starting at or after a raw offset
+    private int firstTagStartingAtOrAfter(int rawOffset) {
+        int low = 0;
+        int high = tagCount();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tagStart(middle) < rawOffset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // finds the last incomplete opening tag starting before a raw offset, -1 if none
+    private int lastCandidateBefore(int rawOffset) {
+        int index = Arrays.binarySearch(openingCandidates, rawOffset);
+        index = index >= 0 ? index - 1 : -index - 2;
+        return index >= 0 ? openingCandidates[index] : -1;
+    }
+
+    // checks if the text contains a quotation mark between two positions
+    private static boolean containsQuote(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '"') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A read-only view of a range of the visible text.
+     * The chars are read in order through the index, and the raw offset of the last
+     *   char read is kept so sequential reads do not search the index again.
+     */
+    private final class VisibleText implements CharSequence {
+        private final int start;
+        private final int end;
+
+        /** The visible and raw offsets of the last char read, -1 if none. */
+        private int lastVisible = -1;
+        private int lastRaw;
+
+        /**
+         * Constructs a view of the visible text between two visible offsets.
+         *
+         * @param start the start visible offset
+         * @param end   the end visible offset
+         */
+        private VisibleText(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(STR."Index \{index} is out of bounds");
+            }
+
+            CharSequence text = notePage.getContentView();
+            int visibleOffset = start + index;
+            int rawOffset;
+            if (lastVisible >= 0 && visibleOffset == lastVisible + 1
+                    && Markup.tagLengthAt(text, lastRaw + 1) == 0) {
+                rawOffset = lastRaw + 1;
+            } else {
+                rawOffset = toRaw(visibleOffset);
+            }
+            lastVisible = visibleOffset;
+            lastRaw = rawOffset;
+            return text.charAt(rawOffset);
+        }
+
+        @Override
+        public CharSequence subSequence(int subStart, int subEnd) {
+            if (subStart < 0 || subStart > subEnd || subEnd > end - start) {
+                throw new IndexOutOfBoundsException(
+                        STR."Range \{subStart} to \{subEnd} is out of bounds");
+            }
+            return new VisibleText(start + subStart, start + subEnd);
+        }
+
+        @Override
+        public String toString() {
+            CharSequence text = notePage.getContentView();
+            StringBuilder builder = new StringBuilder(end - start);
+            int rawOffset = toRaw(start);
+            int rawEnd = toRawEnd(end);
+            int tag = firstTagStartingAtOrAfter(rawOffset);
+            while (rawOffset < rawEnd) {
+                // copy the visible chars up to the next tag, then skip it
+                int next = tag < tagCount() ? Math.min(tagStart(tag), rawEnd) : rawEnd;
+                builder.append(text, rawOffset, next);
+                rawOffset = tag < tagCount()
+                        ? Math.max(next, tagStart(tag) + tagLength(tag)) : next;
+                tag++;
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package notebookapplication.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Provides word completion drawn from the vocabulary of the watched note pages.
+ * The words are kept lower-cased inside a {@link WordTrie}, which is updated from the
+ *   {@code "delta"} property changes of every watched {@link NotePage}, so only the
+ *   lines touched by an edit are rescanned.
+ * The custom style tags, page tags and {@link Symbols} prefixes are not counted as words.
+ */
+public class WordCompletion implements PropertyChangeListener {
+    /** The trie that counts the words of all the watched pages. */
+    private WordTrie trie;
+
+    /**
+     * Constructs an empty WordCompletion with the given bound of distinct words.
+     *
+     * @param maxWords  the maximal number of distinct words remembered
+     */
+    public WordCompletion(int maxWords) {
+        trie = new WordTrie(maxWords);
+    }
+
+    /**
+     * Starts watching a note page, so its edits update the vocabulary.
+     * The page only holds this completion weakly, so a completion dropped together with
+     *   its editor view stops being updated without being unwatched.
+     *
+     * @param notePage  the page to be watched
+     * @param countContent  true if the current content should be counted,
+     *                      false if it is already counted by a loaded snapshot
+     */
+    public void watch(NotePage notePage, boolean countContent) {
+        if (countContent) {
+            countWords(notePage.getContentView(), 0, notePage.getContentLength(), 1);
+        }
+        notePage.addWeakPropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Stops watching a note page, e.g. when it is deleted.
+     *
+     * @param notePage  the page to be no longer watched
+     * @param uncountContent    true if the words of the current content should be removed
+     *                          from the vocabulary
+     */
+    public void unwatch(NotePage notePage, boolean uncountContent) {
+        notePage.removePropertyChangeListener("delta", this);
+        if (uncountContent) {
+            countWords(notePage.getContentView(), 0, notePage.getContentLength(), -1);
+        }
+    }
+
+    /**
+     * Gets the most frequent words starting with the given prefix, ignoring the case.
+     *
+     * @param prefix    the prefix typed by the user
+     * @param limit the maximal number of completions to be returned
+     * @return  at most {@code limit} lower-cased words, from the most frequent
+     */
+    public List<String> complete(String prefix, int limit) {
+        return trie.complete(prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    /**
+     * Updates the vocabulary with the lines touched by an edit of a watched page.
+     * The words of the touched lines before the edit are rebuilt from the removed text
+     *   of the {@link ContentDelta}, and replaced with the words after the edit.
+     *
+     * @param evt   the property change event fired by a watched page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!"delta".equals(evt.getPropertyName())
+                || !(evt.getSource() instanceof NotePage notePage)
+                || !(evt.getNewValue() instanceof ContentDelta delta)) {
+            return;
+        }
+
+        CharSequence content = notePage.getContentView();
+        int lineStart = delta.startPosition();
+        while (lineStart > 0 && content.charAt(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        int lineEnd = delta.newEndPosition();
+        while (lineEnd < content.length() && content.charAt(lineEnd) != '\n') {
+            lineEnd++;
+        }
+
+        String oldLines = content.subSequence(lineStart, delta.startPosition())
+                + delta.removedText()
+                + content.subSequence(delta.newEndPosition(), lineEnd);
+        countWords(oldLines, 0, oldLines.length(), -1);
+        countWords(content, lineStart, lineEnd, 1);
+    }
+
+    /**
+     * Saves a snapshot of the vocabulary, so it survives a restart of the application.
+     *
+     * @param path  the file to save the snapshot to
+     * @throws IOException if writing the file fails
+     */
+    public void saveSnapshot(Path path) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(path))) {
+            trie.writeSnapshot(output);
+        }
+    }
+
+    /**
+     * Replaces the vocabulary with a snapshot saved by {@link #saveSnapshot}.
+     * The pages counted in the snapshot should be watched with {@code countContent == false}.
+     *
+     * @param path  the file to load the snapshot from
+     * @throws IOException if reading the file fails or the snapshot is invalid
+     */
+    public void loadSnapshot(Path path) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+            trie = WordTrie.readSnapshot(input);
+        }
+    }
+
+    // getter for the number of distinct words in the vocabulary
+    public int vocabularySize() {
+        return trie.size();
+    }
+
+    /**
+     * Private auxiliary method to add or remove the words inside a range of text.
+     *
+     * @param text  the text containing the words
+     * @param startPosition the start position of the range
+     * @param endPosition   the end position of the range
+     * @param amount    1 to add the words, -1 to remove them
+     */
+    private void countWords(CharSequence text, int startPosition, int endPosition, int amount) {
+        Markup.forEachWord(text, startPosition, endPosition, (wordStart, wordEnd) ->
+                trie.add(text.subSequence(wordStart, wordEnd).toString()
+                        .toLowerCase(Locale.ROOT), amount));
+    }
+}
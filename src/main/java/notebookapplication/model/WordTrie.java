@@ -0,0 +1,351 @@
+package notebookapplication.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A frequency-weighted trie of words, used for word completion.
+ * Every node keeps the highest frequency inside its subtree, so that the top-k
+ *   completions of a prefix are found with a best-first search that never visits
+ *   the subtrees that cannot contain a better word.
+ * The number of distinct words is bounded by {@code maxWords}; when the bound is
+ *   exceeded, the least frequent words are pruned, so the frequencies are only
+ *   approximate afterwards.
+ *
+ * @inv {@code size() <= maxWords}
+ */
+public class WordTrie {
+    /** The magic number at the start of a snapshot. */
+    private static final int SNAPSHOT_MAGIC = 0x574f5244;
+
+    /** The version of the snapshot format. */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /** The maximal number of distinct words kept in the trie. */
+    private final int maxWords;
+
+    /** The root node of the trie, representing the empty prefix. */
+    private final Node root = new Node();
+
+    /** The number of distinct words with a positive frequency. */
+    private int size;
+
+    /**
+     * Constructs an empty WordTrie with the given bound of distinct words.
+     *
+     * @param maxWords  the maximal number of distinct words kept in the trie
+     * @pre {@code maxWords > 0}
+     * @throws IllegalArgumentException if {@code maxWords <= 0}
+     */
+    public WordTrie(int maxWords) {
+        if (maxWords <= 0) {
+            throw new IllegalArgumentException("Maximal number of words must be positive");
+        }
+        this.maxWords = maxWords;
+    }
+
+    /**
+     * Adds the given amount to the frequency of a word.
+     * A negative amount removes occurrences of the word, and the word is removed
+     *   from the trie when its frequency is no longer positive.
+     *
+     * @param word  the word to be counted
+     * @param amount    the amount to be added to the frequency
+     * @pre {@code word != null} && {@code !word.isEmpty()}
+     * @throws IllegalArgumentException if {@code word} is null or empty
+     */
+    public void add(CharSequence word, int amount) {
+        if (word == null || word.isEmpty()) {
+            throw new IllegalArgumentException("Word cannot be null or empty");
+        }
+        if (amount == 0) {
+            return;
+        }
+
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = amount > 0 ? node.childOrCreate(word.charAt(i)) : node.child(word.charAt(i));
+            if (node == null) {
+                return; // removing a word that is not in the trie
+            }
+            path[i + 1] = node;
+        }
+
+        int oldCount = node.count;
+        node.count = Math.max(0, oldCount + amount);
+        if (oldCount == 0 && node.count > 0) {
+            size++;
+        } else if (oldCount > 0 && node.count == 0) {
+            size--;
+        }
+
+        // update the subtree maxima bottom-up, dropping nodes that became empty
+        for (int i = word.length(); i >= 0; i--) {
+            path[i].updateMaxCount();
+            if (i > 0 && path[i].isEmpty()) {
+                path[i - 1].removeChild(word.charAt(i - 1));
+            }
+        }
+
+        if (size > maxWords) {
+            prune();
+        }
+    }
+
+    /**
+     * Gets the frequency of a word.
+     *
+     * @param word  the word to be looked up
+     * @return  the frequency of {@code word}, 0 if it is not in the trie
+     */
+    public int count(CharSequence word) {
+        Node node = find(word);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Gets the most frequent words starting with the given prefix.
+     * Words with the same frequency are ordered alphabetically.
+     *
+     * @param prefix    the prefix typed by the user
+     * @param limit the maximal number of completions to be returned
+     * @return  at most {@code limit} words starting with {@code prefix},
+     *      from the most frequent to the least frequent
+     */
+    public List<String> complete(CharSequence prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        Node start = find(prefix);
+        if (start == null || limit <= 0) {
+            return completions;
+        }
+
+        // entries are either a subtree to be expanded, or a word to be returned
+        PriorityQueue<Entry> queue = new PriorityQueue<>(
+                Comparator.comparingInt(Entry::priority).reversed()
+                        .thenComparing(Entry::word));
+        queue.add(new Entry(start, prefix.toString(), start.maxCount, false));
+        while (!queue.isEmpty() && completions.size() < limit) {
+            Entry entry = queue.poll();
+            if (entry.isWord()) {
+                completions.add(entry.word());
+                continue;
+            }
+
+            Node node = entry.node();
+            if (node.count > 0) {
+                queue.add(new Entry(node, entry.word(), node.count, true));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                Node child = node.children[i];
+                queue.add(new Entry(child, entry.word() + node.keys[i], child.maxCount, false));
+            }
+        }
+        return completions;
+    }
+
+    // getter for the number of distinct words
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes a snapshot of all words and their frequencies to the output stream,
+     *      so that the trie can be restored by {@link #readSnapshot} after a restart.
+     *
+     * @param outputStream  the stream to write the snapshot to
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeSnapshot(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(SNAPSHOT_MAGIC);
+        output.writeInt(SNAPSHOT_VERSION);
+        output.writeInt(maxWords);
+        output.writeInt(size);
+
+        List<String> words = new ArrayList<>(size);
+        List<Integer> counts = new ArrayList<>(size);
+        collect(root, new StringBuilder(), words, counts);
+        for (int i = 0; i < words.size(); i++) {
+            output.writeUTF(words.get(i));
+            output.writeInt(counts.get(i));
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads a WordTrie from a snapshot written by {@link #writeSnapshot}.
+     *
+     * @param inputStream   the stream to read the snapshot from
+     * @return  the restored WordTrie
+     * @throws IOException if reading from the stream fails or the snapshot is invalid
+     */
+    public static WordTrie readSnapshot(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Input is not a word trie snapshot");
+        }
+
+        int maxWords = input.readInt();
+        int wordCount = input.readInt();
+        if (maxWords <= 0 || wordCount < 0) {
+            throw new IOException("Word trie snapshot is corrupted");
+        }
+
+        WordTrie trie = new WordTrie(maxWords);
+        for (int i = 0; i < wordCount; i++) {
+            String word = input.readUTF();
+            int count = input.readInt();
+            if (!word.isEmpty() && count > 0) {
+                trie.add(word, count);
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * Private auxiliary method to find the node of a word or a prefix.
+     *
+     * @param word  the word or prefix to be found
+     * @return  the node of {@code word}, or null if there is no such node
+     */
+    private Node find(CharSequence word) {
+        Node node = root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Private auxiliary method to remove the least frequent words, so that only
+     *      three quarters of {@code maxWords} are kept.
+     * Pruning more than needed makes it happen rarely, so adding words stays cheap.
+     */
+    private void prune() {
+        List<String> words = new ArrayList<>(size);
+        List<Integer> counts = new ArrayList<>(size);
+        collect(root, new StringBuilder(), words, counts);
+
+        int[] sortedCounts = counts.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sortedCounts);
+        int keep = Math.max(1, maxWords * 3 / 4);
+        int threshold = sortedCounts[sortedCounts.length - keep];
+
+        // words at the threshold are removed as well, unless nothing would be removed
+        for (int i = 0; i < words.size() && size > keep; i++) {
+            if (counts.get(i) < threshold
+                    || (counts.get(i) == threshold && sortedCounts[0] == threshold)) {
+                add(words.get(i), -counts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to collect all words and frequencies of a subtree.
+     *
+     * @param node  the root of the subtree
+     * @param word  the word of {@code node}, used as a buffer during the traversal
+     * @param words the list that collects the words
+     * @param counts    the list that collects the frequencies of the words
+     */
+    private void collect(Node node, StringBuilder word,
+                         List<String> words, List<Integer> counts) {
+        if (node.count > 0) {
+            words.add(word.toString());
+            counts.add(node.count);
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            word.append(node.keys[i]);
+            collect(node.children[i], word, words, counts);
+            word.setLength(word.length() - 1);
+        }
+    }
+
+    /**
+     * An entry of the best-first search of {@code complete}.
+     *
+     * @param node  the node of the entry
+     * @param word  the word or prefix of the node
+     * @param priority  the frequency used to order the entries
+     * @param isWord    true if the entry is a word to be returned,
+     *                  false if it is a subtree to be expanded
+     */
+    private record Entry(Node node, String word, int priority, boolean isWord) {
+    }
+
+    /**
+     * A node of the trie, keeping its children in sorted arrays to save memory.
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        /** The frequency of the word ending at this node. */
+        private int count;
+
+        /** The highest frequency inside the subtree of this node. */
+        private int maxCount;
+
+        private Node child(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertion = -index - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insertion, keys, insertion + 1, childCount - insertion);
+            System.arraycopy(children, insertion, children, insertion + 1,
+                    childCount - insertion);
+            keys[insertion] = key;
+            children[insertion] = new Node();
+            childCount++;
+            return children[insertion];
+        }
+
+        private void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        private void updateMaxCount() {
+            maxCount = count;
+            for (int i = 0; i < childCount; i++) {
+                maxCount = Math.max(maxCount, children[i].maxCount);
+            }
+        }
+
+        private boolean isEmpty() {
+            return count == 0 && childCount == 0;
+        }
+    }
+}
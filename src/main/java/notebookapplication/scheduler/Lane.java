@@ -0,0 +1,34 @@
+package notebookapplication.scheduler;
+
+/**
+ * The priority lanes of the {@link WorkScheduler}, from the most urgent.
+ * A lane only starts new work when no more urgent lane has work waiting, and every lane
+ *   runs at most its concurrency limit of tasks at once.
+ */
+public enum Lane {
+    /** The work the user is waiting for, e.g. the results of the quick switcher. */
+    INTERACTIVE(2),
+
+    /** The work following the edits, e.g. checking and indexing the edited page. */
+    NEAR_REAL_TIME(2),
+
+    /** The work nobody waits for, e.g. the export or the statistics of the notebook. */
+    BULK(1);
+
+    /** The number of tasks of the lane run at once by default. */
+    private final int defaultConcurrency;
+
+    /**
+     * Constructs a Lane.
+     *
+     * @param defaultConcurrency    the number of tasks of the lane run at once by default
+     */
+    Lane(int defaultConcurrency) {
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    // getter for the number of tasks of the lane run at once by default
+    public int defaultConcurrency() {
+        return defaultConcurrency;
+    }
+}
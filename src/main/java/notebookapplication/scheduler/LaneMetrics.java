@@ -0,0 +1,34 @@
+package notebookapplication.scheduler;
+
+/**
+ * A snapshot of the metrics of one lane of the {@link WorkScheduler}.
+ * The wait time of a task is the time between its first submission and its start, so a
+ *   task coalesced with later submissions keeps its first submission time.
+ *
+ * @param lane  the lane
+ * @param queued    the number of tasks waiting
+ * @param running   the number of tasks running
+ * @param submitted the number of tasks submitted, including the coalesced and rejected ones
+ * @param coalesced the number of tasks merged into a task already waiting
+ * @param rejected  the number of tasks rejected because the lane was full
+ * @param completed the number of tasks finished, including the failed ones
+ * @param failed    the number of tasks that threw an exception
+ * @param meanWaitNanos the mean wait time of the started tasks, 0 before any start
+ * @param maxWaitNanos  the maximal wait time of the started tasks
+ */
+public record LaneMetrics(Lane lane, int queued, int running, long submitted, long coalesced,
+                          long rejected, long completed, long failed, long meanWaitNanos,
+                          long maxWaitNanos) {
+    /**
+     * Writes the metrics as a JSON object.
+     *
+     * @return  the JSON object
+     */
+    public String toJson() {
+        return STR."{\"lane\":\"\{lane}\",\"queued\":\{queued},\"running\":\{running},"
+                + STR."\"submitted\":\{submitted},\"coalesced\":\{coalesced},"
+                + STR."\"rejected\":\{rejected},\"completed\":\{completed},"
+                + STR."\"failed\":\{failed},\"meanWaitNanos\":\{meanWaitNanos},"
+                + STR."\"maxWaitNanos\":\{maxWaitNanos}}";
+    }
+}
@@ -0,0 +1,483 @@
+package notebookapplication.scheduler;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.LongSupplier;
+import notebookapplication.model.ModelObserver;
+import notebookapplication.model.NotePage;
+
+/**
+ * Schedules the background work of the application, e.g. indexing, autosave, export and
+ *   statistics, in the priority {@link Lane}s, so that it neither blocks the JavaFX
+ *   thread nor delays the more urgent work.
+ * Every task runs on its own virtual thread, so a task blocked on I/O holds no platform
+ *   thread, and every lane runs at most its concurrency limit of tasks at once. A lane only
+ *   starts a task when no more urgent lane has a task waiting.
+ * A task keyed by a kind of work and a page or group replaces the waiting task with the
+ *   same key, e.g. the autosave of a page submitted on every edit runs once with the last
+ *   submission, and both submissions get the same future.
+ * Backpressure: every lane holds at most {@code queueCapacity} waiting tasks, more are
+ *   rejected, and the {@link Lane#BULK} lane starts no task while the edit rate is above
+ *   {@code burstEditsPerSecond}, as told by {@link #recordEdit()} or by the
+ *   {@code "delta"} property changes of the watched pages.
+ */
+public class WorkScheduler implements PropertyChangeListener, AutoCloseable {
+    /** The number of waiting tasks of a lane by default. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** The edit rate above which the bulk work is paused by default. */
+    public static final int DEFAULT_BURST_EDITS_PER_SECOND = 20;
+
+    /** The length of the windows counting the edits. */
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    /** The state of every lane, in priority order. */
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+
+    private final int queueCapacity;
+    private final int burstEditsPerSecond;
+
+    /** The clock of the wait times and the edit rate, in nanoseconds. */
+    private final LongSupplier nanoClock;
+
+    /** The factory of the virtual threads running the tasks. */
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("work-", 0).factory();
+
+    /** The start of the current window counting the edits. */
+    private long windowStart;
+    private int windowEdits;
+    private int previousWindowEdits;
+
+    /** True while a thread waits to start the bulk work paused by the backpressure. */
+    private boolean wakeupPending;
+    private boolean closed;
+
+    /**
+     * Constructs a WorkScheduler with the default concurrency limits of the lanes, the
+     *      default queue capacity and the default burst edit rate.
+     */
+    public WorkScheduler() {
+        this(defaultConcurrencyLimits(), DEFAULT_QUEUE_CAPACITY, DEFAULT_BURST_EDITS_PER_SECOND);
+    }
+
+    /**
+     * Constructs a WorkScheduler.
+     *
+     * @param concurrencyLimits the number of tasks run at once by every lane
+     * @param queueCapacity the maximal number of waiting tasks of every lane
+     * @param burstEditsPerSecond   the edit rate above which the bulk work is paused
+     * @pre every lane has a positive limit && {@code queueCapacity > 0}
+     *      && {@code burstEditsPerSecond > 0}
+     * @throws IllegalArgumentException if the precondition is violated
+     */
+    public WorkScheduler(Map<Lane, Integer> concurrencyLimits, int queueCapacity,
+                         int burstEditsPerSecond) {
+        this(concurrencyLimits, queueCapacity, burstEditsPerSecond, System::nanoTime);
+    }
+
+    /**
+     * Constructs a WorkScheduler with the given clock, e.g. a manual clock in tests.
+     *
+     * @param concurrencyLimits the number of tasks run at once by every lane
+     * @param queueCapacity the maximal number of waiting tasks of every lane
+     * @param burstEditsPerSecond   the edit rate above which the bulk work is paused
+     * @param nanoClock the clock in nanoseconds
+     * @throws IllegalArgumentException if a limit, the capacity or the rate is not positive
+     */
+    WorkScheduler(Map<Lane, Integer> concurrencyLimits, int queueCapacity,
+                  int burstEditsPerSecond, LongSupplier nanoClock) {
+        if (queueCapacity <= 0 || burstEditsPerSecond <= 0) {
+            throw new IllegalArgumentException("Queue capacity and burst rate must be positive");
+        }
+        for (Lane lane : Lane.values()) {
+            Integer limit = concurrencyLimits.get(lane);
+            if (limit == null || limit <= 0) {
+                throw new IllegalArgumentException(
+                        STR."Concurrency limit of lane \{lane} must be positive");
+            }
+            lanes.put(lane, new LaneState(lane, limit));
+        }
+        this.queueCapacity = queueCapacity;
+        this.burstEditsPerSecond = burstEditsPerSecond;
+        this.nanoClock = nanoClock;
+        windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * Submits a task that is never coalesced.
+     *
+     * @param lane  the lane of the task
+     * @param task  the task to be run
+     * @return  the future completed when the task has run
+     * @throws NullPointerException if {@code lane == null || task == null}
+     * @throws RejectedExecutionException if the lane is full or the scheduler is closed
+     */
+    public CompletableFuture<Void> submit(Lane lane, Runnable task) {
+        return submit(lane, new Object(), task);
+    }
+
+    /**
+     * Submits a task of a kind of work on a page or group, e.g. {@code "autosave"} of a
+     *      page. If a task of the same kind on the same target is waiting in the lane, it
+     *      is replaced by this one, which is run instead, and the same future is returned.
+     * A task already running is not replaced, so the new task runs after it.
+     *
+     * @param lane  the lane of the task
+     * @param kind  the kind of work
+     * @param target    the page or group the work is about, compared by identity
+     * @param task  the task to be run
+     * @return  the future completed when the task, or the task replacing it, has run
+     * @throws NullPointerException if any argument is null
+     * @throws RejectedExecutionException if the lane is full or the scheduler is closed
+     */
+    public CompletableFuture<Void> submit(Lane lane, String kind, ModelObserver target,
+                                          Runnable task) {
+        if (kind == null || target == null) {
+            throw new NullPointerException("Kind and target of the work cannot be null");
+        }
+        return submit(lane, new WorkKey(kind, target), task);
+    }
+
+    /**
+     * Records one edit of the user for the edit rate, and starts the bulk work paused by
+     *      a burst of edits once the rate is low again.
+     */
+    public synchronized void recordEdit() {
+        rollWindow(nanoClock.getAsLong());
+        windowEdits++;
+        dispatch();
+    }
+
+    /**
+     * Starts counting the edits of a page, which only holds this scheduler weakly.
+     *
+     * @param notePage  the page whose edits are counted
+     */
+    public void watchEdits(NotePage notePage) {
+        notePage.addWeakPropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Stops counting the edits of a page.
+     *
+     * @param notePage  the page whose edits are no longer counted
+     */
+    public void unwatchEdits(NotePage notePage) {
+        notePage.removePropertyChangeListener("delta", this);
+    }
+
+    /**
+     * Counts an edit of a watched page.
+     *
+     * @param evt   the property change event fired by a watched page
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if ("delta".equals(evt.getPropertyName())) {
+            recordEdit();
+        }
+    }
+
+    /**
+     * Gets the edit rate, i.e. the number of edits in the last full window of one second,
+     *      or in the current one if it already has more.
+     *
+     * @return  the number of edits per second
+     */
+    public synchronized int editRate() {
+        rollWindow(nanoClock.getAsLong());
+        return Math.max(windowEdits, previousWindowEdits);
+    }
+
+    /**
+     * Checks if the bulk work is paused by a burst of edits.
+     *
+     * @return  true if the edit rate is above the burst rate, false otherwise
+     */
+    public synchronized boolean isBackpressured() {
+        return editRate() > burstEditsPerSecond;
+    }
+
+    /**
+     * Gets a snapshot of the metrics of every lane.
+     *
+     * @return  the metrics of the lanes, in priority order
+     */
+    public synchronized List<LaneMetrics> metrics() {
+        List<LaneMetrics> metrics = new ArrayList<>(lanes.size());
+        for (LaneState state : lanes.values()) {
+            metrics.add(state.metrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Writes the metrics of every lane and the edit rate as a JSON object, e.g. to be
+     *      exported to a monitoring tool.
+     *
+     * @return  the JSON object
+     */
+    public synchronized String metricsJson() {
+        StringBuilder json = new StringBuilder(STR."{\"editsPerSecond\":\{editRate()},")
+                .append(STR."\"backpressured\":\{isBackpressured()},\"lanes\":[");
+        for (LaneState state : lanes.values()) {
+            json.append(state.metrics().toJson()).append(',');
+        }
+        json.setLength(json.length() - 1);
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Stops the scheduler: cancels the waiting tasks and waits for the running ones.
+     * If the calling thread is interrupted, it stops waiting and keeps its interrupt status.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (LaneState state : lanes.values()) {
+            state.queue.values().forEach(task -> task.future.cancel(false));
+            state.queue.clear();
+        }
+        try {
+            while (lanes.values().stream().anyMatch(state -> state.running > 0)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Private auxiliary method to submit a task with its key.
+     *
+     * @param lane  the lane of the task
+     * @param key   the key of the task, a WorkKey or a unique object
+     * @param runnable  the task to be run
+     * @return  the future completed when the task has run
+     * @throws NullPointerException if {@code lane == null || runnable == null}
+     * @throws RejectedExecutionException if the lane is full or the scheduler is closed
+     */
+    private synchronized CompletableFuture<Void> submit(Lane lane, Object key,
+                                                        Runnable runnable) {
+        if (lane == null || runnable == null) {
+            throw new NullPointerException("Lane and task cannot be null");
+        }
+        if (closed) {
+            throw new RejectedExecutionException("Work scheduler is closed");
+        }
+        LaneState state = lanes.get(lane);
+        state.submitted++;
+        Task waiting = state.queue.get(key);
+        if (waiting != null) {
+            waiting.runnable = runnable;
+            state.coalesced++;
+            return waiting.future;
+        }
+        if (state.queue.size() >= queueCapacity) {
+            state.rejected++;
+            throw new RejectedExecutionException(STR."Lane \{lane} is full");
+        }
+
+        Task task = new Task(runnable, nanoClock.getAsLong());
+        state.queue.put(key, task);
+        dispatch();
+        return task.future;
+    }
+
+    /**
+     * Private auxiliary method to start the waiting tasks allowed by the concurrency
+     *      limits, the priorities of the lanes and the backpressure.
+     */
+    private void dispatch() {
+        if (closed) {
+            return;
+        }
+        for (LaneState state : lanes.values()) {
+            if (state.lane == Lane.BULK && !state.queue.isEmpty() && isBackpressured()) {
+                scheduleWakeup();
+                return;
+            }
+            Iterator<Task> iterator = state.queue.values().iterator();
+            while (state.running < state.limit && iterator.hasNext()) {
+                Task task = iterator.next();
+                iterator.remove();
+                start(state, task);
+            }
+            if (!state.queue.isEmpty()) {
+                return; // the less urgent lanes wait for this one
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to start a task on a new virtual thread.
+     *
+     * @param state the lane of the task
+     * @param task  the task to be started
+     */
+    private void start(LaneState state, Task task) {
+        long waitNanos = Math.max(0, nanoClock.getAsLong() - task.submittedNanos);
+        state.started++;
+        state.totalWaitNanos += waitNanos;
+        state.maxWaitNanos = Math.max(state.maxWaitNanos, waitNanos);
+        state.running++;
+        threadFactory.newThread(() -> run(state, task)).start();
+    }
+
+    /**
+     * Private auxiliary method to run a task, then to start the next waiting tasks.
+     *
+     * @param state the lane of the task
+     * @param task  the task to be run
+     */
+    private void run(LaneState state, Task task) {
+        Throwable failure = null;
+        try {
+            task.runnable.run();
+        } catch (Throwable e) {
+            failure = e;
+        }
+
+        synchronized (this) {
+            state.running--;
+            state.completed++;
+            if (failure != null) {
+                state.failed++;
+            }
+            dispatch();
+            notifyAll();
+        }
+        // completed after the metrics are updated, so they are up to date for the caller
+        if (failure == null) {
+            task.future.complete(null);
+        } else {
+            task.future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Private auxiliary method to start a thread that dispatches the bulk work again once
+     *      the current window of edits is over.
+     */
+    private void scheduleWakeup() {
+        if (wakeupPending) {
+            return;
+        }
+        wakeupPending = true;
+        long delayNanos = Math.max(1_000_000, windowStart + WINDOW_NANOS - nanoClock.getAsLong());
+        threadFactory.newThread(() -> {
+            try {
+                Thread.sleep(Duration.ofNanos(delayNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                wakeupPending = false;
+                dispatch();
+            }
+        }).start();
+    }
+
+    /**
+     * Private auxiliary method to start a new window of edits once the current one is over.
+     *
+     * @param now   the current time of the clock
+     */
+    private void rollWindow(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < WINDOW_NANOS) {
+            return;
+        }
+        previousWindowEdits = elapsed < 2 * WINDOW_NANOS ? windowEdits : 0;
+        windowEdits = 0;
+        windowStart = now - elapsed % WINDOW_NANOS;
+    }
+
+    // gets the default concurrency limit of every lane
+    private static Map<Lane, Integer> defaultConcurrencyLimits() {
+        Map<Lane, Integer> limits = new EnumMap<>(Lane.class);
+        for (Lane lane : Lane.values()) {
+            limits.put(lane, lane.defaultConcurrency());
+        }
+        return limits;
+    }
+
+    /**
+     * The key of a task coalesced with the later tasks of the same kind on the same target.
+     *
+     * @param kind  the kind of work
+     * @param target    the page or group, which do not override equals
+     */
+    private record WorkKey(String kind, ModelObserver target) {
+    }
+
+    /**
+     * A submitted task.
+     */
+    private static final class Task {
+        /** The task to be run, replaced by the task coalesced with it. */
+        private Runnable runnable;
+        private final long submittedNanos;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * Constructs a Task.
+         *
+         * @param runnable  the task to be run
+         * @param submittedNanos    the time of the submission
+         */
+        private Task(Runnable runnable, long submittedNanos) {
+            this.runnable = runnable;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+
+    /**
+     * The waiting tasks and the counters of a lane.
+     */
+    private static final class LaneState {
+        private final Lane lane;
+        private final int limit;
+
+        /** The waiting tasks by key, in submission order. */
+        private final LinkedHashMap<Object, Task> queue = new LinkedHashMap<>();
+
+        private int running;
+        private long submitted;
+        private long coalesced;
+        private long rejected;
+        private long started;
+        private long completed;
+        private long failed;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        /**
+         * Constructs a LaneState.
+         *
+         * @param lane  the lane
+         * @param limit the number of tasks of the lane run at once
+         */
+        private LaneState(Lane lane, int limit) {
+            this.lane = lane;
+            this.limit = limit;
+        }
+
+        // gets a snapshot of the metrics of the lane
+        private LaneMetrics metrics() {
+            return new LaneMetrics(lane, queue.size(), running, submitted, coalesced, rejected,
+                    completed, failed, started == 0 ? 0 : totalWaitNanos / started,
+                    maxWaitNanos);
+        }
+    }
+}
@@ -0,0 +1 @@
+package notebookapplication.scheduler;
\ No newline at end of file
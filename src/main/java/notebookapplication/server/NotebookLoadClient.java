@@ -0,0 +1,153 @@
+package notebookapplication.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local load-test client for the {@link NotebookServer}.
+ * It discovers every page of the served notebook, then requests random pages from many
+ *   virtual threads for a fixed duration, revalidating with {@code If-None-Match} like a
+ *   browser would, and prints the throughput, the latency percentiles and the ratio of
+ *   {@code 304 Not Modified} responses.
+ * Usage: {@code NotebookLoadClient <base url> [concurrency] [seconds]}, e.g.
+ *   {@code NotebookLoadClient http://localhost:8080 64 10}.
+ */
+public class NotebookLoadClient {
+    private static final Pattern PAGE_COUNT =
+            Pattern.compile("\"index\":(\\d+),.*?\"pages\":(\\d+)");
+
+    /**
+     * Runs the load test.
+     *
+     * @param args  the base url, the number of concurrent clients and the duration in seconds
+     * @throws IOException if the notebook cannot be discovered
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: NotebookLoadClient <base url> [concurrency] [seconds]");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 10);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        List<String> pageUrls = discoverPages(client, baseUrl);
+        if (pageUrls.isEmpty()) {
+            System.err.println("The notebook has no pages to request");
+            return;
+        }
+
+        long[][] latencies = new long[concurrency][];
+        AtomicLong notModified = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int clientIndex = i;
+                executor.execute(() -> latencies[clientIndex] = runClient(client, pageUrls,
+                        deadline, clientIndex, notModified, failures));
+            }
+        }
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("requests=%d throughput=%.1f/s notModified=%.1f%% failures=%d%n",
+                all.length, all.length / seconds,
+                all.length == 0 ? 0 : 100.0 * notModified.get() / all.length, failures.get());
+        System.out.printf("latency p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms%n",
+                percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999),
+                percentile(all, 1));
+    }
+
+    /**
+     * Private auxiliary method to find the urls of all pages from the group list.
+     *
+     * @param client    the HTTP client
+     * @param baseUrl   the base url of the server
+     * @return  the urls of all pages
+     * @throws IOException if the group list cannot be requested
+     * @throws InterruptedException if interrupted while requesting
+     */
+    private static List<String> discoverPages(HttpClient client, String baseUrl)
+            throws IOException, InterruptedException {
+        String groups = client.send(HttpRequest.newBuilder(URI.create(STR."\{baseUrl}/groups"))
+                .build(), HttpResponse.BodyHandlers.ofString()).body();
+
+        List<String> pageUrls = new ArrayList<>();
+        Matcher matcher = PAGE_COUNT.matcher(groups);
+        while (matcher.find()) {
+            int pages = Integer.parseInt(matcher.group(2));
+            for (int page = 0; page < pages; page++) {
+                pageUrls.add(STR."\{baseUrl}/groups/\{matcher.group(1)}/pages/\{page}");
+            }
+        }
+        return pageUrls;
+    }
+
+    /**
+     * Private auxiliary method run by every concurrent client until the deadline.
+     *
+     * @return  the latencies of the requests in nanoseconds
+     */
+    private static long[] runClient(HttpClient client, List<String> pageUrls, long deadline,
+                                    int seed, AtomicLong notModified, AtomicLong failures) {
+        String[] etags = new String[pageUrls.size()];
+        long[] latencies = new long[1024];
+        int count = 0;
+        int next = seed;
+        while (System.nanoTime() < deadline) {
+            next = (next * 1103515245 + 12345) & Integer.MAX_VALUE;
+            int page = next % pageUrls.size();
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(pageUrls.get(page)));
+            if (etags[page] != null) {
+                request.header("If-None-Match", etags[page]);
+            }
+
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request.build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() == 304) {
+                    notModified.incrementAndGet();
+                } else if (response.statusCode() == 200) {
+                    etags[page] = response.headers().firstValue("ETag").orElse(null);
+                } else {
+                    failures.incrementAndGet();
+                }
+            } catch (IOException | InterruptedException e) {
+                failures.incrementAndGet();
+                continue;
+            }
+
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    // gets a percentile of the sorted latencies in milliseconds
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
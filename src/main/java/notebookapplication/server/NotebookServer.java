@@ -0,0 +1,544 @@
+package notebookapplication.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+
+/**
+ * A headless, read-mostly server exposing the note groups and pages of a {@link NoteFacade}
+ *   over HTTP, without starting JavaFX, so internal tools can read the notebooks.
+ * The requests are handled on virtual threads. The responses are cached, and a cached
+ *   response is only served while the model it was built from is unchanged: a page is
+ *   stamped with its version, a page list with the version of its group, which the
+ *   {@code "delta"} and {@code "pageName"} property changes of its pages increment, and
+ *   the group list with the version of the groups.
+ * The headers and the body of a response are written separately, so the server should be
+ *   launched with {@code -Dsun.net.httpserver.nodelay=true}; otherwise every response on a
+ *   kept-alive connection waits for the delayed ACK of the client.
+ * The available resources, all addressed by their index, are:
+ * <ul>
+ *     <li>{@code GET /groups} lists the groups as JSON</li>
+ *     <li>{@code GET /groups/{group}/pages} lists the pages of a group as JSON</li>
+ *     <li>{@code GET /groups/{group}/pages/{page}} gets the content of a page as UTF-8
+ *         text, supporting {@code If-None-Match} revalidation against an ETag built from
+ *         the hash and length of the page content, so it stays valid across restarts
+ *         only while the content is the same, and single {@code Range: bytes=...}
+ *         requests</li>
+ * </ul>
+ */
+public class NotebookServer implements AutoCloseable {
+    /** The maximal number of cached responses. */
+    private static final int MAX_CACHED_RESPONSES = 4096;
+
+    private static final Pattern PAGES_PATH = Pattern.compile("/groups/(\\d+)/pages");
+    private static final Pattern PAGE_PATH = Pattern.compile("/groups/(\\d+)/pages/(\\d+)");
+    private static final Pattern RANGE_HEADER = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    /** The property changes of a group that change its page list or the group list. */
+    private static final List<String> GROUP_PROPERTIES =
+            List.of("newPage", "deletePage", "changeOrder", "groupName");
+
+    /** The notebook served. */
+    private final NoteFacade noteFacade;
+
+    /** The underlying JDK HTTP server. */
+    private final HttpServer httpServer;
+
+    /** The virtual-thread executor handling the requests. */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** The cached responses by request path. */
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+
+    /** The pages and groups observed to stamp the cached responses, to be unobserved. */
+    private final Set<Object> observed = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    /** The group of every observed page, whose version is incremented by the page. */
+    private final Map<NotePage, NoteGroup> pageGroups =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /** The version of every observed group, incremented by the changes of its page list. */
+    private final Map<NoteGroup, AtomicLong> groupVersions =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /** The version of the groups, incremented by the changes of their names and sizes. */
+    private final AtomicLong groupsVersion = new AtomicLong();
+
+    /** The listener of the pages, incrementing the version of their group. */
+    private final PropertyChangeListener pageListener = this::pageChanged;
+
+    /** The listener of the groups, incrementing their version and the version of the groups. */
+    private final PropertyChangeListener groupListener = this::groupChanged;
+
+    /** The number of requests served from the cache, for monitoring. */
+    private long cacheHits;
+
+    /** The number of requests that had to build their response. */
+    private long cacheMisses;
+
+    /**
+     * Constructs a NotebookServer bound to the loopback address on the given port,
+     *      the server is not started yet.
+     *
+     * @param noteFacade    the notebook to be served
+     * @param port  the port to listen on, 0 to choose a free one
+     * @throws IOException if the port cannot be bound
+     */
+    public NotebookServer(NoteFacade noteFacade, int port) throws IOException {
+        this.noteFacade = noteFacade;
+        httpServer = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/groups", this::handle);
+    }
+
+    /**
+     * Starts serving the requests.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    // getter for the port the server listens on
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Gets the ratio of the requests served from the cache.
+     *
+     * @return  the cache hit rate between 0 and 1, 0 if nothing is served yet
+     */
+    public synchronized double cacheHitRate() {
+        long total = cacheHits + cacheMisses;
+        return total == 0 ? 0 : (double) cacheHits / total;
+    }
+
+    /**
+     * Stops the server, letting the requests being handled finish within a second,
+     *      and stops observing the model.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        executor.close();
+        synchronized (observed) {
+            for (Object source : observed) {
+                if (source instanceof NotePage notePage) {
+                    notePage.removePropertyChangeListener("delta", pageListener);
+                    notePage.removePropertyChangeListener("pageName", pageListener);
+                } else if (source instanceof NoteGroup noteGroup) {
+                    for (String propertyName : GROUP_PROPERTIES) {
+                        noteGroup.removePropertyChangeListener(propertyName, groupListener);
+                    }
+                }
+            }
+            observed.clear();
+        }
+        cache.clear();
+    }
+
+    /**
+     * Starts the server in headless mode.
+     * Usage: {@code java -Dsun.net.httpserver.nodelay=true NotebookServer <port>
+     *   <note file>...}, where every note file is loaded as one note group.
+     *
+     * @param args  the port followed by the note files
+     * @throws IOException if a note file cannot be read or the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: NotebookServer <port> <note file>...");
+            System.exit(2);
+        }
+
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            files.add(Path.of(args[i]));
+        }
+        NotebookServer server = new NotebookServer(
+                NoteFacade.load(files), Integer.parseInt(args[0]));
+        server.start();
+        System.out.println(STR."Serving \{files.size()} note groups on "
+                + STR."http://localhost:\{server.getPort()}/groups");
+    }
+
+    /**
+     * Private auxiliary method handling every request.
+     *
+     * @param exchange  the request and its response
+     * @throws IOException if sending the response fails
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())
+                    && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            CachedResponse response = cache.get(path);
+            if (response != null && !isUpToDate(response)) {
+                response = null;
+            }
+            synchronized (this) {
+                if (response != null) {
+                    cacheHits++;
+                } else {
+                    cacheMisses++;
+                }
+            }
+            if (response == null) {
+                response = buildResponse(path);
+                if (response == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                if (cache.size() >= MAX_CACHED_RESPONSES) {
+                    cache.clear();
+                }
+                cache.put(path, response);
+            }
+            send(exchange, response);
+        }
+    }
+
+    /**
+     * Private auxiliary method to check if a cached response matches the current model.
+     *
+     * @param response  the cached response
+     * @return  true if the model the response depends on is unchanged, false otherwise
+     */
+    private static boolean isUpToDate(CachedResponse response) {
+        try {
+            return response.upToDate().getAsBoolean();
+        } catch (IndexOutOfBoundsException e) {
+            return false; // the model changed while checking
+        }
+    }
+
+    /**
+     * Private auxiliary method to build the response of a path, and start observing
+     *      the pages and groups it depends on.
+     * The stamps of the response are read before the model, so a response built
+     *   concurrently with a change is never up to date.
+     *
+     * @param path  the path of the request
+     * @return  the response, or null if the path does not exist
+     */
+    private CachedResponse buildResponse(String path) {
+        try {
+            return buildResponseOrThrow(path);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null; // index too large, or the model changed while building
+        }
+    }
+
+    // builds the response of a path, see buildResponse
+    private CachedResponse buildResponseOrThrow(String path) {
+        List<NoteGroup> noteGroups = noteFacade.getNoteGroups();
+        if ("/groups".equals(path)) {
+            long version = groupsVersion.get();
+            List<NoteGroup> servedGroups = List.copyOf(noteGroups);
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < servedGroups.size(); i++) {
+                NoteGroup noteGroup = servedGroups.get(i);
+                observe(noteGroup);
+                json.append(i == 0 ? "" : ",")
+                        .append(STR."{\"index\":\{i},\"name\":\{quote(noteGroup.getGroupName())},")
+                        .append(STR."\"pages\":\{noteGroup.getNotePages().size()}}");
+            }
+            return CachedResponse.json(json.append(']'), () -> groupsVersion.get() == version
+                    && sameGroups(servedGroups));
+        }
+
+        Matcher pagesMatcher = PAGES_PATH.matcher(path);
+        if (pagesMatcher.matches()) {
+            int groupIndex = Integer.parseInt(pagesMatcher.group(1));
+            NoteGroup noteGroup = groupAt(groupIndex);
+            if (noteGroup == null) {
+                return null;
+            }
+            AtomicLong groupVersion = observe(noteGroup);
+            long version = groupVersion.get();
+
+            StringBuilder json = new StringBuilder("[");
+            List<NotePage> notePages = noteGroup.getNotePages();
+            for (int i = 0; i < notePages.size(); i++) {
+                NotePage notePage = notePages.get(i);
+                observe(notePage, noteGroup);
+                json.append(i == 0 ? "" : ",")
+                        .append(STR."{\"index\":\{i},\"name\":\{quote(notePage.getPageName())},")
+                        .append(STR."\"version\":\{notePage.getVersion()},")
+                        .append(STR."\"length\":\{notePage.getContentLength()}}");
+            }
+            return CachedResponse.json(json.append(']'), () -> groupAt(groupIndex) == noteGroup
+                    && groupVersion.get() == version);
+        }
+
+        Matcher pageMatcher = PAGE_PATH.matcher(path);
+        if (pageMatcher.matches()) {
+            int groupIndex = Integer.parseInt(pageMatcher.group(1));
+            NoteGroup noteGroup = groupAt(groupIndex);
+            int pageIndex = Integer.parseInt(pageMatcher.group(2));
+            if (noteGroup == null || pageIndex >= noteGroup.getNotePages().size()) {
+                return null;
+            }
+
+            NotePage notePage = noteGroup.getNotePages().get(pageIndex);
+            long version = notePage.getVersion();
+            // the version restarts with every load, so it cannot tell two contents apart
+            String etag = STR."\"\{Integer.toHexString(notePage.contentHash())}"
+                    + STR."-\{notePage.getContentLength()}\"";
+            return new CachedResponse(notePage.getContent().getBytes(StandardCharsets.UTF_8),
+                    "text/plain; charset=utf-8", etag, () -> groupAt(groupIndex) == noteGroup
+                            && noteGroup.getNotePages().get(pageIndex) == notePage
+                            && notePage.getVersion() == version);
+        }
+        return null;
+    }
+
+    /**
+     * Private auxiliary method to send a response, answering the conditional and
+     *      range requests from the cached bytes.
+     *
+     * @param exchange  the request and its response
+     * @param response  the cached response
+     * @throws IOException if sending the response fails
+     */
+    private void send(HttpExchange exchange, CachedResponse response) throws IOException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("ETag", response.etag());
+        responseHeaders.set("Cache-Control", "no-cache");
+        responseHeaders.set("Accept-Ranges", "bytes");
+
+        String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        if (ifNoneMatch != null && matchesEntityTag(ifNoneMatch, response.etag())) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        byte[] body = response.body();
+        int start = 0;
+        int end = body.length;
+        int status = 200;
+        String range = requestHeaders.getFirst("Range");
+        if (range != null && (requestHeaders.getFirst("If-Range") == null
+                || response.etag().equals(requestHeaders.getFirst("If-Range")))) {
+            Matcher rangeMatcher = RANGE_HEADER.matcher(range.trim());
+            if (rangeMatcher.matches() && !(rangeMatcher.group(1).isEmpty()
+                    && rangeMatcher.group(2).isEmpty())) {
+                if (rangeMatcher.group(1).isEmpty()) {
+                    // suffix range, i.e. the last bytes
+                    start = (int) Math.max(0, body.length
+                            - Math.min(body.length, Long.parseLong(rangeMatcher.group(2))));
+                } else {
+                    start = (int) Math.min(Long.parseLong(rangeMatcher.group(1)), body.length);
+                    if (!rangeMatcher.group(2).isEmpty()) {
+                        end = (int) Math.min(body.length,
+                                Long.parseLong(rangeMatcher.group(2)) + 1);
+                    }
+                }
+
+                if (start >= end) {
+                    responseHeaders.set("Content-Range", STR."bytes */\{body.length}");
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                status = 206;
+                responseHeaders.set("Content-Range",
+                        STR."bytes \{start}-\{end - 1}/\{body.length}");
+            }
+        }
+
+        responseHeaders.set("Content-Type", response.contentType());
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, end - start == 0 ? -1 : end - start);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body, start, end - start);
+        }
+    }
+
+    /**
+     * Private auxiliary method to check if an {@code If-None-Match} header matches an
+     *      entity tag, comparing every entity tag of the comma-separated list exactly.
+     * The weak entity tags match with the weak comparison, i.e. without their prefix.
+     *
+     * @param header    the value of the header
+     * @param etag  the strong entity tag of the response
+     * @return  true if the header is {@code *} or lists the entity tag, false otherwise
+     */
+    private static boolean matchesEntityTag(String header, String etag) {
+        if (header.trim().equals("*")) {
+            return true;
+        }
+
+        int position = 0;
+        while (position < header.length()) {
+            char character = header.charAt(position);
+            if (character == ',' || character == ' ' || character == '\t') {
+                position++;
+                continue;
+            }
+            if (header.startsWith("W/", position)) {
+                position += 2;
+            }
+            int end = header.indexOf('"', position + 1);
+            if (position >= header.length() || header.charAt(position) != '"' || end < 0) {
+                return false; // malformed list
+            }
+            if (header.regionMatches(position, etag, 0, etag.length())
+                    && end + 1 - position == etag.length()) {
+                return true;
+            }
+            position = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Private auxiliary method to start observing a group once, so that the changes of
+     *      its page list increment its version and the version of the groups.
+     *
+     * @param noteGroup the group to be observed
+     * @return  the version of the group
+     */
+    private AtomicLong observe(NoteGroup noteGroup) {
+        synchronized (observed) {
+            if (observed.add(noteGroup)) {
+                groupVersions.put(noteGroup, new AtomicLong());
+                for (String propertyName : GROUP_PROPERTIES) {
+                    noteGroup.addPropertyChangeListener(propertyName, groupListener);
+                }
+            }
+            return groupVersions.get(noteGroup);
+        }
+    }
+
+    /**
+     * Private auxiliary method to start observing a page once, so that its content and
+     *      name changes increment the version of its group.
+     *
+     * @param notePage  the page to be observed
+     * @param noteGroup the group of the page
+     */
+    private void observe(NotePage notePage, NoteGroup noteGroup) {
+        synchronized (observed) {
+            pageGroups.put(notePage, noteGroup);
+            if (observed.add(notePage)) {
+                notePage.addPropertyChangeListener("delta", pageListener);
+                notePage.addPropertyChangeListener("pageName", pageListener);
+            }
+        }
+    }
+
+    // increments the version of the group of a changed page
+    private void pageChanged(PropertyChangeEvent evt) {
+        NoteGroup noteGroup = pageGroups.get(evt.getSource());
+        AtomicLong version = noteGroup == null ? null : groupVersions.get(noteGroup);
+        if (version != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    // increments the version of a changed group and the version of the groups
+    private void groupChanged(PropertyChangeEvent evt) {
+        AtomicLong version = groupVersions.get(evt.getSource());
+        if (version != null) {
+            version.incrementAndGet();
+        }
+        groupsVersion.incrementAndGet();
+    }
+
+    // checks if the notebook still has the given groups in the same order
+    private boolean sameGroups(List<NoteGroup> servedGroups) {
+        List<NoteGroup> noteGroups = noteFacade.getNoteGroups();
+        if (noteGroups.size() != servedGroups.size()) {
+            return false;
+        }
+        for (int i = 0; i < servedGroups.size(); i++) {
+            if (noteGroups.get(i) != servedGroups.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // gets the group at an index of the path, or null if there is no such group
+    private NoteGroup groupAt(int groupIndex) {
+        List<NoteGroup> noteGroups = noteFacade.getNoteGroups();
+        return groupIndex < noteGroups.size() ? noteGroups.get(groupIndex) : null;
+    }
+
+    // quotes a string as a JSON string literal
+    private static String quote(String string) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char character : string.toCharArray()) {
+            switch (character) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (character < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        quoted.append(character);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * A cached response.
+     *
+     * @param body  the bytes of the body
+     * @param contentType   the content type of the body
+     * @param etag  the entity tag of the body
+     * @param upToDate  checks the stamps of the response against the model
+     */
+    private record CachedResponse(byte[] body, String contentType, String etag,
+                                  BooleanSupplier upToDate) {
+        // builds a JSON list response whose entity tag is the hash of the body
+        private static CachedResponse json(CharSequence json, BooleanSupplier upToDate) {
+            byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+            return new CachedResponse(body, "application/json; charset=utf-8",
+                    STR."\"\{Integer.toHexString(Arrays.hashCode(body))}\"", upToDate);
+        }
+    }
+}
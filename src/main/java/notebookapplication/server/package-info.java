@@ -0,0 +1 @@
+package notebookapplication.server;
\ No newline at end of file
@@ -0,0 +1,176 @@
+package notebookapplication.startup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.scheduler.Lane;
+import notebookapplication.scheduler.WorkScheduler;
+
+/**
+ * Loads a notebook for a fast start: the note file of the page open in the last session
+ *   first, then the other note files in the background, one after another in the
+ *   {@link Lane#BULK} lane of a {@link WorkScheduler}, so they do not slow down the edits
+ *   of the restored page.
+ * Every loaded group is added to the notebook by the publisher, e.g. on the JavaFX thread
+ *   with {@code Platform::runLater}, at the position of its file in the list of files.
+ */
+public class LazyNotebookLoader {
+    /** The note files of the notebook, one group per file. */
+    private final List<Path> files;
+
+    private final WorkScheduler scheduler;
+
+    /** The executor adding the loaded groups to the notebook. */
+    private final Executor publisher;
+
+    /** The notebook, growing as the groups are loaded. */
+    private final NoteFacade noteFacade = new NoteFacade();
+
+    /** Whether the group of every file is added to the notebook. */
+    private final boolean[] published;
+
+    /** The index of the file loaded first, -1 before {@link #loadFirst}. */
+    private int firstIndex = -1;
+
+    /**
+     * Constructs a LazyNotebookLoader of an empty notebook.
+     *
+     * @param files the note files of the notebook, one group per file
+     * @param scheduler the scheduler of the background loading
+     * @param publisher the executor adding the loaded groups to the notebook
+     * @throws NullPointerException if any argument is null
+     */
+    public LazyNotebookLoader(List<Path> files, WorkScheduler scheduler, Executor publisher) {
+        if (files == null || scheduler == null || publisher == null) {
+            throw new NullPointerException("Files, scheduler and publisher cannot be null");
+        }
+        this.files = List.copyOf(files);
+        this.scheduler = scheduler;
+        this.publisher = publisher;
+        published = new boolean[this.files.size()];
+    }
+
+    /**
+     * Loads the group of the page open in the last session on the calling thread, or the
+     *      group of the first file if there is no session or its file is not in the notebook.
+     * The group is also added to the notebook by the publisher.
+     *
+     * @param session   the snapshot of the last session, null if there is none
+     * @return  the group loaded first, null if the notebook has no file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file does not follow the page tag pattern
+     * @throws IllegalStateException if a group is already loaded first
+     */
+    public NoteGroup loadFirst(SessionSnapshot session) throws IOException {
+        if (firstIndex >= 0) {
+            throw new IllegalStateException("First group is already loaded");
+        }
+        if (files.isEmpty()) {
+            return null;
+        }
+        firstIndex = 0;
+        if (session != null) {
+            Path groupFile = session.groupFile().toAbsolutePath().normalize();
+            for (int i = 0; i < files.size(); i++) {
+                if (files.get(i).toAbsolutePath().normalize().equals(groupFile)) {
+                    firstIndex = i;
+                    break;
+                }
+            }
+        }
+
+        NoteGroup noteGroup = NoteGroup.load(files.get(firstIndex));
+        int index = firstIndex;
+        publisher.execute(() -> publish(index, noteGroup));
+        return noteGroup;
+    }
+
+    /**
+     * Loads the other groups in the background, after {@link #loadFirst}.
+     * A file that cannot be loaded is skipped, and the other files are still loaded.
+     *
+     * @return  the future completed with the notebook once every other group is added to
+     *      it, exceptionally with the failure of the first file that could not be loaded
+     * @throws IllegalStateException if no group is loaded first yet
+     */
+    public CompletableFuture<NoteFacade> loadRest() {
+        if (firstIndex < 0 && !files.isEmpty()) {
+            throw new IllegalStateException("First group is not loaded yet");
+        }
+        CompletableFuture<NoteFacade> loaded = new CompletableFuture<>();
+        loadNext(0, loaded, null);
+        return loaded;
+    }
+
+    /**
+     * Private auxiliary method to load the next file in the background, then to submit
+     *      the loading of the following one, so that the backpressure of the scheduler
+     *      applies between two files.
+     *
+     * @param index the index of the next file to be loaded
+     * @param loaded    the future completed once every file is loaded
+     * @param failure   the failure of the first file that could not be loaded, or null
+     */
+    private void loadNext(int index, CompletableFuture<NoteFacade> loaded, Throwable failure) {
+        int next = index == firstIndex ? index + 1 : index;
+        if (next >= files.size()) {
+            publisher.execute(() -> {
+                if (failure == null) {
+                    loaded.complete(noteFacade);
+                } else {
+                    loaded.completeExceptionally(failure);
+                }
+            });
+            return;
+        }
+
+        scheduler.submit(Lane.BULK, () -> {
+            Throwable nextFailure = failure;
+            try {
+                NoteGroup noteGroup = NoteGroup.load(files.get(next));
+                publisher.execute(() -> publish(next, noteGroup));
+            } catch (IOException e) {
+                nextFailure = failure != null ? failure : new UncheckedIOException(e);
+            } catch (IllegalArgumentException e) {
+                nextFailure = failure != null ? failure : e;
+            }
+            loadNext(next + 1, loaded, nextFailure);
+        }).exceptionally(e -> {
+            loaded.completeExceptionally(e); // cancelled when the scheduler is closed
+            return null;
+        });
+    }
+
+    /**
+     * Private auxiliary method to add a loaded group to the notebook, after the groups of
+     *      the files before it that are already added.
+     *
+     * @param index the index of the file of the group
+     * @param noteGroup the loaded group
+     */
+    private synchronized void publish(int index, NoteGroup noteGroup) {
+        int position = 0;
+        for (int i = 0; i < index; i++) {
+            if (published[i]) {
+                position++;
+            }
+        }
+        noteFacade.addGroup(position, noteGroup);
+        published[index] = true;
+    }
+
+    // getter for the file loaded first, null before it is loaded
+    public Path getFirstFile() {
+        return firstIndex < 0 ? null : files.get(firstIndex);
+    }
+
+    // getter for the notebook, growing as the groups are loaded
+    public NoteFacade getNoteFacade() {
+        return noteFacade;
+    }
+}
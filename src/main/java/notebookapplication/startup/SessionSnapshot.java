@@ -0,0 +1,122 @@
+package notebookapplication.startup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+
+/**
+ * The small state of the last session saved when the application stops, i.e. the open
+ *   note file and page with its caret and scroll positions, so the next start can show
+ *   that page before the rest of the notebook is loaded.
+ *
+ * @param groupFile the note file of the open group
+ * @param pageName  the name of the open page
+ * @param pageIndex the position of the open page in its group
+ * @param caretPosition the caret position in the open page
+ * @param scrollTop the vertical scroll position of the open page, in pixels
+ */
+public record SessionSnapshot(Path groupFile, String pageName, int pageIndex,
+                              int caretPosition, double scrollTop) {
+    private static final int SNAPSHOT_MAGIC = 0x53455353;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Constructs a SessionSnapshot, checking that it is valid.
+     *
+     * @pre {@code groupFile != null && pageName != null}
+     *      && {@code pageIndex >= 0 && caretPosition >= 0}
+     * @throws NullPointerException if {@code groupFile == null || pageName == null}
+     * @throws IllegalArgumentException if {@code pageIndex < 0 || caretPosition < 0}
+     */
+    public SessionSnapshot {
+        if (groupFile == null || pageName == null) {
+            throw new NullPointerException("Group file and page name cannot be null");
+        }
+        if (pageIndex < 0 || caretPosition < 0) {
+            throw new IllegalArgumentException("Page index and caret cannot be negative");
+        }
+    }
+
+    /**
+     * Saves the snapshot, replacing the previous one at once, so a crash while saving
+     *      leaves the previous snapshot intact.
+     *
+     * @param path  the file to save the snapshot to
+     * @throws IOException if writing the file fails
+     */
+    public void save(Path path) throws IOException {
+        Path temporary = path.resolveSibling(STR."\{path.getFileName()}.tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(SNAPSHOT_VERSION);
+            output.writeUTF(groupFile.toAbsolutePath().toString());
+            output.writeUTF(pageName);
+            output.writeInt(pageIndex);
+            output.writeInt(caretPosition);
+            output.writeDouble(scrollTop);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot saved by {@link #save}.
+     *
+     * @param path  the file to load the snapshot from
+     * @return  the snapshot
+     * @throws IOException if reading the file fails or the snapshot is invalid
+     */
+    public static SessionSnapshot load(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Input is not a session snapshot");
+            }
+            return new SessionSnapshot(Path.of(input.readUTF()), input.readUTF(),
+                    input.readInt(), input.readInt(), input.readDouble());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Session snapshot is corrupted", e);
+        }
+    }
+
+    /**
+     * Finds the open page in its loaded group, i.e. the page at the saved position if it
+     *      still has the saved name, or else the first page with that name.
+     *
+     * @param noteGroup the loaded group of {@code groupFile}
+     * @return  the open page, or null if the group has no page with the saved name
+     */
+    public NotePage findPage(NoteGroup noteGroup) {
+        List<NotePage> notePages = noteGroup.getNotePages();
+        if (pageIndex < notePages.size()
+                && notePages.get(pageIndex).getPageName().equals(pageName)) {
+            return notePages.get(pageIndex);
+        }
+        for (NotePage notePage : notePages) {
+            if (notePage.getPageName().equals(pageName)) {
+                return notePage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the saved caret position inside a page whose content may have been shortened
+     *      since the snapshot was saved.
+     *
+     * @param notePage  the open page
+     * @return  the caret position, at most the length of the content
+     */
+    public int caretPositionIn(NotePage notePage) {
+        return Math.min(caretPosition, notePage.getContentLength());
+    }
+}
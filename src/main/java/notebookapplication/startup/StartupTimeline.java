@@ -0,0 +1,119 @@
+package notebookapplication.startup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Records the milestones of the startup of the application, measured from the start of
+ *   the JVM, so the startup can be compared between releases.
+ * Every milestone is recorded once, the first time it is marked, and the timeline is
+ *   appended as one JSON line to a history file by {@link #appendTo(Path, String)}.
+ */
+public class StartupTimeline {
+    /** The milestone of the first frame of the window, showing the placeholder. */
+    public static final String FIRST_PAINT = "firstPaint";
+
+    /** The milestone of the restored page shown and ready for edits. */
+    public static final String EDITABLE = "editable";
+
+    /** The milestone of every note group loaded. */
+    public static final String NOTEBOOK_LOADED = "notebookLoaded";
+
+    /** The clock of the milestones, in nanoseconds. */
+    private final LongSupplier nanoClock;
+
+    /** The time of the clock at the start of the JVM. */
+    private final long originNanos;
+
+    /** The milestones in the order they were reached, in nanoseconds from the origin. */
+    private final Map<String, Long> milestones = new LinkedHashMap<>();
+
+    /**
+     * Constructs a StartupTimeline measured from the start of the JVM.
+     */
+    public StartupTimeline() {
+        this(System::nanoTime, System.nanoTime()
+                - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000);
+    }
+
+    /**
+     * Constructs a StartupTimeline with the given clock, e.g. a manual clock in tests.
+     *
+     * @param nanoClock the clock in nanoseconds
+     * @param originNanos   the time of the clock the milestones are measured from
+     */
+    StartupTimeline(LongSupplier nanoClock, long originNanos) {
+        this.nanoClock = nanoClock;
+        this.originNanos = originNanos;
+    }
+
+    /**
+     * Records a milestone now, unless it is already recorded.
+     *
+     * @param milestone the name of the milestone
+     * @return  the time of the milestone from the origin in milliseconds, the first one
+     *      if it was already recorded
+     * @throws NullPointerException if {@code milestone == null}
+     */
+    public synchronized double mark(String milestone) {
+        if (milestone == null) {
+            throw new NullPointerException("Milestone cannot be null");
+        }
+        return milestones.computeIfAbsent(milestone, key -> nanoClock.getAsLong() - originNanos)
+                / 1e6;
+    }
+
+    /**
+     * Gets the time of a milestone.
+     *
+     * @param milestone the name of the milestone
+     * @return  the time of the milestone from the origin in milliseconds, or -1 if it is
+     *      not recorded
+     */
+    public synchronized double millis(String milestone) {
+        Long nanos = milestones.get(milestone);
+        return nanos == null ? -1 : nanos / 1e6;
+    }
+
+    /**
+     * Writes the milestones as a JSON object, in the order they were reached.
+     *
+     * @param release   the release of the application, e.g. its version
+     * @return  the JSON object
+     */
+    public synchronized String toJson(String release) {
+        StringBuilder json = new StringBuilder(STR."{\"release\":\"\{escape(release)}\",")
+                .append(STR."\"javaVersion\":\"\{System.getProperty("java.version")}\",")
+                .append("\"milestonesMillis\":{");
+        milestones.forEach((milestone, nanos) -> json
+                .append(STR."\"\{escape(milestone)}\":\{Math.round(nanos / 1e3) / 1e3},"));
+        if (!milestones.isEmpty()) {
+            json.setLength(json.length() - 1);
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Appends the timeline as one JSON line to a history file, creating it if needed.
+     *
+     * @param file  the history file
+     * @param release   the release of the application, e.g. its version
+     * @throws IOException if writing the file fails
+     */
+    public void appendTo(Path file, String release) throws IOException {
+        Files.writeString(file, toJson(release) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // escapes the quotation marks and backslashes of a JSON string
+    private static String escape(String string) {
+        return string.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
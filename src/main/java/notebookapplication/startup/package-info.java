@@ -0,0 +1 @@
+package notebookapplication.startup;
\ No newline at end of file
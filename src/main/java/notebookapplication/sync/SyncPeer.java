@@ -0,0 +1,422 @@
+package notebookapplication.sync;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import notebookapplication.model.ListOp;
+import notebookapplication.model.OpBatch;
+import notebookapplication.model.OpId;
+import notebookapplication.model.ReplicatedGroup;
+
+/**
+ * Exchanges the operations of {@link ReplicatedGroup}s between application instances
+ *   running on the same machine, over a socket bound to the loopback address.
+ * One instance hosts and relays every frame it receives to the other connected instances,
+ *   so each instance receives the operations of every other instance in the order they
+ *   were created. The local operations are sent in batches by {@link #flush()}, which can
+ *   also be scheduled with {@link #startAutoFlush(Duration)}.
+ * The received batches are applied through the given executor, e.g.
+ *   {@code Platform::runLater}, which must run the tasks in the order they are submitted
+ *   on the thread editing the groups.
+ * The frames are written with a DataOutputStream in an explicit format, and every count
+ *   and length read is checked against a limit, so a local process sending arbitrary
+ *   bytes to the port can only break its own connection.
+ */
+public class SyncPeer implements AutoCloseable {
+    private static final int FRAME_MAGIC = 0x53594e43;
+    private static final int FRAME_VERSION = 1;
+    private static final int INSERT_OP = 0;
+    private static final int DELETE_OP = 1;
+
+    /** The limits of the counts read from a frame, above which the frame is rejected. */
+    private static final int MAX_BATCHES = 1 << 16;
+    private static final int MAX_OPS = 1 << 20;
+    private static final int MAX_REPLICAS = 1 << 10;
+    private static final int MAX_VALUES = 1 << 24;
+
+    /** The replicated groups by their group id. */
+    private final Map<String, ReplicatedGroup> groups = new ConcurrentHashMap<>();
+
+    /** The output streams of the connections, one per other instance for the host. */
+    private final List<DataOutputStream> outputs = new CopyOnWriteArrayList<>();
+
+    /** The sockets to be closed with this peer. */
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    /** The executor applying the received batches to the model. */
+    private final Executor applyExecutor;
+
+    /** The server socket of the host, null for the other instances. */
+    private final ServerSocket serverSocket;
+
+    /** The scheduler of the automatic flushes, null if not started. */
+    private ScheduledExecutorService flushScheduler;
+
+    /**
+     * Private constructor, use {@link #host} or {@link #connect} instead.
+     *
+     * @param serverSocket  the server socket of the host, null for the other instances
+     * @param applyExecutor the executor applying the received batches to the model
+     */
+    private SyncPeer(ServerSocket serverSocket, Executor applyExecutor) {
+        this.serverSocket = serverSocket;
+        this.applyExecutor = applyExecutor;
+    }
+
+    /**
+     * Starts hosting the synchronisation on the given local port.
+     *
+     * @param port  the port to listen on, 0 to choose a free one
+     * @param applyExecutor the executor applying the received batches to the model
+     * @return  the hosting peer
+     * @throws IOException if the port cannot be bound
+     */
+    public static SyncPeer host(int port, Executor applyExecutor) throws IOException {
+        SyncPeer peer = new SyncPeer(
+                new ServerSocket(port, 50, InetAddress.getLoopbackAddress()), applyExecutor);
+        Thread.ofVirtual().name("sync-accept").start(peer::acceptConnections);
+        return peer;
+    }
+
+    /**
+     * Connects to the instance hosting the synchronisation on the given local port.
+     *
+     * @param port  the port of the host
+     * @param applyExecutor the executor applying the received batches to the model
+     * @return  the connected peer
+     * @throws IOException if the connection fails
+     */
+    public static SyncPeer connect(int port, Executor applyExecutor) throws IOException {
+        SyncPeer peer = new SyncPeer(null, applyExecutor);
+        peer.open(new Socket(InetAddress.getLoopbackAddress(), port));
+        return peer;
+    }
+
+    /**
+     * Registers a replicated group whose operations are exchanged by this peer.
+     *
+     * @param group the replicated group, with the same group id on every instance
+     */
+    public void register(ReplicatedGroup group) {
+        groups.put(group.getGroupId(), group);
+    }
+
+    /**
+     * Sends the local operations of every registered group not sent yet, one frame per group.
+     *
+     * @throws IOException if sending fails
+     */
+    public synchronized void flush() throws IOException {
+        for (ReplicatedGroup group : groups.values()) {
+            List<OpBatch<?>> batches = group.drainOutbox();
+            if (!batches.isEmpty()) {
+                send(new Frame(group.getGroupId(), batches), null);
+            }
+        }
+    }
+
+    /**
+     * Starts flushing the local operations and collecting the tombstones periodically,
+     *      so many small edits are sent in few frames.
+     *
+     * @param interval  the time between two flushes
+     */
+    public synchronized void startAutoFlush(Duration interval) {
+        if (flushScheduler != null) {
+            return;
+        }
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("sync-flush").factory());
+        flushScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+                groups.values().forEach(ReplicatedGroup::collectGarbage);
+            } catch (IOException e) {
+                close();
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // getter for the local port of the host, or -1 for the other instances
+    public int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops the synchronisation and closes all the connections.
+     */
+    @Override
+    public synchronized void close() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // closing anyway, nothing else to do
+        }
+    }
+
+    /**
+     * Private auxiliary method run by the host to accept the other instances.
+     */
+    private void acceptConnections() {
+        try {
+            while (!serverSocket.isClosed()) {
+                open(serverSocket.accept());
+            }
+        } catch (IOException e) {
+            // the server socket is closed
+        }
+    }
+
+    /**
+     * Private auxiliary method to start exchanging frames over a new connection.
+     *
+     * @param socket    the socket of the connection
+     * @throws IOException if the streams of the socket cannot be opened
+     */
+    private void open(Socket socket) throws IOException {
+        sockets.add(socket);
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream()));
+        synchronized (this) {
+            output.writeInt(FRAME_MAGIC);
+            output.writeInt(FRAME_VERSION);
+            output.flush();
+            outputs.add(output);
+        }
+        Thread.ofVirtual().name("sync-read").start(() -> readFrames(socket, output));
+    }
+
+    /**
+     * Private auxiliary method reading the frames of a connection until it is closed.
+     * The host relays every frame to the other connections before applying it.
+     *
+     * @param socket    the socket of the connection
+     * @param output    the output stream of the same connection, not relayed to
+     */
+    private void readFrames(Socket socket, DataOutputStream output) {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream()))) {
+            if (input.readInt() != FRAME_MAGIC || input.readInt() != FRAME_VERSION) {
+                throw new IOException("Input is not a sync stream");
+            }
+            while (true) {
+                Frame frame = readFrame(input);
+                if (serverSocket != null) {
+                    synchronized (this) {
+                        send(frame, output);
+                    }
+                }
+
+                ReplicatedGroup group = groups.get(frame.groupId());
+                if (group != null) {
+                    applyExecutor.execute(() -> frame.batches().forEach(group::receive));
+                }
+            }
+        } catch (EOFException e) {
+            // the other instance closed the connection
+        } catch (IOException e) {
+            // the connection is broken or sent an invalid frame, the other instance has
+            // to reconnect
+        } finally {
+            outputs.remove(output);
+            sockets.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // closing anyway, nothing else to do
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to write a frame to every connection except one.
+     *
+     * @param frame the frame to be sent
+     * @param except    the output stream not to write to, null to write to all
+     * @throws IOException if writing fails
+     */
+    private void send(Frame frame, DataOutputStream except) throws IOException {
+        for (DataOutputStream output : outputs) {
+            if (output != except) {
+                writeFrame(output, frame);
+                output.flush();
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to write a frame: the group id and the number of batches,
+     *      then for every batch its document id, its replica, its version vector and
+     *      its operations.
+     * The values of the page order are {@link ReplicatedGroup.PageEntry}s, the values of
+     *   the pages are characters.
+     *
+     * @param output    the stream to write to
+     * @param frame the frame to be written
+     * @throws IOException if writing fails
+     */
+    private static void writeFrame(DataOutputStream output, Frame frame) throws IOException {
+        output.writeUTF(frame.groupId());
+        output.writeInt(frame.batches().size());
+        for (OpBatch<?> batch : frame.batches()) {
+            boolean pageOrder = ReplicatedGroup.ORDER_DOC_ID.equals(batch.docId());
+            output.writeUTF(batch.docId());
+            output.writeInt(batch.replica());
+            output.writeInt(batch.seen().size());
+            for (Map.Entry<Integer, Long> entry : batch.seen().entrySet()) {
+                output.writeInt(entry.getKey());
+                output.writeLong(entry.getValue());
+            }
+
+            output.writeInt(batch.ops().size());
+            for (ListOp<?> op : batch.ops()) {
+                switch (op) {
+                    case ListOp.Insert<?> insert -> {
+                        output.writeByte(INSERT_OP);
+                        writeId(output, insert.id());
+                        output.writeBoolean(insert.parent() != null);
+                        if (insert.parent() != null) {
+                            writeId(output, insert.parent());
+                        }
+                        output.writeInt(insert.values().size());
+                        for (Object value : insert.values()) {
+                            if (pageOrder) {
+                                ReplicatedGroup.PageEntry entry = (ReplicatedGroup.PageEntry) value;
+                                output.writeUTF(entry.key());
+                                output.writeUTF(entry.pageName());
+                                writeString(output, entry.initialContent());
+                            } else {
+                                output.writeChar((Character) value);
+                            }
+                        }
+                    }
+                    case ListOp.Delete<?> delete -> {
+                        output.writeByte(DELETE_OP);
+                        writeId(output, delete.id());
+                        writeId(output, delete.target());
+                        output.writeInt(delete.count());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Private auxiliary method to read a frame written by {@link #writeFrame}.
+     *
+     * @param input the stream to read from
+     * @return  the frame read
+     * @throws IOException if reading fails or the frame is invalid
+     */
+    private static Frame readFrame(DataInputStream input) throws IOException {
+        String groupId = input.readUTF();
+        int batchCount = readCount(input, MAX_BATCHES);
+        List<OpBatch<?>> batches = new ArrayList<>(Math.min(batchCount, 16));
+        for (int i = 0; i < batchCount; i++) {
+            String docId = input.readUTF();
+            boolean pageOrder = ReplicatedGroup.ORDER_DOC_ID.equals(docId);
+            int replica = input.readInt();
+            int seenCount = readCount(input, MAX_REPLICAS);
+            Map<Integer, Long> seen = new HashMap<>();
+            for (int j = 0; j < seenCount; j++) {
+                seen.put(input.readInt(), input.readLong());
+            }
+
+            int opCount = readCount(input, MAX_OPS);
+            List<ListOp<Object>> ops = new ArrayList<>(Math.min(opCount, 1024));
+            for (int j = 0; j < opCount; j++) {
+                int kind = input.readUnsignedByte();
+                OpId id = readId(input);
+                if (kind == INSERT_OP) {
+                    OpId parent = input.readBoolean() ? readId(input) : null;
+                    int valueCount = readCount(input, MAX_VALUES);
+                    List<Object> values = new ArrayList<>(Math.min(valueCount, 1024));
+                    for (int k = 0; k < valueCount; k++) {
+                        values.add(pageOrder ? new ReplicatedGroup.PageEntry(input.readUTF(),
+                                input.readUTF(), readString(input)) : input.readChar());
+                    }
+                    if (values.isEmpty()) {
+                        throw new IOException("Insert operation without values");
+                    }
+                    ops.add(new ListOp.Insert<>(id, parent, values));
+                } else if (kind == DELETE_OP) {
+                    ops.add(new ListOp.Delete<>(id, readId(input), readCount(input, MAX_VALUES)));
+                } else {
+                    throw new IOException(STR."Unknown operation kind \{kind}");
+                }
+            }
+            batches.add(new OpBatch<>(docId, replica, ops, seen));
+        }
+        return new Frame(groupId, batches);
+    }
+
+    // writes the id of an operation
+    private static void writeId(DataOutputStream output, OpId id) throws IOException {
+        output.writeLong(id.counter());
+        output.writeInt(id.replica());
+    }
+
+    // reads the id of an operation
+    private static OpId readId(DataInputStream input) throws IOException {
+        return new OpId(input.readLong(), input.readInt());
+    }
+
+    // writes a string of any length, unlike writeUTF
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        output.writeInt(string.length());
+        output.writeChars(string);
+    }
+
+    // reads a string written by writeString
+    private static String readString(DataInputStream input) throws IOException {
+        int length = readCount(input, MAX_VALUES);
+        StringBuilder builder = new StringBuilder(Math.min(length, 1024));
+        for (int i = 0; i < length; i++) {
+            builder.append(input.readChar());
+        }
+        return builder.toString();
+    }
+
+    // reads a count, rejecting the negative counts and the counts above the limit
+    private static int readCount(DataInputStream input, int limit) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > limit) {
+            throw new IOException(STR."Count \{count} is out of bounds");
+        }
+        return count;
+    }
+
+    /**
+     * The unit sent over the socket, containing the batches of one replicated group.
+     *
+     * @param groupId   the id of the replicated group
+     * @param batches   the batches of the group, in the order they were drained
+     */
+    private record Frame(String groupId, List<OpBatch<?>> batches) {
+    }
+}
@@ -0,0 +1 @@
+package notebookapplication.sync;
\ No newline at end of file
@@ -0,0 +1,125 @@
+package notebookapplication.bench;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link SessionBenchmark} and the traces it replays.
+ * This class tests that generated and recorded sessions replay to the same notebook,
+ *      and that the result of a replay reports every kind of operation.
+ */
+public class SessionBenchmarkTest {
+    private NoteFacade generated;
+    private List<TraceOp> trace;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes a small synthetic notebook and generates a session for it before each test.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        TraceGenerator.writeNotebook(tempDir.resolve("notebook"), 3, 30, 200, new Random(1));
+        generated = SessionBenchmark.loadNotebook(tempDir.resolve("notebook"));
+        trace = TraceGenerator.generate(generated, 3000, new Random(2)).toList();
+    }
+
+    /**
+     * Tests writing, reading and replaying a generated session.
+     * Verifies that the replay produces the same notebook as the generation, and that
+     *      the result contains the latencies of the operations.
+     */
+    @Test
+    public void replayGeneratedTrace() throws IOException {
+        Path traceFile = tempDir.resolve("session.trace");
+        long written = TraceGenerator.writeTrace(traceFile, trace.stream());
+        List<TraceOp> read;
+        try (Stream<TraceOp> lines = TraceGenerator.readTrace(traceFile)) {
+            read = lines.toList();
+        }
+
+        NoteFacade replayed = SessionBenchmark.loadNotebook(tempDir.resolve("notebook"));
+        String result;
+        try (Stream<TraceOp> lines = TraceGenerator.readTrace(traceFile)) {
+            result = SessionBenchmark.replay(replayed, lines, "test");
+        }
+        assertAll(() -> {
+            assertEquals(3000, written);
+            assertEquals(trace, read);
+            assertTrue(result.contains("\"operations\":3000,"));
+            assertEquals(contents(generated), contents(replayed));
+            assertTrue(result.startsWith("{\"label\":\"test\""));
+            assertTrue(result.contains("\"insert\":{\"count\":"));
+            assertTrue(result.contains("\"p999Nanos\":"));
+            assertTrue(result.contains("\"allocatedBytes\":"));
+        });
+    }
+
+    /**
+     * Tests recording a session while it is replayed.
+     * Verifies that replaying the recorded session produces the same notebook again.
+     */
+    @Test
+    public void recordTrace() throws IOException {
+        NoteFacade recorded = SessionBenchmark.loadNotebook(tempDir.resolve("notebook"));
+        TraceRecorder recorder = new TraceRecorder(recorded);
+        trace.forEach(op -> op.applyTo(recorded));
+        List<TraceOp> recordedTrace = recorder.stop();
+
+        NoteFacade replayed = SessionBenchmark.loadNotebook(tempDir.resolve("notebook"));
+        recordedTrace.forEach(op -> op.applyTo(replayed));
+        assertAll(() -> {
+            assertEquals(contents(generated), contents(replayed));
+            assertTrue(recordedTrace.stream()
+                    .anyMatch(op -> op.kind() == TraceOp.Kind.FORMAT));
+            assertTrue(recordedTrace.stream()
+                    .anyMatch(op -> op.kind() == TraceOp.Kind.MOVE_PAGE));
+        });
+    }
+
+    /**
+     * Tests the percentiles of the latency histogram.
+     * Verifies that every percentile is within the relative error of the exact value.
+     */
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 37);
+        }
+        assertAll(() -> {
+            assertEquals(100_000, histogram.getCount());
+            assertEquals(3_700_000, histogram.getMax());
+            assertTrue(Math.abs(histogram.percentile(0.5) - 1_850_000) < 1_850_000 / 128);
+            assertTrue(Math.abs(histogram.percentile(0.99) - 3_663_000) < 3_663_000 / 128);
+            assertEquals(3_700_000, histogram.percentile(1));
+        });
+    }
+
+    // gets the names and contents of all pages of a notebook
+    private static String contents(NoteFacade noteFacade) {
+        StringBuilder contents = new StringBuilder();
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            for (NotePage notePage : noteGroup.getNotePages()) {
+                contents.append(notePage.getPageName()).append(':')
+                        .append(notePage.getContent()).append('\n');
+            }
+            contents.append("---\n");
+        }
+        return contents.toString();
+    }
+}
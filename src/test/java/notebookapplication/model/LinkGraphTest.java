@@ -0,0 +1,192 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link LinkGraph} class.
+ * This class tests the links and backlinks between pages, their updates when pages are
+ *      edited, renamed, added and deleted, and the snapshot of the graph.
+ */
+public class LinkGraphTest {
+    private NoteFacade noteFacade;
+    private NoteGroup lectures;
+    private NotePage physics;
+    private NotePage algebra;
+    private NotePage summary;
+    private LinkGraph graph;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Sets up a notebook of linked pages and its graph before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        noteFacade = new NoteFacade();
+        lectures = new NoteGroup("Lectures");
+        noteFacade.getNoteGroups().add(lectures);
+        physics = new NotePage("Physics", "See [[Algebra]] and [[Missing]].");
+        algebra = new NotePage("Algebra", "Back to [[Physics]]\n[[not a [link]] [[]]");
+        summary = new NotePage("Summary", "[[Physics]], [[Algebra]] and [[Physics]]");
+        lectures.addPage(physics);
+        lectures.addPage(algebra);
+        lectures.addPage(summary);
+        graph = new LinkGraph(noteFacade);
+    }
+
+    /**
+     * Tests the links and backlinks of the pages.
+     * Verifies that only the valid links are found, and that the links to no page are kept
+     *      but not resolved.
+     */
+    @Test
+    public void linksAndBacklinks() {
+        assertAll(() -> {
+            assertEquals(List.of(new LinkGraph.Link(4, 15, "Algebra"),
+                    new LinkGraph.Link(20, 31, "Missing")), graph.links(physics));
+            assertEquals(List.of("Physics"), names(graph.links(algebra)));
+            assertEquals(List.of(algebra), graph.linkedPages(physics));
+            assertEquals(List.of(physics, algebra), graph.linkedPages(summary));
+            assertEquals(List.of(algebra, summary), graph.backlinks(physics));
+            assertEquals(List.of(physics, summary), graph.backlinks(algebra));
+            assertEquals(List.of(), graph.backlinks(summary));
+            assertThrows(IllegalArgumentException.class,
+                    () -> graph.links(new NotePage("Other", "")));
+        });
+    }
+
+    /**
+     * Tests the updates of the graph when pages are edited, added, deleted and renamed
+     *      without rewriting the links.
+     * Verifies that the backlinks follow the content and the names of the pages.
+     */
+    @Test
+    public void updateOnChanges() {
+        physics.deleteContent(4, 16);
+        NotePage missing = new NotePage("Missing", "[[Summary]]");
+        lectures.addPage(missing);
+        algebra.insertContent(0, "[[Summary]] ");
+        summary.setPageName("Overview");
+        assertAll(() -> {
+            assertEquals(List.of(summary), graph.backlinks(algebra));
+            assertEquals(List.of(physics), graph.backlinks(missing));
+            assertEquals(List.of(missing), graph.linkedPages(physics));
+            assertEquals(List.of(), graph.backlinks(summary));
+            assertEquals(List.of(), graph.linkedPages(missing));
+        });
+
+        lectures.deletePage(0);
+        summary.setContent("[[Missing]]");
+        graph.refresh();
+        assertAll(() -> {
+            assertEquals(List.of(summary), graph.backlinks(missing));
+            assertEquals(List.of(), graph.backlinks(algebra));
+            assertEquals(List.of(algebra), graph.backlinks(physics));
+        });
+    }
+
+    /**
+     * Tests renaming a page with the graph.
+     * Verifies that the links to the old name are rewritten, and that the positions of
+     *      the other links are shifted.
+     */
+    @Test
+    public void renamePage() {
+        int rewritten = graph.renamePage(physics, "Mechanics");
+        assertAll(() -> {
+            assertEquals(3, rewritten);
+            assertEquals("Mechanics", physics.getPageName());
+            assertEquals("[[Mechanics]], [[Algebra]] and [[Mechanics]]", summary.getContent());
+            assertEquals(List.of(new LinkGraph.Link(0, 13, "Mechanics"),
+                    new LinkGraph.Link(15, 26, "Algebra"),
+                    new LinkGraph.Link(31, 44, "Mechanics")), graph.links(summary));
+            assertEquals(List.of(algebra, summary), graph.backlinks(physics));
+            assertEquals(new LinkGraph(noteFacade).links(summary), graph.links(summary));
+            assertEquals(0, graph.renamePage(summary, "Overview"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> graph.renamePage(algebra, "Bad [name]"));
+        });
+    }
+
+    /**
+     * Tests saving and loading the graph.
+     * Verifies that only the pages changed since the snapshot are scanned again, even by
+     *      an edit keeping their length and their saved links.
+     */
+    @Test
+    public void snapshot() throws IOException {
+        Path file = tempDir.resolve("links.bin");
+        NotePage review = new NotePage("Review", "Unchanged [[Physics]]");
+        lectures.addPage(review);
+        graph.save(file);
+        algebra.replaceContent(0, 4, "Up");
+        summary.replaceContent(2, 9, "Algebra"); // same length, another link
+        physics.replaceContent(15, 20, "[[S]]"); // same length, the saved links kept
+        LinkGraph loaded = LinkGraph.load(file, noteFacade);
+        assertAll(() -> {
+            assertEquals(3, loaded.getScannedPages());
+            assertEquals(List.of("Algebra", "S", "Missing"), names(loaded.links(physics)));
+            assertEquals(graph.links(physics), loaded.links(physics));
+            assertEquals(List.of(physics, summary), loaded.backlinks(algebra));
+            assertEquals(List.of(algebra, summary, review), loaded.backlinks(physics));
+            assertEquals(graph.links(review), loaded.links(review));
+            assertThrows(IOException.class, () -> LinkGraph.load(
+                    tempDir.resolve("missing.bin"), noteFacade));
+        });
+    }
+
+    /**
+     * Tests the links of a page after many random edits.
+     * Verifies that the links and backlinks updated from the deltas are the same as
+     *      scanning the notebook again, the backlinks in any order.
+     */
+    @Test
+    public void randomEdits() {
+        Random random = new Random(11);
+        String[] pieces = {"[[", "]]", "Physics", "Algebra", "\n", "[", "]", "x ",
+            "[[Summary]]", "[[Physics]] "};
+        for (int i = 0; i < 500; i++) {
+            NotePage notePage = lectures.getNotePages().get(random.nextInt(3));
+            int length = notePage.getContentLength();
+            int start = random.nextInt(length + 1);
+            int end = Math.min(length, start + random.nextInt(6));
+            if (end == start) {
+                notePage.insertContent(start, pieces[random.nextInt(pieces.length)]);
+            } else if (random.nextInt(3) == 0) {
+                notePage.deleteContent(start, end);
+            } else {
+                notePage.replaceContent(start, end, pieces[random.nextInt(pieces.length)]);
+            }
+
+            LinkGraph fresh = new LinkGraph(noteFacade);
+            for (NotePage page : lectures.getNotePages()) {
+                assertEquals(fresh.links(page), graph.links(page));
+                assertEquals(new HashSet<>(fresh.backlinks(page)),
+                        new HashSet<>(graph.backlinks(page)));
+            }
+            fresh.close();
+        }
+    }
+
+    // gets the target names of links
+    private static List<String> names(List<LinkGraph.Link> links) {
+        List<String> names = new ArrayList<>();
+        for (LinkGraph.Link link : links) {
+            names.add(link.pageName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,149 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link NameIndex} class.
+ * This class tests the ranking of the fuzzy matches of group and page names, and the
+ *      updates of the index when groups and pages are renamed, added and deleted.
+ */
+public class NameIndexTest {
+    private NoteFacade noteFacade;
+    private NoteGroup lectures;
+    private NoteGroup journal;
+    private NameIndex index;
+
+    /**
+     * Sets up a notebook of two groups and its index before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        noteFacade = new NoteFacade();
+        lectures = new NoteGroup("Lectures");
+        journal = new NoteGroup("Journal");
+        noteFacade.getNoteGroups().addAll(List.of(lectures, journal));
+        for (String pageName : List.of("Physics chapter 2", "Chapter 1 summary", "Linear algebra",
+                "Reading list", "NotePage draft", "Weekly review")) {
+            lectures.addPage(new NotePage(pageName, ""));
+        }
+        journal.addPage(new NotePage("Travel plans", ""));
+        index = new NameIndex(noteFacade);
+    }
+
+    /**
+     * Tests the ranking of the matches.
+     * Verifies that the names starting with the query rank before the names with a word
+     *      starting with it, the other names containing it, the names containing its words,
+     *      and the subsequence matches.
+     */
+    @Test
+    public void rankMatches() {
+        assertAll(() -> {
+            assertEquals(List.of("Chapter 1 summary", "Physics chapter 2"),
+                    names(index.search("chap", 10)));
+            assertEquals(List.of("Reading list", "Travel plans", "Linear algebra"),
+                    names(index.search("  REA ", 10)));
+            assertEquals(List.of("Chapter 1 summary"), names(index.search("summary chap", 10)));
+            assertEquals(List.of("Linear algebra"), names(index.search("lnr", 10)));
+            assertEquals(List.of("NotePage draft"), names(index.search("page", 10)));
+            assertEquals(NameIndex.PREFIX_SCORE, index.search("chap", 1).getFirst().score());
+            assertEquals(NameIndex.WORD_START_SCORE, index.search("page", 1).getFirst().score());
+            assertEquals(List.of("Chapter 1 summary"), names(index.search("chap", 1)));
+            assertEquals(List.of(), index.search("xyz", 10));
+            assertEquals(List.of(), index.search(" ", 10));
+            assertEquals(9, index.size());
+        });
+    }
+
+    /**
+     * Tests the matches of the group names.
+     * Verifies that a group matches without a page, and a page with its group.
+     */
+    @Test
+    public void matchGroups() {
+        NameIndex.Match group = index.search("journ", 10).getFirst();
+        NameIndex.Match page = index.search("travel", 10).getFirst();
+        assertAll(() -> {
+            assertEquals("Journal", group.name());
+            assertSame(journal, group.noteGroup());
+            assertNull(group.notePage());
+            assertSame(journal, page.noteGroup());
+            assertSame(journal.getNotePages().getFirst(), page.notePage());
+        });
+    }
+
+    /**
+     * Tests updating the index from the changes of the groups and pages.
+     * Verifies that renamed, added and deleted names are found or not found anymore.
+     */
+    @Test
+    public void updateOnChanges() {
+        lectures.getNotePages().get(2).setPageName("Calculus");
+        journal.setGroupName("Diary");
+        journal.addPage(new NotePage("Holiday photos", ""));
+        lectures.deletePage(3);
+        assertAll(() -> {
+            assertEquals(List.of("Calculus"), names(index.search("calc", 10)));
+            assertEquals(List.of(), index.search("linear", 10));
+            assertEquals(List.of("Diary"), names(index.search("diary", 10)));
+            assertEquals(List.of(), index.search("journal", 10));
+            assertEquals(List.of("Holiday photos"), names(index.search("photo", 10)));
+            assertEquals(List.of(), index.search("reading", 10));
+            assertEquals(9, index.size());
+        });
+    }
+
+    /**
+     * Tests adding a group to the notebook after the index was built.
+     * Verifies that the group and its pages are indexed, and that the index follows the
+     *      later changes of the group.
+     */
+    @Test
+    public void addGroupLater() {
+        NoteGroup recipes = new NoteGroup("Recipes");
+        recipes.addPage(new NotePage("Lemon cake", ""));
+        noteFacade.addGroup(1, recipes);
+        recipes.addPage(new NotePage("Tomato soup", ""));
+        assertAll(() -> {
+            assertEquals(List.of("Recipes"), names(index.search("recip", 10)));
+            assertSame(recipes, index.search("lemon", 10).getFirst().noteGroup());
+            assertEquals(List.of("Tomato soup"), names(index.search("soup", 10)));
+            assertEquals(12, index.size());
+        });
+    }
+
+    /**
+     * Tests the index after many pages have been added and deleted, so it is compacted.
+     * Verifies that only the remaining pages are found, from the shortest name.
+     */
+    @Test
+    public void compactRemovedNames() {
+        for (int i = 0; i < 3000; i++) {
+            journal.addPage(new NotePage(STR."Entry \{i}", ""));
+        }
+        for (int i = 0; i < 2990; i++) {
+            journal.deletePage(1);
+        }
+        List<NameIndex.Match> matches = index.search("entry", 20);
+        assertAll(() -> {
+            assertEquals(List.of("Entry 2990", "Entry 2991", "Entry 2992"),
+                    names(matches).subList(0, 3));
+            assertEquals(10, matches.size());
+            assertTrue(matches.stream().allMatch(match -> match.noteGroup() == journal));
+            assertEquals(19, index.size());
+        });
+    }
+
+    // gets the names of the matches, in order
+    private static List<String> names(List<NameIndex.Match> matches) {
+        return matches.stream().map(NameIndex.Match::name).toList();
+    }
+}
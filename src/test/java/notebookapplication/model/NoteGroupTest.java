@@ -5,9 +5,19 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Unit tests for the {@link NoteGroup} class.
@@ -24,6 +34,9 @@ public class NoteGroupTest {
                     + "This part of text should be bold[/style][/page]";
     private NoteGroup noteGroup;
 
+    @TempDir
+    Path tempDir;
+
     /**
      * Sets up the test environment before each test.
      * Initializes a NoteGroup with predefined input.
@@ -208,4 +221,176 @@ public class NoteGroupTest {
             );
         });
     }
+
+    /**
+     * Tests saving the note group with the normalisation of the style tags.
+     * Verifies that the saved file can be read back, and that the nested style tags
+     *      are merged in the saved file.
+     */
+    @Test
+    public void saveTest() throws IOException {
+        NotePage notePage = noteGroup.getNotePages().getLast();
+        notePage.setContent(STR."[style=\"-fx-underline: true;\"]\{notePage.getContent()}[/style]");
+        noteGroup.getNotePages().getFirst().park();
+
+        Path file = tempDir.resolve("Saved.txt");
+        long saved = noteGroup.save(file, true);
+        NoteGroup loaded = new NoteGroup("Saved", new Scanner(file, StandardCharsets.UTF_8));
+        assertAll(() -> {
+            assertEquals(INPUT, Files.readString(file));
+            assertEquals(STR."[style=\"-fx-underline: true;\"]".length()
+                    + "[/style]".length(), saved);
+            assertEquals(3, loaded.getNotePages().size());
+            assertEquals("Some content...", loaded.getNotePages().getFirst().getContent());
+            assertTrue(noteGroup.getNotePages().getFirst().isParked());
+        });
+    }
+
+    /**
+     * Tests deleting a parked page, and parking the pages of a group again.
+     * Verifies that the deleted page can still be read off-heap and edited, and that
+     *      it does not keep the off-heap memory once moved back on-heap.
+     */
+    @Test
+    public void deleteParkedPage() {
+        NotePage deleted = noteGroup.getNotePages().getFirst();
+        String content = deleted.getContent();
+        noteGroup.parkPagesExcept(null);
+        noteGroup.deletePage(0);
+        assertAll(() -> {
+            assertTrue(deleted.isParked());
+            assertEquals(content, deleted.getContent());
+            assertEquals(content.length(), deleted.storageUsage().offHeapBytes());
+            assertEquals(2, noteGroup.getNotePages().size());
+        });
+
+        deleted.insertContent(0, "edited ");
+        noteGroup.parkPagesExcept(null);
+        assertAll(() -> {
+            assertEquals(STR."edited \{content}", deleted.getContent());
+            assertEquals(0, deleted.storageUsage().offHeapBytes());
+            assertTrue(noteGroup.getNotePages().getFirst().isParked());
+        });
+    }
+
+    /**
+     * Tests parsing a large input in parallel, with page names containing the closing
+     *      page tag and contents containing the opening page tag.
+     * Verifies that the pages and their order are the same as matching the page tag
+     *      pattern in one pass.
+     */
+    @Test
+    public void parseLargeInput() {
+        String input = largeInput(20_000);
+        Matcher matcher = Pattern.compile("(?s)\\[page=\"([^\"]*)\"](.*?)\\[/page]")
+                .matcher(input);
+        List<String> expected = new ArrayList<>();
+        while (matcher.find()) {
+            expected.add(STR."\{matcher.group(1)}|\{matcher.group(2)}");
+        }
+
+        NoteGroup parsed = NoteGroup.parse("Large", input);
+        assertAll(() -> {
+            assertEquals(20_000, expected.size());
+            assertEquals(expected, parsed.getNotePages().stream()
+                    .map(notePage -> STR."\{notePage.getPageName()}|\{notePage.getContent()}")
+                    .toList());
+            assertEquals(0, NoteGroup.parse("Empty", " \n").getNotePages().size());
+        });
+    }
+
+    /**
+     * Tests the errors of a large input parsed in parallel.
+     * Verifies that the offset of the first error is reported, even if there are other
+     *      errors after it.
+     */
+    @Test
+    public void parseLargeInputErrors() {
+        String input = largeInput(20_000);
+        int firstError = input.indexOf("[/page][page=", input.length() / 3) + 7;
+        int secondError = input.indexOf("[/page][page=", 2 * input.length() / 3) + 7;
+        String rubbish = STR."\{input.substring(0, firstError)}rubbish"
+                + STR."\{input.substring(firstError, secondError)}[page=\"no end\" "
+                + input.substring(secondError);
+        assertAll(() -> {
+            assertEquals(STR."Input does not follow the required pattern at offset \{firstError}",
+                    assertThrows(IllegalArgumentException.class,
+                            () -> NoteGroup.parse("Large", rubbish)).getMessage());
+            assertEquals(STR."Input does not follow the required pattern at offset "
+                    + (secondError + "[page=\"no end\"".length()),
+                    assertThrows(IllegalArgumentException.class,
+                            () -> NoteGroup.parse("Large", input.substring(0, secondError)
+                                    + "[page=\"no end\" " + input.substring(secondError)))
+                            .getMessage());
+            assertEquals(
+                    STR."Input does not follow the required pattern at offset \{input.length()}",
+                    assertThrows(IllegalArgumentException.class,
+                            () -> NoteGroup.parse("Large", input + "[/page]")).getMessage());
+        });
+    }
+
+    /**
+     * Tests the offsets of the errors of a small input.
+     * Verifies that an unclosed page is reported at the end of the input, and a page name
+     *      without its {@code "]} where it is missing.
+     */
+    @Test
+    public void parseErrorOffsets() {
+        assertAll(() -> {
+            assertEquals(14, errorOffset("[page=\"a\"]text"));
+            assertEquals(26, errorOffset("[page=\"a\"]b[/page][page=\"c"));
+            assertEquals(9, errorOffset("[page=\"a\" ]b[/page]"));
+            assertEquals(18, errorOffset("[page=\"a\"]b[/page]xx"));
+        });
+    }
+
+    /**
+     * Tests the memory accounting of a group and trimming the content buffers of its pages.
+     * Verifies that the usage of the group adds its name to the usages of the pages, and
+     *      that trimming frees the unused capacity of every page.
+     */
+    @Test
+    public void memoryUsage() {
+        NoteGroup group = NoteGroup.parse("Group", INPUT);
+        for (NotePage notePage : group.getNotePages()) {
+            notePage.insertContent(0, "x".repeat(1000));
+            notePage.deleteContent(0, 1000);
+        }
+        MemoryUsage pagesUsage = group.getNotePages().stream()
+                .map(NotePage::memoryUsage).reduce(MemoryUsage.NONE, MemoryUsage::plus);
+        MemoryUsage usage = group.memoryUsage();
+        long freedBytes = group.trimToSize();
+        assertAll(() -> {
+            assertEquals(pagesUsage.contentBytes() + "Group".length() * 2L,
+                    usage.contentBytes());
+            assertEquals(pagesUsage.styleBytes(), usage.styleBytes());
+            assertEquals(usage.slackBytes(), freedBytes);
+            assertTrue(freedBytes >= 3 * 2000);
+            assertEquals(0, group.memoryUsage().slackBytes());
+            assertEquals(usage.contentBytes(), group.memoryUsage().contentBytes());
+        });
+    }
+
+    // gets the offset of the error reported for an input
+    private static int errorOffset(String input) {
+        String message = assertThrows(IllegalArgumentException.class,
+                () -> NoteGroup.parse("Group", input)).getMessage();
+        return Integer.parseInt(message.substring(message.lastIndexOf(' ') + 1));
+    }
+
+    // builds an input of the given number of pages, some with tricky names and contents
+    private static String largeInput(int pageCount) {
+        Random random = new Random(7);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < pageCount; i++) {
+            String name = random.nextInt(50) == 0 ? STR."Page [/page] \{i}" : STR."Page \{i}";
+            input.append("[page=\"").append(name).append("\"]");
+            for (int line = random.nextInt(8); line >= 0; line--) {
+                input.append(random.nextInt(40) == 0 ? "see [page=\"other\"] " : "some text ")
+                        .append(random.nextInt(1000)).append('\n');
+            }
+            input.append("[/page]");
+        }
+        return input.toString();
+    }
 }
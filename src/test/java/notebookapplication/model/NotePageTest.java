@@ -2,9 +2,22 @@ package notebookapplication.model;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -123,6 +136,52 @@ public class NotePageTest {
         });
     }
 
+    /**
+     * Tests inserting content streamed from a Reader and from a byte channel.
+     * Verifies that the content is inserted chunk by chunk and the progress is reported.
+     */
+    @Test
+    public void insertStream() throws IOException {
+        String toBeInserted = "streamed ".repeat(20000);
+        List<Long> progress = new ArrayList<>();
+        long inserted = notePage.insertContent(8, new StringReader(toBeInserted),
+                charsDone -> progress.add(charsDone));
+        assertAll(() -> {
+            assertEquals(toBeInserted.length(), inserted);
+            assertEquals(STR."This is \{toBeInserted}\{CONTENT.substring(8)}",
+                    notePage.getContent());
+            assertTrue(progress.size() > 1);
+            assertEquals(toBeInserted.length(), (long) progress.getLast());
+        });
+
+        notePage.insertContent(0, Channels.newChannel(new ByteArrayInputStream(
+                "• ünïcode ".getBytes(StandardCharsets.UTF_8))),
+                StandardCharsets.UTF_8, charsDone -> true);
+        assertTrue(notePage.getContent().startsWith("• ünïcode This is streamed"));
+    }
+
+    /**
+     * Tests cancelling a streaming insertion and inserting with invalid positions or
+     *      without a reader or a progress callback.
+     * Verifies that the content is rolled back and not modified.
+     */
+    @Test
+    public void insertStreamException() {
+        assertAll(() -> {
+            assertThrows(CancellationException.class,
+                    () -> notePage.insertContent(3, new StringReader("x".repeat(200000)),
+                            charsDone -> charsDone < 100000));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.insertContent(-1, new StringReader("haha"),
+                            charsDone -> true));
+            assertThrows(NullPointerException.class,
+                    () -> notePage.insertContent(3, null, charsDone -> true));
+            assertThrows(NullPointerException.class,
+                    () -> notePage.insertContent(3, new StringReader("haha"), null));
+            assertEquals(CONTENT, notePage.getContent());
+        });
+    }
+
     /**
      * Tests deleting content character by character.
      * Simulate the case of user deleting content by pressing BACK_SPACE or DEL key.
@@ -207,6 +266,252 @@ public class NotePageTest {
         });
     }
 
+    /**
+     * Tests applying a batch of edits.
+     * Verifies that all positions refer to the original content, no matter
+     *      in which order the edits are given.
+     */
+    @Test
+    public void applyEditsBatch() {
+        notePage.applyEdits(List.of(
+                new TextEdit(notePage.getContent().length() - 3,
+                        notePage.getContent().length(), "!"),
+                TextEdit.insert(0, ">> "),
+                TextEdit.delete(8, 12),
+                new TextEdit(34, 40, "another"),
+                TextEdit.insert(0, "<< ")));
+        System.out.println(notePage.getContent());
+        assertEquals(">> << This is first line.\nThis is a another line!", notePage.getContent());
+    }
+
+    /**
+     * Tests applying an insertion and a replacement starting at the same position.
+     * Verifies that the insertion comes first whatever the order of the edits.
+     */
+    @Test
+    public void applyEditsInsertAndReplaceAtSameStart() {
+        NotePage other = new NotePage("Other", CONTENT);
+        notePage.applyEdits(List.of(TextEdit.insert(0, ">> "), new TextEdit(0, 4, "That")));
+        other.applyEdits(List.of(new TextEdit(0, 4, "That"), TextEdit.insert(0, ">> ")));
+        assertAll(() -> {
+            assertEquals(">> That is the first line.", notePage.getContent().lines().findFirst()
+                    .orElseThrow());
+            assertEquals(notePage.getContent(), other.getContent());
+        });
+    }
+
+    /**
+     * Tests applying edits that are invalid.
+     * Verifies that an IllegalArgumentException is thrown for overlapping or out of bounds
+     *      edits, and the content is not changed.
+     */
+    @Test
+    public void applyEditsException() {
+        assertAll(() -> {
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.applyEdits(List.of(
+                            TextEdit.delete(0, 5), TextEdit.insert(3, "haha"))));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.applyEdits(List.of(
+                            TextEdit.delete(0, notePage.getContent().length() + 1))));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.applyEdits(List.of(TextEdit.delete(5, 1))));
+            assertThrows(NullPointerException.class,
+                    () -> notePage.applyEdits(null));
+            assertEquals(CONTENT, notePage.getContent());
+        });
+    }
+
+    /**
+     * Tests the "delta" property changes fired after the content edits.
+     * Verifies that every delta describes exactly the range changed by the edit.
+     */
+    @Test
+    public void deltaEvents() {
+        List<ContentDelta> deltas = new ArrayList<>();
+        notePage.addPropertyChangeListener(evt -> {
+            if ("delta".equals(evt.getPropertyName())) {
+                deltas.add((ContentDelta) evt.getNewValue());
+            }
+        });
+
+        notePage.insertContent(0, "haha");
+        notePage.replaceContent(0, 8, "hihi");
+        notePage.deleteContent(4, 8);
+        notePage.toggleSymbols(1, 1, Symbols.STAR);
+        assertEquals(List.of(
+                new ContentDelta(0, "", 4),
+                new ContentDelta(0, "hahaThis", 4),
+                new ContentDelta(4, " is ", 0),
+                new ContentDelta(20, "", Symbols.STAR.prefix().length())), deltas);
+    }
+
+    /**
+     * Tests parking a page with mixed ASCII, non-ASCII and surrogate pair characters.
+     * Verifies that the content can be read and searched in place off-heap,
+     *      and the page is moved back on-heap by an edit.
+     */
+    @Test
+    public void parkPage() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            builder.append(i % 7 == 0 ? "\uD83D\uDCDD" : i % 5 == 0 ? "é" : "a")
+                    .append(i % 11 == 0 ? "•\n" : " ");
+        }
+        builder.append('\uD800'); // lone surrogate
+        String content = builder.toString();
+        notePage.setContent(content);
+        notePage.park();
+
+        CharSequence view = notePage.getContentView();
+        CharSequence otherView = notePage.getContentView();
+        String readInParallel = IntStream.range(0, content.length()).parallel()
+                .mapToObj(i -> String.valueOf(notePage.getContentView().charAt(i)))
+                .collect(Collectors.joining());
+        assertAll(() -> {
+            assertTrue(notePage.isParked());
+            assertNotSame(view, otherView);
+            assertEquals(content, readInParallel);
+            assertEquals(content, notePage.getContent());
+            assertEquals(content.length(), notePage.getContentLength());
+            for (int i = content.length() - 1; i >= 0; i -= 37) {
+                assertEquals(content.charAt(i), view.charAt(i));
+                assertEquals(content.charAt(content.length() - 1 - i),
+                        otherView.charAt(content.length() - 1 - i));
+            }
+            assertEquals(content.substring(1023, 2100), view.subSequence(1023, 2100).toString());
+            assertEquals(content.indexOf("é •\n", 500), notePage.indexOf("é •\n", 500));
+            assertEquals(content.indexOf("\uD83D\uDCDD", 3),
+                    notePage.indexOf("\uD83D\uDCDD", 3));
+            assertEquals(-1, notePage.indexOf("missing", 0));
+            assertTrue(notePage.storageUsage().offHeapBytes() > 0);
+        });
+
+        notePage.insertContent(0, "edited ");
+        assertAll(() -> {
+            assertFalse(notePage.isParked());
+            assertEquals(STR."edited \{content}", notePage.getContent());
+            assertEquals(0, notePage.storageUsage().offHeapBytes());
+        });
+    }
+
+    /**
+     * Tests the memory accounting of a page and trimming its content buffer.
+     * Verifies that the unused capacity left by a large deletion is reported and freed,
+     *      that the custom tags and the listeners are counted, and that a parked page
+     *      only reports its index on-heap.
+     */
+    @Test
+    public void memoryUsage() {
+        String styled = "[style=\"-fx-font-weight: bold;\"]bold[/style]";
+        notePage.setContent(STR."\{styled}\{"a".repeat(10_000)}");
+        notePage.deleteContent(styled.length(), notePage.getContentLength());
+        MemoryUsage usage = notePage.memoryUsage();
+        long freedBytes = notePage.trimToSize();
+        notePage.addWeakPropertyChangeListener("delta", evt -> { });
+        assertAll(() -> {
+            assertEquals((DEFAULT_PAGE_NAME.length() + styled.length()) * 2L,
+                    usage.contentBytes());
+            assertTrue(usage.slackBytes() >= 20_000);
+            assertEquals(usage.slackBytes(), freedBytes);
+            assertEquals((styled.length() - "bold".length()) * 2L, usage.styleBytes());
+            assertEquals(0, usage.listenerBytes());
+            assertEquals(0, notePage.memoryUsage().slackBytes());
+            assertEquals(0, notePage.trimToSize());
+            assertTrue(notePage.memoryUsage().listenerBytes() > 0);
+            assertEquals(usage.contentBytes() + usage.slackBytes(), usage.heapBytes());
+        });
+
+        notePage.park();
+        MemoryUsage parked = notePage.memoryUsage();
+        assertAll(() -> {
+            assertEquals(styled.length(), parked.offHeapBytes());
+            assertEquals(styled.length() - "bold".length(), parked.styleBytes());
+            assertEquals(0, parked.slackBytes());
+            assertEquals(0, notePage.trimToSize());
+        });
+    }
+
+    /**
+     * Tests the memory accounting of a page after many random edits.
+     * Verifies that the custom tags counted from the touched lines of every edit are the
+     *      same as counting them in the whole content again.
+     */
+    @Test
+    public void memoryUsageOnEdits() {
+        Random random = new Random(5);
+        String[] pieces = {"[style=\"", "\"]", "[/style]", "[page=\"a\"]", "[", "\"", "]",
+            "\n", "text ", "[style=\"-fx-fill: red;\"]"};
+        notePage.setContent("");
+        notePage.memoryUsage();
+        for (int i = 0; i < 500; i++) {
+            int length = notePage.getContentLength();
+            int start = random.nextInt(length + 1);
+            int end = Math.min(length, start + random.nextInt(12));
+            if (end == start) {
+                notePage.insertContent(start, pieces[random.nextInt(pieces.length)]);
+            } else if (random.nextInt(3) == 0) {
+                notePage.deleteContent(start, end);
+            } else {
+                notePage.replaceContent(start, end, pieces[random.nextInt(pieces.length)]);
+            }
+            if (i % 50 == 0) {
+                notePage.setPageName(STR."Page \{i}");
+            }
+
+            NotePage fresh = new NotePage("Fresh", notePage.getContent());
+            assertEquals(fresh.memoryUsage().styleBytes(), notePage.memoryUsage().styleBytes());
+        }
+    }
+
+    /**
+     * Tests normalising the style tags after formatting the same text repeatedly.
+     * Verifies that the nested, overridden and adjacent tags are merged into single tags,
+     *      that the style of every char is kept, and that the bytes saved are reported.
+     */
+    @Test
+    public void normalizeStyles() {
+        notePage.setContent("Some text here");
+        for (int i = 0; i < 5; i++) {
+            String word = notePage.getContent().substring(5, notePage.getContent().length() - 5);
+            notePage.formatting(5, 5 + word.length(), () -> TextEditing.setBold(word));
+        }
+        int end = notePage.getContent().length() - 5;
+        String styled = notePage.getContent().substring(5, end);
+        notePage.formatting(5, end, () -> TextEditing.setColor(Colors.RED, styled));
+        int length = notePage.getContent().length();
+
+        long saved = notePage.normalizeStyles();
+        assertAll(() -> {
+            assertEquals("Some [style=\"-fx-fill: red; -fx-font-weight: bold;\"]text[/style] here",
+                    notePage.getContent());
+            assertEquals(length - notePage.getContent().length(), saved);
+            assertEquals(0, notePage.normalizeStyles());
+        });
+
+        notePage.setContent("[style=\"-fx-fill: red;\"]a[/style][style=\"-fx-fill: red;\"]"
+                + "[style=\"-fx-fill: red; -fx-underline: true;\"]b[/style]c[/style]"
+                + "[style=\"-fx-fill: blue; -fx-fill: green;\"][/style]"
+                + "[style=\"-fx-fill: blue; -fx-fill: green;\"]d[/style]");
+        notePage.normalizeStyles();
+        assertEquals("[style=\"-fx-fill: red;\"]a[style=\"-fx-underline: true;\"]b[/style]c"
+                + "[/style][style=\"-fx-fill: green;\"]d[/style]", notePage.getContent());
+    }
+
+    /**
+     * Tests normalising a content whose style tags are not balanced.
+     * Verifies that the content is left unchanged.
+     */
+    @Test
+    public void normalizeStylesUnbalanced() {
+        String content = "[style=\"-fx-fill: red;\"][style=\"-fx-fill: red;\"]a[/style]";
+        notePage.setContent(content);
+        assertAll(() -> {
+            assertEquals(0, notePage.normalizeStyles());
+            assertEquals(content, notePage.getContent());
+        });
+    }
+
     /**
      * Tests inserting a symbol at the beginning of a line.
      * Verifies that the symbol is correctly inserted to the front of the specified line
@@ -254,6 +559,60 @@ public class NotePageTest {
         });
     }
 
+    /**
+     * Tests toggling a symbol on a range of lines.
+     * Verifies that the symbol is inserted to every line of the range, and toggling
+     *      it once more removes it again.
+     */
+    @Test
+    public void toggleSymbolsOnRange() {
+        notePage.toggleSymbols(0, 1, Symbols.BULLET_POINT);
+        System.out.println(notePage.getContent());
+        assertEquals(STR."\{Symbols.BULLET_POINT.prefix()}This is the first line.\n"
+                + STR."\{Symbols.BULLET_POINT.prefix()}This is a second line...",
+                notePage.getContent());
+
+        notePage.toggleSymbols(0, 1, Symbols.BULLET_POINT);
+        assertEquals(CONTENT, notePage.getContent());
+    }
+
+    /**
+     * Tests toggling a symbol on lines where some of them already have a symbol.
+     * Verifies that other symbols are swapped, and the symbol is only removed
+     *      when all the lines in the range already have it.
+     */
+    @Test
+    public void toggleSymbolsSwap() {
+        notePage.insertSymbol(0, Symbols.STAR);
+        notePage.toggleSymbols(0, 1, Symbols.CHECK_BOX);
+        assertEquals(STR."\{Symbols.CHECK_BOX.prefix()}This is the first line.\n"
+                + STR."\{Symbols.CHECK_BOX.prefix()}This is a second line...",
+                notePage.getContent());
+
+        notePage.toggleSymbols(1, 1, Symbols.ARROW);
+        notePage.toggleSymbols(0, 1, Symbols.ARROW);
+        assertEquals(STR."\{Symbols.ARROW.prefix()}This is the first line.\n"
+                + STR."\{Symbols.ARROW.prefix()}This is a second line...",
+                notePage.getContent());
+    }
+
+    /**
+     * Tests toggling symbols with invalid line ranges.
+     * Verifies that an IllegalArgumentException is thrown and the content is not changed.
+     */
+    @Test
+    public void toggleSymbolsException() {
+        assertAll(() -> {
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.toggleSymbols(-1, 0, Symbols.STAR));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.toggleSymbols(1, 0, Symbols.STAR));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.toggleSymbols(0, 2, Symbols.STAR));
+            assertEquals(CONTENT, notePage.getContent());
+        });
+    }
+
     /**
      * Tests formatting a single character.
      * Verifies that the character is correctly surrounded with the specified style tag,
@@ -314,4 +673,53 @@ public class NotePageTest {
                        () -> "[style=\"...\"]correct formatting[/style]"));
         });
     }
+
+    /**
+     * Tests styling ranges in place.
+     * Verifies that the content is the same as formatting through the styled strings,
+     *      and that the two inserted tags are reported as deltas, closing tag first.
+     */
+    @Test
+    public void applyStyle() {
+        NotePage formatted = new NotePage(DEFAULT_PAGE_NAME, CONTENT);
+        formatted.formatting(0, 11,
+                () -> TextEditing.setColor(Colors.RED, formatted.getContent().substring(0, 11)));
+        formatted.formatting(5, 7,
+                () -> TextEditing.setItalic(formatted.getContent().substring(5, 7)));
+        List<ContentDelta> deltas = new ArrayList<>();
+        notePage.addPropertyChangeListener("delta",
+                evt -> deltas.add((ContentDelta) evt.getNewValue()));
+        notePage.park();
+
+        notePage.applyStyle(0, 11, Style.color(Colors.RED));
+        notePage.applyStyle(5, 7, Style.ITALIC);
+        assertAll(() -> {
+            assertEquals(formatted.getContent(), notePage.getContent());
+            assertEquals(new ContentDelta(11, "", Style.CLOSING_TAG.length()), deltas.get(0));
+            assertEquals(new ContentDelta(0, "", Style.color(Colors.RED).openingTag().length()),
+                    deltas.get(1));
+            assertEquals(4, deltas.size());
+            assertEquals(TextEditing.setFont(Fonts.ARIAL, "text"),
+                    Style.font(Fonts.ARIAL).apply("text"));
+        });
+    }
+
+    /**
+     * Tests styling ranges in place with invalid positions or style.
+     * Verifies that the exceptions are thrown and the content is not changed.
+     */
+    @Test
+    public void applyStyleException() {
+        assertAll(() -> {
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.applyStyle(-1, 2, Style.BOLD));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.applyStyle(0, CONTENT.length() + 1, Style.BOLD));
+            assertThrows(IllegalArgumentException.class,
+                    () -> notePage.applyStyle(5, 5, Style.UNDERLINED));
+            assertThrows(NullPointerException.class,
+                    () -> notePage.applyStyle(0, 1, null));
+            assertEquals(CONTENT, notePage.getContent());
+        });
+    }
 }
@@ -0,0 +1,194 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the import merge of {@link NoteFacade}, see {@link NotebookMerge}.
+ * This class tests the two-way merge mirroring the imported notebook, the three-way merge
+ *      from a common base revision, and the line-level difference applied to the pages.
+ */
+public class NotebookMergeTest {
+    private static final String LINES = "one\ntwo\nthree\nfour\nfive\nsix\nseven\n";
+
+    /**
+     * Tests merging an imported notebook without a base revision.
+     * Verifies that the local notebook ends up equal to the imported one, that the kept
+     *      pages are the same objects, and that only the changed page is edited.
+     */
+    @Test
+    public void mergeTwoWay() {
+        NoteFacade local = notebook(group("Lectures", "Physics", LINES, "Algebra", "x + y",
+                "Old", "to be deleted", "Reading", "list"), group("Removed", "Page", ""));
+        NoteFacade imported = notebook(group("New", "Fresh", "new page"),
+                group("Lectures", "Reading", "list", "Physics",
+                        LINES.replace("three", "3").replace("six\n", ""),
+                        "Linear algebra", "x + y", "Added", "added page"));
+        NoteGroup lectures = local.getNoteGroups().getFirst();
+        NotePage physics = lectures.getNotePages().getFirst();
+        NotePage algebra = lectures.getNotePages().get(1);
+        NotePage reading = lectures.getNotePages().get(3);
+        List<ContentDelta> deltas = new ArrayList<>();
+        physics.addPropertyChangeListener("delta",
+                evt -> deltas.add((ContentDelta) evt.getNewValue()));
+        reading.addPropertyChangeListener(evt -> deltas.add(null));
+
+        MergeReport report = local.mergeImport(imported);
+        assertAll(() -> {
+            assertEquals(new MergeReport(2, 2, 1, 1, 0), report);
+            assertEquals(describe(imported), describe(local));
+            assertSame(lectures, local.getNoteGroups().get(1));
+            assertEquals(List.of(reading, physics, algebra),
+                    lectures.getNotePages().subList(0, 3));
+            assertEquals(List.of(new ContentDelta(LINES.indexOf("three"),
+                    "three\nfour\nfive\nsix\n", "3\nfour\nfive\n".length())), deltas);
+            assertEquals(new MergeReport(0, 0, 0, 0, 0), local.mergeImport(imported));
+        });
+    }
+
+    /**
+     * Tests merging an imported notebook while the notebook is indexed.
+     * Verifies that the name index and the link graph follow the groups added and removed
+     *      by the merge.
+     */
+    @Test
+    public void mergeIndexedNotebook() {
+        NoteFacade local = notebook(group("Lectures", "Physics", "see [[Notes]]"),
+                group("Removed", "Draft", "[[Physics]]"));
+        NameIndex nameIndex = new NameIndex(local);
+        LinkGraph linkGraph = new LinkGraph(local);
+        NotePage physics = local.getNoteGroups().getFirst().getNotePages().getFirst();
+        local.mergeImport(notebook(group("Lectures", "Physics", "see [[Notes]]"),
+                group("Journal", "Notes", "back to [[Physics]]")));
+
+        NotePage notes = local.getNoteGroups().get(1).getNotePages().getFirst();
+        assertAll(() -> {
+            assertEquals("Journal", nameIndex.search("journ", 10).getFirst().name());
+            assertSame(notes, nameIndex.search("notes", 10).getFirst().notePage());
+            assertEquals(List.of(), nameIndex.search("draft", 10));
+            assertEquals(List.of(physics), linkGraph.linkedPages(notes));
+            assertEquals(List.of(notes), linkGraph.backlinks(physics));
+            assertEquals(List.of(notes), linkGraph.linkedPages(physics));
+        });
+    }
+
+    /**
+     * Tests merging an imported notebook with a common base revision.
+     * Verifies that the changes of both sides to different lines are kept, that changes
+     *      to the same lines are conflicts kept local, and that the pages deleted or added
+     *      on either side are merged.
+     */
+    @Test
+    public void mergeThreeWay() {
+        NoteFacade base = notebook(group("Group", "Merged", LINES, "Conflict", LINES,
+                "Deleted locally", "a", "Deleted by import", "b", "Changed, deleted", "c"));
+        NoteFacade local = notebook(group("Group",
+                "Merged", LINES.replace("two", "2"), "Conflict", LINES.replace("four", "4"),
+                "Deleted by import", "b", "Changed, deleted", "changed", "Local", "new"));
+        NoteFacade imported = notebook(group("Group",
+                "Merged", LINES.replace("six", "6").replace("one\n", ""),
+                "Conflict", LINES.replace("four", "FOUR").replace("seven", "7"),
+                "Deleted locally", "changed", "Imported", "new"));
+
+        MergeReport report = local.mergeImport(base, imported);
+        assertAll(() -> {
+            assertEquals(new MergeReport(1, 1, 0, 2, 3), report);
+            assertEquals(List.of("Group", "Merged", "2\nthree\nfour\nfive\n6\nseven\n",
+                    "Conflict", "one\ntwo\nthree\n4\nfive\nsix\n7\n",
+                    "Changed, deleted", "changed", "Local", "new", "Imported", "new"),
+                    describe(local));
+        });
+    }
+
+    /**
+     * Tests the line-level difference of random texts, including texts too different for
+     *      Myers' algorithm.
+     * Verifies that applying the edits turns every old text into the new one.
+     */
+    @Test
+    public void lineDiff() {
+        Random random = new Random(41);
+        for (int i = 0; i < 300; i++) {
+            int lineCount = i < 290 ? random.nextInt(40) : 3 * LineDiff.MAX_EDIT_DISTANCE;
+            String oldText = randomLines(random, lineCount);
+            String newText = randomLines(random, lineCount);
+            if (i % 2 == 0) {
+                newText = mutate(random, oldText);
+            }
+
+            NotePage notePage = new NotePage("Page", oldText);
+            LineDiff.Lines oldLines = new LineDiff.Lines(oldText);
+            LineDiff.Lines newLines = new LineDiff.Lines(newText);
+            List<LineDiff.Hunk> hunks = LineDiff.diff(oldLines, newLines);
+            notePage.applyEdits(LineDiff.edits(oldLines, newLines, hunks));
+            assertEquals(newText, notePage.getContent());
+            assertTrue(i % 2 != 0 || hunks.size() <= 3);
+        }
+    }
+
+    // builds a notebook of groups
+    private static NoteFacade notebook(NoteGroup... noteGroups) {
+        NoteFacade noteFacade = new NoteFacade();
+        noteFacade.getNoteGroups().addAll(List.of(noteGroups));
+        return noteFacade;
+    }
+
+    // builds a group of pages from alternating page names and contents
+    private static NoteGroup group(String groupName, String... namesAndContents) {
+        NoteGroup noteGroup = new NoteGroup(groupName);
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            noteGroup.addPage(new NotePage(namesAndContents[i], namesAndContents[i + 1]));
+        }
+        return noteGroup;
+    }
+
+    // lists the group names, page names and contents of a notebook, in order
+    private static List<String> describe(NoteFacade noteFacade) {
+        List<String> description = new ArrayList<>();
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            description.add(noteGroup.getGroupName());
+            for (NotePage notePage : noteGroup.getNotePages()) {
+                description.add(notePage.getPageName());
+                description.add(notePage.getContent());
+            }
+        }
+        return description;
+    }
+
+    // builds random lines from a small alphabet, so that many lines repeat
+    private static String randomLines(Random random, int lineCount) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            text.append("abcd".charAt(random.nextInt(4)));
+            if (i < lineCount - 1 || random.nextBoolean()) {
+                text.append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    // changes, inserts or deletes one to three lines of a text
+    private static String mutate(Random random, String text) {
+        List<String> lines = new ArrayList<>(List.of(text.split("(?<=\n)", -1)));
+        for (int i = random.nextInt(3); i >= 0; i--) {
+            int line = random.nextInt(lines.size() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> lines.add(line, "inserted\n");
+                case 1 -> lines.add(line, "x\n");
+                default -> {
+                    if (line < lines.size()) {
+                        lines.remove(line);
+                    }
+                }
+            }
+        }
+        return String.join("", lines);
+    }
+}
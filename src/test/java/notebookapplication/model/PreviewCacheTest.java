@@ -0,0 +1,117 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link PreviewCache} class.
+ * This class tests the plain-text previews, their invalidation by the edits touching
+ *      the previewed part of a page, and the eviction of the least recently used previews.
+ */
+public class PreviewCacheTest {
+    private NotePage notePage;
+    private PreviewCache cache;
+
+    /**
+     * Sets up a page with tags and symbols, and a cache of 12 chars previews.
+     */
+    @BeforeEach
+    public void setUp() {
+        notePage = new NotePage("Page", Symbols.BULLET_POINT.prefix()
+                + TextEditing.setBold("Bold") + "  text\n\nsecond line, which is not shown");
+        cache = new PreviewCache(12, 2);
+    }
+
+    /**
+     * Tests the preview and the hits of the cache.
+     * Verifies that the tags and symbol prefixes are stripped and the whitespace collapsed,
+     *      and that an edit after the preview keeps it cached.
+     */
+    @Test
+    public void previewAndHits() {
+        String first = cache.preview(notePage);
+        String second = cache.preview(notePage);
+        notePage.insertContent(notePage.getContentLength(), " more");
+        String afterEdit = cache.preview(notePage);
+        assertAll(() -> {
+            assertEquals("Bold text se", first);
+            assertEquals(first, second);
+            assertEquals(first, afterEdit);
+            assertEquals(2, cache.getHits());
+            assertEquals(1, cache.getMisses());
+            assertEquals(2.0 / 3, cache.getHitRate());
+            assertEquals("a", new PreviewCache(1, 1).preview(new NotePage("", " a b")));
+            assertEquals("", new PreviewCache(5, 1).preview(new NotePage("", "")));
+        });
+    }
+
+    /**
+     * Tests invalidating the preview.
+     * Verifies that an edit of the previewed part, and a change without a delta, are seen.
+     */
+    @Test
+    public void invalidate() {
+        cache.preview(notePage);
+        notePage.replaceContent(notePage.getContent().indexOf("Bold"),
+                notePage.getContent().indexOf("Bold") + 4, "Thin");
+        String edited = cache.preview(notePage);
+        notePage.setContent("[style=\"-fx-fill: red;\"]Red");
+        String replaced = cache.preview(notePage);
+        notePage.deleteContent(0, 1);
+        String brokenTag = cache.preview(notePage);
+        assertAll(() -> {
+            assertEquals("Thin text se", edited);
+            assertEquals("Red", replaced);
+            assertEquals("style=\"-fx-f", brokenTag);
+            assertEquals(2, cache.getInvalidations());
+            assertEquals(4, cache.getMisses());
+        });
+    }
+
+    /**
+     * Tests the eviction of the least recently used previews.
+     * Verifies that the cache keeps at most its maximal number of previews.
+     */
+    @Test
+    public void evictLeastRecentlyUsed() {
+        NotePage second = new NotePage("Second", "second");
+        NotePage third = new NotePage("Third", "third");
+        cache.preview(notePage);
+        cache.preview(second);
+        cache.preview(notePage);
+        cache.preview(third);
+        cache.preview(notePage);
+        cache.preview(second);
+        assertAll(() -> {
+            assertEquals(2, cache.size());
+            assertEquals(2, cache.getEvictions());
+            assertEquals(2, cache.getHits());
+        });
+    }
+
+    /**
+     * Tests the cached preview after many random edits at the start of a page.
+     * Verifies that it is always the same as a preview computed again.
+     */
+    @Test
+    public void randomEdits() {
+        Random random = new Random(5);
+        String[] pieces = {"a", " ", "\n", "[", "]", "\"", "[style=\"", "[/style]",
+                Symbols.STAR.prefix(), "word "};
+        for (int i = 0; i < 1000; i++) {
+            int length = notePage.getContentLength();
+            int start = random.nextInt(Math.min(length, 40) + 1);
+            int end = Math.min(length, start + random.nextInt(4));
+            if (end == start) {
+                notePage.insertContent(start, pieces[random.nextInt(pieces.length)]);
+            } else {
+                notePage.replaceContent(start, end, pieces[random.nextInt(pieces.length)]);
+            }
+            assertEquals(new PreviewCache(12, 1).preview(notePage), cache.preview(notePage));
+        }
+    }
+}
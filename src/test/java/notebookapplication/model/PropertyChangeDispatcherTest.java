@@ -0,0 +1,133 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.beans.PropertyChangeListener;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link PropertyChangeDispatcher} class.
+ * This class tests the listeners of all properties, of single properties and
+ *      the listeners held weakly, through the events of a NotePage.
+ */
+public class PropertyChangeDispatcherTest {
+    private NotePage notePage;
+    private List<String> received;
+
+    /**
+     * Sets up a NotePage and an empty list of received property names before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        notePage = new NotePage("Page", "Some content");
+        received = new ArrayList<>();
+    }
+
+    /**
+     * Tests listening to all properties and to a single property.
+     * Verifies that the listeners of a single property only receive that property,
+     *      and that removed listeners receive nothing.
+     */
+    @Test
+    public void filteredListeners() {
+        PropertyChangeListener all = evt -> received.add(STR."all:\{evt.getPropertyName()}");
+        PropertyChangeListener insert = evt -> received.add(STR."insert:\{evt.getNewValue()}");
+        notePage.addPropertyChangeListener(all);
+        notePage.addPropertyChangeListener("insert", insert);
+
+        notePage.insertContent(0, "A ");
+        notePage.deleteContent(0, 2);
+        notePage.removePropertyChangeListener(all);
+        notePage.removePropertyChangeListener("insert", insert);
+        notePage.insertContent(0, "B ");
+
+        assertEquals(List.of("all:insert", "insert:A Some content", "all:delta",
+                "all:delete", "all:delta"), received);
+    }
+
+    /**
+     * Tests that no event is fired without a listener of the property, and that the
+     *      events with equal old and new values are not fired.
+     */
+    @Test
+    public void noListeners() {
+        PropertyChangeDispatcher dispatcher = new PropertyChangeDispatcher(this);
+        dispatcher.addPropertyChangeListener("name", evt -> received.add("name"));
+        dispatcher.firePropertyChange("other", "a", "b");
+        dispatcher.firePropertyChange("name", "a", "a");
+        dispatcher.firePropertyChange("name", "a", "b");
+
+        assertAll(() -> {
+            assertEquals(List.of("name"), received);
+            assertTrue(dispatcher.hasListeners("name"));
+            assertFalse(dispatcher.hasListeners("other"));
+        });
+    }
+
+    /**
+     * Tests listening with a listener held weakly, whose reference is cleared and enqueued
+     *      as the garbage collector would.
+     * Verifies that the listener receives events until it is collected, and that its
+     *      registration is then removed.
+     */
+    @Test
+    public void weakListeners() {
+        PropertyChangeDispatcher dispatcher = new PropertyChangeDispatcher(this);
+        PropertyChangeListener listener = evt -> received.add(evt.getPropertyName());
+        Reference<PropertyChangeListener> reference =
+                dispatcher.addWeakReference("insert", listener);
+        dispatcher.firePropertyChange("insert", "a", "b");
+        boolean listening = dispatcher.hasListeners("insert");
+
+        reference.clear();
+        reference.enqueue();
+        dispatcher.firePropertyChange("insert", "b", "c");
+
+        assertAll(() -> {
+            assertTrue(listening);
+            assertEquals(List.of("insert"), received);
+            assertFalse(dispatcher.hasListeners("insert"));
+            assertEquals(0, dispatcher.retainedBytes());
+        });
+    }
+
+    /**
+     * Tests listening to a page with a listener held weakly and really collected.
+     * Verifies that the listener is removed once the garbage collector has enqueued its
+     *      reference; the test is skipped if the collector does not within a bounded time.
+     */
+    @Test
+    public void collectedListener() throws InterruptedException {
+        PropertyChangeListener listener = evt -> received.add(evt.getPropertyName());
+        notePage.addWeakPropertyChangeListener("insert", listener);
+        notePage.insertContent(0, "A ");
+        assertEquals(List.of("insert"), received);
+
+        ReferenceQueue<PropertyChangeListener> queue = new ReferenceQueue<>();
+        WeakReference<PropertyChangeListener> reference = new WeakReference<>(listener, queue);
+        listener = null;
+        boolean collected = false;
+        for (int i = 0; i < 20 && !collected; i++) {
+            System.gc();
+            collected = queue.remove(50) != null;
+        }
+        assumeTrue(collected, "Listener was not collected");
+        notePage.insertContent(0, "B ");
+
+        assertAll(() -> {
+            assertNull(reference.get());
+            assertEquals(List.of("insert"), received);
+        });
+    }
+}
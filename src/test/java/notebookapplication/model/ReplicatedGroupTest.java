@@ -0,0 +1,137 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ReplicatedGroup} class.
+ * This class tests two in-process sessions editing the same NoteGroup concurrently,
+ *      with the batches exchanged directly between them.
+ */
+public class ReplicatedGroupTest {
+    private static final String INPUT =
+            "[page=\"Page 1\"]Some content...[/page][page=\"Page 2\"]Other content[/page]";
+    private static final List<Integer> REPLICAS = List.of(1, 2);
+    private NoteGroup first;
+    private NoteGroup second;
+    private ReplicatedGroup firstReplica;
+    private ReplicatedGroup secondReplica;
+
+    /**
+     * Sets up two sessions of the same NoteGroup before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        first = new NoteGroup("Group", new Scanner(INPUT));
+        second = new NoteGroup("Group", new Scanner(INPUT));
+        firstReplica = new ReplicatedGroup("Group", first, 1, REPLICAS);
+        secondReplica = new ReplicatedGroup("Group", second, 2, REPLICAS);
+    }
+
+    /**
+     * Tests concurrent edits of the same page in both sessions.
+     * Verifies that both sessions end up with the same content, keeping both edits.
+     */
+    @Test
+    public void concurrentContentEdits() {
+        first.getNotePages().getFirst().insertContent(0, "First: ");
+        second.getNotePages().getFirst().replaceContent(5, 12, "text");
+        second.getNotePages().getFirst().insertContent(0, "Second: ");
+        exchange();
+
+        String content = first.getNotePages().getFirst().getContent();
+        assertAll(() -> {
+            assertEquals(content, second.getNotePages().getFirst().getContent());
+            assertTrue(content.contains("First: "));
+            assertTrue(content.contains("Second: "));
+            assertTrue(content.endsWith("Some text..."));
+        });
+    }
+
+    /**
+     * Tests adding, moving and deleting pages concurrently in both sessions.
+     * Verifies that both sessions end up with the same pages in the same order.
+     */
+    @Test
+    public void concurrentPageOrder() {
+        first.addPage(new NotePage("Page 3", "Created in the first session"));
+        second.changePagesOrder(1, 0);
+        second.deletePage(1);
+        exchange();
+
+        first.getNotePages().getLast().insertContent(0, "Edited: ");
+        exchange();
+
+        assertAll(() -> {
+            assertEquals(pageNames(first), pageNames(second));
+            assertEquals(List.of("Page 2", "Page 3"), pageNames(first));
+            assertEquals("Edited: Created in the first session",
+                    second.getNotePages().getLast().getContent());
+        });
+    }
+
+    /**
+     * Tests that the tombstones are collected once both sessions have seen the deletions.
+     */
+    @Test
+    public void collectGarbage() {
+        first.getNotePages().getFirst().deleteContent(0, 5);
+        exchange();
+        exchange();
+
+        assertAll(() -> {
+            assertEquals(5, firstReplica.collectGarbage());
+            assertEquals(5, secondReplica.collectGarbage());
+            assertEquals("content...", second.getNotePages().getFirst().getContent());
+        });
+    }
+
+    /**
+     * Tests a page edited in one session while it is deleted in the other one.
+     * Verifies that the page stops being replicated once both sessions have seen the
+     *      deletion, and that a late batch of its content is then ignored.
+     */
+    @Test
+    public void dropDeletedPage() {
+        NotePage deleted = second.getNotePages().getFirst();
+        deleted.insertContent(0, "Edited: ");
+        first.deletePage(0);
+        List<OpBatch<?>> fromSecond = secondReplica.drainOutbox();
+        fromSecond.forEach(firstReplica::receive);
+        exchange();
+        exchange();
+        firstReplica.collectGarbage();
+        secondReplica.collectGarbage();
+
+        fromSecond.forEach(firstReplica::receive);
+        deleted.insertContent(0, "Late: ");
+        assertAll(() -> {
+            assertEquals(List.of("Page 2"), pageNames(first));
+            assertEquals(pageNames(first), pageNames(second));
+            assertTrue(secondReplica.drainOutbox().isEmpty());
+        });
+    }
+
+    /**
+     * Delivers the pending batches of each session to the other session.
+     */
+    private void exchange() {
+        List<OpBatch<?>> fromFirst = firstReplica.drainOutbox();
+        List<OpBatch<?>> fromSecond = secondReplica.drainOutbox();
+        fromFirst.forEach(secondReplica::receive);
+        fromSecond.forEach(firstReplica::receive);
+    }
+
+    private static List<String> pageNames(NoteGroup noteGroup) {
+        List<String> names = new ArrayList<>();
+        noteGroup.getNotePages().forEach(notePage -> names.add(notePage.getPageName()));
+        return names;
+    }
+}
@@ -0,0 +1,225 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ReplicatedList} class.
+ * This class tests that in-process replicas editing concurrently converge to the same
+ *      content, and that the tombstones are collected once seen by every replica.
+ */
+public class ReplicatedListTest {
+    private static final List<Integer> REPLICAS = List.of(1, 2, 3);
+    private List<ReplicatedList<Character>> replicas;
+
+    /**
+     * Sets up three replicas with the same initial content before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        replicas = new ArrayList<>();
+        for (int replica : REPLICAS) {
+            replicas.add(new ReplicatedList<>(replica, REPLICAS, chars("abc")));
+        }
+    }
+
+    /**
+     * Tests concurrent inserts at the same position.
+     * Verifies that all replicas converge to the same order.
+     */
+    @Test
+    public void concurrentInserts() {
+        replicas.get(0).insert(1, chars("XX"));
+        replicas.get(1).insert(1, chars("YY"));
+        replicas.get(2).delete(1, 1);
+        exchange();
+
+        String expected = text(replicas.getFirst());
+        assertAll(() -> {
+            assertEquals(6, expected.length());
+            assertEquals(expected, text(replicas.get(1)));
+            assertEquals(expected, text(replicas.get(2)));
+            assertEquals("a", expected.substring(0, 1));
+            assertEquals("c", expected.substring(5));
+        });
+    }
+
+    /**
+     * Tests typing one character at a time, then editing inside the typed run.
+     * Verifies that the typed characters are stored as one run, that a run is split by
+     *      an edit inside it, and that the collected tombstones keep their runs.
+     */
+    @Test
+    public void runs() {
+        ReplicatedList<Character> list = replicas.getFirst();
+        for (char character : "hello".toCharArray()) {
+            list.insert(list.size(), chars(String.valueOf(character)));
+        }
+        assertEquals(2, list.runCount());
+
+        list.delete(5, 1);
+        list.insert(4, chars("X"));
+        exchange();
+        assertAll(() -> {
+            assertEquals("abchXelo", text(list));
+            assertEquals("abchXelo", text(replicas.get(2)));
+            assertEquals(6, list.runCount());
+        });
+
+        exchange();
+        list.delete(4, 1);
+        exchange();
+        exchange();
+        assertAll(() -> {
+            assertEquals(2, list.collectGarbage());
+            assertEquals(0, list.tombstoneCount());
+            assertEquals("abchelo", text(replicas.get(1)));
+            assertEquals(6, list.runCount());
+        });
+    }
+
+    /**
+     * Tests many random concurrent edits with the batches exchanged at random moments.
+     * Verifies that the replicas converge and all tombstones are collected at the end.
+     */
+    @Test
+    public void randomEditsConverge() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            ReplicatedList<Character> list = replicas.get(random.nextInt(replicas.size()));
+            if (list.size() > 0 && random.nextInt(3) == 0) {
+                int index = random.nextInt(list.size());
+                list.delete(index, Math.min(1 + random.nextInt(3), list.size() - index));
+            } else {
+                list.insert(random.nextInt(list.size() + 1),
+                        chars(String.valueOf((char) ('a' + random.nextInt(26))).repeat(2)));
+            }
+            if (random.nextInt(5) == 0) {
+                exchange();
+            }
+        }
+        exchange();
+        exchange(); // second round spreads the version vectors
+
+        String expected = text(replicas.getFirst());
+        for (ReplicatedList<Character> list : replicas) {
+            assertEquals(expected, text(list));
+            list.collectGarbage();
+            assertEquals(0, list.tombstoneCount());
+            assertEquals(0, list.pendingCount());
+        }
+    }
+
+    /**
+     * Tests that the tombstones are only collected when every replica has seen the deletion.
+     */
+    @Test
+    public void tombstonesCollectedWhenStable() {
+        replicas.get(0).delete(0, 2);
+        replicas.get(0).collectGarbage();
+        assertEquals(2, replicas.get(0).tombstoneCount());
+
+        exchange();
+        exchange();
+        replicas.get(0).collectGarbage();
+        assertAll(() -> {
+            assertEquals(0, replicas.get(0).tombstoneCount());
+            assertEquals("c", text(replicas.get(1)));
+            assertNull(replicas.get(0).drain("doc"));
+        });
+    }
+
+    /**
+     * Tests collecting a tombstone before an insert concurrent with the elements after it.
+     * Verifies that the collected tombstone still orders the late insert, so the replica
+     *      that collected it converges with the others.
+     */
+    @Test
+    public void collectGarbageBeforeConcurrentInsert() {
+        List<ReplicatedList<Character>> lists = new ArrayList<>();
+        for (int replica : REPLICAS) {
+            lists.add(new ReplicatedList<>(replica, REPLICAS, chars("P")));
+        }
+        lists.get(0).insert(1, chars("T"));
+        OpBatch<Character> inserted = lists.get(0).drain("doc");
+        lists.get(1).apply(inserted);
+        lists.get(2).apply(inserted);
+
+        // the second replica inserts after the tombstone with a higher counter
+        lists.get(1).insert(0, chars("zzzzz"));
+        lists.get(1).insert(7, chars("E"));
+        OpBatch<Character> late = lists.get(1).drain("doc");
+        lists.get(0).delete(1, 1);
+        OpBatch<Character> deleted = lists.get(0).drain("doc");
+        lists.get(1).apply(deleted);
+        lists.get(2).apply(deleted);
+        lists.get(0).apply(late);
+        lists.get(0).apply(lists.get(1).drain("doc"));
+        lists.get(0).apply(lists.get(2).drain("doc"));
+        assertEquals(1, lists.get(0).collectGarbage());
+
+        lists.get(2).insert(1, chars("N"));
+        OpBatch<Character> concurrent = lists.get(2).drain("doc");
+        lists.get(0).apply(concurrent);
+        lists.get(1).apply(concurrent);
+        lists.get(2).apply(late);
+        assertAll(() -> {
+            assertEquals("zzzzzPNE", text(lists.get(0)));
+            assertEquals("zzzzzPNE", text(lists.get(1)));
+            assertEquals("zzzzzPNE", text(lists.get(2)));
+        });
+    }
+
+    /**
+     * Tests local operations with invalid positions and replica ids.
+     * Verifies that an IllegalArgumentException is thrown.
+     */
+    @Test
+    public void replicatedListException() {
+        assertAll(() -> {
+            assertThrows(IllegalArgumentException.class,
+                    () -> replicas.getFirst().insert(4, chars("x")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> replicas.getFirst().delete(2, 2));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ReplicatedList<>(0, List.of(0, 1), chars("")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ReplicatedList<>(4, REPLICAS, chars("")));
+        });
+    }
+
+    /**
+     * Delivers the pending batch of every replica to all the other replicas.
+     */
+    private void exchange() {
+        for (ReplicatedList<Character> sender : replicas) {
+            OpBatch<Character> batch = sender.drain("doc");
+            if (batch == null) {
+                continue;
+            }
+            for (ReplicatedList<Character> receiver : replicas) {
+                if (receiver != sender) {
+                    receiver.apply(batch);
+                }
+            }
+        }
+    }
+
+    private static List<Character> chars(String string) {
+        return string.chars().mapToObj(c -> (char) c).toList();
+    }
+
+    private static String text(ReplicatedList<Character> list) {
+        StringBuilder builder = new StringBuilder();
+        list.toList().forEach(builder::append);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link SpellChecker} and {@link SpellDictionary} classes.
+ * This class tests the minimal automaton of the dictionary, the suggestions, and the
+ *      misspelled words of a page kept up to date by its edits.
+ */
+public class SpellCheckerTest {
+    private static final List<String> WORDS = List.of("the", "note", "notes", "noted",
+            "page", "pages", "paged", "this", "is", "a", "line", "lines", "first", "second",
+            "tap", "taps", "top", "tops", "bold", "text");
+
+    private SpellDictionary dictionary;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Sets up the dictionary before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        dictionary = SpellDictionary.of(WORDS);
+    }
+
+    /**
+     * Tests building and loading the dictionary.
+     * Verifies that only the words are found ignoring the case, and that the words sharing
+     *      a suffix share its states.
+     */
+    @Test
+    public void dictionary() throws IOException {
+        Path file = tempDir.resolve("words.txt");
+        Files.writeString(file, "# comment\nTops\ntap\n\ntaps\ntop\ntap\n",
+                StandardCharsets.UTF_8);
+        SpellDictionary loaded = SpellDictionary.load(file);
+        assertAll(() -> {
+            assertTrue(WORDS.stream().allMatch(dictionary::contains));
+            assertTrue(dictionary.contains("NOTES"));
+            assertFalse(dictionary.contains("not"));
+            assertFalse(dictionary.contains("notess"));
+            assertFalse(dictionary.contains(""));
+            assertTrue(dictionary.contains("a page", 2, 6));
+            assertEquals(WORDS.size(), dictionary.size());
+            assertEquals(4, loaded.size());
+            // t, then a or o, then p, then the optional s
+            assertEquals(5, loaded.stateCount());
+            assertEquals(5, loaded.transitionCount());
+            assertTrue(loaded.memoryBytes() > 0);
+        });
+    }
+
+    /**
+     * Tests the suggestions of misspelled words.
+     * Verifies that the closest words come first, with transpositions counted as one edit.
+     */
+    @Test
+    public void suggest() {
+        assertAll(() -> {
+            assertEquals(List.of("the", "tap", "text"), dictionary.suggest("teh", 2, 3));
+            assertEquals(List.of("note"), dictionary.suggest("Ntoe", 1, 5));
+            assertEquals(List.of("page", "a", "paged"), dictionary.suggest("pag", 2, 3));
+            assertEquals(List.of(), dictionary.suggest("page", 0, 3));
+            assertEquals(List.of(), dictionary.suggest("xyzzy", 2, 3));
+        });
+    }
+
+    /**
+     * Tests the misspelled words of a watched page.
+     * Verifies that the style tags, symbol prefixes, single letters and words with digits
+     *      are skipped.
+     */
+    @Test
+    public void misspellings() {
+        NotePage notePage = new NotePage("Page", "");
+        notePage.setContent("This is teh frist line.\n" + Symbols.STAR.prefix()
+                + TextEditing.setBold("bold txet") + " x 2nd");
+        SpellChecker spellChecker = new SpellChecker(dictionary);
+        spellChecker.watch(notePage);
+        assertAll(() -> {
+            assertEquals(List.of("teh", "frist", "txet"),
+                    words(notePage, spellChecker.misspellings(notePage, 0, 1000)));
+            assertEquals(List.of("frist"),
+                    words(notePage, spellChecker.misspellings(notePage, 13, 14)));
+            assertEquals(List.of("the"), spellChecker.suggest("teh", 1));
+        });
+
+        notePage.replaceContent(8, 11, "the");
+        notePage.insertContent(0, "Frist\n");
+        notePage.setContent(notePage.getContent() + " wrnog");
+        assertEquals(List.of("Frist", "frist", "txet", "wrnog"),
+                words(notePage, spellChecker.misspellings(notePage, 0, 1000)));
+    }
+
+    /**
+     * Tests the misspelled words of a page after many random edits.
+     * Verifies that the ranges updated from the deltas are the same as checking the whole
+     *      page again.
+     */
+    @Test
+    public void updateOnEdits() {
+        Random random = new Random(3);
+        String[] pieces = {"note ", "nte ", "pages ", "pgaes\n", "x", "\n", "[style=\"a\"]",
+            "[/style]", "line ", "lien "};
+        NotePage notePage = new NotePage("Page", "");
+        SpellChecker spellChecker = new SpellChecker(dictionary);
+        spellChecker.watch(notePage);
+        for (int i = 0; i < 500; i++) {
+            int length = notePage.getContentLength();
+            int start = random.nextInt(length + 1);
+            int end = Math.min(length, start + random.nextInt(8));
+            if (end == start) {
+                notePage.insertContent(start, pieces[random.nextInt(pieces.length)]);
+            } else if (random.nextInt(3) == 0) {
+                notePage.deleteContent(start, end);
+            } else {
+                notePage.replaceContent(start, end, pieces[random.nextInt(pieces.length)]);
+            }
+
+            SpellChecker fresh = new SpellChecker(dictionary);
+            fresh.watch(notePage);
+            assertEquals(fresh.misspellings(notePage, 0, Integer.MAX_VALUE),
+                    spellChecker.misspellings(notePage, 0, Integer.MAX_VALUE));
+            fresh.unwatch(notePage);
+        }
+    }
+
+    /**
+     * Tests the misspelled words of a page when an edit closes a tag opened on a line above.
+     * Verifies that a tag attribute cannot span two lines, so that checking the touched
+     *      line again gives the same words as checking the whole page again.
+     */
+    @Test
+    public void tagAcrossLines() {
+        NotePage notePage = new NotePage("Page", "");
+        notePage.setContent("[style=\"a\nnte");
+        SpellChecker spellChecker = new SpellChecker(dictionary);
+        spellChecker.watch(notePage);
+        notePage.insertContent(notePage.getContentLength(), "\"]note");
+
+        SpellChecker fresh = new SpellChecker(dictionary);
+        fresh.watch(notePage);
+        assertAll(() -> {
+            assertEquals(0, Markup.tagLengthAt(notePage.getContentView(), 0));
+            assertEquals(List.of("style", "nte"),
+                    words(notePage, spellChecker.misspellings(notePage, 0, 1000)));
+            assertEquals(fresh.misspellings(notePage, 0, 1000),
+                    spellChecker.misspellings(notePage, 0, 1000));
+        });
+    }
+
+    // gets the misspelled words of a page
+    private static List<String> words(NotePage notePage,
+                                      List<SpellChecker.Misspelling> misspellings) {
+        List<String> words = new ArrayList<>();
+        for (SpellChecker.Misspelling misspelling : misspellings) {
+            words.add(notePage.getContent()
+                    .substring(misspelling.startPosition(), misspelling.endPosition()));
+        }
+        return words;
+    }
+}
@@ -0,0 +1,135 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link VisibleOffsetIndex} class.
+ * This class tests the mapping between the raw and visible offsets of a styled page,
+ *      kept up to date across edits, formatting and direct content changes.
+ */
+public class VisibleOffsetIndexTest {
+    private static final String CONTENT = "Some [style=\"-fx-font-weight: bold;\"]bold[/style] "
+            + "and [style=\"-fx-fill: red;\"][style=\"-fx-underline: true;\"]red[/style][/style]";
+    private NotePage notePage;
+    private VisibleOffsetIndex index;
+
+    /**
+     * Sets up a styled NotePage and its index before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        notePage = new NotePage("Page", CONTENT);
+        index = new VisibleOffsetIndex(notePage);
+    }
+
+    /**
+     * Tests mapping the offsets of the initial content.
+     * Verifies the visible text, and the offsets before, inside and after the tags.
+     */
+    @Test
+    public void mapOffsets() {
+        int boldTag = CONTENT.indexOf("[style");
+        int boldText = CONTENT.indexOf("bold[");
+        int closingTag = CONTENT.indexOf("[/style]");
+        assertAll(() -> {
+            assertEquals("Some bold and red", index.getVisibleText().toString());
+            assertEquals(17, index.getVisibleLength());
+            assertEquals(6, index.getTagCount());
+            assertEquals(5, index.toVisible(boldTag));
+            assertEquals(5, index.toVisible(boldTag + 3));
+            assertEquals(5, index.toVisible(boldText));
+            assertEquals(9, index.toVisible(closingTag));
+            assertEquals(boldText, index.toRaw(5));
+            assertEquals(boldTag, index.toRawEnd(5));
+            assertEquals(closingTag, index.toRawEnd(9));
+            assertEquals(CONTENT.length(), index.toRaw(17));
+            assertEquals(CONTENT.indexOf("red["), index.toRawEnd(17) - 3);
+            assertEquals('r', index.getVisibleText().charAt(14));
+            assertEquals("bold and", index.getVisibleText().subSequence(5, 13).toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> index.toRaw(18));
+            assertThrows(IndexOutOfBoundsException.class, () -> index.toVisible(-1));
+        });
+    }
+
+    /**
+     * Tests keeping the index up to date across edits that complete, break and
+     *      create tags, and across formatting a visible selection.
+     * Verifies that every offset is mapped like a full scan of the new content.
+     */
+    @Test
+    public void updateOnEdits() {
+        notePage.deleteContent(CONTENT.indexOf("[/style]") + 3, CONTENT.indexOf("[/style]") + 4);
+        assertMatchesScan();
+        notePage.insertContent(CONTENT.indexOf("[/style]") + 3, "y");
+        assertMatchesScan();
+        notePage.insertContent(0, "[style=\"-fx-fill: blue;");
+        assertMatchesScan();
+        notePage.insertContent(notePage.getContent().indexOf("Some"), "\"]");
+        assertMatchesScan();
+        notePage.formatting(index.toRaw(5), index.toRawEnd(9),
+                () -> TextEditing.setItalic(notePage.getContent().substring(
+                        index.toRaw(5), index.toRawEnd(9))));
+        assertMatchesScan();
+        notePage.setContent("No tags [/style] anymore");
+        assertMatchesScan();
+    }
+
+    /**
+     * Tests keeping the index up to date across many random edits of tag fragments.
+     * Verifies that every offset is mapped like a full scan of the new content.
+     */
+    @Test
+    public void updateOnRandomEdits() {
+        String[] fragments = {"[style=\"", "\"]", "[/style]", "[page=\"", "[/page]", "\"", "]",
+            "[", "ab", "c d", "-fx-fill: red;"};
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int length = notePage.getContentLength();
+            int start = random.nextInt(length + 1);
+            if (random.nextInt(3) == 0 && length > 0) {
+                notePage.deleteContent(start == length ? start - 1 : start,
+                        Math.min(length, start + 1 + random.nextInt(10)));
+            } else {
+                notePage.insertContent(start, fragments[random.nextInt(fragments.length)]);
+            }
+            assertMatchesScan();
+        }
+    }
+
+    /**
+     * Private auxiliary method to check the index against a full scan of the content.
+     */
+    private void assertMatchesScan() {
+        String content = notePage.getContent();
+        StringBuilder visible = new StringBuilder();
+        int[] toVisible = new int[content.length() + 1];
+        int position = 0;
+        while (position < content.length()) {
+            int tagLength = Markup.tagLengthAt(content, position);
+            for (int i = 0; i < Math.max(tagLength, 1); i++) {
+                toVisible[position + i] = visible.length();
+            }
+            if (tagLength == 0) {
+                visible.append(content.charAt(position));
+            }
+            position += Math.max(tagLength, 1);
+        }
+        toVisible[content.length()] = visible.length();
+
+        assertEquals(visible.toString(), index.getVisibleText().toString(), content);
+        for (int raw = 0; raw <= content.length(); raw++) {
+            assertEquals(toVisible[raw], index.toVisible(raw), content);
+        }
+        for (int offset = 0; offset < visible.length(); offset++) {
+            assertEquals(visible.charAt(offset), content.charAt(index.toRaw(offset)), content);
+            assertEquals(visible.charAt(offset), content.charAt(index.toRawEnd(offset + 1) - 1),
+                    content);
+        }
+    }
+}
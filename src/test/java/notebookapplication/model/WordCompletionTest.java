@@ -0,0 +1,123 @@
+package notebookapplication.model;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link WordCompletion} class and its {@link WordTrie}.
+ * This class tests that the vocabulary follows the edits of the watched pages,
+ *      ignores the markup, and that the trie is bounded and can be restored
+ *      from a snapshot.
+ */
+public class WordCompletionTest {
+    private static final String CONTENT =
+            """
+            Notes about notebooks.
+            [style="-fx-fill: red;"]Nothing[/style] is noted here, nothing at all.""";
+    private NotePage notePage;
+    private WordCompletion wordCompletion;
+
+    /**
+     * Sets up a watched NotePage with the content defined above before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        notePage = new NotePage("Page", CONTENT);
+        wordCompletion = new WordCompletion(100);
+        wordCompletion.watch(notePage, true);
+    }
+
+    /**
+     * Tests the completions of the initial content.
+     * Verifies that the most frequent words come first and the style tag is ignored.
+     */
+    @Test
+    public void completeInitialContent() {
+        assertAll(() -> {
+            assertEquals(List.of("nothing", "notebooks", "noted", "notes"),
+                    wordCompletion.complete("No", 10));
+            assertEquals(List.of("nothing"), wordCompletion.complete("not", 1));
+            assertTrue(wordCompletion.complete("fx", 10).isEmpty());
+            assertTrue(wordCompletion.complete("style", 10).isEmpty());
+        });
+    }
+
+    /**
+     * Tests that the vocabulary follows the edits of the page.
+     * Verifies that words split or removed by edits are uncounted.
+     */
+    @Test
+    public void completeAfterEdits() {
+        notePage.insertContent(0, "notation ");
+        notePage.deleteContent(notePage.getContent().indexOf("nothing at"),
+                notePage.getContent().length());
+        notePage.replaceContent(9, 14, "Zen");
+        notePage.toggleSymbols(0, 1, Symbols.CHECK_BOX);
+        System.out.println(notePage.getContent());
+
+        assertAll(() -> {
+            assertEquals(List.of("notation", "notebooks", "noted", "nothing"),
+                    wordCompletion.complete("no", 10));
+            assertEquals(List.of("zen"), wordCompletion.complete("z", 10));
+            assertTrue(wordCompletion.complete("check", 10).isEmpty());
+        });
+    }
+
+    /**
+     * Tests that unwatching a page removes its words.
+     */
+    @Test
+    public void unwatchPage() {
+        wordCompletion.unwatch(notePage, true);
+        notePage.insertContent(0, "ignored ");
+        assertEquals(0, wordCompletion.vocabularySize());
+    }
+
+    /**
+     * Tests that the trie never keeps more words than its bound.
+     * Verifies that the most frequent words survive the pruning.
+     */
+    @Test
+    public void trieIsBounded() {
+        WordTrie trie = new WordTrie(10);
+        trie.add("frequent", 50);
+        for (int i = 0; i < 100; i++) {
+            trie.add(STR."word\{i}", 1);
+            assertTrue(trie.size() <= 10);
+        }
+        assertEquals(50, trie.count("frequent"));
+        assertThrows(IllegalArgumentException.class, () -> new WordTrie(0));
+    }
+
+    /**
+     * Tests writing the trie to a snapshot and reading it back.
+     */
+    @Test
+    public void trieSnapshot() throws IOException {
+        WordTrie trie = new WordTrie(10);
+        trie.add("alpha", 3);
+        trie.add("alphabet", 5);
+        trie.add("beta", 1);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        trie.writeSnapshot(output);
+        WordTrie restored = WordTrie.readSnapshot(new ByteArrayInputStream(output.toByteArray()));
+
+        assertAll(() -> {
+            assertEquals(3, restored.size());
+            assertEquals(List.of("alphabet", "alpha"), restored.complete("al", 5));
+            assertEquals(1, restored.count("beta"));
+            assertThrows(IOException.class,
+                    () -> WordTrie.readSnapshot(new ByteArrayInputStream(new byte[8])));
+        });
+    }
+}
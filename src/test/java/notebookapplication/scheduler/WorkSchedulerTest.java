@@ -0,0 +1,186 @@
+package notebookapplication.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import notebookapplication.model.NotePage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link WorkScheduler} class.
+ * This class tests the priorities and concurrency limits of the lanes, the coalescing of
+ *      the work on the same page, the backpressure of the edits and the metrics.
+ */
+public class WorkSchedulerTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private AtomicLong clock;
+    private WorkScheduler scheduler;
+
+    /**
+     * Sets up a scheduler running one task per lane, with a manual clock.
+     */
+    @BeforeEach
+    public void setUp() {
+        Map<Lane, Integer> limits = new EnumMap<>(Lane.class);
+        for (Lane lane : Lane.values()) {
+            limits.put(lane, 1);
+        }
+        clock = new AtomicLong();
+        scheduler = new WorkScheduler(limits, 2, 20, clock::get);
+    }
+
+    /**
+     * Closes the scheduler after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    /**
+     * Tests the priorities and the concurrency limits of the lanes.
+     * Verifies that a lane runs one task at once, and that the near-real-time work waits
+     *      for the waiting interactive work but not for the running bulk work.
+     */
+    @Test
+    public void prioritiesAndLimits() {
+        CountDownLatch bulkLatch = new CountDownLatch(1);
+        CountDownLatch interactiveLatch = new CountDownLatch(1);
+        scheduler.submit(Lane.BULK, () -> await(bulkLatch));
+        scheduler.submit(Lane.INTERACTIVE, () -> await(interactiveLatch));
+        CompletableFuture<Void> interactive = scheduler.submit(Lane.INTERACTIVE, () -> { });
+        CompletableFuture<Void> nearRealTime = scheduler.submit(Lane.NEAR_REAL_TIME, () -> { });
+        List<LaneMetrics> waiting = scheduler.metrics();
+
+        interactiveLatch.countDown();
+        CompletableFuture.allOf(interactive, nearRealTime).join();
+        assertAll(() -> {
+            assertEquals(1, waiting.get(0).running());
+            assertEquals(1, waiting.get(0).queued());
+            assertEquals(0, waiting.get(1).running());
+            assertEquals(1, waiting.get(1).queued());
+            assertEquals(1, waiting.get(2).running());
+            assertEquals(2, scheduler.metrics().get(0).completed());
+            assertEquals(0, scheduler.metrics().get(2).completed());
+        });
+        bulkLatch.countDown(); // the running bulk work is awaited by close
+    }
+
+    /**
+     * Tests coalescing the waiting work of the same kind on the same page.
+     * Verifies that only the last submission runs, and that the submissions share a future.
+     */
+    @Test
+    public void coalesce() {
+        NotePage notePage = new NotePage("Page", "");
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> runs = Collections.synchronizedList(new ArrayList<>());
+        scheduler.submit(Lane.NEAR_REAL_TIME, () -> await(latch));
+        CompletableFuture<Void> first = scheduler.submit(Lane.NEAR_REAL_TIME, "index",
+                notePage, () -> runs.add(1));
+        CompletableFuture<Void> second = scheduler.submit(Lane.NEAR_REAL_TIME, "index",
+                notePage, () -> runs.add(2));
+        CompletableFuture<Void> other = scheduler.submit(Lane.NEAR_REAL_TIME, "autosave",
+                notePage, () -> runs.add(3));
+
+        latch.countDown();
+        CompletableFuture.allOf(second, other).join();
+        LaneMetrics metrics = scheduler.metrics().get(1);
+        assertAll(() -> {
+            assertSame(first, second);
+            assertEquals(List.of(2, 3), runs);
+            assertEquals(4, metrics.submitted());
+            assertEquals(1, metrics.coalesced());
+            assertEquals(3, metrics.completed());
+        });
+    }
+
+    /**
+     * Tests the backpressure of a burst of edits and of a full lane.
+     * Verifies that the bulk work waits until the edit rate is low again, and that the
+     *      submissions to a full lane are rejected.
+     */
+    @Test
+    public void backpressure() {
+        NotePage notePage = new NotePage("Page", "");
+        scheduler.watchEdits(notePage);
+        for (int i = 0; i < 21; i++) {
+            notePage.insertContent(0, "a");
+        }
+        CompletableFuture<Void> first = scheduler.submit(Lane.BULK, () -> { });
+        scheduler.submit(Lane.BULK, () -> { });
+        scheduler.submit(Lane.INTERACTIVE, () -> { }).join();
+        assertAll(() -> {
+            assertFalse(first.isDone());
+            assertThrows(RejectedExecutionException.class,
+                    () -> scheduler.submit(Lane.BULK, () -> { }));
+            assertEquals(21, scheduler.editRate());
+            assertTrue(scheduler.isBackpressured());
+            assertEquals(2, scheduler.metrics().get(2).queued());
+            assertEquals(1, scheduler.metrics().get(2).rejected());
+        });
+
+        clock.addAndGet(2 * SECOND + SECOND / 2);
+        scheduler.unwatchEdits(notePage);
+        scheduler.recordEdit();
+        first.join();
+        assertAll(() -> {
+            assertEquals(1, scheduler.editRate());
+            assertFalse(scheduler.isBackpressured());
+            assertEquals(2 * SECOND + SECOND / 2, scheduler.metrics().get(2).maxWaitNanos());
+        });
+    }
+
+    /**
+     * Tests a failing task, closing the scheduler and the exported metrics.
+     * Verifies that the failure completes the future, and that the waiting tasks are
+     *      cancelled when the scheduler is closed.
+     */
+    @Test
+    public void failAndClose() {
+        CompletableFuture<Void> failing = scheduler.submit(Lane.INTERACTIVE, () -> {
+            throw new IllegalStateException("failure");
+        });
+        assertThrows(CompletionException.class, failing::join);
+        for (int i = 0; i < 21; i++) {
+            scheduler.recordEdit();
+        }
+        CompletableFuture<Void> waiting = scheduler.submit(Lane.BULK, () -> { });
+        String json = scheduler.metricsJson();
+        scheduler.close();
+        assertAll(() -> {
+            assertEquals(1, scheduler.metrics().get(0).failed());
+            assertTrue(waiting.isCancelled());
+            assertTrue(json.startsWith("{\"editsPerSecond\":21,\"backpressured\":true,"));
+            assertTrue(json.contains("{\"lane\":\"BULK\",\"queued\":1,\"running\":0,"));
+            assertThrows(RejectedExecutionException.class,
+                    () -> scheduler.submit(Lane.INTERACTIVE, () -> { }));
+        });
+    }
+
+    // waits for a latch, ignoring the interrupts
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package notebookapplication.server;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link NotebookServer} class.
+ * This class tests the resources served for a notebook loaded from a note file,
+ *      requested by an HTTP client over the loopback address.
+ */
+public class NotebookServerTest {
+    private NoteFacade noteFacade;
+    private NotebookServer server;
+    private HttpClient client;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Loads a note file and starts a server on a free port before each test.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path file = tempDir.resolve("Notes.txt");
+        Files.writeString(file,
+                "[page=\"Page 1\"]Some content...[/page][page=\"Page 2\"]Other content[/page]");
+        noteFacade = NoteFacade.load(List.of(file));
+        server = new NotebookServer(noteFacade, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    /**
+     * Stops the server after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Tests listing the groups and the pages of a group.
+     * Verifies that the JSON lists contain the names and sizes of the model.
+     */
+    @Test
+    public void listResources() throws Exception {
+        HttpResponse<String> groups = get("/groups", null, null);
+        HttpResponse<String> pages = get("/groups/0/pages", null, null);
+        assertAll(() -> {
+            assertEquals(200, groups.statusCode());
+            assertEquals("[{\"index\":0,\"name\":\"Notes\",\"pages\":2}]", groups.body());
+            assertEquals(200, pages.statusCode());
+            assertTrue(pages.body().contains("\"name\":\"Page 2\""));
+            assertTrue(pages.body().contains("\"length\":13"));
+            assertEquals(404, get("/groups/1/pages", null, null).statusCode());
+            assertEquals(404, get("/groups/0/pages/2", null, null).statusCode());
+            assertEquals(404, get("/groups/0/pages/99999999999", null, null).statusCode());
+        });
+    }
+
+    /**
+     * Tests revalidating a page with its ETag before and after an edit.
+     * Verifies that the unchanged page is answered with 304 from the cache,
+     *      and that the edit invalidates the cached response and changes the ETag.
+     */
+    @Test
+    public void revalidatePage() throws Exception {
+        HttpResponse<String> first = get("/groups/0/pages/0", null, null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> unchanged = get("/groups/0/pages/0", etag, null);
+
+        NotePage notePage = noteFacade.getNoteGroups().getFirst().getNotePages().getFirst();
+        notePage.insertContent(0, "New ");
+        HttpResponse<String> changed = get("/groups/0/pages/0", etag, null);
+
+        assertAll(() -> {
+            assertEquals("Some content...", first.body());
+            assertEquals(304, unchanged.statusCode());
+            assertEquals(200, changed.statusCode());
+            assertEquals("New Some content...", changed.body());
+            assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+            assertTrue(server.cacheHitRate() > 0);
+        });
+    }
+
+    /**
+     * Tests revalidating a page with its ETag after the notebook is loaded again by
+     *      another server.
+     * Verifies that the ETag of a page changed on disk no longer matches, and that the ETag
+     *      of an unchanged page still does.
+     */
+    @Test
+    public void revalidateReloadedPage() throws Exception {
+        String etag = get("/groups/0/pages/0", null, null).headers()
+                .firstValue("ETag").orElseThrow();
+        String otherTag = get("/groups/0/pages/1", null, null).headers()
+                .firstValue("ETag").orElseThrow();
+        server.close();
+
+        Path file = tempDir.resolve("Notes.txt");
+        Files.writeString(file,
+                "[page=\"Page 1\"]Same length....[/page][page=\"Page 2\"]Other content[/page]");
+        noteFacade = NoteFacade.load(List.of(file));
+        server = new NotebookServer(noteFacade, 0);
+        server.start();
+        HttpResponse<String> changed = get("/groups/0/pages/0", etag, null);
+        assertAll(() -> {
+            assertEquals(200, changed.statusCode());
+            assertEquals("Same length....", changed.body());
+            assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+            assertEquals(304, get("/groups/0/pages/1", otherTag, null).statusCode());
+        });
+    }
+
+    /**
+     * Tests revalidating the lists with their ETags after the pages and groups change.
+     * Verifies that an edit, a renamed page and an added page change the cached lists.
+     */
+    @Test
+    public void revalidateLists() throws Exception {
+        String pagesTag = get("/groups/0/pages", null, null).headers()
+                .firstValue("ETag").orElseThrow();
+        NoteGroup noteGroup = noteFacade.getNoteGroups().getFirst();
+        noteGroup.getNotePages().get(1).insertContent(0, "More ");
+        HttpResponse<String> edited = get("/groups/0/pages", pagesTag, null);
+        String editedTag = edited.headers().firstValue("ETag").orElseThrow();
+        noteGroup.getNotePages().get(1).setPageName("Renamed");
+        HttpResponse<String> renamed = get("/groups/0/pages", editedTag, null);
+
+        String groupsTag = get("/groups", null, null).headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> unchanged = get("/groups", groupsTag, null);
+        noteGroup.addPage(new NotePage("Page 3", ""));
+        HttpResponse<String> added = get("/groups", groupsTag, null);
+        assertAll(() -> {
+            assertEquals(200, edited.statusCode());
+            assertTrue(edited.body().contains("\"length\":18"));
+            assertEquals(200, renamed.statusCode());
+            assertTrue(renamed.body().contains("\"name\":\"Renamed\""));
+            assertEquals(304, unchanged.statusCode());
+            assertEquals(200, added.statusCode());
+            assertEquals("[{\"index\":0,\"name\":\"Notes\",\"pages\":3}]", added.body());
+        });
+    }
+
+    /**
+     * Tests revalidating a page with a list of entity tags.
+     * Verifies that a listed entity tag matches, also weak, and that a tag containing the
+     *      entity tag or contained in it does not match.
+     */
+    @Test
+    public void entityTagList() throws Exception {
+        String etag = get("/groups/0/pages/0", null, null).headers()
+                .firstValue("ETag").orElseThrow();
+        String value = etag.substring(1, etag.length() - 1);
+        assertAll(() -> {
+            assertEquals(304, get("/groups/0/pages/0", STR."\"a\", \{etag}", null).statusCode());
+            assertEquals(304, get("/groups/0/pages/0", STR."W/\{etag}", null).statusCode());
+            assertEquals(304, get("/groups/0/pages/0", "*", null).statusCode());
+            assertEquals(200, get("/groups/0/pages/0", STR."\"\{value}0\"", null).statusCode());
+            assertEquals(200, get("/groups/0/pages/0", STR."\"x\{etag}\"", null).statusCode());
+            assertEquals(200, get("/groups/0/pages/0",
+                    STR."\"\{value.substring(1)}\"", null).statusCode());
+        });
+    }
+
+    /**
+     * Tests closing the server.
+     * Verifies that the server stops observing the pages it served.
+     */
+    @Test
+    public void closeRemovesListeners() throws Exception {
+        NotePage notePage = noteFacade.getNoteGroups().getFirst().getNotePages().getFirst();
+        long unobserved = notePage.listenerBytes();
+        get("/groups/0/pages", null, null);
+        long observed = notePage.listenerBytes();
+        server.close();
+        assertAll(() -> {
+            assertTrue(observed > unobserved);
+            assertEquals(unobserved, notePage.listenerBytes());
+        });
+    }
+
+    /**
+     * Tests requesting byte ranges of a page.
+     * Verifies the partial content, the suffix range and the unsatisfiable range.
+     */
+    @Test
+    public void rangeRequests() throws Exception {
+        HttpResponse<String> range = get("/groups/0/pages/1", null, "bytes=0-4");
+        HttpResponse<String> suffix = get("/groups/0/pages/1", null, "bytes=-7");
+        HttpResponse<String> unsatisfiable = get("/groups/0/pages/1", null, "bytes=20-");
+        assertAll(() -> {
+            assertEquals(206, range.statusCode());
+            assertEquals("Other", range.body());
+            assertEquals("bytes 0-4/13", range.headers().firstValue("Content-Range").orElse(""));
+            assertEquals(206, suffix.statusCode());
+            assertEquals("content", suffix.body());
+            assertEquals(416, unsatisfiable.statusCode());
+        });
+    }
+
+    /**
+     * Private auxiliary method to send a GET request to the server.
+     *
+     * @param path  the path of the request
+     * @param etag  the value of the If-None-Match header, null to omit it
+     * @param range the value of the Range header, null to omit it
+     * @return  the response with its body decoded as UTF-8
+     */
+    private HttpResponse<String> get(String path, String etag, String range)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create(STR."http://localhost:\{server.getPort()}\{path}"));
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (range != null) {
+            request.header("Range", range);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString(
+                StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,135 @@
+package notebookapplication.startup;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import notebookapplication.model.NoteFacade;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import notebookapplication.scheduler.WorkScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link LazyNotebookLoader} and {@link SessionSnapshot} classes.
+ * This class tests restoring the page of the last session, and loading the other groups
+ *      in the background in the order of their files.
+ */
+public class LazyNotebookLoaderTest {
+    private List<Path> files;
+    private WorkScheduler scheduler;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Sets up a notebook of three note files and a scheduler before each test.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        files = new ArrayList<>();
+        for (String groupName : List.of("Lectures", "Journal", "Ideas")) {
+            Path file = tempDir.resolve(STR."\{groupName}.txt");
+            Files.writeString(file, STR."[page=\"\{groupName} 1\"]First page[/page]"
+                    + STR."[page=\"\{groupName} 2\"]Second page[/page]", StandardCharsets.UTF_8);
+            files.add(file);
+        }
+        scheduler = new WorkScheduler();
+    }
+
+    /**
+     * Closes the scheduler after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    /**
+     * Tests saving and loading the session snapshot.
+     * Verifies that the open page is found by its position or by its name, and that the
+     *      caret is kept inside the page.
+     */
+    @Test
+    public void sessionSnapshot() throws IOException {
+        Path file = tempDir.resolve("session.bin");
+        new SessionSnapshot(files.get(1), "Journal 2", 0, 500, 12.5).save(file);
+        SessionSnapshot session = SessionSnapshot.load(file);
+        NoteGroup journal = NoteGroup.load(files.get(1));
+        NotePage page = session.findPage(journal);
+        Files.writeString(file, "not a snapshot");
+        assertAll(() -> {
+            assertEquals(files.get(1).toAbsolutePath(), session.groupFile());
+            assertSame(journal.getNotePages().get(1), page);
+            assertEquals("Second page".length(), session.caretPositionIn(page));
+            assertEquals(12.5, session.scrollTop());
+            assertNull(new SessionSnapshot(files.get(1), "Other", 1, 0, 0).findPage(journal));
+            assertThrows(IOException.class, () -> SessionSnapshot.load(file));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new SessionSnapshot(files.get(1), "Page", -1, 0, 0));
+        });
+    }
+
+    /**
+     * Tests loading the group of the last session first, then the other groups.
+     * Verifies that the groups end up in the order of their files.
+     */
+    @Test
+    public void loadFirstThenRest() throws IOException {
+        LazyNotebookLoader loader = new LazyNotebookLoader(files, scheduler, Runnable::run);
+        NoteGroup first = loader.loadFirst(
+                new SessionSnapshot(files.get(2), "Ideas 1", 0, 0, 0));
+        List<String> afterFirst = names(loader.getNoteFacade());
+        NoteFacade noteFacade = loader.loadRest().join();
+        assertAll(() -> {
+            assertEquals("Ideas", first.getGroupName());
+            assertEquals(files.get(2), loader.getFirstFile());
+            assertEquals(List.of("Ideas"), afterFirst);
+            assertEquals(List.of("Lectures", "Journal", "Ideas"), names(noteFacade));
+            assertThrows(IllegalStateException.class, () -> loader.loadFirst(null));
+        });
+    }
+
+    /**
+     * Tests loading a notebook with an invalid file and without a session.
+     * Verifies that the first file is loaded first, and that the other valid files are
+     *      still loaded.
+     */
+    @Test
+    public void loadWithInvalidFile() throws IOException {
+        Files.writeString(files.get(1), "rubbish");
+        LazyNotebookLoader loader = new LazyNotebookLoader(files, scheduler, Runnable::run);
+        assertThrows(IllegalStateException.class, loader::loadRest);
+        loader.loadFirst(null);
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> loader.loadRest().join());
+        assertAll(() -> {
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+            assertEquals(List.of("Lectures", "Ideas"), names(loader.getNoteFacade()));
+            assertNull(new LazyNotebookLoader(List.of(), scheduler, Runnable::run)
+                    .loadFirst(null));
+        });
+    }
+
+    // gets the names of the groups of a notebook
+    private static List<String> names(NoteFacade noteFacade) {
+        List<String> names = new ArrayList<>();
+        for (NoteGroup noteGroup : noteFacade.getNoteGroups()) {
+            names.add(noteGroup.getGroupName());
+        }
+        return names;
+    }
+}
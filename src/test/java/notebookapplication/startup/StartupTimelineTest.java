@@ -0,0 +1,55 @@
+package notebookapplication.startup;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link StartupTimeline} class.
+ * This class tests recording the milestones once and appending them to a history file.
+ */
+public class StartupTimelineTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests recording the milestones with a manual clock.
+     * Verifies that a milestone keeps its first time, and that every timeline is appended
+     *      as one JSON line.
+     */
+    @Test
+    public void milestones() throws IOException {
+        AtomicLong clock = new AtomicLong(5_000_000);
+        StartupTimeline timeline = new StartupTimeline(clock::get, 1_000_000);
+        clock.set(121_500_000);
+        timeline.mark(StartupTimeline.FIRST_PAINT);
+        clock.set(350_000_000);
+        double editable = timeline.mark(StartupTimeline.EDITABLE);
+        clock.set(900_000_000);
+        timeline.mark(StartupTimeline.FIRST_PAINT);
+
+        Path file = tempDir.resolve("timeline.jsonl");
+        timeline.appendTo(file, "1.0");
+        timeline.appendTo(file, "1.\"1\"");
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        String javaVersion = System.getProperty("java.version");
+        assertAll(() -> {
+            assertEquals(120.5, timeline.millis(StartupTimeline.FIRST_PAINT));
+            assertEquals(349.0, editable);
+            assertEquals(-1.0, timeline.millis(StartupTimeline.NOTEBOOK_LOADED));
+            assertEquals(2, lines.size());
+            assertEquals(STR."{\"release\":\"1.0\",\"javaVersion\":\"\{javaVersion}\","
+                    + "\"milestonesMillis\":{\"firstPaint\":120.5,\"editable\":349.0}}",
+                    lines.get(0));
+            assertEquals("{\"release\":\"1.\\\"1\\\"\",", lines.get(1).substring(0, 21));
+        });
+    }
+}
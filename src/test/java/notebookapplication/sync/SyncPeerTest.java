@@ -0,0 +1,73 @@
+package notebookapplication.sync;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import notebookapplication.model.NoteGroup;
+import notebookapplication.model.NotePage;
+import notebookapplication.model.ReplicatedGroup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link SyncPeer} class.
+ * This class tests exchanging the operations of two sessions over the loopback socket,
+ *      and rejecting a connection sending an invalid stream.
+ */
+public class SyncPeerTest {
+    private static final String INPUT =
+            "[page=\"Page 1\"]Some content...[/page][page=\"Page 2\"]Other content[/page]";
+    private static final List<Integer> REPLICAS = List.of(1, 2);
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests an edit and a new page of the connected session sent to the hosting session.
+     * Verifies that the frames are read back, and that a connection sending a serialized
+     *      Java object instead of frames is closed without affecting the others.
+     */
+    @Test
+    public void exchangeFrames() throws IOException, InterruptedException {
+        LinkedBlockingQueue<Runnable> hostTasks = new LinkedBlockingQueue<>();
+        Path file = Files.writeString(tempDir.resolve("Group.txt"), INPUT);
+        NoteGroup hostGroup = NoteGroup.load(file);
+        NoteGroup clientGroup = NoteGroup.load(file);
+        try (SyncPeer host = SyncPeer.host(0, hostTasks::add);
+             SyncPeer client = SyncPeer.connect(host.getPort(), Runnable::run);
+             Socket intruder = new Socket(InetAddress.getLoopbackAddress(), host.getPort())) {
+            host.register(new ReplicatedGroup("Group", hostGroup, 1, REPLICAS));
+            client.register(new ReplicatedGroup("Group", clientGroup, 2, REPLICAS));
+
+            DataOutputStream output = new DataOutputStream(intruder.getOutputStream());
+            output.writeShort(0xACED); // the header of a serialized Java object
+            output.writeShort(5);
+            output.flush();
+            InputStream input = intruder.getInputStream();
+            input.readNBytes(8); // the header of the frames sent by the host
+            assertEquals(-1, input.read()); // closed by the host
+
+            clientGroup.getNotePages().getFirst().insertContent(0, "Edited: ");
+            clientGroup.addPage(new NotePage("Page 3", "New"));
+            client.flush();
+            Runnable apply = hostTasks.poll(10, TimeUnit.SECONDS);
+            apply.run();
+            assertAll(() -> {
+                assertEquals("Edited: Some content...",
+                        hostGroup.getNotePages().getFirst().getContent());
+                assertEquals(3, hostGroup.getNotePages().size());
+                assertEquals("New", hostGroup.getNotePages().getLast().getContent());
+            });
+        }
+    }
+}